@@ -0,0 +1,246 @@
+package com.drone.delivery.common.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 两级近端缓存
+ * 一级为进程内Caffeine缓存，二级为Redis；读取依次穿透本地、Redis和数据源，回源结果同时写入两级。
+ * 写路径调用 {@link #evict} 删除Redis条目并通过Redis发布订阅通知所有实例清除本地条目，
+ * 处于事务中时在事务提交后才执行失效，避免其他实例在提交前回源读到旧数据。
+ * 每个键在Redis中带一个版本号，失效时递增；回源前读取版本号，回写时版本号未变才写入，
+ * 避免回源读到旧值的读者在并发写者失效之后把旧值写回，旧值在整个Redis过期时间内生效。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author Drone Delivery Team
+ */
+@Slf4j
+public class NearCache<K, V> {
+
+    /**
+     * 版本号键的过期时间，需远大于一次回源的耗时
+     */
+    private static final Duration VERSION_TTL = Duration.ofHours(1);
+
+    /**
+     * 版本号未变时写入值：KEYS[1] 值键，KEYS[2] 版本键；ARGV[1] 回源前的版本，ARGV[2] 值，ARGV[3] 过期毫秒
+     */
+    private static final DefaultRedisScript<Long> WRITE_IF_UNCHANGED_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('get', KEYS[2]) or '0' "
+                    + "if v ~= ARGV[1] then return 0 end "
+                    + "redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1",
+            Long.class);
+
+    /**
+     * 递增版本号并删除值：KEYS 依次为 值键、版本键 成对出现；ARGV[1] 版本键过期毫秒
+     */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS, 2 do "
+                    + "redis.call('del', KEYS[i]) "
+                    + "redis.call('incr', KEYS[i + 1]) "
+                    + "redis.call('pexpire', KEYS[i + 1], ARGV[1]) "
+                    + "end return #KEYS / 2",
+            Long.class);
+
+    private final String name;
+    private final Class<V> type;
+    private final Duration remoteTtl;
+    private final Cache<String, V> local;
+    private final StringRedisTemplate redisTemplate;
+    private final NearCacheManager manager;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong remoteHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    NearCache(String name, Class<V> type, Duration localTtl, Duration remoteTtl, long maximumSize,
+              StringRedisTemplate redisTemplate, NearCacheManager manager) {
+        this.name = name;
+        this.type = type;
+        this.remoteTtl = remoteTtl;
+        this.redisTemplate = redisTemplate;
+        this.manager = manager;
+        this.local = Caffeine.newBuilder()
+                .expireAfterWrite(localTtl)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * 读取缓存，两级均未命中时调用加载器回源
+     *
+     * @param key 键
+     * @param loader 回源加载器，返回 null 时不缓存
+     * @return 值
+     */
+    public V get(K key, Function<K, V> loader) {
+        String cacheKey = String.valueOf(key);
+        V value = local.getIfPresent(cacheKey);
+        if (value != null) {
+            localHits.incrementAndGet();
+            return value;
+        }
+
+        value = readRemote(cacheKey);
+        if (value != null) {
+            remoteHits.incrementAndGet();
+            local.put(cacheKey, value);
+            return value;
+        }
+
+        misses.incrementAndGet();
+        String version = readVersion(cacheKey);
+        value = loader.apply(key);
+        // 回源期间键被失效时不回填两级缓存，本次读取仍返回回源结果
+        if (value != null && writeRemote(cacheKey, version, value)) {
+            local.put(cacheKey, value);
+        }
+        return value;
+    }
+
+    /**
+     * 使单个键失效
+     *
+     * @param key 键
+     */
+    public void evict(K key) {
+        evictAll(Collections.singletonList(key));
+    }
+
+    /**
+     * 批量使键失效，只发布一条失效消息
+     *
+     * @param keys 键集合
+     */
+    public void evictAll(Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        List<String> cacheKeys = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            cacheKeys.add(String.valueOf(key));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(cacheKeys);
+                }
+            });
+        } else {
+            doEvict(cacheKeys);
+        }
+    }
+
+    /**
+     * 缓存名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 命中统计
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.get());
+        stats.put("remoteHits", remoteHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("localSize", local.estimatedSize());
+        return stats;
+    }
+
+    /**
+     * 收到失效消息后清除本地条目
+     */
+    void invalidateLocal(Collection<String> cacheKeys) {
+        local.invalidateAll(cacheKeys);
+    }
+
+    private void doEvict(List<String> cacheKeys) {
+        evictions.addAndGet(cacheKeys.size());
+        local.invalidateAll(cacheKeys);
+        try {
+            List<String> redisKeys = new ArrayList<>(cacheKeys.size() * 2);
+            for (String cacheKey : cacheKeys) {
+                redisKeys.add(redisKey(cacheKey));
+                redisKeys.add(versionKey(cacheKey));
+            }
+            redisTemplate.execute(EVICT_SCRIPT, redisKeys, String.valueOf(VERSION_TTL.toMillis()));
+        } catch (Exception e) {
+            log.warn("删除Redis缓存失败，缓存: {}，键: {}", name, cacheKeys, e);
+        }
+        manager.publishInvalidation(name, cacheKeys);
+    }
+
+    private V readRemote(String cacheKey) {
+        try {
+            String json = redisTemplate.opsForValue().get(redisKey(cacheKey));
+            return json != null ? JSON.parseObject(json, type) : null;
+        } catch (Exception e) {
+            log.warn("读取Redis缓存失败，缓存: {}，键: {}", name, cacheKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取键的当前版本号，Redis不可用时返回 null
+     */
+    private String readVersion(String cacheKey) {
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey(cacheKey));
+            return version != null ? version : "0";
+        } catch (Exception e) {
+            log.warn("读取缓存版本失败，缓存: {}，键: {}", name, cacheKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 版本号未变时回写Redis
+     *
+     * @return 是否可以回填本地缓存：版本未变并已写入，或Redis不可用（仅本地缓存，依赖本地过期）
+     */
+    private boolean writeRemote(String cacheKey, String version, V value) {
+        if (version == null) {
+            return true;
+        }
+        try {
+            Long written = redisTemplate.execute(WRITE_IF_UNCHANGED_SCRIPT,
+                    List.of(redisKey(cacheKey), versionKey(cacheKey)),
+                    version, JSON.toJSONString(value), String.valueOf(remoteTtl.toMillis()));
+            return written != null && written > 0;
+        } catch (Exception e) {
+            log.warn("写入Redis缓存失败，缓存: {}，键: {}", name, cacheKey, e);
+            return false;
+        }
+    }
+
+    private String redisKey(String cacheKey) {
+        return NearCacheManager.KEY_PREFIX + name + ":" + cacheKey;
+    }
+
+    private String versionKey(String cacheKey) {
+        return NearCacheManager.KEY_PREFIX + name + ":ver:" + cacheKey;
+    }
+}
@@ -0,0 +1,112 @@
+package com.drone.delivery.common.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 近端缓存管理器
+ * 负责创建各实体的 {@link NearCache}，并监听Redis失效频道清除本机的本地缓存条目。
+ * 各缓存的过期时间和容量可通过 drone.cache.&lt;名称&gt;.local-ttl-seconds /
+ * remote-ttl-seconds / maximum-size 覆盖。
+ *
+ * @author Drone Delivery Team
+ */
+@Slf4j
+public class NearCacheManager implements MessageListener {
+
+    /**
+     * Redis键前缀
+     */
+    public static final String KEY_PREFIX = "near-cache:";
+
+    /**
+     * 失效通知频道
+     */
+    public static final String INVALIDATION_CHANNEL = "near-cache:invalidate";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Environment environment;
+    private final Map<String, NearCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(StringRedisTemplate redisTemplate, Environment environment) {
+        this.redisTemplate = redisTemplate;
+        this.environment = environment;
+    }
+
+    /**
+     * 获取或创建缓存，配置项优先于传入的默认值
+     *
+     * @param name 缓存名称
+     * @param type 值类型
+     * @param localTtl 本地缓存默认过期时间
+     * @param remoteTtl Redis缓存默认过期时间
+     * @param maximumSize 本地缓存默认最大条目数
+     * @return 缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> NearCache<K, V> getCache(String name, Class<V> type,
+                                           Duration localTtl, Duration remoteTtl, long maximumSize) {
+        return (NearCache<K, V>) caches.computeIfAbsent(name, n -> {
+            String prefix = "drone.cache." + n + ".";
+            Duration resolvedLocalTtl = Duration.ofSeconds(environment.getProperty(
+                    prefix + "local-ttl-seconds", Long.class, localTtl.getSeconds()));
+            Duration resolvedRemoteTtl = Duration.ofSeconds(environment.getProperty(
+                    prefix + "remote-ttl-seconds", Long.class, remoteTtl.getSeconds()));
+            long resolvedMaximumSize = environment.getProperty(prefix + "maximum-size", Long.class, maximumSize);
+            log.info("创建近端缓存: {}，本地过期: {}s，Redis过期: {}s，本地容量: {}",
+                    n, resolvedLocalTtl.getSeconds(), resolvedRemoteTtl.getSeconds(), resolvedMaximumSize);
+            return new NearCache<>(n, type, resolvedLocalTtl, resolvedRemoteTtl, resolvedMaximumSize,
+                    redisTemplate, this);
+        });
+    }
+
+    /**
+     * 所有缓存的命中统计
+     */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.stats()));
+        return stats;
+    }
+
+    /**
+     * 广播失效消息，所有实例（含本机）收到后清除本地条目
+     */
+    void publishInvalidation(String name, Collection<String> keys) {
+        JSONObject message = new JSONObject();
+        message.put("cache", name);
+        message.put("keys", keys);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message.toJSONString());
+        } catch (Exception e) {
+            log.warn("发布缓存失效消息失败，缓存: {}，键: {}", name, keys, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            JSONObject body = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8));
+            NearCache<?, ?> cache = caches.get(body.getString("cache"));
+            if (cache != null) {
+                List<String> keys = body.getList("keys", String.class);
+                cache.invalidateLocal(keys);
+            }
+        } catch (Exception e) {
+            log.warn("处理缓存失效消息失败", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.drone.delivery.common.config;
+
+import com.drone.delivery.common.utils.SnowflakeIdGenerator;
+import com.drone.delivery.common.utils.WorkerIdLease;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * ID生成器配置
+ * 机器ID和数据中心ID通过 drone.id.worker-id / drone.id.datacenter-id 显式配置；
+ * 未配置机器ID时从Redis租用全局唯一的机器号槽位，两者都不可用时启动失败，不再按主机信息推算。
+ *
+ * @author Drone Delivery Team
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+    @Value("${drone.id.worker-id:-1}")
+    private long workerId;
+
+    @Value("${drone.id.datacenter-id:0}")
+    private long datacenterId;
+
+    @Value("${drone.id.max-backward-millis:5}")
+    private long maxBackwardMillis;
+
+    @Value("${drone.id.lease-ttl-seconds:60}")
+    private long leaseTtlSeconds;
+
+    @Value("${spring.application.name:unknown}")
+    private String applicationName;
+
+    /**
+     * 仅在未配置机器ID时租用机器号
+     */
+    @Bean
+    @ConditionalOnExpression("${drone.id.worker-id:-1} < 0")
+    public WorkerIdLease workerIdLease(ObjectProvider<StringRedisTemplate> stringRedisTemplate) {
+        StringRedisTemplate redisTemplate = stringRedisTemplate.getIfAvailable();
+        if (redisTemplate == null) {
+            throw new IllegalStateException("未配置 drone.id.worker-id，且没有可用的Redis用于租用机器号");
+        }
+        return new WorkerIdLease(redisTemplate, Duration.ofSeconds(leaseTtlSeconds), applicationName);
+    }
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(ObjectProvider<WorkerIdLease> workerIdLease) {
+        if (workerId >= 0) {
+            return new SnowflakeIdGenerator(workerId, datacenterId, maxBackwardMillis);
+        }
+        WorkerIdLease lease = workerIdLease.getIfAvailable();
+        if (lease == null) {
+            throw new IllegalStateException("未配置 drone.id.worker-id，且没有可用的机器号租约");
+        }
+        int slot;
+        try {
+            slot = lease.acquire();
+        } catch (Exception e) {
+            throw new IllegalStateException("未配置 drone.id.worker-id，且从Redis租用机器号失败", e);
+        }
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(
+                slot & SnowflakeIdGenerator.MAX_WORKER_ID,
+                slot >> 5,
+                maxBackwardMillis);
+        lease.startRenewal(generator);
+        return generator;
+    }
+}
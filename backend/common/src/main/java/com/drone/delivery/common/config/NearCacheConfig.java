@@ -0,0 +1,36 @@
+package com.drone.delivery.common.config;
+
+import com.drone.delivery.common.cache.NearCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 近端缓存配置
+ *
+ * @author Drone Delivery Team
+ */
+@Configuration
+public class NearCacheConfig {
+
+    @Bean
+    public NearCacheManager nearCacheManager(StringRedisTemplate stringRedisTemplate, Environment environment) {
+        return new NearCacheManager(stringRedisTemplate, environment);
+    }
+
+    /**
+     * 订阅缓存失效频道
+     */
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    NearCacheManager nearCacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(nearCacheManager, new ChannelTopic(NearCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -14,49 +14,29 @@ import lombok.Getter;
 public enum OrderStatus {
     
     /**
-     * 待支付
+     * 待接单
      */
-    PENDING_PAYMENT(0, "待支付"),
+    WAITING_ACCEPT(1, "待接单"),
     
     /**
-     * 已支付，待接单
-     */
-    PAID(1, "已支付"),
-    
-    /**
-     * 已接单，待取货
+     * 已接单，待起飞
      */
     ACCEPTED(2, "已接单"),
     
-    /**
-     * 取货中
-     */
-    PICKING_UP(3, "取货中"),
-    
     /**
      * 配送中
      */
-    DELIVERING(4, "配送中"),
+    DELIVERING(3, "配送中"),
     
     /**
-     * 已送达
+     * 已完成
      */
-    DELIVERED(5, "已送达"),
+    COMPLETED(4, "已完成"),
     
     /**
      * 已取消
      */
-    CANCELLED(6, "已取消"),
-    
-    /**
-     * 配送失败
-     */
-    FAILED(7, "配送失败"),
-    
-    /**
-     * 已退款
-     */
-    REFUNDED(8, "已退款");
+    CANCELLED(5, "已取消");
     
     /**
      * 状态码
@@ -85,21 +65,42 @@ public enum OrderStatus {
     
     /**
      * 判断是否为终态
-     * 终态包括：已送达、已取消、配送失败、已退款
+     * 终态包括：已完成、已取消
      * 
      * @return true: 终态, false: 非终态
      */
     public boolean isFinalStatus() {
-        return this == DELIVERED || this == CANCELLED || this == FAILED || this == REFUNDED;
+        return this == COMPLETED || this == CANCELLED;
     }
     
     /**
      * 判断是否可以取消
-     * 只有待支付、已支付、已接单状态可以取消
+     * 只有待接单、已接单状态可以取消，开始配送后不可取消
      * 
      * @return true: 可取消, false: 不可取消
      */
     public boolean canCancel() {
-        return this == PENDING_PAYMENT || this == PAID || this == ACCEPTED;
+        return this == WAITING_ACCEPT || this == ACCEPTED;
+    }
+    
+    /**
+     * 判断是否允许流转到目标状态
+     * 
+     * @param target 目标状态
+     * @return true: 允许, false: 不允许
+     */
+    public boolean canTransitTo(OrderStatus target) {
+        switch (target) {
+            case ACCEPTED:
+                return this == WAITING_ACCEPT;
+            case DELIVERING:
+                return this == ACCEPTED;
+            case COMPLETED:
+                return this == DELIVERING;
+            case CANCELLED:
+                return canCancel();
+            default:
+                return false;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.drone.delivery.common.event;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单状态变更事件
+ * 订单服务在状态变更的事务中写入发件箱，发布到订单事件交换机，飞手服务等下游服务订阅。
+ * 事件至少投递一次，消费方需以消息ID去重。
+ * 事件只携带本次流转写入的列和调用方已知的字段，不在流转后回查订单，其余字段为空。
+ *
+ * @author Drone Delivery Team
+ */
+@Data
+public class OrderEvent {
+
+    /**
+     * 订单事件交换机（topic）
+     */
+    public static final String EXCHANGE = "order.event.exchange";
+
+    /**
+     * 发件箱聚合类型
+     */
+    public static final String AGGREGATE_TYPE = "order";
+
+    /**
+     * 飞手接单路由键
+     */
+    public static final String ACCEPTED = "order.accepted";
+
+    /**
+     * 开始配送路由键
+     */
+    public static final String DELIVERING = "order.delivering";
+
+    /**
+     * 订单完成路由键
+     */
+    public static final String COMPLETED = "order.completed";
+
+    /**
+     * 订单取消路由键
+     */
+    public static final String CANCELLED = "order.cancelled";
+
+    /**
+     * 订单支付路由键
+     */
+    public static final String PAID = "order.paid";
+
+    /**
+     * 订单ID
+     */
+    private Long orderId;
+
+    /**
+     * 订单号
+     */
+    private String orderNo;
+
+    /**
+     * 下单用户ID
+     */
+    private Long userId;
+
+    /**
+     * 飞手ID
+     */
+    private Long pilotId;
+
+    /**
+     * 流转前的订单状态
+     */
+    private Integer previousStatus;
+
+    /**
+     * 订单状态：1-待接单，2-已接单，3-配送中，4-已完成，5-已取消
+     */
+    private Integer status;
+
+    /**
+     * 支付状态
+     */
+    private Integer payStatus;
+
+    /**
+     * 订单金额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 实付金额
+     */
+    private BigDecimal payAmount;
+
+    /**
+     * 取消原因
+     */
+    private String cancelReason;
+
+    /**
+     * 状态变更时间
+     */
+    private LocalDateTime occurredTime;
+}
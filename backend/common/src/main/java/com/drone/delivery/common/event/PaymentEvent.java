@@ -0,0 +1,87 @@
+package com.drone.delivery.common.event;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 支付结果事件
+ * 支付服务在支付状态变更的事务中写入发件箱，发布到支付事件交换机，订单服务等下游服务订阅。
+ * 同一笔支付可能因重新投递收到多次，消费方需按支付流水号幂等处理。
+ *
+ * @author Drone Delivery Team
+ */
+@Data
+public class PaymentEvent {
+
+    /**
+     * 支付事件交换机（topic）
+     */
+    public static final String EXCHANGE = "payment.event.exchange";
+
+    /**
+     * 发件箱聚合类型
+     */
+    public static final String AGGREGATE_TYPE = "payment";
+
+    /**
+     * 支付成功路由键
+     */
+    public static final String SUCCEEDED = "payment.succeeded";
+
+    /**
+     * 支付失败路由键
+     */
+    public static final String FAILED = "payment.failed";
+
+    /**
+     * 支付流水号
+     */
+    private String paymentNo;
+
+    /**
+     * 订单ID
+     */
+    private Long orderId;
+
+    /**
+     * 订单号
+     */
+    private String orderNo;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 支付金额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 支付方式：1-微信支付，2-支付宝，3-银行卡，4-余额支付
+     */
+    private Integer paymentMethod;
+
+    /**
+     * 支付状态：3-支付成功，4-支付失败
+     */
+    private Integer status;
+
+    /**
+     * 第三方交易号
+     */
+    private String thirdPartyTransactionId;
+
+    /**
+     * 失败原因
+     */
+    private String failReason;
+
+    /**
+     * 状态变更时间
+     */
+    private LocalDateTime occurredTime;
+}
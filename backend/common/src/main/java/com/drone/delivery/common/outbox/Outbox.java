@@ -0,0 +1,86 @@
+package com.drone.delivery.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * 事务发件箱
+ * 业务在状态变更的同一事务中调用 {@link #append} 写入事件行，事务提交则事件必然发布、回滚则事件随之消失，
+ * 不会出现状态已变更而事件丢失，或事件已发出而状态回滚的情况。事件由 {@link OutboxRelay} 异步发布，
+ * 提交后立即唤醒中继，正常情况下延迟在毫秒级。
+ * 消费方按至少一次语义处理，可在处理事件的事务中调用 {@link #tryConsume} 去重。
+ *
+ * @author Drone Delivery Team
+ */
+public class Outbox {
+
+    private final OutboxEventMapper outboxEventMapper;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final String source;
+
+    public Outbox(OutboxEventMapper outboxEventMapper, OutboxRelay outboxRelay, ObjectMapper objectMapper, String source) {
+        this.outboxEventMapper = outboxEventMapper;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+        this.source = source;
+    }
+
+    /**
+     * 在当前事务中写入一条事件
+     *
+     * @param aggregateType 聚合类型，如 order、payment
+     * @param aggregateId 聚合ID，同一聚合的事件按写入顺序发布
+     * @param exchange 目标交换机
+     * @param routingKey 路由键（事件类型）
+     * @param payload 事件内容，以JSON发布
+     */
+    public void append(String aggregateType, Object aggregateId, String exchange, String routingKey, Object payload) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("发件箱事件必须在事务中写入");
+        }
+        OutboxEvent event = new OutboxEvent();
+        event.setSource(source);
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(String.valueOf(aggregateId));
+        event.setExchange(exchange);
+        event.setRoutingKey(routingKey);
+        event.setPayload(toJson(payload));
+        event.setStatus(0);
+        event.setCreateTime(LocalDateTime.now());
+        outboxEventMapper.insert(event);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wake();
+            }
+        });
+    }
+
+    /**
+     * 在当前事务中登记事件已被消费
+     *
+     * @param consumer 消费者名称，同一事件可被多个消费者各处理一次
+     * @param messageId 事件ID（消息ID）
+     * @return 是否首次消费，false 表示重复投递，应直接忽略
+     */
+    public boolean tryConsume(String consumer, Long messageId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("事件消费登记必须在事务中进行");
+        }
+        return outboxEventMapper.insertConsumed(consumer, messageId, LocalDateTime.now()) > 0;
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("发件箱事件序列化失败", e);
+        }
+    }
+}
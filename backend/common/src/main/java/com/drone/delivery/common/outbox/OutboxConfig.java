@@ -0,0 +1,60 @@
+package com.drone.delivery.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * 事务发件箱配置
+ * 仅在引入了 RabbitMQ 且配置 outbox.enabled=true 的服务中生效，服务库中需建好 db/outbox.sql 中的表
+ *
+ * @author Drone Delivery Team
+ */
+@Configuration
+@ConditionalOnClass(RabbitTemplate.class)
+@ConditionalOnProperty(prefix = "outbox", name = "enabled", havingValue = "true")
+public class OutboxConfig {
+
+    /**
+     * 发件箱Mapper不在各服务的 @Mapper 扫描包内，直接注册到 MyBatis 配置中；
+     * 不声明 MapperFactoryBean，以免关闭各服务的自动Mapper扫描
+     */
+    @Bean
+    public OutboxEventMapper outboxEventMapper(SqlSessionTemplate sqlSessionTemplate) {
+        org.apache.ibatis.session.Configuration configuration = sqlSessionTemplate.getConfiguration();
+        if (!configuration.hasMapper(OutboxEventMapper.class)) {
+            configuration.addMapper(OutboxEventMapper.class);
+        }
+        return sqlSessionTemplate.getMapper(OutboxEventMapper.class);
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxEventMapper outboxEventMapper,
+                                   RabbitTemplate rabbitTemplate,
+                                   StringRedisTemplate stringRedisTemplate,
+                                   @Value("${spring.application.name}") String source,
+                                   @Value("${outbox.relay.batch-size:200}") int batchSize,
+                                   @Value("${outbox.relay.poll-interval-millis:500}") long pollIntervalMillis,
+                                   @Value("${outbox.relay.confirm-timeout-millis:5000}") long confirmTimeoutMillis,
+                                   @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                                   @Value("${outbox.retention-hours:72}") long retentionHours) {
+        return new OutboxRelay(outboxEventMapper, rabbitTemplate, stringRedisTemplate, source,
+                batchSize, pollIntervalMillis, confirmTimeoutMillis, maxAttempts, Duration.ofHours(retentionHours));
+    }
+
+    @Bean
+    public Outbox outbox(OutboxEventMapper outboxEventMapper,
+                         OutboxRelay outboxRelay,
+                         ObjectMapper objectMapper,
+                         @Value("${spring.application.name}") String source) {
+        return new Outbox(outboxEventMapper, outboxRelay, objectMapper, source);
+    }
+}
@@ -0,0 +1,85 @@
+package com.drone.delivery.common.outbox;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 发件箱事件实体类
+ *
+ * @author Drone Delivery Team
+ */
+@Data
+@TableName("outbox_event")
+public class OutboxEvent {
+
+    /**
+     * 事件ID，自增，同一聚合内的顺序即发布顺序
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 写入事件的服务
+     */
+    @TableField("source")
+    private String source;
+
+    /**
+     * 聚合类型
+     */
+    @TableField("aggregate_type")
+    private String aggregateType;
+
+    /**
+     * 聚合ID
+     */
+    @TableField("aggregate_id")
+    private String aggregateId;
+
+    /**
+     * 目标交换机
+     */
+    @TableField("exchange")
+    private String exchange;
+
+    /**
+     * 路由键
+     */
+    @TableField("routing_key")
+    private String routingKey;
+
+    /**
+     * 事件内容（JSON）
+     */
+    @TableField("payload")
+    private String payload;
+
+    /**
+     * 状态：0-待发布，1-已发布，2-已搁置（多次发布失败，需人工处理后改回0）
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 发布失败次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+
+    /**
+     * 发布时间
+     */
+    @TableField("publish_time")
+    private LocalDateTime publishTime;
+}
@@ -0,0 +1,124 @@
+package com.drone.delivery.common.outbox;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 发件箱Mapper接口
+ * 不在各服务的Mapper扫描范围内，由 {@link OutboxConfig} 手动注册
+ *
+ * @author Drone Delivery Team
+ */
+public interface OutboxEventMapper extends BaseMapper<OutboxEvent> {
+
+    /**
+     * 按ID顺序读取待发布事件
+     *
+     * @param source 服务名
+     * @param limit 最多读取条数
+     * @return 待发布事件
+     */
+    @Select("SELECT id, source, aggregate_type, aggregate_id, exchange, routing_key, payload, status, create_time "
+            + "FROM outbox_event WHERE source = #{source} AND status = 0 ORDER BY id LIMIT #{limit}")
+    List<OutboxEvent> selectPending(@Param("source") String source, @Param("limit") int limit);
+
+    /**
+     * 批量置为已发布
+     *
+     * @param ids 事件ID列表
+     * @param publishTime 发布时间
+     * @return 更新行数
+     */
+    @Update("<script>"
+            + "UPDATE outbox_event SET status = 1, publish_time = #{publishTime} WHERE status = 0 AND id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "</script>")
+    int markPublished(@Param("ids") List<Long> ids, @Param("publishTime") LocalDateTime publishTime);
+
+    /**
+     * 记录一次发布失败，失败次数达到上限的事件置为搁置，不再占用待发布窗口
+     * status 先于 attempts 赋值，判断使用的是本次累加前的失败次数
+     *
+     * @param ids 事件ID列表
+     * @param maxAttempts 最大发布次数
+     * @return 更新行数
+     */
+    @Update("<script>"
+            + "UPDATE outbox_event SET status = IF(attempts + 1 >= #{maxAttempts}, 2, status), attempts = attempts + 1 "
+            + "WHERE status = 0 AND id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "</script>")
+    int markFailed(@Param("ids") List<Long> ids, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 批量置为搁置，用于排在已搁置事件之后的同一聚合事件，保持聚合内顺序
+     *
+     * @param ids 事件ID列表
+     * @return 更新行数
+     */
+    @Update("<script>"
+            + "UPDATE outbox_event SET status = 2 WHERE status = 0 AND id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "</script>")
+    int markParked(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询其中已有搁置事件的聚合
+     *
+     * @param source 服务名
+     * @param aggregates 聚合键列表，格式为 聚合类型:聚合ID
+     * @return 有搁置事件的聚合键
+     */
+    @Select("<script>"
+            + "SELECT DISTINCT CONCAT(aggregate_type, ':', aggregate_id) FROM outbox_event "
+            + "WHERE source = #{source} AND status = 2 AND CONCAT(aggregate_type, ':', aggregate_id) IN "
+            + "<foreach collection='aggregates' item='aggregate' open='(' separator=',' close=')'>#{aggregate}</foreach>"
+            + "</script>")
+    List<String> selectParkedAggregates(@Param("source") String source,
+                                        @Param("aggregates") Collection<String> aggregates);
+
+    /**
+     * 删除截止时间之前已发布的事件
+     *
+     * @param source 服务名
+     * @param expireTime 截止时间
+     * @param limit 单次最多删除行数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM outbox_event WHERE source = #{source} AND status = 1 AND publish_time < #{expireTime} LIMIT #{limit}")
+    int deletePublishedBefore(@Param("source") String source,
+                              @Param("expireTime") LocalDateTime expireTime,
+                              @Param("limit") int limit);
+
+    /**
+     * 记录事件已被某消费者处理，重复记录时忽略
+     *
+     * @param consumer 消费者名称
+     * @param messageId 事件ID
+     * @param createTime 消费时间
+     * @return 1-首次消费，0-重复投递
+     */
+    @Insert("INSERT IGNORE INTO outbox_consumed (consumer, message_id, create_time) "
+            + "VALUES (#{consumer}, #{messageId}, #{createTime})")
+    int insertConsumed(@Param("consumer") String consumer,
+                       @Param("messageId") Long messageId,
+                       @Param("createTime") LocalDateTime createTime);
+
+    /**
+     * 删除截止时间之前的消费记录
+     *
+     * @param expireTime 截止时间
+     * @param limit 单次最多删除行数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM outbox_consumed WHERE create_time < #{expireTime} LIMIT #{limit}")
+    int deleteConsumedBefore(@Param("expireTime") LocalDateTime expireTime, @Param("limit") int limit);
+}
@@ -0,0 +1,360 @@
+package com.drone.delivery.common.outbox;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发件箱中继
+ * 单独的线程按事件ID顺序批量读取待发布事件发布到 RabbitMQ，Broker确认后整批置为已发布。
+ * 同一聚合的事件逐轮发布：每轮发出各聚合的下一条事件并等待确认，某聚合的事件发布失败时，
+ * 该聚合的后续事件留到下一次再发，保证同一聚合的事件按提交顺序到达；不同聚合之间并行。
+ * 发布失败次数达到上限的事件连同同一聚合的后续事件置为已搁置，不再占用待发布窗口，排查后人工改回待发布；
+ * 一次中继有读取但没有发布成功的事件时，轮询间隔逐次加倍退避，有进展后恢复。
+ * 集群中同一服务只有持有Redis租约的实例执行中继，避免多实例交错发布打乱顺序；租约在每批和每轮发送前原子续期，
+ * 续期失败即停止发布；Redis不可用时暂停发布。
+ * 事件可能因确认后未及时置为已发布而重复发出，消费方需去重。
+ *
+ * @author Drone Delivery Team
+ */
+@Slf4j
+public class OutboxRelay {
+
+    private static final String LEASE_KEY = "outbox:relay:";
+
+    /**
+     * 无进展时的最大轮询间隔
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    /**
+     * 仍由本实例持有时续期租约
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    /**
+     * 仍由本实例持有时释放租约
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final OutboxEventMapper outboxEventMapper;
+    private final RabbitTemplate rabbitTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String source;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long confirmTimeoutMillis;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final String leaseKey;
+    private final String leaseOwner = UUID.randomUUID().toString();
+    private final Duration leaseTtl;
+
+    private final Semaphore signal = new Semaphore(0);
+    private volatile boolean running;
+    private Thread worker;
+    private long nextCleanupMillis;
+    private int stalledPasses;
+
+    public OutboxRelay(OutboxEventMapper outboxEventMapper,
+                       RabbitTemplate rabbitTemplate,
+                       StringRedisTemplate stringRedisTemplate,
+                       String source,
+                       int batchSize,
+                       long pollIntervalMillis,
+                       long confirmTimeoutMillis,
+                       int maxAttempts,
+                       Duration retention) {
+        this.outboxEventMapper = outboxEventMapper;
+        this.rabbitTemplate = rabbitTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.source = source;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.confirmTimeoutMillis = confirmTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        this.leaseKey = LEASE_KEY + source;
+        this.leaseTtl = Duration.ofMillis(Math.max(pollIntervalMillis * 10, 10000));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+            log.warn("未开启发布确认（spring.rabbitmq.publisher-confirm-type=correlated），发件箱事件发出即视为已发布");
+        }
+        running = true;
+        worker = new Thread(this::run, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 唤醒中继立即发布，不必等到下一个轮询周期
+     */
+    public void wake() {
+        signal.release();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        signal.release();
+        if (worker != null) {
+            worker.join(confirmTimeoutMillis + 1000);
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey), leaseOwner);
+        } catch (Exception e) {
+            log.debug("释放发件箱中继租约失败", e);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                signal.tryAcquire(waitMillis(), TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+                if (!running || !holdLease()) {
+                    continue;
+                }
+                int published;
+                do {
+                    published = relayOnce();
+                } while (running && published >= batchSize && renewLease());
+                cleanupIfDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("发件箱中继异常", e);
+            }
+        }
+    }
+
+    /**
+     * 下一次轮询的等待时间，连续无进展时逐次加倍
+     */
+    private long waitMillis() {
+        if (stalledPasses == 0) {
+            return pollIntervalMillis;
+        }
+        return Math.min(pollIntervalMillis << Math.min(stalledPasses, 6), MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * 发布一批待发布事件
+     *
+     * @return 发布成功的事件数
+     */
+    int relayOnce() throws InterruptedException {
+        List<OutboxEvent> events = outboxEventMapper.selectPending(source, batchSize);
+        if (events.isEmpty()) {
+            stalledPasses = 0;
+            return 0;
+        }
+
+        // 按聚合分组，组内保持ID顺序
+        Map<String, Deque<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            byAggregate.computeIfAbsent(event.getAggregateType() + ":" + event.getAggregateId(), k -> new ArrayDeque<>())
+                    .add(event);
+        }
+        parkBlocked(byAggregate);
+
+        List<Long> published = new ArrayList<>(events.size());
+        List<Long> failed = new ArrayList<>();
+        while (!byAggregate.isEmpty()) {
+            if (!renewLease()) {
+                log.warn("发件箱中继租约已失效，停止本批发布");
+                break;
+            }
+            List<OutboxEvent> round = new ArrayList<>(byAggregate.size());
+            byAggregate.values().forEach(queue -> round.add(queue.peek()));
+            List<CorrelationData> confirms = send(round);
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMillis);
+            Iterator<Deque<OutboxEvent>> it = byAggregate.values().iterator();
+            for (int i = 0; it.hasNext(); i++) {
+                Deque<OutboxEvent> queue = it.next();
+                OutboxEvent event = queue.poll();
+                if (!confirmed(event, confirms.get(i), deadline)) {
+                    // 该聚合本批不再发布，后续事件留到下一次
+                    failed.add(event.getId());
+                    it.remove();
+                    continue;
+                }
+                published.add(event.getId());
+                if (queue.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+
+        if (!published.isEmpty()) {
+            outboxEventMapper.markPublished(published, LocalDateTime.now());
+        }
+        if (!failed.isEmpty()) {
+            outboxEventMapper.markFailed(failed, maxAttempts);
+        }
+        stalledPasses = published.isEmpty() ? stalledPasses + 1 : 0;
+        log.debug("发件箱中继完成，读取: {}, 发布: {}, 失败: {}", events.size(), published.size(), failed.size());
+        return published.size();
+    }
+
+    /**
+     * 已有搁置事件的聚合，本批事件一并搁置，不再发布
+     */
+    private void parkBlocked(Map<String, Deque<OutboxEvent>> byAggregate) {
+        List<String> parkedAggregates = outboxEventMapper.selectParkedAggregates(source, byAggregate.keySet());
+        if (parkedAggregates.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String aggregate : parkedAggregates) {
+            Deque<OutboxEvent> queue = byAggregate.remove(aggregate);
+            if (queue != null) {
+                queue.forEach(event -> ids.add(event.getId()));
+            }
+        }
+        if (!ids.isEmpty()) {
+            outboxEventMapper.markParked(ids);
+            log.warn("发件箱聚合存在已搁置事件，后续事件一并搁置，聚合: {}, 事件数: {}", parkedAggregates, ids.size());
+        }
+    }
+
+    /**
+     * 在同一个通道上依次发出一轮事件，发送失败的位置为 null
+     */
+    private List<CorrelationData> send(List<OutboxEvent> round) {
+        return rabbitTemplate.invoke(operations -> {
+            List<CorrelationData> confirms = new ArrayList<>(round.size());
+            for (OutboxEvent event : round) {
+                CorrelationData correlation = new CorrelationData(String.valueOf(event.getId()));
+                try {
+                    operations.send(event.getExchange(), event.getRoutingKey(), toMessage(event), correlation);
+                    confirms.add(correlation);
+                } catch (Exception e) {
+                    log.warn("发件箱事件发送失败，事件ID: {}", event.getId(), e);
+                    confirms.add(null);
+                }
+            }
+            return confirms;
+        });
+    }
+
+    private boolean confirmed(OutboxEvent event, CorrelationData correlation, long deadlineNanos)
+            throws InterruptedException {
+        if (correlation == null) {
+            return false;
+        }
+        if (!rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+            return true;
+        }
+        try {
+            long waitNanos = Math.max(deadlineNanos - System.nanoTime(), 0);
+            CorrelationData.Confirm confirm = correlation.getFuture().get(waitNanos, TimeUnit.NANOSECONDS);
+            if (!confirm.isAck()) {
+                log.warn("发件箱事件被Broker拒绝，事件ID: {}, 原因: {}", event.getId(), confirm.getReason());
+            }
+            return confirm.isAck();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("发件箱事件未在超时内确认，事件ID: {}", event.getId());
+            return false;
+        }
+    }
+
+    private static Message toMessage(OutboxEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setMessageId(String.valueOf(event.getId()));
+        properties.setType(event.getRoutingKey());
+        properties.setHeader("x-aggregate-type", event.getAggregateType());
+        properties.setHeader("x-aggregate-id", event.getAggregateId());
+        return new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    /**
+     * 取得或续期中继租约
+     */
+    private boolean holdLease() {
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(leaseKey, leaseOwner, leaseTtl))) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("获取发件箱中继租约失败，暂停发布", e);
+            return false;
+        }
+        return renewLease();
+    }
+
+    /**
+     * 仍由本实例持有时续期租约，比较与续期在同一脚本中完成
+     */
+    private boolean renewLease() {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(leaseKey),
+                    leaseOwner, String.valueOf(leaseTtl.toMillis()));
+            return renewed != null && renewed > 0;
+        } catch (Exception e) {
+            log.warn("续期发件箱中继租约失败，暂停发布", e);
+            return false;
+        }
+    }
+
+    /**
+     * 每小时清理一次保留期之前已发布的事件和消费记录
+     */
+    private void cleanupIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextCleanupMillis) {
+            return;
+        }
+        nextCleanupMillis = now + TimeUnit.HOURS.toMillis(1);
+        LocalDateTime expireTime = LocalDateTime.now().minus(retention);
+        int deleted = 0;
+        int removed;
+        do {
+            removed = outboxEventMapper.deletePublishedBefore(source, expireTime, 1000);
+            deleted += removed;
+        } while (removed >= 1000 && running);
+        do {
+            removed = outboxEventMapper.deleteConsumedBefore(expireTime, 1000);
+            deleted += removed;
+        } while (removed >= 1000 && running);
+        if (deleted > 0) {
+            log.info("发件箱清理完成，删除行数: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.drone.delivery.common.security;
+
+/**
+ * 认证请求头常量
+ * 网关验签通过后以这些请求头向下游服务传递当前用户，下游服务直接信任，不再解析令牌。
+ * 网关会先移除客户端自带的同名请求头，防止伪造。
+ *
+ * @author Drone Delivery Team
+ */
+public final class AuthHeaders {
+
+    /**
+     * 令牌请求头
+     */
+    public static final String AUTHORIZATION = "Authorization";
+
+    /**
+     * 令牌前缀
+     */
+    public static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * 当前用户ID
+     */
+    public static final String USER_ID = "X-User-Id";
+
+    /**
+     * 当前用户类型
+     */
+    public static final String USER_TYPE = "X-User-Type";
+
+    /**
+     * 当前用户名
+     */
+    public static final String USERNAME = "X-User-Name";
+
+    private AuthHeaders() {
+    }
+}
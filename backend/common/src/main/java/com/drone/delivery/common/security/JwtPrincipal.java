@@ -0,0 +1,52 @@
+package com.drone.delivery.common.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * JWT令牌主体
+ * 令牌验签通过后一次性提取的全部声明，不可变，可在线程间安全共享和缓存
+ *
+ * @author Drone Delivery Team
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class JwtPrincipal {
+
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 用户名
+     */
+    private final String username;
+
+    /**
+     * 用户类型
+     */
+    private final Integer userType;
+
+    /**
+     * 签发时间（毫秒时间戳）
+     */
+    private final long issuedAt;
+
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    private final long expiresAt;
+
+    /**
+     * 判断令牌是否已过期
+     *
+     * @param now 当前时间（毫秒时间戳）
+     * @return true: 已过期, false: 未过期
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
@@ -0,0 +1,196 @@
+package com.drone.delivery.common.security;
+
+import com.drone.delivery.common.exception.BusinessException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JWT令牌验证器
+ * 签名密钥和解析器在启动时构建一次；令牌只验签一次并解析为不可变的 {@link JwtPrincipal}，
+ * 验签结果按令牌缓存，缓存条目在令牌过期时失效，缓存容量有上限。
+ *
+ * @author Drone Delivery Team
+ */
+@Slf4j
+@Component
+public class JwtVerifier {
+
+    private static final long PURGE_INTERVAL_MILLIS = 1000L;
+
+    private final SecretKey signingKey;
+
+    private final JwtParser parser;
+
+    /**
+     * 缓存的最大令牌数
+     */
+    private final int maxCacheSize;
+
+    /**
+     * 令牌 -> 已验签的主体
+     */
+    private final ConcurrentHashMap<String, JwtPrincipal> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 上次清理过期条目的时间
+     */
+    private volatile long lastPurgeMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public JwtVerifier(@Value("${jwt.secret:droneDeliveryPlatformSecretKey2024}") String secret,
+                       @Value("${jwt.cache.max-size:10000}") int maxCacheSize) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * 验证令牌并返回其全部声明
+     *
+     * @param token JWT令牌
+     * @return 令牌主体
+     * @throws BusinessException 令牌无效或已过期
+     */
+    public JwtPrincipal verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new BusinessException(401, "无效的JWT令牌");
+        }
+        long now = System.currentTimeMillis();
+        JwtPrincipal cached = cache.get(token);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            cache.remove(token, cached);
+            throw new BusinessException(401, "JWT令牌已过期");
+        }
+
+        misses.incrementAndGet();
+        JwtPrincipal principal = parse(token);
+        if (principal.isExpired(now)) {
+            throw new BusinessException(401, "JWT令牌已过期");
+        }
+        cachePrincipal(token, principal, now);
+        return principal;
+    }
+
+    /**
+     * 验证令牌，无效时返回 null 而不抛出异常
+     *
+     * @param token JWT令牌
+     * @return 令牌主体，无效时为 null
+     */
+    public JwtPrincipal verifyQuietly(String token) {
+        try {
+            return verify(token);
+        } catch (BusinessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 使令牌的缓存失效，如用户登出时调用
+     *
+     * @param token JWT令牌
+     */
+    public void evict(String token) {
+        if (token != null) {
+            cache.remove(token);
+        }
+    }
+
+    /**
+     * 签名密钥，供签发令牌使用
+     */
+    public SecretKey getSigningKey() {
+        return signingKey;
+    }
+
+    public long getCacheHits() {
+        return hits.get();
+    }
+
+    public long getCacheMisses() {
+        return misses.get();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private JwtPrincipal parse(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
+            throw new BusinessException(401, "JWT令牌已过期");
+        } catch (Exception e) {
+            log.debug("解析JWT令牌失败: {}", e.getMessage());
+            throw new BusinessException(401, "无效的JWT令牌");
+        }
+        Object userType = claims.get("userType");
+        return new JwtPrincipal(
+                parseLong(claims.get("userId")),
+                claims.getSubject(),
+                userType != null ? parseLong(userType).intValue() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+    }
+
+    /**
+     * 解析数值声明，格式不正确时按无效令牌处理，不向调用方抛出 NumberFormatException
+     */
+    private static Long parseLong(Object claim) {
+        if (claim == null) {
+            return null;
+        }
+        if (claim instanceof Number) {
+            return ((Number) claim).longValue();
+        }
+        try {
+            return Long.valueOf(claim.toString());
+        } catch (NumberFormatException e) {
+            throw new BusinessException(401, "无效的JWT令牌");
+        }
+    }
+
+    /**
+     * 写入缓存，容量已满时先清理过期条目（每秒至多一次），仍然已满则不缓存
+     */
+    private void cachePrincipal(String token, JwtPrincipal principal, long now) {
+        if (cache.size() >= maxCacheSize) {
+            if (now - lastPurgeMillis < PURGE_INTERVAL_MILLIS) {
+                return;
+            }
+            lastPurgeMillis = now;
+            Iterator<Map.Entry<String, JwtPrincipal>> iterator = cache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getValue().isExpired(now)) {
+                    iterator.remove();
+                }
+            }
+            if (cache.size() >= maxCacheSize) {
+                return;
+            }
+        }
+        cache.put(token, principal);
+    }
+}
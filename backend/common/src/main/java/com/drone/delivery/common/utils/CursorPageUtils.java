@@ -0,0 +1,133 @@
+package com.drone.delivery.common.utils;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.vo.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页工具类
+ * 游标为 "创建时间|ID" 的URL安全Base64编码，对调用方不透明。
+ * 查询按 create_time DESC, id DESC 排序，并以
+ * create_time &lt; ? OR (create_time = ? AND id &lt; ?) 定位下一页，可直接利用 create_time 索引
+ * （InnoDB二级索引自带主键，等价于 (create_time, id) 联合索引）。
+ *
+ * @author Drone Delivery Team
+ */
+public final class CursorPageUtils {
+
+    /**
+     * 默认每页条数
+     */
+    public static final int DEFAULT_SIZE = 20;
+
+    /**
+     * 每页条数上限
+     */
+    public static final int MAX_SIZE = 200;
+
+    private static final String SEPARATOR = "|";
+
+    private CursorPageUtils() {
+    }
+
+    /**
+     * 规范化每页条数
+     *
+     * @param size 请求的每页条数
+     * @return 合法的每页条数
+     */
+    public static int normalizeSize(Number size) {
+        if (size == null || size.intValue() <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size.intValue(), MAX_SIZE);
+    }
+
+    /**
+     * 在查询条件上追加游标定位、排序和多取一条的LIMIT
+     *
+     * @param wrapper 已包含过滤条件的查询
+     * @param cursor 上一页返回的游标，为空时从第一页开始
+     * @param size 每页条数
+     * @param timeColumn 创建时间列
+     * @param idColumn 主键列
+     */
+    public static <T> void seek(LambdaQueryWrapper<T> wrapper, String cursor, int size,
+                                SFunction<T, LocalDateTime> timeColumn, SFunction<T, Long> idColumn) {
+        if (cursor != null && !cursor.isEmpty()) {
+            Object[] position = decode(cursor);
+            LocalDateTime time = (LocalDateTime) position[0];
+            Long id = (Long) position[1];
+            wrapper.and(w -> w.lt(timeColumn, time)
+                    .or(o -> o.eq(timeColumn, time).lt(idColumn, id)));
+        }
+        wrapper.orderByDesc(timeColumn)
+               .orderByDesc(idColumn)
+               .last("LIMIT " + (size + 1));
+    }
+
+    /**
+     * 根据多取一条的查询结果组装游标分页
+     *
+     * @param rows 查询结果，最多 size + 1 条
+     * @param size 每页条数
+     * @param timeGetter 创建时间读取
+     * @param idGetter 主键读取
+     * @param converter 记录转换
+     * @param total 总记录数，不统计时传 null
+     * @return 游标分页结果
+     */
+    public static <T, R> CursorPage<R> build(List<T> rows, int size,
+                                             Function<T, LocalDateTime> timeGetter, Function<T, Long> idGetter,
+                                             Function<T, R> converter, Long total) {
+        boolean hasMore = rows.size() > size;
+        List<T> pageRows = hasMore ? rows.subList(0, size) : rows;
+
+        CursorPage<R> page = new CursorPage<>();
+        page.setRecords(pageRows.stream().map(converter).collect(Collectors.toList()));
+        page.setSize(size);
+        page.setHasMore(hasMore);
+        page.setTotal(total);
+        if (hasMore) {
+            T last = pageRows.get(pageRows.size() - 1);
+            page.setNextCursor(encode(timeGetter.apply(last), idGetter.apply(last)));
+        }
+        return page;
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param time 创建时间
+     * @param id 主键
+     * @return 游标
+     */
+    public static String encode(LocalDateTime time, Long id) {
+        String raw = time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 游标
+     * @return [创建时间, 主键]
+     */
+    private static Object[] decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            return new Object[]{LocalDateTime.parse(raw.substring(0, index)), Long.valueOf(raw.substring(index + 1))};
+        } catch (Exception e) {
+            throw new BusinessException(400, "分页游标无效");
+        }
+    }
+}
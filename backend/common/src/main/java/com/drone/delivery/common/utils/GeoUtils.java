@@ -0,0 +1,68 @@
+package com.drone.delivery.common.utils;
+
+/**
+ * 地理计算工具类
+ * 提供球面距离、经纬度跨度换算等基础计算
+ *
+ * @author Drone Delivery Team
+ */
+public final class GeoUtils {
+
+    /**
+     * 地球平均半径（公里）
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * 每纬度对应的距离（公里）
+     */
+    public static final double KM_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * 使用Haversine公式计算两点间球面距离
+     *
+     * @param lon1 起点经度
+     * @param lat1 起点纬度
+     * @param lon2 终点经度
+     * @param lat2 终点纬度
+     * @return 距离（公里）
+     */
+    public static double distanceKm(double lon1, double lat1, double lon2, double lat2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * 将距离换算为纬度跨度
+     *
+     * @param km 距离（公里）
+     * @return 纬度跨度（度）
+     */
+    public static double kmToLatDegrees(double km) {
+        return km / KM_PER_DEGREE_LAT;
+    }
+
+    /**
+     * 将距离换算为指定纬度处的经度跨度
+     * 高纬度地区经线收敛，跨度会随之变大，极点附近直接返回全经度范围
+     *
+     * @param km 距离（公里）
+     * @param latitude 所在纬度
+     * @return 经度跨度（度）
+     */
+    public static double kmToLonDegrees(double km, double latitude) {
+        double cos = Math.cos(Math.toRadians(latitude));
+        if (cos < 1e-6) {
+            return 360.0;
+        }
+        return Math.min(360.0, km / (KM_PER_DEGREE_LAT * cos));
+    }
+}
@@ -1,14 +1,14 @@
 package com.drone.delivery.common.utils;
 
-import io.jsonwebtoken.Claims;
+import com.drone.delivery.common.security.JwtPrincipal;
+import com.drone.delivery.common.security.JwtVerifier;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -21,13 +21,10 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtUtils {
     
-    /**
-     * JWT密钥
-     */
-    @Value("${jwt.secret:droneDeliveryPlatformSecretKey2024}")
-    private String secret;
+    private final JwtVerifier jwtVerifier;
     
     /**
      * JWT过期时间（毫秒）
@@ -67,10 +64,20 @@ public class JwtUtils {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(jwtVerifier.getSigningKey(), SignatureAlgorithm.HS512)
                 .compact();
     }
     
+    /**
+     * 验证JWT令牌并一次性获取全部声明
+     * 
+     * @param token JWT令牌
+     * @return 令牌主体
+     */
+    public JwtPrincipal parseToken(String token) {
+        return jwtVerifier.verify(token);
+    }
+    
     /**
      * 从JWT令牌中获取用户名
      * 
@@ -78,7 +85,7 @@ public class JwtUtils {
      * @return 用户名
      */
     public String getUsernameFromToken(String token) {
-        return getClaimsFromToken(token).getSubject();
+        return parseToken(token).getUsername();
     }
     
     /**
@@ -88,8 +95,7 @@ public class JwtUtils {
      * @return 用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return Long.valueOf(claims.get("userId").toString());
+        return parseToken(token).getUserId();
     }
     
     /**
@@ -99,8 +105,7 @@ public class JwtUtils {
      * @return 用户类型
      */
     public Integer getUserTypeFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return Integer.valueOf(claims.get("userType").toString());
+        return parseToken(token).getUserType();
     }
     
     /**
@@ -110,26 +115,7 @@ public class JwtUtils {
      * @return 过期时间
      */
     public Date getExpirationDateFromToken(String token) {
-        return getClaimsFromToken(token).getExpiration();
-    }
-    
-    /**
-     * 从JWT令牌中获取声明信息
-     * 
-     * @param token JWT令牌
-     * @return 声明信息
-     */
-    private Claims getClaimsFromToken(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (Exception e) {
-            log.error("解析JWT令牌失败: {}", e.getMessage());
-            throw new RuntimeException("无效的JWT令牌");
-        }
+        return new Date(parseToken(token).getExpiresAt());
     }
     
     /**
@@ -139,12 +125,8 @@ public class JwtUtils {
      * @return true: 已过期, false: 未过期
      */
     public Boolean isTokenExpired(String token) {
-        try {
-            Date expiration = getExpirationDateFromToken(token);
-            return expiration.before(new Date());
-        } catch (Exception e) {
-            return true;
-        }
+        JwtPrincipal principal = jwtVerifier.verifyQuietly(token);
+        return principal == null || principal.isExpired(System.currentTimeMillis());
     }
     
     /**
@@ -155,21 +137,7 @@ public class JwtUtils {
      * @return true: 有效, false: 无效
      */
     public Boolean validateToken(String token, String username) {
-        try {
-            String tokenUsername = getUsernameFromToken(token);
-            return tokenUsername.equals(username) && !isTokenExpired(token);
-        } catch (Exception e) {
-            log.error("验证JWT令牌失败: {}", e.getMessage());
-            return false;
-        }
-    }
-    
-    /**
-     * 获取签名密钥
-     * 
-     * @return 签名密钥
-     */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        JwtPrincipal principal = jwtVerifier.verifyQuietly(token);
+        return principal != null && principal.getUsername() != null && principal.getUsername().equals(username);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,204 @@
+package com.drone.delivery.common.utils;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花ID生成器
+ * 64位ID结构：1位符号位 + 41位毫秒时间戳 + 5位数据中心ID + 5位机器ID + 12位序列号，
+ * 生成的ID随时间单调递增，使订单号、支付流水号等唯一索引按顺序追加写入B+树。
+ * 时间戳与序列号打包在一个AtomicLong中，通过CAS无锁推进；
+ * 同一毫秒序列号用尽或时钟小幅回拨时，借用下一毫秒继续发号；回拨以见过的最大系统时间为基准判断，
+ * 借用的毫秒不计入回拨，回拨超过阈值时拒绝发号。借用超前系统时间过多时让出CPU等待时钟追上。
+ * 同时实现MyBatis-Plus的IdentifierGenerator，主键的ASSIGN_ID也使用同一套机器ID。
+ *
+ * @author Drone Delivery Team
+ */
+@Slf4j
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    /**
+     * 起始时间戳：2024-01-01 00:00:00 UTC
+     */
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_ID_BITS = 5;
+    private static final int DATACENTER_ID_BITS = 5;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+    public static final long MAX_DATACENTER_ID = ~(-1L << DATACENTER_ID_BITS);
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+    private static final int DATACENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATACENTER_ID_BITS;
+
+    /**
+     * Crockford Base32字符表，去掉了易混淆的 I、L、O、U
+     */
+    private static final char[] BASE32_CHARS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /**
+     * 63位正数的Base32定长位数
+     */
+    private static final int BASE32_LENGTH = 13;
+
+    /**
+     * 序列号借用下一毫秒时最多超前系统时间的毫秒数
+     */
+    private static final long MAX_BORROW_MILLIS = 1000;
+
+    private final long workerId;
+    private final long datacenterId;
+
+    /**
+     * 允许容忍的时钟回拨（毫秒）
+     */
+    private final long maxBackwardMillis;
+
+    /**
+     * 最近一次发号状态：高位为相对时间戳，低12位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 见过的最大系统时间（相对时间戳），用于判断真实的时钟回拨
+     */
+    private final AtomicLong lastClock = new AtomicLong();
+
+    /**
+     * 暂停发号的原因，为空表示正常发号
+     */
+    private volatile String suspendedReason;
+
+    /**
+     * 构造函数
+     *
+     * @param workerId          机器ID，0-31
+     * @param datacenterId      数据中心ID，0-31
+     * @param maxBackwardMillis 允许容忍的时钟回拨（毫秒）
+     */
+    public SnowflakeIdGenerator(long workerId, long datacenterId, long maxBackwardMillis) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("机器ID必须在0-" + MAX_WORKER_ID + "之间: " + workerId);
+        }
+        if (datacenterId < 0 || datacenterId > MAX_DATACENTER_ID) {
+            throw new IllegalArgumentException("数据中心ID必须在0-" + MAX_DATACENTER_ID + "之间: " + datacenterId);
+        }
+        this.workerId = workerId;
+        this.datacenterId = datacenterId;
+        this.maxBackwardMillis = maxBackwardMillis;
+        log.info("雪花ID生成器初始化完成，数据中心ID: {}，机器ID: {}", datacenterId, workerId);
+    }
+
+    /**
+     * 生成下一个ID
+     *
+     * @return 单调递增的64位ID
+     */
+    public long nextId() {
+        if (suspendedReason != null) {
+            throw new IllegalStateException("ID生成器已暂停发号：" + suspendedReason);
+        }
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+            long clock = lastClock.accumulateAndGet(now, Math::max);
+            if (clock - now > maxBackwardMillis) {
+                throw new IllegalStateException("系统时钟回拨" + (clock - now) + "ms，拒绝生成ID");
+            }
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > MAX_BORROW_MILLIS) {
+                    // 持续超发导致借用过多，等待时钟追上
+                    Thread.yield();
+                    continue;
+                }
+                // 同一毫秒内或小幅回拨：序列号递增，用尽后借用下一毫秒
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << TIMESTAMP_SHIFT)
+                        | (datacenterId << DATACENTER_ID_SHIFT)
+                        | (workerId << WORKER_ID_SHIFT)
+                        | sequence;
+            }
+        }
+    }
+
+    /**
+     * 生成带前缀的数字业务单号，定长19位数字，字典序与时间序一致
+     *
+     * @param prefix 业务前缀，如 DD、PAY
+     * @return 业务单号
+     */
+    public String nextNo(String prefix) {
+        return prefix + String.format("%019d", nextId());
+    }
+
+    /**
+     * 生成带前缀的Base32业务单号，定长13位，字典序与时间序一致
+     *
+     * @param prefix 业务前缀
+     * @return 业务单号
+     */
+    public String nextBase32No(String prefix) {
+        return prefix + toBase32(nextId());
+    }
+
+    /**
+     * 将非负ID编码为定长Crockford Base32字符串
+     *
+     * @param id 非负ID
+     * @return 13位Base32字符串
+     */
+    public static String toBase32(long id) {
+        char[] chars = new char[BASE32_LENGTH];
+        for (int i = BASE32_LENGTH - 1; i >= 0; i--) {
+            chars[i] = BASE32_CHARS[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 从ID中解析生成时间戳（毫秒）
+     *
+     * @param id 雪花ID
+     * @return 生成时间戳
+     */
+    public static long extractTimestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    @Override
+    public Number nextId(Object entity) {
+        return nextId();
+    }
+
+    /**
+     * 暂停发号，之后的 {@link #nextId()} 调用都会失败
+     *
+     * @param reason 暂停原因
+     */
+    public void suspend(String reason) {
+        this.suspendedReason = reason;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+}
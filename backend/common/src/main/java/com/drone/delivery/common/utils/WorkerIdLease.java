@@ -0,0 +1,125 @@
+package com.drone.delivery.common.utils;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花ID机器号租约
+ * 未显式配置机器ID时，从Redis中租用一个全局唯一的槽位（数据中心ID + 机器ID 共10位，0-1023），
+ * 后台线程定期续期；续期发现槽位已被其他实例占用时暂停发号，避免两个实例使用同一机器号生成重复ID。
+ *
+ * @author Drone Delivery Team
+ */
+@Slf4j
+public class WorkerIdLease {
+
+    private static final String KEY_PREFIX = "drone:id:worker:";
+
+    /**
+     * 槽位总数：5位数据中心ID + 5位机器ID
+     */
+    public static final int SLOT_COUNT = (int) ((SnowflakeIdGenerator.MAX_DATACENTER_ID + 1)
+            * (SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration ttl;
+    private final String owner;
+
+    private volatile int slot = -1;
+    private SnowflakeIdGenerator generator;
+    private ScheduledExecutorService renewer;
+
+    public WorkerIdLease(StringRedisTemplate stringRedisTemplate, Duration ttl, String ownerName) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = ttl;
+        this.owner = ownerName + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * 从随机位置开始依次尝试租用空闲槽位
+     *
+     * @return 槽位号，0-1023
+     * @throws IllegalStateException 无空闲槽位或Redis不可用
+     */
+    public int acquire() {
+        int start = ThreadLocalRandom.current().nextInt(SLOT_COUNT);
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            int candidate = (start + i) % SLOT_COUNT;
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + candidate, owner, ttl))) {
+                slot = candidate;
+                log.info("租用雪花ID机器号成功，槽位: {}", candidate);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("没有空闲的雪花ID机器号槽位");
+    }
+
+    /**
+     * 启动后台续期，续期间隔为租约有效期的三分之一
+     *
+     * @param generator 使用该槽位的生成器，槽位丢失时暂停其发号
+     */
+    public void startRenewal(SnowflakeIdGenerator generator) {
+        this.generator = generator;
+        long period = Math.max(ttl.toMillis() / 3, 1000);
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "worker-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew() {
+        String key = KEY_PREFIX + slot;
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(key), owner, String.valueOf(ttl.toMillis()));
+            if (renewed != null && renewed > 0) {
+                return;
+            }
+            // 键已过期（如Redis短暂不可用）时重新占用原槽位，被他人占用则暂停发号
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(key, owner, ttl))) {
+                log.warn("雪花ID机器号租约已过期，重新占用槽位: {}", slot);
+                return;
+            }
+            log.error("雪花ID机器号槽位 {} 已被其他实例占用，暂停发号", slot);
+            generator.suspend("机器号槽位" + slot + "已被其他实例占用");
+            renewer.shutdown();
+        } catch (Exception e) {
+            log.warn("续期雪花ID机器号租约失败，槽位: {}", slot, e);
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        if (slot < 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + slot), owner);
+        } catch (Exception e) {
+            log.debug("释放雪花ID机器号租约失败", e);
+        }
+    }
+}
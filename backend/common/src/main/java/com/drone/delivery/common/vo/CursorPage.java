@@ -0,0 +1,42 @@
+package com.drone.delivery.common.vo;
+
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 游标分页结果封装类
+ * 按 (create_time, id) 倒序定位下一页，不依赖偏移量，翻页耗时与页码无关
+ *
+ * @param <T> 记录类型
+ * @author Drone Delivery Team
+ */
+@Data
+public class CursorPage<T> {
+
+    /**
+     * 当前页记录
+     */
+    private List<T> records = Collections.emptyList();
+
+    /**
+     * 每页条数
+     */
+    private Integer size;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 下一页游标，没有下一页时为空
+     */
+    private String nextCursor;
+
+    /**
+     * 总记录数，仅在请求统计总数时返回
+     */
+    private Long total;
+}
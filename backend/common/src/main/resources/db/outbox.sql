@@ -0,0 +1,33 @@
+-- 事务发件箱表（各服务所在库各建一份，drone_delivery 库由多个服务共用，以 source 区分）
+-- 业务状态变更与事件行在同一事务中写入，由 OutboxRelay 按 id 顺序批量发布到 RabbitMQ 后置为已发布。
+-- id 自增：同一聚合的状态变更由行锁串行化，事件行在持锁期间插入，id 顺序即提交顺序。
+-- 发布失败次数达到 outbox.relay.max-attempts 的事件置为已搁置（status = 2），同一聚合的后续事件随之搁置，
+-- 不再阻塞其他聚合；排查后按 id 顺序把该聚合的事件改回 0 即重新发布。
+
+USE drone_delivery;
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id             BIGINT       NOT NULL AUTO_INCREMENT COMMENT '事件ID，同时作为消息ID',
+    source         VARCHAR(64)  NOT NULL COMMENT '写入事件的服务',
+    aggregate_type VARCHAR(64)  NOT NULL COMMENT '聚合类型，如 order、payment',
+    aggregate_id   VARCHAR(64)  NOT NULL COMMENT '聚合ID',
+    exchange       VARCHAR(128) NOT NULL COMMENT '目标交换机',
+    routing_key    VARCHAR(128) NOT NULL COMMENT '路由键（事件类型）',
+    payload        TEXT         NOT NULL COMMENT '事件内容（JSON）',
+    status         TINYINT      NOT NULL DEFAULT 0 COMMENT '状态：0-待发布，1-已发布，2-已搁置',
+    attempts       INT          NOT NULL DEFAULT 0 COMMENT '发布失败次数',
+    create_time    DATETIME     NOT NULL COMMENT '创建时间',
+    publish_time   DATETIME              DEFAULT NULL COMMENT '发布时间',
+    PRIMARY KEY (id),
+    INDEX idx_source_status (source, status, id),
+    INDEX idx_publish_time (publish_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '事务发件箱表';
+
+-- 消费去重表：消费方在处理事件的事务中先插入 (consumer, message_id)，插入失败即为重复投递
+CREATE TABLE IF NOT EXISTS outbox_consumed (
+    consumer    VARCHAR(64) NOT NULL COMMENT '消费者名称',
+    message_id  BIGINT      NOT NULL COMMENT '事件ID',
+    create_time DATETIME    NOT NULL COMMENT '消费时间',
+    PRIMARY KEY (consumer, message_id),
+    INDEX idx_create_time (create_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '事件消费去重表';
@@ -0,0 +1,25 @@
+package com.drone.delivery.gateway.config;
+
+import com.drone.delivery.common.security.JwtVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网关认证配置
+ *
+ * @author drone-delivery
+ * @since 1.0.0
+ */
+@Configuration
+public class AuthConfig {
+
+    /**
+     * 令牌验证器，签名密钥只构建一次，验签结果按令牌缓存至过期
+     */
+    @Bean
+    public JwtVerifier jwtVerifier(@Value("${jwt.secret:droneDeliveryPlatformSecretKey2024}") String secret,
+                                   @Value("${jwt.cache.max-size:10000}") int maxCacheSize) {
+        return new JwtVerifier(secret, maxCacheSize);
+    }
+}
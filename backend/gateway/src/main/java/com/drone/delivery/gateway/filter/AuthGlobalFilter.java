@@ -0,0 +1,138 @@
+package com.drone.delivery.gateway.filter;
+
+import com.alibaba.fastjson2.JSON;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.security.AuthHeaders;
+import com.drone.delivery.common.security.JwtPrincipal;
+import com.drone.delivery.common.security.JwtVerifier;
+import com.drone.delivery.common.vo.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 网关统一认证过滤器
+ * 在网关一次性验证JWT令牌，验证通过后以可信请求头向下游传递用户ID、用户类型和用户名，
+ * 无效令牌在到达后端实例之前即被拒绝。客户端自带的同名请求头一律移除，防止伪造身份。
+ *
+ * @author drone-delivery
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class AuthGlobalFilter implements GlobalFilter, Ordered {
+
+    private final JwtVerifier jwtVerifier;
+
+    /**
+     * 无需认证的路径
+     */
+    private final List<String> excludePaths;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public AuthGlobalFilter(JwtVerifier jwtVerifier,
+                            @Value("${gateway.auth.exclude-paths:/api/user/login,/api/user/register,/api/user/check/**,/api/user/health}")
+                            List<String> excludePaths) {
+        this.jwtVerifier = jwtVerifier;
+        this.excludePaths = excludePaths;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+
+        if (isExcluded(path)) {
+            return chain.filter(exchange.mutate().request(stripIdentity(request)).build());
+        }
+
+        String token = resolveToken(request);
+        if (token == null) {
+            return reject(exchange, "未登录或令牌缺失");
+        }
+
+        JwtPrincipal principal;
+        try {
+            principal = jwtVerifier.verify(token);
+        } catch (BusinessException e) {
+            log.debug("令牌验证失败，路径: {}，原因: {}", path, e.getMessage());
+            return reject(exchange, e.getMessage());
+        }
+
+        ServerHttpRequest mutated = request.mutate()
+                .headers(headers -> {
+                    headers.remove(AuthHeaders.USER_ID);
+                    headers.remove(AuthHeaders.USER_TYPE);
+                    headers.remove(AuthHeaders.USERNAME);
+                    if (principal.getUserId() != null) {
+                        headers.set(AuthHeaders.USER_ID, String.valueOf(principal.getUserId()));
+                    }
+                    if (principal.getUserType() != null) {
+                        headers.set(AuthHeaders.USER_TYPE, String.valueOf(principal.getUserType()));
+                    }
+                    if (principal.getUsername() != null) {
+                        headers.set(AuthHeaders.USERNAME, principal.getUsername());
+                    }
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(mutated).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return -100;
+    }
+
+    private boolean isExcluded(String path) {
+        for (String pattern : excludePaths) {
+            if (pathMatcher.match(pattern.trim(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String resolveToken(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(AuthHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(AuthHeaders.BEARER_PREFIX)) {
+            return null;
+        }
+        String token = header.substring(AuthHeaders.BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private ServerHttpRequest stripIdentity(ServerHttpRequest request) {
+        return request.mutate()
+                .headers(headers -> {
+                    headers.remove(AuthHeaders.USER_ID);
+                    headers.remove(AuthHeaders.USER_TYPE);
+                    headers.remove(AuthHeaders.USERNAME);
+                })
+                .build();
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = JSON.toJSONString(Result.error(HttpStatus.UNAUTHORIZED.value(), message))
+                .getBytes(StandardCharsets.UTF_8);
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
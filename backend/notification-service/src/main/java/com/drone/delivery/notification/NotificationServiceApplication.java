@@ -3,6 +3,7 @@ package com.drone.delivery.notification;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 通知服务启动类
@@ -10,8 +11,9 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  * @author drone-delivery
  * @since 2024-01-01
  */
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = "com.drone.delivery")
 @EnableDiscoveryClient
+@EnableScheduling
 public class NotificationServiceApplication {
 
     public static void main(String[] args) {
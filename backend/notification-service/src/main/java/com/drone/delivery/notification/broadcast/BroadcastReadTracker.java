@@ -0,0 +1,227 @@
+package com.drone.delivery.notification.broadcast;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.drone.delivery.notification.entity.NotificationBroadcast;
+import com.drone.delivery.notification.mapper.NotificationBroadcastMapper;
+import com.drone.delivery.notification.task.NotificationTaskLock;
+import com.drone.delivery.notification.unread.UnreadCountChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 广播通知已读状态跟踪器
+ * 接收人首次标记已读时分配一个从1递增的稠密序号（Redis哈希，分配后不变），
+ * 每条广播的已读状态是一个以该序号为偏移的Redis位图，标记已读即 SETBIT，在请求返回前落到Redis，
+ * 不再先记在进程内存中等待合并，实例宕机不会丢失已读；位图大小只与标记过已读的人数有关，与用户ID的取值无关。
+ * 查询时一次管道 GETBIT 判断接收人对全部有效广播的已读状态。
+ * 已读位图随通知保留期过期；广播行上的已读人数由低频任务按 BITCOUNT 同步，只用于统计展示。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class BroadcastReadTracker {
+
+    private static final String READ_KEY = "notification:broadcast:read:";
+
+    private static final String USER_INDEX_KEY = "notification:broadcast:user-index";
+
+    private static final String USER_SEQ_KEY = "notification:broadcast:user-seq";
+
+    private static final String SYNC_TASK = "broadcast-read-count";
+
+    private static final Duration SYNC_LOCK_TTL = Duration.ofMinutes(5);
+
+    /**
+     * 查询接收人的稠密序号，不存在时原子地分配下一个
+     */
+    private static final DefaultRedisScript<Long> ASSIGN_INDEX_SCRIPT = new DefaultRedisScript<>(
+            "local index = redis.call('hget', KEYS[1], ARGV[1]) "
+                    + "if index then return tonumber(index) end "
+                    + "index = redis.call('incr', KEYS[2]) "
+                    + "redis.call('hset', KEYS[1], ARGV[1], index) "
+                    + "return index",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NotificationBroadcastMapper broadcastMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationTaskLock notificationTaskLock;
+
+    /**
+     * 通知保留天数，更早的广播不再同步已读人数
+     */
+    private final int expireDays;
+
+    /**
+     * 已读位图过期时间，比通知保留期多一天
+     */
+    private final Duration readTtl;
+
+    /**
+     * 接收人（接收用户类型:接收用户ID） -> 稠密序号，序号分配后不变，可放心缓存
+     */
+    private final Cache<String, Long> userIndexes = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public BroadcastReadTracker(StringRedisTemplate stringRedisTemplate,
+                                NotificationBroadcastMapper broadcastMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                NotificationTaskLock notificationTaskLock,
+                                @Value("${notification.expire-days:30}") int expireDays) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.broadcastMapper = broadcastMapper;
+        this.eventPublisher = eventPublisher;
+        this.notificationTaskLock = notificationTaskLock;
+        this.expireDays = expireDays;
+        this.readTtl = Duration.ofDays(expireDays + 1L);
+    }
+
+    /**
+     * 记录已读，返回前已写入Redis
+     *
+     * @param broadcastIds 广播通知ID列表
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     */
+    public void markRead(List<Long> broadcastIds, Long receiverId, Integer receiverType) {
+        if (broadcastIds.isEmpty()) {
+            return;
+        }
+        String receiver = receiverType + ":" + receiverId;
+        long index = assignIndex(receiver);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Long broadcastId : broadcastIds) {
+                    ops.opsForValue().setBit(READ_KEY + broadcastId, index, true);
+                    ops.expire(READ_KEY + broadcastId, readTtl);
+                }
+                return null;
+            }
+        });
+        eventPublisher.publishEvent(new UnreadCountChangedEvent(Collections.singletonList(receiver)));
+    }
+
+    /**
+     * 筛选出接收人未读的广播
+     *
+     * @param broadcasts 广播通知
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return 未读的广播，保持原顺序
+     */
+    public List<NotificationBroadcast> filterUnread(List<NotificationBroadcast> broadcasts, Long receiverId,
+                                                    Integer receiverType) {
+        if (broadcasts.isEmpty()) {
+            return broadcasts;
+        }
+        Long index = lookupIndex(receiverType + ":" + receiverId);
+        if (index == null) {
+            // 从未标记过已读
+            return broadcasts;
+        }
+        List<Object> bits = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (NotificationBroadcast broadcast : broadcasts) {
+                    ops.opsForValue().getBit(READ_KEY + broadcast.getId(), index);
+                }
+                return null;
+            }
+        });
+        List<NotificationBroadcast> unread = new ArrayList<>();
+        for (int i = 0; i < broadcasts.size(); i++) {
+            if (!Boolean.TRUE.equals(bits.get(i))) {
+                unread.add(broadcasts.get(i));
+            }
+        }
+        return unread;
+    }
+
+    /**
+     * 定时把保留期内广播的已读人数同步到广播行，集群内只有一个实例执行
+     */
+    @Scheduled(fixedDelayString = "${notification.broadcast.read-count-sync-millis:60000}")
+    public void syncReadCounts() {
+        String token = notificationTaskLock.tryLock(SYNC_TASK, SYNC_LOCK_TTL);
+        if (token == null) {
+            return;
+        }
+        try {
+            LambdaQueryWrapper<NotificationBroadcast> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(NotificationBroadcast::getId)
+                   .ge(NotificationBroadcast::getCreateTime, LocalDateTime.now().minusDays(expireDays));
+            List<NotificationBroadcast> broadcasts = broadcastMapper.selectList(wrapper);
+            if (broadcasts.isEmpty()) {
+                return;
+            }
+            List<Object> counts = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (NotificationBroadcast broadcast : broadcasts) {
+                    connection.stringCommands().bitCount((READ_KEY + broadcast.getId()).getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            for (int i = 0; i < broadcasts.size(); i++) {
+                Object count = counts.get(i);
+                broadcastMapper.updateReadCount(broadcasts.get(i).getId(), count != null ? ((Number) count).longValue() : 0L);
+            }
+        } catch (Exception e) {
+            log.error("同步广播已读人数异常", e);
+        } finally {
+            notificationTaskLock.unlock(SYNC_TASK, token);
+        }
+    }
+
+    private long assignIndex(String receiver) {
+        Long index = userIndexes.getIfPresent(receiver);
+        if (index != null) {
+            return index;
+        }
+        index = stringRedisTemplate.execute(ASSIGN_INDEX_SCRIPT, List.of(USER_INDEX_KEY, USER_SEQ_KEY), receiver);
+        if (index == null) {
+            throw new IllegalStateException("分配广播已读序号失败，接收人: " + receiver);
+        }
+        userIndexes.put(receiver, index);
+        return index;
+    }
+
+    private Long lookupIndex(String receiver) {
+        Long index = userIndexes.getIfPresent(receiver);
+        if (index != null) {
+            return index;
+        }
+        Object value = stringRedisTemplate.opsForHash().get(USER_INDEX_KEY, receiver);
+        if (value == null) {
+            return null;
+        }
+        index = Long.parseLong(value.toString());
+        userIndexes.put(receiver, index);
+        return index;
+    }
+}
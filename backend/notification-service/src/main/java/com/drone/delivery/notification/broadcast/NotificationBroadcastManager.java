@@ -0,0 +1,135 @@
+package com.drone.delivery.notification.broadcast;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.drone.delivery.notification.entity.NotificationBroadcast;
+import com.drone.delivery.notification.mapper.NotificationBroadcastMapper;
+import com.drone.delivery.notification.unread.UnreadCountAggregator;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 广播通知管理器
+ * 广播通知按接收用户类型只存一行，写入成本与受众人数无关；未读数和未读列表由个人通知与广播通知合并得出。
+ * 每种接收用户类型的有效广播（保留期内）列表在本地短暂缓存，未读查询不必每次访问数据库。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Component
+public class NotificationBroadcastManager {
+
+    private final NotificationBroadcastMapper broadcastMapper;
+    private final BroadcastReadTracker readTracker;
+    private final UnreadCountAggregator unreadCountAggregator;
+
+    /**
+     * 通知保留天数，更早的广播不再计入未读
+     */
+    private final int expireDays;
+
+    /**
+     * 接收用户类型 -> 有效广播，按创建时间倒序
+     */
+    private final LoadingCache<Integer, List<NotificationBroadcast>> activeBroadcasts;
+
+    public NotificationBroadcastManager(NotificationBroadcastMapper broadcastMapper,
+                                        BroadcastReadTracker readTracker,
+                                        UnreadCountAggregator unreadCountAggregator,
+                                        @Value("${notification.expire-days:30}") int expireDays,
+                                        @Value("${notification.broadcast.active-cache-seconds:5}") long activeCacheSeconds) {
+        this.broadcastMapper = broadcastMapper;
+        this.readTracker = readTracker;
+        this.unreadCountAggregator = unreadCountAggregator;
+        this.expireDays = expireDays;
+        this.activeBroadcasts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(activeCacheSeconds))
+                .build(this::loadActive);
+    }
+
+    /**
+     * 保存广播通知
+     *
+     * @param broadcast 广播通知
+     */
+    public void save(NotificationBroadcast broadcast) {
+        broadcast.setReadCount(0L);
+        broadcastMapper.insert(broadcast);
+        activeBroadcasts.invalidate(broadcast.getReceiverType());
+    }
+
+    /**
+     * 查询接收人未读的广播通知
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return 未读广播，按创建时间倒序
+     */
+    public List<NotificationBroadcast> listUnread(Long receiverId, Integer receiverType) {
+        List<NotificationBroadcast> active = activeBroadcasts.get(receiverType);
+        return active != null ? readTracker.filterUnread(active, receiverId, receiverType) : Collections.emptyList();
+    }
+
+    /**
+     * 未读总数：个人通知未读数加未读的广播数
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return 未读数
+     */
+    public long unreadCount(Long receiverId, Integer receiverType) {
+        return unreadCountAggregator.get(receiverId, receiverType) + listUnread(receiverId, receiverType).size();
+    }
+
+    /**
+     * 标记广播已读
+     *
+     * @param broadcastId 广播通知ID
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     */
+    public void markRead(Long broadcastId, Long receiverId, Integer receiverType) {
+        readTracker.markRead(Collections.singletonList(broadcastId), receiverId, receiverType);
+    }
+
+    /**
+     * 把接收人全部未读的广播标记为已读
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return 标记的广播数
+     */
+    public int markAllRead(Long receiverId, Integer receiverType) {
+        List<NotificationBroadcast> unread = listUnread(receiverId, receiverType);
+        readTracker.markRead(unread.stream().map(NotificationBroadcast::getId).collect(Collectors.toList()),
+                receiverId, receiverType);
+        return unread.size();
+    }
+
+    /**
+     * 物理删除保留期之前的广播
+     *
+     * @param days 保留天数
+     * @return 删除行数
+     */
+    public int purgeExpired(int days) {
+        int count = broadcastMapper.physicalDeleteBefore(LocalDateTime.now().minusDays(days));
+        activeBroadcasts.invalidateAll();
+        return count;
+    }
+
+    private List<NotificationBroadcast> loadActive(Integer receiverType) {
+        LambdaQueryWrapper<NotificationBroadcast> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(NotificationBroadcast::getReceiverType, receiverType)
+               .ge(NotificationBroadcast::getCreateTime, LocalDateTime.now().minusDays(expireDays))
+               .orderByDesc(NotificationBroadcast::getCreateTime);
+        return broadcastMapper.selectList(wrapper);
+    }
+}
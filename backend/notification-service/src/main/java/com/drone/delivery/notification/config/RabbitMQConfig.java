@@ -1,14 +1,19 @@
 package com.drone.delivery.notification.config;
 
+import com.drone.delivery.notification.retry.NotificationRetryScheduler;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RabbitMQ 配置
  * 
@@ -21,14 +26,38 @@ public class RabbitMQConfig {
     // 队列名称
     public static final String NOTIFICATION_SEND_QUEUE = "notification.send";
     public static final String NOTIFICATION_RETRY_QUEUE = "notification.retry";
+    public static final String NOTIFICATION_BATCH_SEND_QUEUE = "notification.send.batch";
     public static final String NOTIFICATION_DLQ = "notification.dlq";
+    public static final String NOTIFICATION_RETRY_DELAY_QUEUE_PREFIX = "notification.retry.delay.";
     
     // 交换机名称
     public static final String NOTIFICATION_EXCHANGE = "notification.exchange";
     
+    // 批量监听器容器工厂名称
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchRabbitListenerContainerFactory";
+
+    /**
+     * 单条消费时每个消费者的预取数量
+     */
+    @Value("${notification.listener.prefetch:20}")
+    private int prefetch;
+
+    /**
+     * 批量消费时每批的消息数
+     */
+    @Value("${notification.listener.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * 批量消费时凑批的最长等待时间（毫秒），超时后不足一批也会交给监听器
+     */
+    @Value("${notification.listener.batch-receive-timeout-millis:200}")
+    private long batchReceiveTimeoutMillis;
+    
     // 路由键
     public static final String NOTIFICATION_SEND_ROUTING_KEY = "notification.send";
     public static final String NOTIFICATION_RETRY_ROUTING_KEY = "notification.retry";
+    public static final String NOTIFICATION_BATCH_SEND_ROUTING_KEY = "notification.send.batch";
 
     /**
      * 通知交换机
@@ -50,6 +79,18 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    /**
+     * 通知批量发送队列，每条消息携带一批通知ID
+     */
+    @Bean
+    public Queue notificationBatchSendQueue() {
+        return QueueBuilder.durable(NOTIFICATION_BATCH_SEND_QUEUE)
+                .withArgument("x-dead-letter-exchange", NOTIFICATION_EXCHANGE)
+                .withArgument("x-dead-letter-routing-key", "notification.dlq")
+                .withArgument("x-message-ttl", 300000) // 5分钟TTL
+                .build();
+    }
+
     /**
      * 通知重试队列
      */
@@ -90,6 +131,33 @@ public class RabbitMQConfig {
                 .with(NOTIFICATION_RETRY_ROUTING_KEY);
     }
 
+    /**
+     * 绑定通知批量发送队列到交换机，延迟重试队列的消息到期后经此路由回到批量发送队列
+     */
+    @Bean
+    public Binding notificationBatchSendBinding() {
+        return BindingBuilder.bind(notificationBatchSendQueue())
+                .to(notificationExchange())
+                .with(NOTIFICATION_BATCH_SEND_ROUTING_KEY);
+    }
+
+    /**
+     * 分级延迟重试队列
+     * 每级一个无消费者的队列，队列级TTL即该级延迟，到期后死信转入批量发送队列
+     */
+    @Bean
+    public Declarables notificationRetryDelayQueues(NotificationRetryScheduler notificationRetryScheduler) {
+        List<Declarable> queues = new ArrayList<>();
+        for (Long delay : notificationRetryScheduler.getTierDelaysMillis()) {
+            queues.add(QueueBuilder.durable(NotificationRetryScheduler.delayQueueName(delay))
+                    .withArgument("x-dead-letter-exchange", NOTIFICATION_EXCHANGE)
+                    .withArgument("x-dead-letter-routing-key", NOTIFICATION_BATCH_SEND_ROUTING_KEY)
+                    .withArgument("x-message-ttl", delay)
+                    .build());
+        }
+        return new Declarables(queues);
+    }
+
     /**
      * 绑定死信队列到交换机
      */
@@ -134,7 +202,28 @@ public class RabbitMQConfig {
         factory.setMessageConverter(new Jackson2JsonMessageConverter());
         factory.setConcurrentConsumers(3);
         factory.setMaxConcurrentConsumers(10);
-        factory.setPrefetchCount(1);
+        factory.setPrefetchCount(prefetch);
+        return factory;
+    }
+
+    /**
+     * 批量监听器容器工厂
+     * 消费者一次凑齐 batchSize 条消息交给监听器，监听器正常返回后整批确认，抛出异常则整批重新投递；
+     * 预取数为批大小的两倍，处理当前批时下一批已在途。
+     */
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(new Jackson2JsonMessageConverter());
+        factory.setConcurrentConsumers(3);
+        factory.setMaxConcurrentConsumers(10);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeoutMillis);
+        factory.setPrefetchCount(batchSize * 2);
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
         return factory;
     }
 }
\ No newline at end of file
@@ -2,18 +2,27 @@ package com.drone.delivery.notification.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.drone.delivery.common.result.Result;
+import com.drone.delivery.common.security.AuthHeaders;
+import com.drone.delivery.common.vo.CursorPage;
 import com.drone.delivery.notification.dto.NotificationBatchSendDTO;
+import com.drone.delivery.notification.dto.NotificationBroadcastDTO;
 import com.drone.delivery.notification.dto.NotificationQueryDTO;
 import com.drone.delivery.notification.dto.NotificationSendDTO;
 import com.drone.delivery.notification.service.NotificationService;
+import com.drone.delivery.notification.vo.ChannelStatsVO;
+import com.drone.delivery.notification.vo.DedupStatsVO;
+import com.drone.delivery.notification.vo.MailPoolStatsVO;
 import com.drone.delivery.notification.vo.NotificationVO;
+import com.drone.delivery.notification.vo.PurgeProgressVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -49,6 +58,23 @@ public class NotificationController {
         return Result.success(notificationIds);
     }
 
+    @PostMapping("/broadcast")
+    @Operation(summary = "发送广播通知", description = "向某一类接收用户全部发送通知，只存储一条")
+    public Result<Long> sendBroadcast(@Valid @RequestBody NotificationBroadcastDTO broadcastDTO) {
+        Long broadcastId = notificationService.sendBroadcast(broadcastDTO);
+        return Result.success(broadcastId);
+    }
+
+    @PutMapping("/broadcast/{id}/read")
+    @Operation(summary = "标记广播为已读", description = "标记指定用户已读某条广播通知")
+    public Result<Boolean> markBroadcastAsRead(
+            @Parameter(description = "广播通知ID") @PathVariable Long id,
+            @Parameter(description = "接收用户ID") @RequestParam @NotNull Long receiverId,
+            @Parameter(description = "接收用户类型") @RequestParam @NotNull Integer receiverType) {
+        Boolean result = notificationService.markBroadcastAsRead(id, receiverId, receiverType);
+        return Result.success(result);
+    }
+
     @PostMapping("/page")
     @Operation(summary = "分页查询通知", description = "根据条件分页查询通知列表")
     public Result<IPage<NotificationVO>> page(@Valid @RequestBody NotificationQueryDTO queryDTO) {
@@ -56,6 +82,13 @@ public class NotificationController {
         return Result.success(page);
     }
 
+    @PostMapping("/cursor")
+    @Operation(summary = "游标分页查询通知", description = "按创建时间倒序的游标分页，翻页耗时与页码无关")
+    public Result<CursorPage<NotificationVO>> cursorPage(@Valid @RequestBody NotificationQueryDTO queryDTO) {
+        CursorPage<NotificationVO> page = notificationService.cursorPage(queryDTO);
+        return Result.success(page);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "查询通知详情", description = "根据ID查询通知详情")
     public Result<NotificationVO> getById(@Parameter(description = "通知ID") @PathVariable Long id) {
@@ -72,6 +105,15 @@ public class NotificationController {
         return Result.success(count);
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅通知推送", description = "建立SSE连接，实时推送当前用户的新站内信（notification）和未读数量（unread-count），替代轮询")
+    public SseEmitter subscribe(
+            @Parameter(hidden = true) @RequestHeader(AuthHeaders.USER_ID) Long userId,
+            @Parameter(hidden = true) @RequestHeader(AuthHeaders.USER_TYPE) Integer userType) {
+        // 订阅身份取自网关验签后注入的请求头，不接受客户端指定接收人
+        return notificationService.subscribe(userId, userType);
+    }
+
     @GetMapping("/unread/list")
     @Operation(summary = "查询未读通知列表", description = "查询指定用户的未读通知列表")
     public Result<List<NotificationVO>> getUnreadList(
@@ -134,6 +176,34 @@ public class NotificationController {
         return Result.success(count);
     }
 
+    @GetMapping("/clean-expired/progress")
+    @Operation(summary = "查询清理进度", description = "查询最近一次过期通知清理的进度和吞吐")
+    public Result<PurgeProgressVO> getPurgeProgress() {
+        PurgeProgressVO progress = notificationService.getPurgeProgress();
+        return Result.success(progress);
+    }
+
+    @GetMapping("/channels/stats")
+    @Operation(summary = "查询渠道统计", description = "查询各发送渠道执行器的并发、队列深度和累计结果")
+    public Result<List<ChannelStatsVO>> getChannelStats() {
+        List<ChannelStatsVO> stats = notificationService.getChannelStats();
+        return Result.success(stats);
+    }
+
+    @GetMapping("/channels/mail-pool")
+    @Operation(summary = "查询邮件连接池", description = "查询SMTP连接池的连接数、等待数和连接复用情况")
+    public Result<MailPoolStatsVO> getMailPoolStats() {
+        MailPoolStatsVO stats = notificationService.getMailPoolStats();
+        return Result.success(stats);
+    }
+
+    @GetMapping("/dedup/stats")
+    @Operation(summary = "查询去重统计", description = "查询重复通知的检查数和丢弃数")
+    public Result<DedupStatsVO> getDedupStats() {
+        DedupStatsVO stats = notificationService.getDedupStats();
+        return Result.success(stats);
+    }
+
     @GetMapping("/health")
     @Operation(summary = "健康检查", description = "检查通知服务健康状态")
     public Result<String> health() {
@@ -0,0 +1,153 @@
+package com.drone.delivery.notification.convert;
+
+import com.drone.delivery.notification.dto.NotificationBatchSendDTO;
+import com.drone.delivery.notification.dto.NotificationBroadcastDTO;
+import com.drone.delivery.notification.dto.NotificationSendDTO;
+import com.drone.delivery.notification.entity.Notification;
+import com.drone.delivery.notification.entity.NotificationBroadcast;
+import com.drone.delivery.notification.vo.NotificationVO;
+
+/**
+ * 通知对象转换器
+ * 以显式的getter/setter完成实体、DTO与VO之间的转换，替代基于反射的属性拷贝，
+ * 新增字段时需同步维护此处的映射。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public final class NotificationConverter {
+
+    private NotificationConverter() {
+    }
+
+    /**
+     * 发送参数转换为通知实体，模板参数和扩展数据需单独序列化
+     */
+    public static Notification toEntity(NotificationSendDTO sendDTO) {
+        if (sendDTO == null) {
+            return null;
+        }
+        Notification notification = new Notification();
+        notification.setTitle(sendDTO.getTitle());
+        notification.setContent(sendDTO.getContent());
+        notification.setType(sendDTO.getType());
+        notification.setLevel(sendDTO.getLevel());
+        notification.setSendType(sendDTO.getSendType());
+        notification.setReceiverId(sendDTO.getReceiverId());
+        notification.setReceiverType(sendDTO.getReceiverType());
+        notification.setReceiverAddress(sendDTO.getReceiverAddress());
+        notification.setMaxRetryCount(sendDTO.getMaxRetryCount());
+        notification.setBusinessId(sendDTO.getBusinessId());
+        notification.setBusinessType(sendDTO.getBusinessType());
+        notification.setTemplateId(sendDTO.getTemplateId());
+        notification.setRemark(sendDTO.getRemark());
+        return notification;
+    }
+
+    /**
+     * 批量发送参数拆分为单个接收人的发送参数
+     */
+    public static NotificationSendDTO toSendDTO(NotificationBatchSendDTO batchSendDTO, Long receiverId) {
+        if (batchSendDTO == null) {
+            return null;
+        }
+        NotificationSendDTO sendDTO = new NotificationSendDTO();
+        sendDTO.setTitle(batchSendDTO.getTitle());
+        sendDTO.setContent(batchSendDTO.getContent());
+        sendDTO.setType(batchSendDTO.getType());
+        sendDTO.setLevel(batchSendDTO.getLevel());
+        sendDTO.setSendType(batchSendDTO.getSendType());
+        sendDTO.setReceiverType(batchSendDTO.getReceiverType());
+        sendDTO.setBusinessType(batchSendDTO.getBusinessType());
+        sendDTO.setTemplateId(batchSendDTO.getTemplateId());
+        sendDTO.setTemplateParams(batchSendDTO.getTemplateParams());
+        sendDTO.setMaxRetryCount(batchSendDTO.getMaxRetryCount());
+        sendDTO.setExtraData(batchSendDTO.getExtraData());
+        sendDTO.setRemark(batchSendDTO.getRemark());
+        sendDTO.setReceiverId(receiverId);
+        return sendDTO;
+    }
+
+    /**
+     * 通知实体转换为视图对象（不含描述字段）
+     */
+    public static NotificationVO toVO(Notification notification) {
+        if (notification == null) {
+            return null;
+        }
+        NotificationVO vo = new NotificationVO();
+        vo.setId(notification.getId());
+        vo.setTitle(notification.getTitle());
+        vo.setContent(notification.getContent());
+        vo.setType(notification.getType());
+        vo.setLevel(notification.getLevel());
+        vo.setSendType(notification.getSendType());
+        vo.setReceiverId(notification.getReceiverId());
+        vo.setReceiverType(notification.getReceiverType());
+        vo.setReceiverAddress(notification.getReceiverAddress());
+        vo.setSendStatus(notification.getSendStatus());
+        vo.setSendTime(notification.getSendTime());
+        vo.setReadStatus(notification.getReadStatus());
+        vo.setReadTime(notification.getReadTime());
+        vo.setFailReason(notification.getFailReason());
+        vo.setRetryCount(notification.getRetryCount());
+        vo.setMaxRetryCount(notification.getMaxRetryCount());
+        vo.setNextRetryTime(notification.getNextRetryTime());
+        vo.setBusinessId(notification.getBusinessId());
+        vo.setBusinessType(notification.getBusinessType());
+        vo.setTemplateId(notification.getTemplateId());
+        vo.setThirdPartyMsgId(notification.getThirdPartyMsgId());
+        vo.setRemark(notification.getRemark());
+        vo.setCreateTime(notification.getCreateTime());
+        vo.setUpdateTime(notification.getUpdateTime());
+        vo.setBroadcast(false);
+        return vo;
+    }
+
+    /**
+     * 广播参数转换为广播实体，标题和内容由调用方按模板渲染后设置
+     */
+    public static NotificationBroadcast toBroadcast(NotificationBroadcastDTO broadcastDTO) {
+        if (broadcastDTO == null) {
+            return null;
+        }
+        NotificationBroadcast broadcast = new NotificationBroadcast();
+        broadcast.setTitle(broadcastDTO.getTitle());
+        broadcast.setContent(broadcastDTO.getContent());
+        broadcast.setType(broadcastDTO.getType());
+        broadcast.setLevel(broadcastDTO.getLevel());
+        broadcast.setReceiverType(broadcastDTO.getReceiverType());
+        broadcast.setBusinessId(broadcastDTO.getBusinessId());
+        broadcast.setBusinessType(broadcastDTO.getBusinessType());
+        broadcast.setRemark(broadcastDTO.getRemark());
+        return broadcast;
+    }
+
+    /**
+     * 广播通知转换为面向单个接收人的未读站内信视图
+     */
+    public static NotificationVO toVO(NotificationBroadcast broadcast, Long receiverId) {
+        if (broadcast == null) {
+            return null;
+        }
+        NotificationVO vo = new NotificationVO();
+        vo.setId(broadcast.getId());
+        vo.setTitle(broadcast.getTitle());
+        vo.setContent(broadcast.getContent());
+        vo.setType(broadcast.getType());
+        vo.setLevel(broadcast.getLevel());
+        vo.setSendType(1);
+        vo.setReceiverId(receiverId);
+        vo.setReceiverType(broadcast.getReceiverType());
+        vo.setSendStatus(3);
+        vo.setSendTime(broadcast.getCreateTime());
+        vo.setReadStatus(0);
+        vo.setBusinessId(broadcast.getBusinessId());
+        vo.setBusinessType(broadcast.getBusinessType());
+        vo.setRemark(broadcast.getRemark());
+        vo.setCreateTime(broadcast.getCreateTime());
+        vo.setUpdateTime(broadcast.getUpdateTime());
+        vo.setBroadcast(true);
+        return vo;
+    }
+}
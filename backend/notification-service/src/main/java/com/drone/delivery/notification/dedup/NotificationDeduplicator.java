@@ -0,0 +1,133 @@
+package com.drone.delivery.notification.dedup;
+
+import cn.hutool.core.util.StrUtil;
+import com.drone.delivery.notification.dto.NotificationSendDTO;
+import com.drone.delivery.notification.vo.DedupStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通知去重器
+ * 以 (接收用户ID, 业务类型, 业务ID, 模板ID) 作为幂等键，在时间窗口内同一个键只放行一次。
+ * 是否重复以Redis SETNX 为准：抢占失败说明本实例或其他实例已处理过。本地布隆过滤器只作为否定判断，
+ * 未命中说明本实例窗口内一定没有处理过；命中可能是误判或Redis键已过期，不单独据此丢弃，仍由Redis确认。
+ * 布隆过滤器按半个窗口轮换，保留时长不超过Redis键的过期时间；Redis不可用时才以它为准，命中丢弃、未命中放行。
+ * 事务提交后才写入布隆过滤器，回滚时释放Redis键，失败的发送不会挡住调用方的重试。
+ * 未携带业务ID的通知不做去重。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class NotificationDeduplicator {
+
+    private static final String DEDUP_KEY = "notification:dedup:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final Duration window;
+    private final WindowedBloomFilter bloomFilter;
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong suppressedLocal = new AtomicLong();
+    private final AtomicLong suppressedRemote = new AtomicLong();
+    private final AtomicLong redisErrors = new AtomicLong();
+
+    public NotificationDeduplicator(StringRedisTemplate stringRedisTemplate,
+                                    @Value("${notification.dedup.enabled:true}") boolean enabled,
+                                    @Value("${notification.dedup.window-seconds:600}") long windowSeconds,
+                                    @Value("${notification.dedup.expected-insertions:1000000}") long expectedInsertions,
+                                    @Value("${notification.dedup.false-positive-rate:0.00001}") double falsePositiveRate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.window = Duration.ofSeconds(windowSeconds);
+        // 轮换周期取半个窗口，元素至多保留一个窗口，与Redis键的过期时间一致
+        this.bloomFilter = new WindowedBloomFilter(Math.max(window.toMillis() / 2, 1L), expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * 抢占通知的幂等键
+     *
+     * @param sendDTO 发送参数
+     * @return 是否放行，false 表示窗口内已有相同通知
+     */
+    public boolean acquire(NotificationSendDTO sendDTO) {
+        if (!enabled || StrUtil.isBlank(sendDTO.getBusinessId())) {
+            return true;
+        }
+        checked.incrementAndGet();
+        String key = StrUtil.join(":", sendDTO.getReceiverId(), sendDTO.getBusinessType(),
+                sendDTO.getBusinessId(), sendDTO.getTemplateId());
+        boolean seenLocally = bloomFilter.mightContain(key);
+
+        Boolean acquired;
+        try {
+            acquired = stringRedisTemplate.opsForValue().setIfAbsent(DEDUP_KEY + key, "1", window);
+        } catch (Exception e) {
+            redisErrors.incrementAndGet();
+            if (seenLocally) {
+                suppressedLocal.incrementAndGet();
+                log.warn("通知去重键写入Redis失败，本地已记录，丢弃，键: {}", key, e);
+                return false;
+            }
+            log.warn("通知去重键写入Redis失败，放行，键: {}", key, e);
+            return true;
+        }
+        if (!Boolean.TRUE.equals(acquired)) {
+            // 本实例或其他实例处理过，本地也记下，Redis不可用时仍能挡住窗口内的重复
+            bloomFilter.put(key);
+            suppressedRemote.incrementAndGet();
+            return false;
+        }
+        passed.incrementAndGet();
+        onCompletion(key);
+        return true;
+    }
+
+    public DedupStatsVO stats() {
+        DedupStatsVO vo = new DedupStatsVO();
+        vo.setEnabled(enabled);
+        vo.setWindowSeconds(window.getSeconds());
+        vo.setBloomBits(bloomFilter.getNumBits());
+        vo.setBloomHashes(bloomFilter.getNumHashes());
+        vo.setChecked(checked.get());
+        vo.setPassed(passed.get());
+        vo.setSuppressedLocal(suppressedLocal.get());
+        vo.setSuppressedRemote(suppressedRemote.get());
+        vo.setRedisErrors(redisErrors.get());
+        return vo;
+    }
+
+    /**
+     * 提交后写入布隆过滤器，回滚后释放Redis键；不在事务中时立即写入
+     */
+    private void onCompletion(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bloomFilter.put(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    bloomFilter.put(key);
+                    return;
+                }
+                try {
+                    stringRedisTemplate.delete(DEDUP_KEY + key);
+                } catch (Exception e) {
+                    log.warn("释放通知去重键失败，键: {}", key, e);
+                }
+            }
+        });
+    }
+}
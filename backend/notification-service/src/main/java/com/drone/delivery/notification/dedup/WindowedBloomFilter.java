@@ -0,0 +1,137 @@
+package com.drone.delivery.notification.dedup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按时间窗口轮换的布隆过滤器
+ * 同时保留当前和上一窗口两个过滤器，每过一个窗口丢弃上一窗口、新建当前窗口，
+ * 一个元素写入后至少在一个窗口内、至多在两个窗口内可被查到，内存占用固定。
+ * 位数组使用 AtomicLongArray，读写无锁。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public class WindowedBloomFilter {
+
+    private final long windowMillis;
+    private final int numBits;
+    private final int numHashes;
+
+    private volatile Bits current;
+    private volatile Bits previous;
+    private volatile long windowStartMillis;
+
+    /**
+     * @param windowMillis 窗口时长（毫秒）
+     * @param expectedInsertions 单个窗口内预计写入的元素数
+     * @param falsePositiveRate 期望误判率
+     */
+    public WindowedBloomFilter(long windowMillis, long expectedInsertions, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Math.max(bits, 64L), Integer.MAX_VALUE - 63L);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.windowMillis = windowMillis;
+        this.current = new Bits(numBits);
+        this.previous = new Bits(numBits);
+        this.windowStartMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 元素是否可能已存在，返回 false 时一定不存在
+     */
+    public boolean mightContain(String value) {
+        rotateIfExpired();
+        long hash = hash64(value);
+        return current.mightContain(hash, numHashes, numBits) || previous.mightContain(hash, numHashes, numBits);
+    }
+
+    /**
+     * 写入元素
+     */
+    public void put(String value) {
+        rotateIfExpired();
+        current.put(hash64(value), numHashes, numBits);
+    }
+
+    public int getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    private void rotateIfExpired() {
+        long now = System.currentTimeMillis();
+        if (now - windowStartMillis < windowMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowStartMillis < windowMillis) {
+                return;
+            }
+            // 超过两个窗口未使用时上一窗口也已过期
+            previous = now - windowStartMillis < 2 * windowMillis ? current : new Bits(numBits);
+            current = new Bits(numBits);
+            windowStartMillis = now;
+        }
+    }
+
+    /**
+     * FNV-1a 累加后经 MurmurHash3 的 fmix64 混淆，得到分布均匀的64位哈希
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Bits {
+        private final AtomicLongArray data;
+
+        Bits(int numBits) {
+            this.data = new AtomicLongArray((numBits + 63) >>> 6);
+        }
+
+        /**
+         * 由64位哈希的高低两半做双重哈希，生成 numHashes 个位下标
+         */
+        boolean mightContain(long hash, int numHashes, int numBits) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                int combined = h1 + i * h2;
+                int index = (combined & Integer.MAX_VALUE) % numBits;
+                if ((data.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long hash, int numHashes, int numBits) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                int combined = h1 + i * h2;
+                int index = (combined & Integer.MAX_VALUE) % numBits;
+                long mask = 1L << index;
+                long word;
+                do {
+                    word = data.get(index >>> 6);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!data.compareAndSet(index >>> 6, word, word | mask));
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.drone.delivery.notification.dispatch;
+
+import com.drone.delivery.notification.entity.Notification;
+import com.drone.delivery.notification.vo.ChannelStatsVO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 单个发送渠道的执行器
+ * 固定大小的线程池即渠道并发上限，有界队列满时提交方阻塞等待空位，最多等到渠道超时时间，以此向消息监听线程施加背压；
+ * 任务在线程中先按令牌桶限流再调用渠道发送，
+ * 发送结束后在本渠道线程中回调结果。排队或限流等待超过渠道超时时间的任务不再发送，按延后处理；
+ * 已开始发送的任务不会被中断，超时只计入统计，结果以渠道实际返回为准，避免已发出的消息被记为失败。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+public class ChannelExecutor {
+
+    private final String name;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final int ratePerSecond;
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * 令牌桶，速率不大于0时为 null，表示不限速
+     */
+    private final ChannelTokenBucket tokenBucket;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public ChannelExecutor(String name, int concurrency, int queueCapacity, long timeoutMillis, int ratePerSecond) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.ratePerSecond = ratePerSecond;
+        this.tokenBucket = ratePerSecond > 0 ? new ChannelTokenBucket(ratePerSecond) : null;
+        this.pool = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交一条通知的发送任务
+     *
+     * @param notification 通知
+     * @param sender 渠道发送逻辑
+     * @param deadlineNanos 截止时间（System.nanoTime），阻塞提交、排队和限流等待都不会超过该时间
+     * @param onComplete 发送结束后在渠道线程中回调结果
+     * @return 是否已提交，等到截止时间队列仍满而被拒绝时返回 false，不会回调
+     */
+    public boolean submit(Notification notification, Predicate<Notification> sender, long deadlineNanos,
+                          Consumer<Outcome> onComplete) {
+        submitted.incrementAndGet();
+        Runnable task = () -> {
+            Outcome outcome = Outcome.FAILED;
+            boolean timeout = false;
+            try {
+                if (System.nanoTime() - deadlineNanos > 0) {
+                    // 排队已超时，尚未发送，延后重投
+                    outcome = Outcome.DEFERRED;
+                    timeout = true;
+                    log.warn("渠道 {} 排队超时，通知ID: {}", name, notification.getId());
+                } else if (tokenBucket != null && !tokenBucket.acquire(deadlineNanos)) {
+                    outcome = Outcome.DEFERRED;
+                    rateLimited.incrementAndGet();
+                    log.warn("渠道 {} 限流等待超时，通知ID: {}", name, notification.getId());
+                } else {
+                    outcome = sender.test(notification) ? Outcome.SUCCEEDED : Outcome.FAILED;
+                    if (System.nanoTime() - deadlineNanos > 0) {
+                        timeout = true;
+                        log.warn("渠道 {} 发送超时，以实际结果为准，通知ID: {}, 结果: {}", name, notification.getId(), outcome);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("渠道 {} 发送异常，通知ID: {}", name, notification.getId(), e);
+            } finally {
+                record(outcome, timeout);
+                onComplete.accept(outcome);
+            }
+        };
+        try {
+            pool.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (awaitQueue(task, deadlineNanos)) {
+                return true;
+            }
+            rejected.incrementAndGet();
+            log.warn("渠道 {} 队列已满，拒绝通知ID: {}", name, notification.getId());
+            return false;
+        }
+    }
+
+    /**
+     * 队列已满时阻塞提交方，等待队列出现空位直到截止时间
+     * 队列满说明工作线程都在执行，入队后会被取走；线程池已关闭时不再等待
+     */
+    private boolean awaitQueue(Runnable task, long deadlineNanos) {
+        if (pool.isShutdown()) {
+            return false;
+        }
+        try {
+            long waitNanos = deadlineNanos - System.nanoTime();
+            if (waitNanos <= 0 || !pool.getQueue().offer(task, waitNanos, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (pool.getPoolSize() == 0) {
+            pool.prestartCoreThread();
+        }
+        return true;
+    }
+
+    /**
+     * 记录一条任务的最终结果
+     */
+    private void record(Outcome outcome, boolean timeout) {
+        if (timeout) {
+            timedOut.incrementAndGet();
+        }
+        if (outcome == Outcome.SUCCEEDED) {
+            succeeded.incrementAndGet();
+        } else if (outcome == Outcome.FAILED) {
+            failed.incrementAndGet();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 当前排队等待执行的任务数
+     */
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public ChannelStatsVO stats() {
+        ChannelStatsVO vo = new ChannelStatsVO();
+        vo.setChannel(name);
+        vo.setConcurrency(concurrency);
+        vo.setQueueCapacity(queueCapacity);
+        vo.setTimeoutMillis(timeoutMillis);
+        vo.setRatePerSecond(ratePerSecond);
+        vo.setActive(pool.getActiveCount());
+        vo.setQueueDepth(getQueueDepth());
+        vo.setSubmitted(submitted.get());
+        vo.setSucceeded(succeeded.get());
+        vo.setFailed(failed.get());
+        vo.setRejected(rejected.get());
+        vo.setRateLimited(rateLimited.get());
+        vo.setTimedOut(timedOut.get());
+        return vo;
+    }
+
+    /**
+     * 停止接收新任务并等待已提交任务结束
+     */
+    public void shutdown(long awaitMillis) {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(awaitMillis, TimeUnit.MILLISECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 单条通知的发送结果
+     */
+    public enum Outcome {
+        /**
+         * 渠道发送成功
+         */
+        SUCCEEDED,
+        /**
+         * 渠道发送失败或异常，计一次重试
+         */
+        FAILED,
+        /**
+         * 排队或限流等待超时、队列已满被拒绝，尚未调用渠道，延后重投且不计重试次数
+         */
+        DEFERRED
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "notify-" + name + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.drone.delivery.notification.dispatch;
+
+/**
+ * 渠道令牌桶
+ * 按固定速率补充令牌，桶容量等于每秒速率，允许不超过一秒配额的突发
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public class ChannelTokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param ratePerSecond 每秒令牌数，必须大于0
+     */
+    public ChannelTokenBucket(int ratePerSecond) {
+        this.capacity = ratePerSecond;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000D;
+        this.tokens = ratePerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 在截止时间前获取一个令牌，令牌不足时休眠等待补充
+     *
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     * @return 是否获取成功，截止前无法获得令牌时返回 false
+     * @throws InterruptedException 等待期间被中断
+     */
+    public boolean acquire(long deadlineNanos) throws InterruptedException {
+        while (true) {
+            long waitNanos = reserve();
+            if (waitNanos == 0) {
+                return true;
+            }
+            if (System.nanoTime() + waitNanos > deadlineNanos) {
+                return false;
+            }
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /**
+     * 有令牌时取走一个并返回0，否则返回距离下一个令牌的纳秒数
+     */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max((long) Math.ceil((1 - tokens) / tokensPerNano), 1L);
+    }
+}
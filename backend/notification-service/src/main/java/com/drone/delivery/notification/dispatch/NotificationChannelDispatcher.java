@@ -0,0 +1,159 @@
+package com.drone.delivery.notification.dispatch;
+
+import com.drone.delivery.notification.entity.Notification;
+import com.drone.delivery.notification.vo.ChannelStatsVO;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 通知渠道分发器
+ * 每种发送方式（站内信、短信、邮件、推送、微信、语音）拥有独立的执行器，
+ * 各自的并发上限、队列容量、超时和令牌桶速率互不影响，慢的SMTP服务器只会占满邮件渠道，不会拖住短信和推送。
+ * 分发不等待发送结果，各渠道分组完成后各自回调写入发送状态；渠道队列已满时阻塞调用方，向消息监听线程施加背压，
+ * 等到渠道超时仍无空位的通知与排队、限流超时的一样计为延后，不消耗重试次数。
+ * 参数按 notification.channel.&lt;渠道&gt;.* 配置，未配置的项取 notification.channel.default.*。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class NotificationChannelDispatcher {
+
+    private static final String PREFIX = "notification.channel.";
+
+    /**
+     * 发送方式 -> 渠道执行器
+     */
+    private final Map<Integer, ChannelExecutor> executors = new LinkedHashMap<>();
+
+    public NotificationChannelDispatcher(Environment environment) {
+        register(environment, 1, "in-app");
+        register(environment, 2, "sms");
+        register(environment, 3, "email");
+        register(environment, 4, "push");
+        register(environment, 5, "wechat");
+        register(environment, 6, "voice");
+    }
+
+    /**
+     * 把一批通知按发送方式分组，提交到各自渠道异步发送，不等待结果
+     * 每个渠道的分组全部结束后，在该渠道最后完成任务的线程中回调一次该分组的结果，
+     * 慢渠道只推迟自己分组的回调，不会拖住其他渠道的状态写入，也不会占住消息监听线程。
+     *
+     * @param notifications 通知列表
+     * @param sender 按发送方式投递单条通知的逻辑
+     * @param onChannelComplete 每个渠道分组完成后的回调
+     */
+    public void dispatch(List<Notification> notifications, Predicate<Notification> sender,
+                         Consumer<DispatchResult> onChannelComplete) {
+        Map<Integer, List<Notification>> groups = notifications.stream()
+                .collect(Collectors.groupingBy(Notification::getSendType, LinkedHashMap::new, Collectors.toList()));
+        groups.forEach((sendType, group) -> {
+            ChannelExecutor executor = executors.get(sendType);
+            ChannelBatch batch = new ChannelBatch(group.size(), onChannelComplete);
+            if (executor == null) {
+                log.warn("不支持的发送方式: {}", sendType);
+                group.forEach(notification -> batch.complete(notification, ChannelExecutor.Outcome.FAILED));
+                return;
+            }
+            long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(executor.getTimeoutMillis());
+            for (Notification notification : group) {
+                boolean accepted = executor.submit(notification, sender, deadlineNanos,
+                        outcome -> batch.complete(notification, outcome));
+                if (!accepted) {
+                    batch.complete(notification, ChannelExecutor.Outcome.DEFERRED);
+                }
+            }
+        });
+    }
+
+    /**
+     * 各渠道执行器统计
+     */
+    public List<ChannelStatsVO> stats() {
+        return executors.values().stream().map(ChannelExecutor::stats).collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(executor -> executor.shutdown(executor.getTimeoutMillis()));
+    }
+
+    private void register(Environment environment, int sendType, String name) {
+        int concurrency = property(environment, name, "concurrency", Integer.class, 8);
+        int queueCapacity = property(environment, name, "queue-capacity", Integer.class, 1000);
+        long timeoutMillis = property(environment, name, "timeout-millis", Long.class, 10000L);
+        int ratePerSecond = property(environment, name, "rate-per-second", Integer.class, 0);
+        executors.put(sendType, new ChannelExecutor(name, concurrency, queueCapacity, timeoutMillis, ratePerSecond));
+        log.info("创建通知渠道执行器: {}，并发: {}，队列: {}，超时: {}ms，限速: {}/s",
+                name, concurrency, queueCapacity, timeoutMillis, ratePerSecond);
+    }
+
+    private static <T> T property(Environment environment, String channel, String key, Class<T> type, T defaultValue) {
+        T fallback = environment.getProperty(PREFIX + "default." + key, type, defaultValue);
+        return environment.getProperty(PREFIX + channel + "." + key, type, fallback);
+    }
+
+    /**
+     * 单个渠道分组的发送结果
+     */
+    @Getter
+    public static class DispatchResult {
+        private final List<Notification> succeeded = Collections.synchronizedList(new ArrayList<>());
+        private final List<Notification> failed = Collections.synchronizedList(new ArrayList<>());
+        /**
+         * 尚未调用渠道即放弃的通知，延后重投且不计重试次数
+         */
+        private final List<Notification> deferred = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * 渠道分组的完成计数，最后一条结束时回调
+     */
+    private static class ChannelBatch {
+        private final DispatchResult result = new DispatchResult();
+        private final AtomicInteger remaining;
+        private final Consumer<DispatchResult> onComplete;
+
+        ChannelBatch(int size, Consumer<DispatchResult> onComplete) {
+            this.remaining = new AtomicInteger(size);
+            this.onComplete = onComplete;
+        }
+
+        void complete(Notification notification, ChannelExecutor.Outcome outcome) {
+            switch (outcome) {
+                case SUCCEEDED:
+                    result.succeeded.add(notification);
+                    break;
+                case DEFERRED:
+                    result.deferred.add(notification);
+                    break;
+                default:
+                    result.failed.add(notification);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                try {
+                    onComplete.accept(result);
+                } catch (Exception e) {
+                    log.error("写入渠道发送结果失败，成功: {}, 失败: {}, 延后: {}",
+                            result.succeeded.size(), result.failed.size(), result.deferred.size(), e);
+                }
+            }
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.drone.delivery.notification.dto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
-import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.util.List;
 import java.util.Map;
@@ -18,12 +17,10 @@ import java.util.Map;
 @Schema(description = "批量发送通知请求DTO")
 public class NotificationBatchSendDTO {
 
-    @Schema(description = "通知标题")
-    @NotBlank(message = "通知标题不能为空")
+    @Schema(description = "通知标题，指定模板且模板配置了标题时由模板渲染")
     private String title;
 
-    @Schema(description = "通知内容")
-    @NotBlank(message = "通知内容不能为空")
+    @Schema(description = "通知内容，指定模板时由模板渲染")
     private String content;
 
     @Schema(description = "通知类型：1-系统通知，2-订单通知，3-支付通知，4-配送通知，5-营销通知")
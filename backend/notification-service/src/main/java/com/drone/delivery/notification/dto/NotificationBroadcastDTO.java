@@ -0,0 +1,49 @@
+package com.drone.delivery.notification.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import java.util.Map;
+
+/**
+ * 广播通知请求DTO
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+@Schema(description = "广播通知请求DTO")
+public class NotificationBroadcastDTO {
+
+    @Schema(description = "通知标题，指定模板且模板配置了标题时由模板渲染")
+    private String title;
+
+    @Schema(description = "通知内容，指定模板时由模板渲染")
+    private String content;
+
+    @Schema(description = "通知类型：1-系统通知，2-订单通知，3-支付通知，4-配送通知，5-营销通知")
+    private Integer type = 1;
+
+    @Schema(description = "通知级别：1-普通，2-重要，3-紧急")
+    private Integer level = 1;
+
+    @Schema(description = "接收用户类型：1-普通用户，2-飞手，3-管理员，该类型的全部用户都会收到")
+    @NotNull(message = "接收用户类型不能为空")
+    private Integer receiverType;
+
+    @Schema(description = "业务ID")
+    private String businessId;
+
+    @Schema(description = "业务类型")
+    private String businessType;
+
+    @Schema(description = "模板ID")
+    private String templateId;
+
+    @Schema(description = "模板参数")
+    private Map<String, Object> templateParams;
+
+    @Schema(description = "备注")
+    private String remark;
+}
@@ -62,4 +62,10 @@ public class NotificationQueryDTO {
     @NotNull(message = "每页大小不能为空")
     @Min(value = 1, message = "每页大小必须大于0")
     private Long size = 10L;
-}
\ No newline at end of file
+
+    @Schema(description = "游标分页：上一页返回的游标，为空时查询第一页")
+    private String cursor;
+
+    @Schema(description = "游标分页：是否统计总记录数，默认不统计")
+    private Boolean searchCount = false;
+}
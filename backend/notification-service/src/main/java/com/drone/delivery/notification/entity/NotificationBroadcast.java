@@ -0,0 +1,97 @@
+package com.drone.delivery.notification.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 广播通知实体类
+ * 面向某一类接收用户的通知只存一条，已读状态按用户记录在位图中
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+@TableName("notification_broadcast")
+public class NotificationBroadcast {
+
+    /**
+     * 广播通知ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 通知标题
+     */
+    @TableField("title")
+    private String title;
+
+    /**
+     * 通知内容
+     */
+    @TableField("content")
+    private String content;
+
+    /**
+     * 通知类型：1-系统通知，2-订单通知，3-支付通知，4-配送通知，5-营销通知
+     */
+    @TableField("type")
+    private Integer type;
+
+    /**
+     * 通知级别：1-普通，2-重要，3-紧急
+     */
+    @TableField("level")
+    private Integer level;
+
+    /**
+     * 接收用户类型：1-普通用户，2-飞手，3-管理员
+     */
+    @TableField("receiver_type")
+    private Integer receiverType;
+
+    /**
+     * 业务ID
+     */
+    @TableField("business_id")
+    private String businessId;
+
+    /**
+     * 业务类型
+     */
+    @TableField("business_type")
+    private String businessType;
+
+    /**
+     * 已读人数，由已读位图定时同步
+     */
+    @TableField("read_count")
+    private Long readCount;
+
+    /**
+     * 备注
+     */
+    @TableField("remark")
+    private String remark;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+
+    /**
+     * 逻辑删除标志：0-未删除，1-已删除
+     */
+    @TableLogic
+    @TableField("deleted")
+    private Integer deleted;
+}
@@ -1,11 +1,14 @@
 package com.drone.delivery.notification.listener;
 
+import com.drone.delivery.notification.config.RabbitMQConfig;
 import com.drone.delivery.notification.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * 通知消息监听器
  * 
@@ -20,15 +23,29 @@ public class NotificationMessageListener {
     private final NotificationService notificationService;
 
     /**
-     * 监听通知发送队列
+     * 监听通知发送队列，批量消费
      */
-    @RabbitListener(queues = "notification.send")
-    public void handleNotificationSend(Long notificationId) {
+    @RabbitListener(queues = "notification.send", containerFactory = RabbitMQConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void handleNotificationSend(List<Long> notificationIds) {
         try {
-            log.info("接收到通知发送任务，通知ID: {}", notificationId);
-            notificationService.processNotificationTask(notificationId);
+            log.info("接收到通知发送任务，数量: {}", notificationIds.size());
+            notificationService.processNotificationTasks(notificationIds);
         } catch (Exception e) {
-            log.error("处理通知发送任务失败，通知ID: {}", notificationId, e);
+            log.error("处理通知发送任务失败，通知ID: {}", notificationIds, e);
+            throw e; // 重新抛出异常，整批重新投递
+        }
+    }
+
+    /**
+     * 监听通知批量发送队列，每条消息本身携带一批通知ID
+     */
+    @RabbitListener(queues = "notification.send.batch")
+    public void handleNotificationBatchSend(List<Long> notificationIds) {
+        try {
+            log.info("接收到通知批量发送任务，数量: {}", notificationIds.size());
+            notificationService.processNotificationTasks(notificationIds);
+        } catch (Exception e) {
+            log.error("处理通知批量发送任务失败，通知ID: {}", notificationIds, e);
             throw e; // 重新抛出异常，触发重试机制
         }
     }
@@ -36,14 +53,14 @@ public class NotificationMessageListener {
     /**
      * 监听通知重试队列
      */
-    @RabbitListener(queues = "notification.retry")
-    public void handleNotificationRetry(Long notificationId) {
+    @RabbitListener(queues = "notification.retry", containerFactory = RabbitMQConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void handleNotificationRetry(List<Long> notificationIds) {
         try {
-            log.info("接收到通知重试任务，通知ID: {}", notificationId);
-            notificationService.processNotificationTask(notificationId);
+            log.info("接收到通知重试任务，数量: {}", notificationIds.size());
+            notificationService.processNotificationTasks(notificationIds);
         } catch (Exception e) {
-            log.error("处理通知重试任务失败，通知ID: {}", notificationId, e);
-            throw e; // 重新抛出异常，触发重试机制
+            log.error("处理通知重试任务失败，通知ID: {}", notificationIds, e);
+            throw e; // 重新抛出异常，整批重新投递
         }
     }
 
@@ -0,0 +1,234 @@
+package com.drone.delivery.notification.mail;
+
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.notification.vo.MailPoolStatsVO;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 池化的SMTP传输
+ * JavaMailSender 每次 send 都会新建SMTP会话（TCP连接、STARTTLS握手、AUTH），邮件量大时握手成本远高于发送本身。
+ * 这里复用 spring.mail 配置出的 Session，维护一组已认证的 Transport 连接：
+ * 借出时优先取最近归还的连接（LIFO，保持热连接），空闲较久的连接先 NOOP 校验，
+ * 单连接发送数达到上限或空闲超时后关闭重建。连接数受信号量约束，借不到连接时等待至超时。
+ * 主机、端口、账号均来自 spring.mail，可直接指向 GreenMail 等本地SMTP替身。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PooledMailTransport {
+
+    /**
+     * 空闲超过该时长的连接借出前需校验
+     */
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 5000L;
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long maxIdleMillis;
+    private final int maxMessagesPerConnection;
+
+    /**
+     * 空闲连接，队首为最近归还的连接
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * 借出许可，约束同时使用的连接数，也就是连接总数上限
+     */
+    private final Semaphore permits;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong messagesFailed = new AtomicLong();
+
+    public PooledMailTransport(JavaMailSenderImpl mailSender,
+                               @Value("${notification.mail.pool.max-size:4}") int maxSize,
+                               @Value("${notification.mail.pool.borrow-timeout-millis:5000}") long borrowTimeoutMillis,
+                               @Value("${notification.mail.pool.max-idle-millis:60000}") long maxIdleMillis,
+                               @Value("${notification.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        this.mailSender = mailSender;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.maxIdleMillis = maxIdleMillis;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * 创建空白邮件，使用连接池共享的 Session
+     */
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    /**
+     * 在同一条连接上依次发送多封邮件
+     * 任一邮件被服务器拒收时抛出异常，之前的邮件已发送成功
+     *
+     * @param messages 邮件
+     * @throws MessagingException 发送失败
+     */
+    public void send(MimeMessage... messages) throws MessagingException {
+        PooledConnection connection = borrow();
+        boolean reusable = true;
+        try {
+            for (MimeMessage message : messages) {
+                if (message.getSentDate() == null) {
+                    message.setSentDate(new Date());
+                }
+                message.saveChanges();
+                try {
+                    connection.transport.sendMessage(message, message.getAllRecipients());
+                } catch (MessagingException e) {
+                    messagesFailed.incrementAndGet();
+                    // 收件人被拒只影响本封邮件，其他错误说明连接状态不可信
+                    reusable = e instanceof SendFailedException;
+                    throw e;
+                }
+                connection.messages++;
+                messagesSent.incrementAndGet();
+            }
+        } finally {
+            release(connection, reusable);
+        }
+    }
+
+    /**
+     * 关闭空闲超时的连接
+     */
+    @Scheduled(fixedDelayString = "${notification.mail.pool.evict-interval-millis:30000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext()) {
+            PooledConnection connection = iterator.next();
+            if (now - connection.lastUsedMillis >= maxIdleMillis && idle.remove(connection)) {
+                close(connection);
+            }
+        }
+    }
+
+    public MailPoolStatsVO stats() {
+        MailPoolStatsVO vo = new MailPoolStatsVO();
+        vo.setMaxSize(maxSize);
+        vo.setActive(maxSize - permits.availablePermits());
+        vo.setIdle(idle.size());
+        vo.setWaiting(permits.getQueueLength());
+        vo.setCreated(created.get());
+        vo.setDestroyed(destroyed.get());
+        vo.setBorrowed(borrowed.get());
+        vo.setBorrowTimeouts(borrowTimeouts.get());
+        vo.setMessagesSent(messagesSent.get());
+        vo.setMessagesFailed(messagesFailed.get());
+        long connections = created.get();
+        vo.setMessagesPerConnection(connections > 0 ? (double) messagesSent.get() / connections : 0D);
+        return vo;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private PooledConnection borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.incrementAndGet();
+                throw new BusinessException("获取SMTP连接超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("获取SMTP连接被中断");
+        }
+        try {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isUsable(connection)) {
+                    borrowed.incrementAndGet();
+                    return connection;
+                }
+                close(connection);
+            }
+            connection = connect();
+            borrowed.incrementAndGet();
+            return connection;
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection connection, boolean reusable) {
+        try {
+            if (reusable && connection.messages < maxMessagesPerConnection) {
+                connection.lastUsedMillis = System.currentTimeMillis();
+                idle.offerFirst(connection);
+            } else {
+                close(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        long idleMillis = System.currentTimeMillis() - connection.lastUsedMillis;
+        if (idleMillis >= maxIdleMillis) {
+            return false;
+        }
+        // SMTPTransport.isConnected 会发送 NOOP，只对空闲较久的连接校验
+        return idleMillis < VALIDATE_AFTER_IDLE_MILLIS || connection.transport.isConnected();
+    }
+
+    private PooledConnection connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        created.incrementAndGet();
+        log.debug("建立SMTP连接，主机: {}:{}", mailSender.getHost(), mailSender.getPort());
+        return new PooledConnection(transport);
+    }
+
+    private void close(PooledConnection connection) {
+        destroyed.incrementAndGet();
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("关闭SMTP连接失败", e);
+        }
+    }
+
+    private static class PooledConnection {
+        private final Transport transport;
+        private int messages;
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+
+        PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
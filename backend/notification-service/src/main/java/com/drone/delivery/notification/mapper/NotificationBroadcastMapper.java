@@ -0,0 +1,39 @@
+package com.drone.delivery.notification.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.drone.delivery.notification.entity.NotificationBroadcast;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+
+/**
+ * 广播通知Mapper接口
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Mapper
+public interface NotificationBroadcastMapper extends BaseMapper<NotificationBroadcast> {
+
+    /**
+     * 同步已读人数
+     *
+     * @param id 广播通知ID
+     * @param readCount 已读人数
+     * @return 更新行数
+     */
+    @Update("UPDATE notification_broadcast SET read_count = #{readCount} WHERE id = #{id}")
+    int updateReadCount(@Param("id") Long id, @Param("readCount") long readCount);
+
+    /**
+     * 物理删除截止时间之前创建的广播，包括已逻辑删除的
+     *
+     * @param expireTime 截止时间
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM notification_broadcast WHERE create_time < #{expireTime}")
+    int physicalDeleteBefore(@Param("expireTime") LocalDateTime expireTime);
+}
@@ -2,14 +2,141 @@ package com.drone.delivery.notification.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.drone.delivery.notification.entity.Notification;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 通知Mapper接口
- * 
+ *
  * @author drone-delivery
  * @since 2024-01-01
  */
 @Mapper
 public interface NotificationMapper extends BaseMapper<Notification> {
-}
\ No newline at end of file
+
+    /**
+     * 多行插入通知，一条INSERT写入整批记录
+     * 主键不会自动生成，调用方需预先设置ID
+     *
+     * @param list 通知列表
+     * @return 插入行数
+     */
+    @Insert("<script>"
+            + "INSERT INTO notification (id, title, content, type, level, send_type, receiver_id, receiver_type, "
+            + "receiver_address, send_status, read_status, retry_count, max_retry_count, business_id, business_type, "
+            + "template_id, template_params, extra_data, remark, create_time, update_time, deleted) VALUES "
+            + "<foreach collection='list' item='n' separator=','>"
+            + "(#{n.id}, #{n.title}, #{n.content}, #{n.type}, #{n.level}, #{n.sendType}, #{n.receiverId}, #{n.receiverType}, "
+            + "#{n.receiverAddress}, #{n.sendStatus}, #{n.readStatus}, #{n.retryCount}, #{n.maxRetryCount}, #{n.businessId}, "
+            + "#{n.businessType}, #{n.templateId}, #{n.templateParams}, #{n.extraData}, #{n.remark}, #{n.createTime}, "
+            + "#{n.updateTime}, 0)"
+            + "</foreach>"
+            + "</script>")
+    int insertBatch(@Param("list") List<Notification> list);
+
+    /**
+     * 统计单个接收人的未读数，计数键缺失或过期时回源
+     * 与 {@link #selectUnreadCountByReceivers(Integer, List)} 统计口径相同：发送成功、未读、未删除
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return 未读数
+     */
+    @Select("SELECT COUNT(*) FROM notification WHERE receiver_id = #{receiverId} AND receiver_type = #{receiverType} "
+            + "AND read_status = 0 AND send_status = 3 AND deleted = 0")
+    long selectUnreadCountByReceiver(@Param("receiverId") Long receiverId, @Param("receiverType") Integer receiverType);
+
+    /**
+     * 统计一批同类型接收人的未读数，用于定时对账未读计数，走 idx_receiver_unread 索引
+     * 没有未读通知的接收人不返回
+     *
+     * @param receiverType 接收用户类型
+     * @param receiverIds 接收用户ID列表
+     * @return 每行包含 receiverId、unreadCount
+     */
+    @Select("<script>"
+            + "SELECT receiver_id AS receiverId, COUNT(*) AS unreadCount FROM notification "
+            + "WHERE receiver_id IN "
+            + "<foreach collection='receiverIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + " AND receiver_type = #{receiverType} AND read_status = 0 AND send_status = 3 AND deleted = 0 "
+            + "GROUP BY receiver_id"
+            + "</script>")
+    List<Map<String, Object>> selectUnreadCountByReceivers(@Param("receiverType") Integer receiverType,
+                                                           @Param("receiverIds") List<Long> receiverIds);
+
+    /**
+     * 按 (create_time, id) 游标扫描一块创建时间早于截止时间的通知，走 idx_purge_expired 索引
+     * 绕过逻辑删除条件，已逻辑删除的行也会被扫描到
+     *
+     * @param expireTime 截止时间
+     * @param afterTime 上一块最后一行的创建时间，首块传 null
+     * @param afterId 上一块最后一行的ID
+     * @param limit 块大小
+     * @return 通知列表，按创建时间、ID升序
+     */
+    @Select("<script>"
+            + "SELECT * FROM notification WHERE create_time &lt; #{expireTime}"
+            + "<if test='afterTime != null'>"
+            + " AND (create_time &gt; #{afterTime} OR (create_time = #{afterTime} AND id &gt; #{afterId}))"
+            + "</if>"
+            + " ORDER BY create_time, id LIMIT #{limit}"
+            + "</script>")
+    List<Notification> selectExpiredChunk(@Param("expireTime") LocalDateTime expireTime,
+                                          @Param("afterTime") LocalDateTime afterTime,
+                                          @Param("afterId") Long afterId,
+                                          @Param("limit") int limit);
+
+    /**
+     * 按 (deleted, id) 游标扫描一块已逻辑删除的通知，走 idx_purge_deleted 索引
+     *
+     * @param afterId 上一块的最大ID，首块传0
+     * @param limit 块大小
+     * @return 通知列表，按ID升序
+     */
+    @Select("SELECT * FROM notification WHERE deleted = 1 AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Notification> selectDeletedChunk(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 按ID加锁读取通知的未读计数相关字段，须在事务中调用
+     * 标记已读、删除和清理都先加锁再按读到的状态增减未读计数，并发操作同一通知时只有一方计数
+     * 绕过逻辑删除条件；已被其他事务物理删除的行不会返回
+     *
+     * @param ids 通知ID列表
+     * @param from 创建时间下界，用于裁剪分区，为 null 时不限
+     * @param to 创建时间上界
+     * @return 当前仍存在的通知
+     */
+    @Select("<script>"
+            + "SELECT id, receiver_id, receiver_type, read_status, send_status, deleted FROM notification WHERE id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "<if test='from != null'> AND create_time BETWEEN #{from} AND #{to}</if>"
+            + " FOR UPDATE"
+            + "</script>")
+    List<Notification> selectCounterRowsForUpdate(@Param("ids") List<Long> ids,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    /**
+     * 按ID物理删除通知，不经过逻辑删除
+     *
+     * @param ids 通知ID列表
+     * @param from 创建时间下界，用于裁剪分区，为 null 时不限
+     * @param to 创建时间上界
+     * @return 删除行数
+     */
+    @Delete("<script>"
+            + "DELETE FROM notification WHERE id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "<if test='from != null'> AND create_time BETWEEN #{from} AND #{to}</if>"
+            + "</script>")
+    int physicalDeleteByIds(@Param("ids") List<Long> ids,
+                            @Param("from") LocalDateTime from,
+                            @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,107 @@
+package com.drone.delivery.notification.partition;
+
+import com.baomidou.mybatisplus.core.conditions.AbstractLambdaWrapper;
+import com.drone.delivery.common.utils.SnowflakeIdGenerator;
+import com.drone.delivery.notification.entity.Notification;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 按通知ID推算的创建时间范围，用于按ID访问分区表时裁剪分区
+ * 通知表主键为 (id, create_time)、按 create_time 分区，只带ID的查询和更新要探测每个分区。
+ * 通知ID由雪花算法生成，时间戳部分与写入的 create_time 相差不超过几秒，
+ * 按ID解析出的时间前后各放宽 {@link #TOLERANCE} 作为 create_time 条件，月度分区下最多命中相邻两个分区。
+ * 解析出的时间早于雪花起始时间或晚于当前时间的ID（如改用本生成器之前写入的数据）不加条件，按原方式全分区查找。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public final class NotificationIdRange {
+
+    /**
+     * 雪花ID时间与 create_time 之间允许的偏差
+     */
+    private static final long TOLERANCE = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 雪花ID起始时间：2024-01-01 00:00:00 UTC，与 {@link SnowflakeIdGenerator} 一致
+     */
+    private static final long MIN_TIMESTAMP = SnowflakeIdGenerator.extractTimestamp(0L);
+
+    private static final NotificationIdRange UNBOUNDED = new NotificationIdRange(null, null);
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    private NotificationIdRange(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * 推算一组通知ID的创建时间范围
+     *
+     * @param ids 通知ID
+     * @return 时间范围，任一ID无法推算时不限范围
+     */
+    public static NotificationIdRange of(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return UNBOUNDED;
+        }
+        long now = System.currentTimeMillis();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                return UNBOUNDED;
+            }
+            long timestamp = SnowflakeIdGenerator.extractTimestamp(id);
+            if (timestamp < MIN_TIMESTAMP || timestamp > now + TOLERANCE) {
+                return UNBOUNDED;
+            }
+            min = Math.min(min, timestamp);
+            max = Math.max(max, timestamp);
+        }
+        return new NotificationIdRange(toLocal(min - TOLERANCE), toLocal(max + TOLERANCE));
+    }
+
+    /**
+     * 推算单个通知ID的创建时间范围
+     */
+    public static NotificationIdRange of(Long id) {
+        return of(Collections.singletonList(id));
+    }
+
+    /**
+     * 在按ID的条件上追加 create_time 范围，无法推算时不追加
+     *
+     * @param wrapper 查询或更新条件
+     * @return 同一个条件对象
+     */
+    public <W extends AbstractLambdaWrapper<Notification, W>> W apply(W wrapper) {
+        return wrapper.between(from != null, Notification::getCreateTime, from, to);
+    }
+
+    /**
+     * 范围下界，不限范围时为 null
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * 范围上界，不限范围时为 null
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    private static LocalDateTime toLocal(long epochMillis) {
+        // create_time 由应用以本地时区的 LocalDateTime.now() 写入
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,201 @@
+package com.drone.delivery.notification.partition;
+
+import com.drone.delivery.notification.task.NotificationTaskLock;
+import com.drone.delivery.notification.unread.UnreadCountAggregator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 通知表分区管理器
+ * 通知表按 create_time 做月度 RANGE COLUMNS 分区（见 db/notification_partition.sql），每月一个分区 pYYYYMM，
+ * 另有兜底分区 p_max。管理器预先拆分出后续月份的分区，并把整月都早于保留期的分区直接 DROP，
+ * 过期数据的删除因此只是元数据操作，不再逐行删除。
+ * 分区变更在集群内通过任务锁串行执行，锁被其他实例持有时本次跳过。
+ * 表未分区时所有操作均跳过，过期清理仍由 {@link com.drone.delivery.notification.purge.NotificationPurgeEngine} 完成。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class NotificationPartitionManager {
+
+    private static final String TABLE_NAME = "notification";
+    private static final String MAX_PARTITION = "p_max";
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p(\\d{6})");
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITION_TASK = "partition";
+
+    private static final Duration PARTITION_LOCK_TTL = Duration.ofMinutes(10);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadCountAggregator unreadCountAggregator;
+    private final NotificationTaskLock notificationTaskLock;
+
+    /**
+     * 预建的未来月份数
+     */
+    private final int premakeMonths;
+
+    public NotificationPartitionManager(JdbcTemplate jdbcTemplate,
+                                        UnreadCountAggregator unreadCountAggregator,
+                                        NotificationTaskLock notificationTaskLock,
+                                        @Value("${notification.partition.premake-months:3}") int premakeMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.unreadCountAggregator = unreadCountAggregator;
+        this.notificationTaskLock = notificationTaskLock;
+        this.premakeMonths = premakeMonths;
+    }
+
+    /**
+     * 通知表是否已分区
+     */
+    public boolean isPartitioned() {
+        return !listPartitions().isEmpty();
+    }
+
+    /**
+     * 预建从当前月到未来 premakeMonths 个月的分区
+     * 从兜底分区 p_max 中拆分，p_max 正常情况下为空，拆分代价很小；首次拆分时当前月分区承接全部历史数据
+     *
+     * @return 新建的分区数
+     */
+    public synchronized int ensureFuturePartitions() {
+        String token = notificationTaskLock.tryLock(PARTITION_TASK, PARTITION_LOCK_TTL);
+        if (token == null) {
+            log.info("分区维护任务正在其他实例执行，跳过预建分区");
+            return 0;
+        }
+        try {
+            return doEnsureFuturePartitions();
+        } finally {
+            notificationTaskLock.unlock(PARTITION_TASK, token);
+        }
+    }
+
+    private int doEnsureFuturePartitions() {
+        List<String> partitions = listPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        if (!partitions.contains(MAX_PARTITION)) {
+            log.warn("通知表缺少兜底分区 {}，跳过预建分区", MAX_PARTITION);
+            return 0;
+        }
+
+        YearMonth latest = null;
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month != null && (latest == null || month.isAfter(latest))) {
+                latest = month;
+            }
+        }
+        YearMonth target = YearMonth.now().plusMonths(premakeMonths);
+        YearMonth next = latest != null ? latest.plusMonths(1) : YearMonth.now();
+        if (next.isAfter(target)) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(TABLE_NAME)
+                .append(" REORGANIZE PARTITION ").append(MAX_PARTITION).append(" INTO (");
+        int created = 0;
+        for (YearMonth month = next; !month.isAfter(target); month = month.plusMonths(1)) {
+            sql.append("PARTITION ").append(partitionName(month))
+               .append(" VALUES LESS THAN ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+            created++;
+        }
+        sql.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+        jdbcTemplate.execute(sql.toString());
+        log.info("通知表预建分区完成，新建: {}, 截至: {}", created, target);
+        return created;
+    }
+
+    /**
+     * 删除整月都早于保留期的分区
+     * 删除前记下分区内仍有未读通知的接收人，删除成功后使这些接收人的未读计数失效、由查询回源，
+     * 删除失败时计数保持不变；不按删除前的统计值扣减，避免与期间的已读操作重复扣减。
+     *
+     * @param retentionDays 保留天数
+     * @return 删除的分区数
+     */
+    public synchronized int dropExpiredPartitions(int retentionDays) {
+        String token = notificationTaskLock.tryLock(PARTITION_TASK, PARTITION_LOCK_TTL);
+        if (token == null) {
+            log.info("分区维护任务正在其他实例执行，跳过删除过期分区");
+            return 0;
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+            int dropped = 0;
+            for (String partition : listPartitions()) {
+                YearMonth month = parseMonth(partition);
+                // 分区上界（下月1日）不晚于截止日期，说明分区内全部数据都已过期
+                if (month == null || month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                    continue;
+                }
+                if (!notificationTaskLock.renew(PARTITION_TASK, token, PARTITION_LOCK_TTL)) {
+                    log.warn("分区维护任务锁已失效，停止删除过期分区");
+                    break;
+                }
+                Map<Integer, List<Long>> receivers = listUnreadReceivers(partition);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE_NAME + " DROP PARTITION " + partition);
+                receivers.forEach((receiverType, receiverIds) ->
+                        unreadCountAggregator.invalidate(receiverIds, receiverType));
+                dropped++;
+                log.info("删除过期通知分区: {}", partition);
+            }
+            return dropped;
+        } finally {
+            notificationTaskLock.unlock(PARTITION_TASK, token);
+        }
+    }
+
+    /**
+     * 按分区顺序列出分区名，未分区时返回空列表
+     */
+    private List<String> listPartitions() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, TABLE_NAME);
+        return names != null ? names : new ArrayList<>();
+    }
+
+    /**
+     * 列出分区内仍有计入未读数的通知的接收人，按接收人类型分组
+     * 过期分区不会再写入新通知，删除前后这批接收人不会增加
+     */
+    private Map<Integer, List<Long>> listUnreadReceivers(String partition) {
+        Map<Integer, List<Long>> receivers = new HashMap<>();
+        jdbcTemplate.query("SELECT DISTINCT receiver_type, receiver_id FROM " + TABLE_NAME
+                        + " PARTITION (" + partition + ") WHERE read_status = 0 AND send_status = 3 AND deleted = 0",
+                (RowCallbackHandler) rs -> receivers.computeIfAbsent(rs.getInt("receiver_type"), k -> new ArrayList<>())
+                        .add(rs.getLong("receiver_id")));
+        return receivers;
+    }
+
+    private static YearMonth parseMonth(String partition) {
+        Matcher matcher = MONTH_PARTITION.matcher(partition);
+        return matcher.matches() ? YearMonth.parse(matcher.group(1), MONTH_FORMATTER) : null;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "p" + month.format(MONTH_FORMATTER);
+    }
+}
@@ -0,0 +1,280 @@
+package com.drone.delivery.notification.purge;
+
+import com.alibaba.fastjson.JSON;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.notification.entity.Notification;
+import com.drone.delivery.notification.mapper.NotificationMapper;
+import com.drone.delivery.notification.task.NotificationTaskLock;
+import com.drone.delivery.notification.unread.UnreadCountAggregator;
+import com.drone.delivery.notification.vo.PurgeProgressVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 过期通知清理引擎
+ * 分两轮按键分块扫描：先按 (create_time, id) 扫描过期通知，再按 (deleted, id) 扫描已逻辑删除的通知，
+ * 每块一条按ID的物理DELETE并自动提交，
+ * 块与块之间按配置的速率限流，避免一次性大删除长时间持有锁、撑大binlog；
+ * 可选在删除前把整块写入gzip压缩的JSON Lines归档文件。
+ * 集群内通过任务锁保证同一时刻只有一个实例清理，每块删除前续期，续期失败即中止；
+ * 每块在事务中先加锁读取再删除，只对本事务实际删除的未读行扣减未读计数。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class NotificationPurgeEngine {
+
+    private static final DateTimeFormatter ARCHIVE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final String PURGE_TASK = "purge";
+
+    private static final Duration PURGE_LOCK_TTL = Duration.ofMinutes(5);
+
+    private final NotificationMapper notificationMapper;
+    private final UnreadCountAggregator unreadCountAggregator;
+    private final NotificationTaskLock notificationTaskLock;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 每块行数
+     */
+    private final int chunkSize;
+
+    /**
+     * 每秒最多删除的行数，小于等于0表示不限速
+     */
+    private final int maxRowsPerSecond;
+
+    /**
+     * 是否在删除前归档
+     */
+    private final boolean archiveEnabled;
+
+    /**
+     * 归档目录
+     */
+    private final String archiveDir;
+
+    /**
+     * 最近一次（或正在进行的）清理进度
+     */
+    private volatile PurgeProgressVO progress;
+
+    public NotificationPurgeEngine(NotificationMapper notificationMapper,
+                                   UnreadCountAggregator unreadCountAggregator,
+                                   NotificationTaskLock notificationTaskLock,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${notification.purge.chunk-size:1000}") int chunkSize,
+                                   @Value("${notification.purge.max-rows-per-second:5000}") int maxRowsPerSecond,
+                                   @Value("${notification.purge.archive-enabled:false}") boolean archiveEnabled,
+                                   @Value("${notification.purge.archive-dir:./archive/notification}") String archiveDir) {
+        this.notificationMapper = notificationMapper;
+        this.unreadCountAggregator = unreadCountAggregator;
+        this.notificationTaskLock = notificationTaskLock;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveDir = archiveDir;
+    }
+
+    /**
+     * 清理保留天数之前创建的通知以及全部已逻辑删除的通知
+     * 集群内同一时刻只允许一个清理任务运行
+     *
+     * @param days 保留天数
+     * @return 物理删除的行数
+     */
+    public int purge(int days) {
+        String token = notificationTaskLock.tryLock(PURGE_TASK, PURGE_LOCK_TTL);
+        if (token == null) {
+            throw new BusinessException("已有清理任务正在运行");
+        }
+        LocalDateTime expireTime = LocalDateTime.now().minusDays(days);
+        PurgeProgressVO current = new PurgeProgressVO();
+        current.setRunning(true);
+        current.setRetentionDays(days);
+        current.setExpireTime(expireTime);
+        current.setScanned(0L);
+        current.setDeleted(0L);
+        current.setArchived(0L);
+        current.setLastId(0L);
+        current.setChunks(0L);
+        current.setStartTime(LocalDateTime.now());
+        current.setElapsedMillis(0L);
+        current.setRowsPerSecond(0L);
+        progress = current;
+
+        long start = System.currentTimeMillis();
+        Writer archive = null;
+        try {
+            if (archiveEnabled) {
+                Path file = Paths.get(archiveDir, "notification-" + LocalDateTime.now().format(ARCHIVE_NAME_FORMATTER) + ".jsonl.gz");
+                Files.createDirectories(file.getParent());
+                archive = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(file), true), StandardCharsets.UTF_8));
+                current.setArchiveFile(file.toAbsolutePath().toString());
+            }
+
+            // 第一轮按 (create_time, id) 清理过期通知
+            LocalDateTime afterTime = null;
+            long afterId = 0L;
+            while (true) {
+                renewLock(token);
+                List<Notification> chunk = notificationMapper.selectExpiredChunk(expireTime, afterTime, afterId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                Notification last = chunk.get(chunk.size() - 1);
+                afterTime = last.getCreateTime();
+                afterId = last.getId();
+                purgeChunk(chunk, archive, current, start);
+            }
+
+            // 第二轮按 (deleted, id) 清理保留期内已逻辑删除的通知
+            afterId = 0L;
+            while (true) {
+                renewLock(token);
+                List<Notification> chunk = notificationMapper.selectDeletedChunk(afterId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                afterId = chunk.get(chunk.size() - 1).getId();
+                purgeChunk(chunk, archive, current, start);
+            }
+            log.info("清理过期通知完成，删除: {}, 归档: {}, 耗时: {}ms",
+                    current.getDeleted(), current.getArchived(), current.getElapsedMillis());
+            return current.getDeleted().intValue();
+        } catch (IOException e) {
+            current.setErrorMessage(e.getMessage());
+            log.error("清理过期通知归档失败，已删除: {}", current.getDeleted(), e);
+            throw new BusinessException("清理过期通知归档失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            current.setErrorMessage(e.getMessage());
+            log.error("清理过期通知失败，已删除: {}", current.getDeleted(), e);
+            throw e;
+        } finally {
+            closeQuietly(archive);
+            updateThroughput(current, start);
+            current.setFinishTime(LocalDateTime.now());
+            current.setRunning(false);
+            notificationTaskLock.unlock(PURGE_TASK, token);
+        }
+    }
+
+    /**
+     * 归档并删除扫描到的一块通知，更新进度后按速率限流
+     */
+    private void purgeChunk(List<Notification> chunk, Writer archive, PurgeProgressVO current, long start)
+            throws IOException {
+        current.setScanned(current.getScanned() + chunk.size());
+
+        if (archive != null) {
+            writeArchive(archive, chunk);
+            current.setArchived(current.getArchived() + chunk.size());
+        }
+
+        List<Long> ids = chunk.stream().map(Notification::getId).collect(Collectors.toList());
+        // 以本块实际的创建时间范围裁剪分区，create_time 不会被修改
+        LocalDateTime from = chunk.stream().map(Notification::getCreateTime).min(LocalDateTime::compareTo).orElse(null);
+        LocalDateTime to = chunk.stream().map(Notification::getCreateTime).max(LocalDateTime::compareTo).orElse(null);
+        // 加锁读取与删除在同一事务中，锁定的行即本事务删除的行，扫描之后被并发删除的行不会重复扣减
+        List<Notification> removed = transactionTemplate.execute(status -> {
+            List<Notification> locked = notificationMapper.selectCounterRowsForUpdate(ids, from, to);
+            if (!locked.isEmpty()) {
+                notificationMapper.physicalDeleteByIds(
+                        locked.stream().map(Notification::getId).collect(Collectors.toList()), from, to);
+            }
+            return locked;
+        });
+        current.setDeleted(current.getDeleted() + removed.size());
+        // 被清理的已发送、未读且未删除的通知从未读计数中扣除，状态以加锁读取时为准
+        removed.stream()
+                .filter(n -> Integer.valueOf(0).equals(n.getDeleted())
+                        && Integer.valueOf(0).equals(n.getReadStatus())
+                        && Integer.valueOf(3).equals(n.getSendStatus()))
+                .forEach(n -> unreadCountAggregator.add(n.getReceiverId(), n.getReceiverType(), -1));
+        current.setLastId(chunk.get(chunk.size() - 1).getId());
+        current.setChunks(current.getChunks() + 1);
+        updateThroughput(current, start);
+
+        throttle(current.getDeleted(), start);
+    }
+
+    private void renewLock(String token) {
+        if (!notificationTaskLock.renew(PURGE_TASK, token, PURGE_LOCK_TTL)) {
+            throw new BusinessException("清理任务锁已失效，任务中止");
+        }
+    }
+
+    /**
+     * 最近一次清理的进度，从未运行过时为 null
+     */
+    public PurgeProgressVO getProgress() {
+        return progress;
+    }
+
+    /**
+     * 已删除行数超过速率允许的数量时休眠，把平均速率压到 maxRowsPerSecond 以内
+     */
+    private void throttle(long deleted, long start) {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long expectedMillis = deleted * 1000L / maxRowsPerSecond;
+        long sleepMillis = expectedMillis - (System.currentTimeMillis() - start);
+        if (sleepMillis > 0) {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("清理任务被中断");
+            }
+        }
+    }
+
+    private void writeArchive(Writer archive, List<Notification> chunk) throws IOException {
+        for (Notification notification : chunk) {
+            archive.write(JSON.toJSONString(notification));
+            archive.write('\n');
+        }
+        // 删除前确保本块已写出（GZIP流开启了同步刷新）
+        archive.flush();
+    }
+
+    private void updateThroughput(PurgeProgressVO current, long start) {
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1L);
+        current.setElapsedMillis(elapsed);
+        current.setRowsPerSecond(current.getDeleted() * 1000L / elapsed);
+    }
+
+    private void closeQuietly(Writer writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("关闭归档文件失败", e);
+        }
+    }
+}
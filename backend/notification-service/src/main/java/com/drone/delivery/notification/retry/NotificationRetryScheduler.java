@@ -0,0 +1,86 @@
+package com.drone.delivery.notification.retry;
+
+import com.drone.delivery.notification.config.RabbitMQConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 通知重试调度器
+ * 发送失败时把通知ID投递到按退避时长分级的延迟队列，延迟队列没有消费者，
+ * 消息在队列级TTL到期后经死信交换机转入批量发送队列，到点即重试，无需定时扫表。
+ * 第 n 级延迟为 retry-interval * 2^(n-1) 分钟，与指数退避的重试间隔一一对应，超出最高级的按最高级延迟。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class NotificationRetryScheduler {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    /**
+     * 各级延迟时长（毫秒），升序
+     */
+    private final List<Long> tierDelaysMillis;
+
+    public NotificationRetryScheduler(RabbitTemplate rabbitTemplate,
+                                      @Value("${notification.retry-interval:5}") long retryIntervalMinutes,
+                                      @Value("${notification.retry.delay-tiers:6}") int tiers) {
+        this.rabbitTemplate = rabbitTemplate;
+        List<Long> delays = new ArrayList<>(tiers);
+        for (int i = 0; i < tiers; i++) {
+            delays.add(retryIntervalMinutes * 60_000L << i);
+        }
+        this.tierDelaysMillis = Collections.unmodifiableList(delays);
+    }
+
+    /**
+     * 第 retryCount 次重试的延迟时长
+     *
+     * @param retryCount 重试次数，从1开始
+     * @return 延迟毫秒数
+     */
+    public long delayMillis(int retryCount) {
+        int tier = Math.min(Math.max(retryCount, 1), tierDelaysMillis.size()) - 1;
+        return tierDelaysMillis.get(tier);
+    }
+
+    /**
+     * 把同一次重试的一批通知投递到对应级别的延迟队列，整批一条消息
+     *
+     * @param notificationIds 通知ID列表
+     * @param retryCount 重试次数，从1开始
+     */
+    public void schedule(List<Long> notificationIds, int retryCount) {
+        if (notificationIds.isEmpty()) {
+            return;
+        }
+        long delay = delayMillis(retryCount);
+        rabbitTemplate.convertAndSend(delayQueueName(delay), new ArrayList<>(notificationIds));
+        log.debug("通知进入延迟重试队列，数量: {}, 延迟: {}ms", notificationIds.size(), delay);
+    }
+
+    /**
+     * 各级延迟时长（毫秒），供声明延迟队列使用
+     */
+    public List<Long> getTierDelaysMillis() {
+        return tierDelaysMillis;
+    }
+
+    /**
+     * 延迟队列名称
+     *
+     * @param delayMillis 延迟毫秒数
+     * @return 队列名称
+     */
+    public static String delayQueueName(long delayMillis) {
+        return RabbitMQConfig.NOTIFICATION_RETRY_DELAY_QUEUE_PREFIX + delayMillis;
+    }
+}
@@ -1,10 +1,17 @@
 package com.drone.delivery.notification.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.drone.delivery.common.vo.CursorPage;
 import com.drone.delivery.notification.dto.NotificationBatchSendDTO;
+import com.drone.delivery.notification.dto.NotificationBroadcastDTO;
 import com.drone.delivery.notification.dto.NotificationQueryDTO;
 import com.drone.delivery.notification.dto.NotificationSendDTO;
+import com.drone.delivery.notification.vo.ChannelStatsVO;
+import com.drone.delivery.notification.vo.DedupStatsVO;
+import com.drone.delivery.notification.vo.MailPoolStatsVO;
 import com.drone.delivery.notification.vo.NotificationVO;
+import com.drone.delivery.notification.vo.PurgeProgressVO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -18,9 +25,10 @@ public interface NotificationService {
 
     /**
      * 发送通知
+     * 携带业务ID的通知在去重窗口内按 (接收用户, 业务类型, 业务ID, 模板ID) 只发送一次
      * 
      * @param sendDTO 发送通知请求
-     * @return 通知ID
+     * @return 通知ID，重复通知被丢弃时为 null
      */
     Long sendNotification(NotificationSendDTO sendDTO);
 
@@ -32,6 +40,24 @@ public interface NotificationService {
      */
     List<Long> batchSendNotification(NotificationBatchSendDTO batchSendDTO);
 
+    /**
+     * 发送广播通知，该类型的全部接收用户可见，只存储一条
+     * 
+     * @param broadcastDTO 广播通知请求
+     * @return 广播通知ID
+     */
+    Long sendBroadcast(NotificationBroadcastDTO broadcastDTO);
+
+    /**
+     * 标记广播通知为已读
+     * 
+     * @param broadcastId 广播通知ID
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return 是否成功
+     */
+    Boolean markBroadcastAsRead(Long broadcastId, Long receiverId, Integer receiverType);
+
     /**
      * 分页查询通知
      * 
@@ -40,6 +66,14 @@ public interface NotificationService {
      */
     IPage<NotificationVO> page(NotificationQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询通知，按创建时间倒序，不统计总数时不执行COUNT
+     * 
+     * @param queryDTO 查询条件，cursor 为上一页返回的游标
+     * @return 游标分页结果
+     */
+    CursorPage<NotificationVO> cursorPage(NotificationQueryDTO queryDTO);
+
     /**
      * 根据ID查询通知详情
      * 
@@ -57,6 +91,15 @@ public interface NotificationService {
      */
     Long getUnreadCount(Long receiverId, Integer receiverType);
 
+    /**
+     * 订阅通知推送流，新站内信和未读数变化会实时推送
+     * 
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return SSE连接
+     */
+    SseEmitter subscribe(Long receiverId, Integer receiverType);
+
     /**
      * 查询用户未读通知列表
      * 
@@ -124,7 +167,16 @@ public interface NotificationService {
     void processNotificationTask(Long notificationId);
 
     /**
-     * 处理通知重试任务
+     * 批量处理通知发送任务
+     * 一次查询载入整批通知，按发送方式分组投递，发送状态按结果批量回写
+     * 
+     * @param notificationIds 通知ID列表
+     */
+    void processNotificationTasks(List<Long> notificationIds);
+
+    /**
+     * 补偿投递到期未重试的通知
+     * 重试由延迟队列按时触发，此方法由定时任务低频调用，补偿延迟消息丢失的通知
      */
     void processRetryTasks();
 
@@ -135,4 +187,32 @@ public interface NotificationService {
      * @return 清理数量
      */
     Integer cleanExpiredNotifications(Integer days);
+
+    /**
+     * 查询最近一次过期通知清理的进度
+     * 
+     * @return 清理进度，从未清理过时为 null
+     */
+    PurgeProgressVO getPurgeProgress();
+
+    /**
+     * 查询各发送渠道执行器的并发、队列深度和累计结果
+     * 
+     * @return 渠道统计列表
+     */
+    List<ChannelStatsVO> getChannelStats();
+
+    /**
+     * 查询SMTP连接池的使用情况
+     * 
+     * @return 连接池统计
+     */
+    MailPoolStatsVO getMailPoolStats();
+
+    /**
+     * 查询通知去重的检查数和丢弃数
+     * 
+     * @return 去重统计
+     */
+    DedupStatsVO getDedupStats();
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.drone.delivery.notification.service.impl;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
@@ -10,26 +9,55 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.utils.CursorPageUtils;
+import com.drone.delivery.common.utils.SnowflakeIdGenerator;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.notification.broadcast.NotificationBroadcastManager;
+import com.drone.delivery.notification.dedup.NotificationDeduplicator;
+import com.drone.delivery.notification.dispatch.NotificationChannelDispatcher;
 import com.drone.delivery.notification.dto.NotificationBatchSendDTO;
+import com.drone.delivery.notification.dto.NotificationBroadcastDTO;
 import com.drone.delivery.notification.dto.NotificationQueryDTO;
 import com.drone.delivery.notification.dto.NotificationSendDTO;
 import com.drone.delivery.notification.entity.Notification;
+import com.drone.delivery.notification.entity.NotificationBroadcast;
+import com.drone.delivery.notification.mail.PooledMailTransport;
+import com.drone.delivery.notification.mapper.NotificationBroadcastMapper;
 import com.drone.delivery.notification.mapper.NotificationMapper;
+import com.drone.delivery.notification.partition.NotificationIdRange;
+import com.drone.delivery.notification.purge.NotificationPurgeEngine;
+import com.drone.delivery.notification.retry.NotificationRetryScheduler;
 import com.drone.delivery.notification.service.NotificationService;
+import com.drone.delivery.notification.stream.NotificationStreamHub;
+import com.drone.delivery.notification.template.NotificationTemplate;
+import com.drone.delivery.notification.template.NotificationTemplateEngine;
+import com.drone.delivery.notification.unread.UnreadCountAggregator;
+import com.drone.delivery.notification.vo.ChannelStatsVO;
+import com.drone.delivery.notification.vo.DedupStatsVO;
+import com.drone.delivery.notification.vo.MailPoolStatsVO;
 import com.drone.delivery.notification.vo.NotificationVO;
+import com.drone.delivery.notification.vo.PurgeProgressVO;
+import com.drone.delivery.notification.convert.NotificationConverter;
+import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -45,19 +73,74 @@ public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationMapper notificationMapper;
     private final RabbitTemplate rabbitTemplate;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final JavaMailSender mailSender;
+    private final UnreadCountAggregator unreadCountAggregator;
+    private final NotificationPurgeEngine notificationPurgeEngine;
+    private final PooledMailTransport pooledMailTransport;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationRetryScheduler notificationRetryScheduler;
+    private final NotificationChannelDispatcher notificationChannelDispatcher;
+    private final NotificationTemplateEngine notificationTemplateEngine;
+    private final NotificationStreamHub notificationStreamHub;
+    private final NotificationDeduplicator notificationDeduplicator;
+    private final NotificationBroadcastManager notificationBroadcastManager;
+    private final NotificationBroadcastMapper notificationBroadcastMapper;
+
+    /**
+     * 批量发送时每批插入和投递的通知数
+     */
+    @Value("${notification.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 通知保留天数，更早的通知会被清理，热点查询只需扫描这段时间内的分区
+     */
+    @Value("${notification.expire-days:30}")
+    private int expireDays;
+
+    /**
+     * 补偿扫描只处理超过到期时间该分钟数仍未重试的通知，正常到期的重试留给延迟队列
+     */
+    @Value("${notification.retry.sweep-grace-minutes:5}")
+    private int sweepGraceMinutes;
+
+    /**
+     * 单次补偿扫描最多投递的通知数
+     */
+    @Value("${notification.retry.sweep-limit:5000}")
+    private int sweepLimit;
+
+    /**
+     * 发送中超过该分钟数仍无结果的通知视为结果未知（如实例在发送途中宕机），由补偿扫描转为失败重试
+     */
+    @Value("${notification.retry.sending-timeout-minutes:30}")
+    private int sendingTimeoutMinutes;
 
     private static final String NOTIFICATION_QUEUE = "notification.send";
-    private static final String NOTIFICATION_RETRY_QUEUE = "notification.retry";
-    private static final String UNREAD_COUNT_KEY = "notification:unread:count:";
+    private static final String NOTIFICATION_BATCH_QUEUE = "notification.send.batch";
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Long sendNotification(NotificationSendDTO sendDTO) {
+        // 重复通知在写库前丢弃
+        if (!notificationDeduplicator.acquire(sendDTO)) {
+            log.info("重复通知已丢弃，接收用户: {}, 业务类型: {}, 业务ID: {}",
+                    sendDTO.getReceiverId(), sendDTO.getBusinessType(), sendDTO.getBusinessId());
+            return null;
+        }
+
         // 创建通知记录
-        Notification notification = new Notification();
-        BeanUtil.copyProperties(sendDTO, notification);
+        Notification notification = NotificationConverter.toEntity(sendDTO);
+        String title = sendDTO.getTitle();
+        String content = sendDTO.getContent();
+        if (StrUtil.isNotBlank(sendDTO.getTemplateId())) {
+            NotificationTemplate template = notificationTemplateEngine.get(sendDTO.getTemplateId());
+            title = template.renderTitle(sendDTO.getTemplateParams(), title);
+            content = template.renderContent(sendDTO.getTemplateParams());
+        }
+        checkTitleAndContent(title, content);
+        notification.setTitle(title);
+        notification.setContent(content);
         
         // 设置默认值
         notification.setSendStatus(1); // 待发送
@@ -77,36 +160,146 @@ public class NotificationServiceImpl implements NotificationService {
 
         notificationMapper.insert(notification);
 
-        // 发送到消息队列进行异步处理
+        // 发送到消息队列进行异步处理，未读计数在发送成功后累加
         rabbitTemplate.convertAndSend(NOTIFICATION_QUEUE, notification.getId());
 
-        // 更新未读计数
-        updateUnreadCount(notification.getReceiverId(), notification.getReceiverType(), 1);
-
         log.info("创建通知成功，通知ID: {}, 接收用户: {}", notification.getId(), notification.getReceiverId());
         return notification.getId();
     }
 
+    /**
+     * 批量发送通知
+     * 接收人按批拆分，每批在独立事务中用一条多行INSERT写入，提交后整批只投递一条消息，
+     * 未读计数在发送成功后交由聚合器合并写回。某一批失败时之前已提交的批次不会回滚。
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public List<Long> batchSendNotification(NotificationBatchSendDTO batchSendDTO) {
-        List<Long> notificationIds = new ArrayList<>();
-        
-        for (Long receiverId : batchSendDTO.getReceiverIds()) {
-            NotificationSendDTO sendDTO = new NotificationSendDTO();
-            BeanUtil.copyProperties(batchSendDTO, sendDTO);
-            sendDTO.setReceiverId(receiverId);
-            
-            Long notificationId = sendNotification(sendDTO);
-            notificationIds.add(notificationId);
+        List<Long> receiverIds = batchSendDTO.getReceiverIds();
+        List<Long> notificationIds = new ArrayList<>(receiverIds.size());
+        if (receiverIds.isEmpty()) {
+            return notificationIds;
+        }
+
+        // 模板对所有接收人参数相同，只渲染一次
+        String title = batchSendDTO.getTitle();
+        String content = batchSendDTO.getContent();
+        if (StrUtil.isNotBlank(batchSendDTO.getTemplateId())) {
+            NotificationTemplate template = notificationTemplateEngine.get(batchSendDTO.getTemplateId());
+            title = template.renderTitle(batchSendDTO.getTemplateParams(), title);
+            content = template.renderContent(batchSendDTO.getTemplateParams());
+        }
+        checkTitleAndContent(title, content);
+
+        // 模板参数和扩展数据对所有接收人相同，只序列化一次
+        String templateParams = batchSendDTO.getTemplateParams() != null
+                ? JSON.toJSONString(batchSendDTO.getTemplateParams()) : null;
+        String extraData = batchSendDTO.getExtraData() != null
+                ? JSON.toJSONString(batchSendDTO.getExtraData()) : null;
+
+        for (int from = 0; from < receiverIds.size(); from += batchSize) {
+            List<Long> chunk = receiverIds.subList(from, Math.min(from + batchSize, receiverIds.size()));
+            LocalDateTime now = LocalDateTime.now();
+            List<Notification> notifications = new ArrayList<>(chunk.size());
+            for (Long receiverId : chunk) {
+                Notification notification = NotificationConverter.toEntity(
+                        NotificationConverter.toSendDTO(batchSendDTO, receiverId));
+                notification.setId(snowflakeIdGenerator.nextId());
+                notification.setTitle(title);
+                notification.setContent(content);
+                notification.setSendStatus(1); // 待发送
+                notification.setReadStatus(0); // 未读
+                notification.setRetryCount(0);
+                notification.setTemplateParams(templateParams);
+                notification.setExtraData(extraData);
+                notification.setCreateTime(now);
+                notification.setUpdateTime(now);
+                notifications.add(notification);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> notificationMapper.insertBatch(notifications));
+
+            List<Long> chunkIds = notifications.stream()
+                    .map(Notification::getId)
+                    .collect(Collectors.toList());
+            rabbitTemplate.convertAndSend(NOTIFICATION_BATCH_QUEUE, chunkIds);
+
+            notificationIds.addAll(chunkIds);
         }
-        
+
         log.info("批量发送通知成功，通知数量: {}", notificationIds.size());
         return notificationIds;
     }
 
+    /**
+     * 发送广播通知
+     * 只写入一行，不按接收人展开；该类型在线的接收人通过推送流即时收到
+     */
+    @Override
+    public Long sendBroadcast(NotificationBroadcastDTO broadcastDTO) {
+        NotificationBroadcast broadcast = NotificationConverter.toBroadcast(broadcastDTO);
+        String title = broadcastDTO.getTitle();
+        String content = broadcastDTO.getContent();
+        if (StrUtil.isNotBlank(broadcastDTO.getTemplateId())) {
+            NotificationTemplate template = notificationTemplateEngine.get(broadcastDTO.getTemplateId());
+            title = template.renderTitle(broadcastDTO.getTemplateParams(), title);
+            content = template.renderContent(broadcastDTO.getTemplateParams());
+        }
+        checkTitleAndContent(title, content);
+        broadcast.setTitle(title);
+        broadcast.setContent(content);
+        broadcast.setCreateTime(LocalDateTime.now());
+        broadcast.setUpdateTime(LocalDateTime.now());
+        notificationBroadcastManager.save(broadcast);
+
+        notificationStreamHub.publishBroadcast(convertToVO(broadcast, null));
+        log.info("发送广播通知成功，广播ID: {}, 接收用户类型: {}", broadcast.getId(), broadcast.getReceiverType());
+        return broadcast.getId();
+    }
+
+    @Override
+    public Boolean markBroadcastAsRead(Long broadcastId, Long receiverId, Integer receiverType) {
+        NotificationBroadcast broadcast = notificationBroadcastMapper.selectById(broadcastId);
+        if (broadcast == null || !broadcast.getReceiverType().equals(receiverType)) {
+            throw new BusinessException("广播通知不存在");
+        }
+        notificationBroadcastManager.markRead(broadcastId, receiverId, receiverType);
+        return true;
+    }
+
     @Override
     public IPage<NotificationVO> page(NotificationQueryDTO queryDTO) {
+        LambdaQueryWrapper<Notification> wrapper = buildQueryWrapper(queryDTO);
+        wrapper.orderByDesc(Notification::getCreateTime);
+
+        Page<Notification> page = new Page<>(queryDTO.getCurrent(), queryDTO.getSize());
+        IPage<Notification> notificationPage = notificationMapper.selectPage(page, wrapper);
+
+        // 转换为VO
+        IPage<NotificationVO> voPage = new Page<>(notificationPage.getCurrent(), notificationPage.getSize(), notificationPage.getTotal());
+        voPage.setRecords(notificationPage.getRecords().stream()
+                .map(this::convertToVO)
+                .collect(Collectors.toList()));
+
+        return voPage;
+    }
+
+    @Override
+    public CursorPage<NotificationVO> cursorPage(NotificationQueryDTO queryDTO) {
+        int size = CursorPageUtils.normalizeSize(queryDTO.getSize());
+        LambdaQueryWrapper<Notification> wrapper = buildQueryWrapper(queryDTO);
+        CursorPageUtils.seek(wrapper, queryDTO.getCursor(), size, Notification::getCreateTime, Notification::getId);
+        List<Notification> rows = notificationMapper.selectList(wrapper);
+
+        Long total = Boolean.TRUE.equals(queryDTO.getSearchCount())
+                ? notificationMapper.selectCount(buildQueryWrapper(queryDTO))
+                : null;
+        return CursorPageUtils.build(rows, size, Notification::getCreateTime, Notification::getId, this::convertToVO, total);
+    }
+
+    /**
+     * 构建列表查询条件（不含排序）
+     */
+    private LambdaQueryWrapper<Notification> buildQueryWrapper(NotificationQueryDTO queryDTO) {
         LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
         
         // 构建查询条件
@@ -121,25 +314,13 @@ public class NotificationServiceImpl implements NotificationService {
                .eq(StrUtil.isNotBlank(queryDTO.getBusinessId()), Notification::getBusinessId, queryDTO.getBusinessId())
                .eq(StrUtil.isNotBlank(queryDTO.getBusinessType()), Notification::getBusinessType, queryDTO.getBusinessType())
                .ge(queryDTO.getStartTime() != null, Notification::getCreateTime, queryDTO.getStartTime())
-               .le(queryDTO.getEndTime() != null, Notification::getCreateTime, queryDTO.getEndTime())
-               .orderByDesc(Notification::getCreateTime);
-
-        Page<Notification> page = new Page<>(queryDTO.getCurrent(), queryDTO.getSize());
-        IPage<Notification> notificationPage = notificationMapper.selectPage(page, wrapper);
-
-        // 转换为VO
-        IPage<NotificationVO> voPage = new Page<>();
-        BeanUtil.copyProperties(notificationPage, voPage);
-        voPage.setRecords(notificationPage.getRecords().stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList()));
-
-        return voPage;
+               .le(queryDTO.getEndTime() != null, Notification::getCreateTime, queryDTO.getEndTime());
+        return wrapper;
     }
 
     @Override
     public NotificationVO getById(Long id) {
-        Notification notification = notificationMapper.selectById(id);
+        Notification notification = selectById(id);
         if (notification == null) {
             throw new BusinessException("通知不存在");
         }
@@ -148,23 +329,13 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public Long getUnreadCount(Long receiverId, Integer receiverType) {
-        String key = UNREAD_COUNT_KEY + receiverType + ":" + receiverId;
-        Object count = redisTemplate.opsForValue().get(key);
-        if (count != null) {
-            return Long.valueOf(count.toString());
-        }
-        
-        // 从数据库查询并缓存
-        LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Notification::getReceiverId, receiverId)
-               .eq(Notification::getReceiverType, receiverType)
-               .eq(Notification::getReadStatus, 0)
-               .eq(Notification::getSendStatus, 3); // 发送成功的通知
-        
-        Long unreadCount = notificationMapper.selectCount(wrapper);
-        redisTemplate.opsForValue().set(key, unreadCount, 1, TimeUnit.HOURS);
-        
-        return unreadCount;
+        // 个人通知未读数加未读的广播数
+        return notificationBroadcastManager.unreadCount(receiverId, receiverType);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long receiverId, Integer receiverType) {
+        return notificationStreamHub.subscribe(receiverId, receiverType);
     }
 
     @Override
@@ -174,41 +345,44 @@ public class NotificationServiceImpl implements NotificationService {
                .eq(Notification::getReceiverType, receiverType)
                .eq(Notification::getReadStatus, 0)
                .eq(Notification::getSendStatus, 3) // 发送成功的通知
+               .ge(Notification::getCreateTime, LocalDateTime.now().minusDays(expireDays)) // 只扫描保留期内的分区
                .orderByDesc(Notification::getCreateTime)
                .last("LIMIT " + (limit != null ? limit : 10));
-        
+
         List<Notification> notifications = notificationMapper.selectList(wrapper);
-        return notifications.stream()
+        List<NotificationVO> unread = notifications.stream()
                 .map(this::convertToVO)
                 .collect(Collectors.toList());
+
+        // 合并未读的广播通知，按创建时间倒序取前 limit 条
+        List<NotificationBroadcast> broadcasts = notificationBroadcastManager.listUnread(receiverId, receiverType);
+        if (broadcasts.isEmpty()) {
+            return unread;
+        }
+        int size = limit != null ? limit : 10;
+        broadcasts.stream()
+                .limit(size)
+                .forEach(broadcast -> unread.add(convertToVO(broadcast, receiverId)));
+        return unread.stream()
+                .sorted(Comparator.comparing(NotificationVO::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(size)
+                .collect(Collectors.toList());
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean markAsRead(Long id) {
-        Notification notification = notificationMapper.selectById(id);
-        if (notification == null) {
+        List<Notification> locked = selectCounterRowsForUpdate(Collections.singletonList(id));
+        if (locked.isEmpty() || locked.get(0).getDeleted() == 1) {
             throw new BusinessException("通知不存在");
         }
-        
-        if (notification.getReadStatus() == 1) {
+        if (locked.get(0).getReadStatus() == 1) {
             return true; // 已经是已读状态
         }
-        
-        LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
-        wrapper.eq(Notification::getId, id)
-               .set(Notification::getReadStatus, 1)
-               .set(Notification::getReadTime, LocalDateTime.now())
-               .set(Notification::getUpdateTime, LocalDateTime.now());
-        
-        int result = notificationMapper.update(null, wrapper);
-        if (result > 0) {
-            // 更新未读计数
-            updateUnreadCount(notification.getReceiverId(), notification.getReceiverType(), -1);
-            log.info("标记通知为已读成功，通知ID: {}", id);
-            return true;
-        }
-        return false;
+
+        markLockedAsRead(locked);
+        log.info("标记通知为已读成功，通知ID: {}", id);
+        return true;
     }
 
     @Override
@@ -217,46 +391,43 @@ public class NotificationServiceImpl implements NotificationService {
         if (CollUtil.isEmpty(ids)) {
             return true;
         }
-        
-        // 查询通知信息
-        List<Notification> notifications = notificationMapper.selectBatchIds(ids);
-        if (CollUtil.isEmpty(notifications)) {
-            return true;
-        }
-        
-        // 过滤未读通知
-        List<Long> unreadIds = notifications.stream()
-                .filter(n -> n.getReadStatus() == 0)
-                .map(Notification::getId)
+
+        // 加锁读取，只处理加锁时仍未读的通知
+        List<Notification> unread = selectCounterRowsForUpdate(ids).stream()
+                .filter(n -> n.getReadStatus() == 0 && n.getDeleted() == 0)
                 .collect(Collectors.toList());
-        
-        if (CollUtil.isEmpty(unreadIds)) {
+        if (unread.isEmpty()) {
             return true;
         }
-        
+
+        int result = markLockedAsRead(unread);
+        log.info("批量标记通知为已读成功，数量: {}", result);
+        return true;
+    }
+
+    /**
+     * 把已加锁的未读通知标记为已读，并按实际更新的通知扣减未读计数
+     * 行锁保证这些通知在本事务提交前不会被其他请求标记或删除，条件中的未读状态作为兜底
+     *
+     * @param unread 已加锁且未读的通知
+     * @return 更新行数
+     */
+    private int markLockedAsRead(List<Notification> unread) {
+        List<Long> ids = unread.stream().map(Notification::getId).collect(Collectors.toList());
         LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
-        wrapper.in(Notification::getId, unreadIds)
+        NotificationIdRange.of(ids).apply(wrapper.in(Notification::getId, ids))
+               .eq(Notification::getReadStatus, 0)
                .set(Notification::getReadStatus, 1)
                .set(Notification::getReadTime, LocalDateTime.now())
                .set(Notification::getUpdateTime, LocalDateTime.now());
-        
         int result = notificationMapper.update(null, wrapper);
         if (result > 0) {
-            // 按用户分组更新未读计数
-            notifications.stream()
-                    .filter(n -> unreadIds.contains(n.getId()))
-                    .collect(Collectors.groupingBy(n -> n.getReceiverType() + ":" + n.getReceiverId()))
-                    .forEach((key, list) -> {
-                        String[] parts = key.split(":");
-                        Integer receiverType = Integer.valueOf(parts[0]);
-                        Long receiverId = Long.valueOf(parts[1]);
-                        updateUnreadCount(receiverId, receiverType, -list.size());
-                    });
-            
-            log.info("批量标记通知为已读成功，数量: {}", result);
-            return true;
+            // 未发送成功的通知不在计数中
+            unread.stream()
+                    .filter(n -> n.getSendStatus() == 3)
+                    .forEach(n -> unreadCountAggregator.add(n.getReceiverId(), n.getReceiverType(), -1));
         }
-        return false;
+        return result;
     }
 
     @Override
@@ -273,31 +444,20 @@ public class NotificationServiceImpl implements NotificationService {
         int result = notificationMapper.update(null, wrapper);
         if (result > 0) {
             // 清空未读计数
-            String key = UNREAD_COUNT_KEY + receiverType + ":" + receiverId;
-            redisTemplate.delete(key);
+            unreadCountAggregator.reset(receiverId, receiverType);
             log.info("标记用户所有通知为已读成功，用户: {}, 数量: {}", receiverId, result);
         }
+        notificationBroadcastManager.markAllRead(receiverId, receiverType);
         return true;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean deleteNotification(Long id) {
-        Notification notification = notificationMapper.selectById(id);
-        if (notification == null) {
-            return true;
-        }
-        
-        int result = notificationMapper.deleteById(id);
-        if (result > 0) {
-            // 如果是未读通知，更新未读计数
-            if (notification.getReadStatus() == 0) {
-                updateUnreadCount(notification.getReceiverId(), notification.getReceiverType(), -1);
-            }
+        if (deleteLocked(Collections.singletonList(id)) > 0) {
             log.info("删除通知成功，通知ID: {}", id);
-            return true;
         }
-        return false;
+        return true;
     }
 
     @Override
@@ -306,36 +466,43 @@ public class NotificationServiceImpl implements NotificationService {
         if (CollUtil.isEmpty(ids)) {
             return true;
         }
-        
-        // 查询通知信息
-        List<Notification> notifications = notificationMapper.selectBatchIds(ids);
-        if (CollUtil.isEmpty(notifications)) {
-            return true;
-        }
-        
-        int result = notificationMapper.deleteBatchIds(ids);
+
+        int result = deleteLocked(ids);
         if (result > 0) {
-            // 按用户分组更新未读计数
-            notifications.stream()
-                    .filter(n -> n.getReadStatus() == 0)
-                    .collect(Collectors.groupingBy(n -> n.getReceiverType() + ":" + n.getReceiverId()))
-                    .forEach((key, list) -> {
-                        String[] parts = key.split(":");
-                        Integer receiverType = Integer.valueOf(parts[0]);
-                        Long receiverId = Long.valueOf(parts[1]);
-                        updateUnreadCount(receiverId, receiverType, -list.size());
-                    });
-            
             log.info("批量删除通知成功，数量: {}", result);
-            return true;
         }
-        return false;
+        return true;
+    }
+
+    /**
+     * 加锁后逻辑删除仍存在的通知，只为加锁时已发送且未读的通知扣减未读计数
+     *
+     * @param ids 通知ID列表
+     * @return 删除行数
+     */
+    private int deleteLocked(List<Long> ids) {
+        List<Long> aliveIds = selectCounterRowsForUpdate(ids).stream()
+                .filter(n -> n.getDeleted() == 0)
+                .map(Notification::getId)
+                .collect(Collectors.toList());
+        if (aliveIds.isEmpty()) {
+            return 0;
+        }
+        LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
+        NotificationIdRange.of(aliveIds).apply(wrapper.in(Notification::getId, aliveIds));
+        int result = notificationMapper.delete(wrapper);
+        if (result > 0) {
+            alive.stream()
+                    .filter(n -> n.getReadStatus() == 0 && n.getSendStatus() == 3)
+                    .forEach(n -> unreadCountAggregator.add(n.getReceiverId(), n.getReceiverType(), -1));
+        }
+        return result;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean resendNotification(Long id) {
-        Notification notification = notificationMapper.selectById(id);
+        Notification notification = selectById(id);
         if (notification == null) {
             throw new BusinessException("通知不存在");
         }
@@ -344,14 +511,16 @@ public class NotificationServiceImpl implements NotificationService {
             throw new BusinessException("通知已发送成功，无需重发");
         }
         
-        // 重置发送状态
-        notification.setSendStatus(1); // 待发送
-        notification.setRetryCount(0);
-        notification.setFailReason(null);
-        notification.setNextRetryTime(null);
-        notification.setUpdateTime(LocalDateTime.now());
-        
-        notificationMapper.updateById(notification);
+        // 重置发送状态，按主键和创建时间更新，只命中该通知所在分区
+        LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.eq(Notification::getId, id)
+               .eq(Notification::getCreateTime, notification.getCreateTime())
+               .set(Notification::getSendStatus, 1) // 待发送
+               .set(Notification::getRetryCount, 0)
+               .set(Notification::getFailReason, null)
+               .set(Notification::getNextRetryTime, null)
+               .set(Notification::getUpdateTime, LocalDateTime.now());
+        notificationMapper.update(null, wrapper);
         
         // 发送到消息队列
         rabbitTemplate.convertAndSend(NOTIFICATION_QUEUE, notification.getId());
@@ -362,102 +531,216 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public void processNotificationTask(Long notificationId) {
-        Notification notification = notificationMapper.selectById(notificationId);
-        if (notification == null) {
-            log.warn("通知不存在，通知ID: {}", notificationId);
+        processNotificationTasks(Collections.singletonList(notificationId));
+    }
+
+    @Override
+    public void processNotificationTasks(List<Long> notificationIds) {
+        if (CollUtil.isEmpty(notificationIds)) {
             return;
         }
-        
-        if (notification.getSendStatus() != 1) {
-            log.warn("通知状态不是待发送，通知ID: {}, 状态: {}", notificationId, notification.getSendStatus());
-            return;
+        LambdaQueryWrapper<Notification> query = new LambdaQueryWrapper<>();
+        List<Notification> notifications = notificationMapper.selectList(
+                NotificationIdRange.of(notificationIds).apply(query.in(Notification::getId, notificationIds)));
+        if (notifications.size() < notificationIds.size()) {
+            log.warn("部分通知不存在，请求数量: {}, 查到数量: {}", notificationIds.size(), notifications.size());
         }
-        
-        try {
-            // 更新为发送中
-            updateNotificationStatus(notificationId, 2, null, null);
-            
-            // 根据发送方式处理
-            boolean success = false;
-            switch (notification.getSendType()) {
-                case 1: // 站内信
-                    success = sendInAppMessage(notification);
-                    break;
-                case 2: // 短信
-                    success = sendSms(notification);
-                    break;
-                case 3: // 邮件
-                    success = sendEmail(notification);
-                    break;
-                case 4: // 推送
-                    success = sendPush(notification);
-                    break;
-                case 5: // 微信
-                    success = sendWechat(notification);
-                    break;
-                case 6: // 语音
-                    success = sendVoice(notification);
-                    break;
-                default:
-                    log.warn("不支持的发送方式: {}", notification.getSendType());
-                    success = false;
+
+        List<Notification> pending = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            if (!isSendable(notification)) {
+                log.warn("通知状态不是待发送或待重试，通知ID: {}, 状态: {}", notification.getId(), notification.getSendStatus());
+                continue;
             }
-            
-            if (success) {
-                // 发送成功
-                updateNotificationStatus(notificationId, 3, LocalDateTime.now(), null);
-                log.info("通知发送成功，通知ID: {}", notificationId);
-            } else {
-                // 发送失败，安排重试
-                scheduleRetry(notification);
+            pending.add(notification);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 整批更新为发送中
+        updateNotificationStatus(pending.stream().map(Notification::getId).collect(Collectors.toList()), 2, null, null);
+
+        // 按发送方式分发到各渠道执行器异步投递，每个渠道完成后各自写入发送状态，渠道之间互不阻塞
+        notificationChannelDispatcher.dispatch(pending, this::dispatch, this::completeChannel);
+    }
+
+    /**
+     * 写入一个渠道分组的发送结果，在该渠道的执行器线程中调用
+     * 写入失败时通知停留在发送中，由补偿扫描按超时处理
+     */
+    private void completeChannel(NotificationChannelDispatcher.DispatchResult result) {
+        List<Long> succeeded = result.getSucceeded().stream().map(Notification::getId).collect(Collectors.toList());
+        List<Notification> failed = result.getFailed();
+
+        if (!succeeded.isEmpty()) {
+            LocalDateTime sendTime = LocalDateTime.now();
+            updateNotificationStatus(succeeded, 3, sendTime, null);
+            // 只有发送成功的通知计入未读数，与回源统计口径一致
+            result.getSucceeded().forEach(n -> unreadCountAggregator.add(n.getReceiverId(), n.getReceiverType(), 1));
+            log.info("通知发送成功，数量: {}", succeeded.size());
+            // 站内信推送给在线的接收人
+            List<NotificationVO> inAppMessages = new ArrayList<>();
+            for (Notification notification : result.getSucceeded()) {
+                if (notification.getSendType() == 1) {
+                    notification.setSendStatus(3);
+                    notification.setSendTime(sendTime);
+                    inAppMessages.add(convertToVO(notification));
+                }
             }
-            
-        } catch (Exception e) {
-            log.error("处理通知发送任务异常，通知ID: {}", notificationId, e);
-            scheduleRetry(notification);
+            notificationStreamHub.publishNotifications(inAppMessages);
+        }
+        if (!failed.isEmpty()) {
+            scheduleRetries(failed);
+        }
+        if (!result.getDeferred().isEmpty()) {
+            deferRetries(result.getDeferred());
+        }
+    }
+
+    /**
+     * 未使用模板或模板未配置标题时，标题和内容需由调用方提供
+     */
+    private void checkTitleAndContent(String title, String content) {
+        if (StrUtil.isBlank(title)) {
+            throw new BusinessException("通知标题不能为空");
+        }
+        if (StrUtil.isBlank(content)) {
+            throw new BusinessException("通知内容不能为空");
         }
     }
 
+    /**
+     * 待发送，或发送失败且仍有重试次数
+     */
+    private boolean isSendable(Notification notification) {
+        Integer sendStatus = notification.getSendStatus();
+        if (sendStatus == 1) {
+            return true;
+        }
+        return sendStatus == 4 && notification.getRetryCount() < notification.getMaxRetryCount();
+    }
+
+    /**
+     * 按发送方式投递单条通知，在对应渠道的执行器线程中调用
+     */
+    private boolean dispatch(Notification notification) {
+        switch (notification.getSendType()) {
+            case 1: // 站内信
+                return sendInAppMessage(notification);
+            case 2: // 短信
+                return sendSms(notification);
+            case 3: // 邮件
+                return sendEmail(notification);
+            case 4: // 推送
+                return sendPush(notification);
+            case 5: // 微信
+                return sendWechat(notification);
+            case 6: // 语音
+                return sendVoice(notification);
+            default:
+                log.warn("不支持的发送方式: {}", notification.getSendType());
+                return false;
+        }
+    }
+
+    /**
+     * 补偿重试
+     * 正常情况下重试由延迟队列在到期时触发；延迟消息丢失时通知会停留在失败状态，
+     * 由定时任务低频调用本方法，把超过宽限期仍未重试的通知按批重新投递。
+     * 查询走 (send_status, next_retry_time) 索引，单次最多处理 sweepLimit 条。
+     * 发送结果异步写入，实例在发送途中宕机会使通知停留在发送中，超时后先转为失败并计一次重试再一并投递。
+     */
     @Override
     public void processRetryTasks() {
-        // 查询需要重试的通知
+        LambdaUpdateWrapper<Notification> stale = new LambdaUpdateWrapper<>();
+        stale.eq(Notification::getSendStatus, 2) // 发送中
+             .le(Notification::getUpdateTime, LocalDateTime.now().minusMinutes(sendingTimeoutMinutes))
+             .set(Notification::getSendStatus, 4)
+             .set(Notification::getFailReason, "发送结果未知")
+             .set(Notification::getNextRetryTime, LocalDateTime.now().minusMinutes(sweepGraceMinutes))
+             .setSql("retry_count = retry_count + 1");
+        int recovered = notificationMapper.update(null, stale);
+        if (recovered > 0) {
+            log.warn("发送中超时的通知转为失败重试，数量: {}", recovered);
+        }
+
         LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Notification::getSendStatus, 4) // 发送失败
-               .le(Notification::getNextRetryTime, LocalDateTime.now())
-               .lt(Notification::getRetryCount, Notification::getMaxRetryCount);
-        
-        List<Notification> retryNotifications = notificationMapper.selectList(wrapper);
+        wrapper.select(Notification::getId)
+               .eq(Notification::getSendStatus, 4) // 发送失败
+               .le(Notification::getNextRetryTime, LocalDateTime.now().minusMinutes(sweepGraceMinutes))
+               .apply("retry_count < max_retry_count")
+               .orderByAsc(Notification::getNextRetryTime)
+               .last("LIMIT " + sweepLimit);
+        
+        List<Long> retryIds = notificationMapper.selectList(wrapper).stream()
+                .map(Notification::getId)
+                .collect(Collectors.toList());
         
-        for (Notification notification : retryNotifications) {
-            // 发送到重试队列
-            rabbitTemplate.convertAndSend(NOTIFICATION_RETRY_QUEUE, notification.getId());
+        for (int from = 0; from < retryIds.size(); from += batchSize) {
+            List<Long> chunk = new ArrayList<>(retryIds.subList(from, Math.min(from + batchSize, retryIds.size())));
+            rabbitTemplate.convertAndSend(NOTIFICATION_BATCH_QUEUE, chunk);
         }
         
-        if (!retryNotifications.isEmpty()) {
-            log.info("处理重试任务，数量: {}", retryNotifications.size());
+        if (!retryIds.isEmpty()) {
+            log.info("补偿重试任务，数量: {}", retryIds.size());
         }
     }
 
+    /**
+     * 清理过期通知
+     * 由清理引擎按主键分块物理删除并限流，每块独立提交，不在一个大事务中执行
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Integer cleanExpiredNotifications(Integer days) {
-        LocalDateTime expireTime = LocalDateTime.now().minusDays(days);
-        
-        LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
-        wrapper.lt(Notification::getCreateTime, expireTime);
-        
-        int count = notificationMapper.delete(wrapper);
+        int count = notificationPurgeEngine.purge(days);
+        count += notificationBroadcastManager.purgeExpired(days);
         log.info("清理过期通知完成，清理数量: {}, 保留天数: {}", count, days);
-        
         return count;
     }
 
+    @Override
+    public PurgeProgressVO getPurgeProgress() {
+        return notificationPurgeEngine.getProgress();
+    }
+
+    @Override
+    public List<ChannelStatsVO> getChannelStats() {
+        return notificationChannelDispatcher.stats();
+    }
+
+    @Override
+    public MailPoolStatsVO getMailPoolStats() {
+        return pooledMailTransport.stats();
+    }
+
+    @Override
+    public DedupStatsVO getDedupStats() {
+        return notificationDeduplicator.stats();
+    }
+
+    /**
+     * 按ID查询通知，以ID推算的创建时间裁剪分区
+     */
+    private Notification selectById(Long id) {
+        LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
+        return notificationMapper.selectOne(NotificationIdRange.of(id).apply(wrapper.eq(Notification::getId, id)));
+    }
+
+    /**
+     * 按ID加锁读取未读计数相关字段，以ID推算的创建时间裁剪分区
+     */
+    private List<Notification> selectCounterRowsForUpdate(List<Long> ids) {
+        NotificationIdRange range = NotificationIdRange.of(ids);
+        return notificationMapper.selectCounterRowsForUpdate(ids, range.getFrom(), range.getTo());
+    }
+
     /**
-     * 更新通知状态
+     * 批量更新通知状态
      */
-    private void updateNotificationStatus(Long id, Integer status, LocalDateTime sendTime, String failReason) {
+    private void updateNotificationStatus(List<Long> ids, Integer status, LocalDateTime sendTime, String failReason) {
         LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
-        wrapper.eq(Notification::getId, id)
+        NotificationIdRange.of(ids).apply(wrapper.in(Notification::getId, ids))
                .set(Notification::getSendStatus, status)
                .set(Notification::getUpdateTime, LocalDateTime.now());
         
@@ -472,31 +755,70 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     /**
-     * 安排重试
+     * 批量安排重试
+     * 重试次数相同的通知下次重试时间也相同，按重试次数分组后每组一条UPDATE和一条延迟消息
      */
-    private void scheduleRetry(Notification notification) {
-        int retryCount = notification.getRetryCount() + 1;
-        
-        if (retryCount >= notification.getMaxRetryCount()) {
-            // 超过最大重试次数，标记为最终失败
-            updateNotificationStatus(notification.getId(), 4, null, "超过最大重试次数");
-            log.warn("通知发送最终失败，通知ID: {}", notification.getId());
-        } else {
-            // 计算下次重试时间（指数退避）
-            long delayMinutes = (long) Math.pow(2, retryCount - 1) * 5; // 5分钟、10分钟、20分钟...
-            LocalDateTime nextRetryTime = LocalDateTime.now().plusMinutes(delayMinutes);
-            
+    private void scheduleRetries(List<Notification> notifications) {
+        List<Long> exhausted = new ArrayList<>();
+        Map<Integer, List<Long>> byRetryCount = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            int retryCount = notification.getRetryCount() + 1;
+            if (retryCount >= notification.getMaxRetryCount()) {
+                exhausted.add(notification.getId());
+            } else {
+                byRetryCount.computeIfAbsent(retryCount, k -> new ArrayList<>()).add(notification.getId());
+            }
+        }
+
+        if (!exhausted.isEmpty()) {
+            // 超过最大重试次数，标记为最终失败，重试次数置满以免被再次重试
+            LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
+            NotificationIdRange.of(exhausted).apply(wrapper.in(Notification::getId, exhausted))
+                   .set(Notification::getSendStatus, 4)
+                   .set(Notification::getFailReason, "超过最大重试次数")
+                   .set(Notification::getNextRetryTime, null)
+                   .setSql("retry_count = max_retry_count")
+                   .set(Notification::getUpdateTime, LocalDateTime.now());
+            notificationMapper.update(null, wrapper);
+            log.warn("通知发送最终失败，通知ID: {}", exhausted);
+        }
+
+        byRetryCount.forEach((retryCount, ids) -> {
+            // 计算下次重试时间（指数退避：5分钟、10分钟、20分钟...）
+            long delayMillis = notificationRetryScheduler.delayMillis(retryCount);
+            LocalDateTime nextRetryTime = LocalDateTime.now().plus(delayMillis, ChronoUnit.MILLIS);
+
             LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
-            wrapper.eq(Notification::getId, notification.getId())
+            NotificationIdRange.of(ids).apply(wrapper.in(Notification::getId, ids))
                    .set(Notification::getSendStatus, 4) // 发送失败
                    .set(Notification::getRetryCount, retryCount)
                    .set(Notification::getNextRetryTime, nextRetryTime)
                    .set(Notification::getUpdateTime, LocalDateTime.now());
-            
+
             notificationMapper.update(null, wrapper);
-            log.info("安排通知重试，通知ID: {}, 重试次数: {}, 下次重试时间: {}", 
-                    notification.getId(), retryCount, nextRetryTime);
-        }
+            // 投递到对应级别的延迟队列，到期自动回到发送队列
+            notificationRetryScheduler.schedule(ids, retryCount);
+            log.info("安排通知重试，通知ID: {}, 重试次数: {}, 下次重试时间: {}", ids, retryCount, nextRetryTime);
+        });
+    }
+
+    /**
+     * 延后重投尚未调用渠道的通知
+     * 渠道过载不是发送失败，保持重试次数不变，按第一级退避进入延迟队列，延迟消息丢失时由补偿扫描兜底
+     */
+    private void deferRetries(List<Notification> notifications) {
+        List<Long> ids = notifications.stream().map(Notification::getId).collect(Collectors.toList());
+        long delayMillis = notificationRetryScheduler.delayMillis(1);
+        LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
+        NotificationIdRange.of(ids).apply(wrapper.in(Notification::getId, ids))
+               .eq(Notification::getSendStatus, 2) // 发送中
+               .set(Notification::getSendStatus, 4)
+               .set(Notification::getFailReason, "渠道繁忙，延后发送")
+               .set(Notification::getNextRetryTime, LocalDateTime.now().plus(delayMillis, ChronoUnit.MILLIS))
+               .set(Notification::getUpdateTime, LocalDateTime.now());
+        notificationMapper.update(null, wrapper);
+        notificationRetryScheduler.schedule(ids, 1);
+        log.warn("渠道繁忙，通知延后发送，数量: {}, 延迟: {}ms", ids.size(), delayMillis);
     }
 
     /**
@@ -521,12 +843,14 @@ public class NotificationServiceImpl implements NotificationService {
      */
     private boolean sendEmail(Notification notification) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(notification.getReceiverAddress());
-            message.setSubject(notification.getTitle());
-            message.setText(notification.getContent());
-            
-            mailSender.send(message);
+            // 通过连接池复用已认证的SMTP会话，不再每封邮件重新握手
+            MimeMessage message = pooledMailTransport.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+            helper.setTo(notification.getReceiverAddress());
+            helper.setSubject(notification.getTitle());
+            helper.setText(notification.getContent());
+
+            pooledMailTransport.send(message);
             log.info("发送邮件通知成功，接收地址: {}", notification.getReceiverAddress());
             return true;
         } catch (Exception e) {
@@ -563,20 +887,26 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     /**
-     * 更新未读计数
+     * 广播通知转换为VO对象
      */
-    private void updateUnreadCount(Long receiverId, Integer receiverType, int delta) {
-        String key = UNREAD_COUNT_KEY + receiverType + ":" + receiverId;
-        redisTemplate.opsForValue().increment(key, delta);
-        redisTemplate.expire(key, 1, TimeUnit.HOURS);
+    private NotificationVO convertToVO(NotificationBroadcast broadcast, Long receiverId) {
+        NotificationVO vo = NotificationConverter.toVO(broadcast, receiverId);
+
+        vo.setTypeDesc(getTypeDesc(vo.getType()));
+        vo.setLevelDesc(getLevelDesc(vo.getLevel()));
+        vo.setSendTypeDesc(getSendTypeDesc(vo.getSendType()));
+        vo.setReceiverTypeDesc(getReceiverTypeDesc(vo.getReceiverType()));
+        vo.setSendStatusDesc(getSendStatusDesc(vo.getSendStatus()));
+        vo.setReadStatusDesc(getReadStatusDesc(vo.getReadStatus()));
+
+        return vo;
     }
 
     /**
      * 转换为VO对象
      */
     private NotificationVO convertToVO(Notification notification) {
-        NotificationVO vo = new NotificationVO();
-        BeanUtil.copyProperties(notification, vo);
+        NotificationVO vo = NotificationConverter.toVO(notification);
         
         // 设置描述字段
         vo.setTypeDesc(getTypeDesc(notification.getType()));
@@ -0,0 +1,280 @@
+package com.drone.delivery.notification.stream;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.notification.broadcast.NotificationBroadcastManager;
+import com.drone.delivery.notification.unread.UnreadCountChangedEvent;
+import com.drone.delivery.notification.vo.NotificationVO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通知推送流中心
+ * 客户端通过SSE长连接订阅自己的通知，连接由Servlet异步请求承载，空闲连接不占用线程。
+ * 站内信发送成功、未读计数写回后，事件经Redis频道广播到所有实例，由持有该接收人连接的实例推送：
+ * notification 事件携带新通知，unread-count 事件携带最新未读数。
+ * 广播通知按接收用户类型发布一次，各实例推送给本地持有的该类型全部连接。
+ * 没有在线连接的实例收到广播后直接忽略，未读数只对在线接收人查询。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class NotificationStreamHub implements MessageListener {
+
+    public static final String STREAM_CHANNEL = "notification:stream";
+
+    private static final String EVENT_NOTIFICATION = "notification";
+    private static final String EVENT_UNREAD_COUNT = "unread-count";
+    private static final String EVENT_BROADCAST = "broadcast";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final NotificationBroadcastManager notificationBroadcastManager;
+
+    /**
+     * 连接超时（毫秒），到期后客户端按 EventSource 机制自动重连
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 单个接收人的最大连接数（多标签页、多设备）
+     */
+    private final int maxConnectionsPerReceiver;
+
+    /**
+     * 接收人（接收用户类型:接收用户ID） -> 本实例持有的连接
+     */
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public NotificationStreamHub(StringRedisTemplate stringRedisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 NotificationBroadcastManager notificationBroadcastManager,
+                                 @Value("${notification.stream.timeout-millis:1800000}") long timeoutMillis,
+                                 @Value("${notification.stream.max-connections-per-receiver:5}") int maxConnectionsPerReceiver) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.notificationBroadcastManager = notificationBroadcastManager;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConnectionsPerReceiver = maxConnectionsPerReceiver;
+    }
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(STREAM_CHANNEL));
+    }
+
+    /**
+     * 建立推送连接，建立后立即推送一次当前未读数
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return SSE连接
+     */
+    public SseEmitter subscribe(Long receiverId, Integer receiverType) {
+        String receiver = receiver(receiverId, receiverType);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.compute(receiver, (k, receiverEmitters) -> {
+            if (receiverEmitters == null) {
+                receiverEmitters = ConcurrentHashMap.newKeySet();
+            } else if (receiverEmitters.size() >= maxConnectionsPerReceiver) {
+                throw new BusinessException("推送连接数超过上限");
+            }
+            receiverEmitters.add(emitter);
+            return receiverEmitters;
+        });
+        connections.incrementAndGet();
+        emitter.onCompletion(() -> remove(receiver, emitter));
+        emitter.onTimeout(() -> remove(receiver, emitter));
+        emitter.onError(e -> remove(receiver, emitter));
+
+        send(receiver, emitter, EVENT_UNREAD_COUNT, notificationBroadcastManager.unreadCount(receiverId, receiverType));
+        return emitter;
+    }
+
+    /**
+     * 广播发送成功的站内信
+     *
+     * @param notifications 通知
+     */
+    public void publishNotifications(List<NotificationVO> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        JSONArray items = new JSONArray();
+        for (NotificationVO notification : notifications) {
+            JSONObject item = new JSONObject();
+            item.put("receiver", receiver(notification.getReceiverId(), notification.getReceiverType()));
+            item.put("data", notification);
+            items.add(item);
+        }
+        publish(EVENT_NOTIFICATION, items);
+    }
+
+    /**
+     * 发布广播通知，受众为该接收用户类型的全部在线连接
+     *
+     * @param broadcast 广播通知
+     */
+    public void publishBroadcast(NotificationVO broadcast) {
+        JSONObject item = new JSONObject();
+        item.put("audience", broadcast.getReceiverType());
+        item.put("data", broadcast);
+        JSONArray items = new JSONArray();
+        items.add(item);
+        publish(EVENT_BROADCAST, items);
+    }
+
+    /**
+     * 未读计数写回后广播发生变化的接收人
+     */
+    @EventListener
+    public void onUnreadCountChanged(UnreadCountChangedEvent event) {
+        if (!event.getReceivers().isEmpty()) {
+            publish(EVENT_UNREAD_COUNT, new JSONArray(new ArrayList<Object>(event.getReceivers())));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        try {
+            JSONObject body = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8));
+            JSONArray items = body.getJSONArray("items");
+            if (EVENT_NOTIFICATION.equals(body.getString("event"))) {
+                for (int i = 0; i < items.size(); i++) {
+                    JSONObject item = items.getJSONObject(i);
+                    broadcast(item.getString("receiver"), EVENT_NOTIFICATION, item.getJSONObject("data"));
+                }
+            } else if (EVENT_UNREAD_COUNT.equals(body.getString("event"))) {
+                for (int i = 0; i < items.size(); i++) {
+                    pushUnreadCount(items.getString(i));
+                }
+            } else if (EVENT_BROADCAST.equals(body.getString("event"))) {
+                for (int i = 0; i < items.size(); i++) {
+                    JSONObject item = items.getJSONObject(i);
+                    fanOut(item.getString("audience") + ":", item.getJSONObject("data"));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("处理通知推送消息失败", e);
+        }
+    }
+
+    /**
+     * 定时发送心跳注释，防止代理断开空闲连接，同时清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-millis:25000}")
+    public void heartbeat() {
+        emitters.forEach((receiver, receiverEmitters) -> {
+            for (SseEmitter emitter : receiverEmitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(receiver, emitter);
+                }
+            }
+        });
+        log.debug("通知推送心跳完成，在线连接数: {}", connections.get());
+    }
+
+    /**
+     * 本实例持有的连接数
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * 把广播推送给本实例上该接收用户类型的每个接收人，并刷新其未读数
+     */
+    private void fanOut(String audiencePrefix, JSONObject data) {
+        for (String receiver : emitters.keySet()) {
+            if (!receiver.startsWith(audiencePrefix)) {
+                continue;
+            }
+            JSONObject personal = new JSONObject(new HashMap<>(data));
+            personal.put("receiverId", Long.valueOf(receiver.substring(audiencePrefix.length())));
+            broadcast(receiver, EVENT_NOTIFICATION, personal);
+            pushUnreadCount(receiver);
+        }
+    }
+
+    private void pushUnreadCount(String receiver) {
+        if (!emitters.containsKey(receiver)) {
+            return;
+        }
+        int split = receiver.indexOf(':');
+        Integer receiverType = Integer.valueOf(receiver.substring(0, split));
+        Long receiverId = Long.valueOf(receiver.substring(split + 1));
+        broadcast(receiver, EVENT_UNREAD_COUNT, notificationBroadcastManager.unreadCount(receiverId, receiverType));
+    }
+
+    private void broadcast(String receiver, String event, Object data) {
+        Set<SseEmitter> receiverEmitters = emitters.get(receiver);
+        if (receiverEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : receiverEmitters) {
+            send(receiver, emitter, event, data);
+        }
+    }
+
+    private void send(String receiver, SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(JSON.toJSONString(data)));
+        } catch (IOException | IllegalStateException e) {
+            remove(receiver, emitter);
+        }
+    }
+
+    private void publish(String event, JSONArray items) {
+        JSONObject message = new JSONObject();
+        message.put("event", event);
+        message.put("items", items);
+        try {
+            stringRedisTemplate.convertAndSend(STREAM_CHANNEL, message.toJSONString());
+        } catch (Exception e) {
+            log.warn("发布通知推送消息失败，事件: {}", event, e);
+        }
+    }
+
+    private void remove(String receiver, SseEmitter emitter) {
+        Set<SseEmitter> receiverEmitters = emitters.get(receiver);
+        if (receiverEmitters != null && receiverEmitters.remove(emitter)) {
+            connections.decrementAndGet();
+            emitters.computeIfPresent(receiver, (k, v) -> v.isEmpty() ? null : v);
+        }
+    }
+
+    private static String receiver(Long receiverId, Integer receiverType) {
+        return receiverType + ":" + receiverId;
+    }
+}
@@ -1,11 +1,15 @@
 package com.drone.delivery.notification.task;
 
+import com.drone.delivery.notification.partition.NotificationPartitionManager;
 import com.drone.delivery.notification.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * 通知定时任务
  * 
@@ -18,17 +22,49 @@ import org.springframework.stereotype.Component;
 public class NotificationScheduledTask {
 
     private final NotificationService notificationService;
+    private final NotificationPartitionManager notificationPartitionManager;
+    private final NotificationTaskLock notificationTaskLock;
+
+    /**
+     * 过期通知保留天数
+     */
+    @Value("${notification.expire-days:30}")
+    private Integer expireDays;
 
     /**
-     * 处理重试任务
-     * 每分钟执行一次
+     * 补偿重试：扫描延迟消息丢失、超过到期时间仍未重试的通知
+     * 默认每10分钟执行一次，集群中只在一个实例上执行
      */
-    @Scheduled(fixedRate = 60000)
-    public void processRetryTasks() {
+    @Scheduled(fixedDelayString = "${notification.retry.sweep-interval-millis:600000}")
+    public void sweepRetryTasks() {
+        String token = notificationTaskLock.tryLock("retry-sweep", Duration.ofMinutes(5));
+        if (token == null) {
+            return;
+        }
         try {
             notificationService.processRetryTasks();
         } catch (Exception e) {
-            log.error("处理重试任务异常", e);
+            log.error("补偿重试任务异常", e);
+        } finally {
+            notificationTaskLock.unlock("retry-sweep", token);
+        }
+    }
+
+    /**
+     * 维护通知表分区：预建后续月份分区，整块删除过期分区
+     * 每天凌晨1点30分执行，早于逐行清理，使逐行清理只需处理未满一个月的零头和已逻辑删除的数据
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void maintainPartitions() {
+        try {
+            if (!notificationPartitionManager.isPartitioned()) {
+                return;
+            }
+            notificationPartitionManager.ensureFuturePartitions();
+            int dropped = notificationPartitionManager.dropExpiredPartitions(expireDays);
+            log.info("维护通知表分区完成，删除过期分区: {}", dropped);
+        } catch (Exception e) {
+            log.error("维护通知表分区异常", e);
         }
     }
 
@@ -39,7 +75,7 @@ public class NotificationScheduledTask {
     @Scheduled(cron = "0 0 2 * * ?")
     public void cleanExpiredNotifications() {
         try {
-            Integer count = notificationService.cleanExpiredNotifications(30);
+            Integer count = notificationService.cleanExpiredNotifications(expireDays);
             log.info("清理过期通知完成，清理数量: {}", count);
         } catch (Exception e) {
             log.error("清理过期通知异常", e);
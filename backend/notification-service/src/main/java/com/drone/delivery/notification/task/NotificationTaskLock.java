@@ -0,0 +1,85 @@
+package com.drone.delivery.notification.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 定时任务集群锁
+ * 同一任务在集群中同一时刻只在一个实例上执行；锁带持有者令牌，续期和释放都先比较令牌，
+ * 不会误删或误续其他实例的锁。Redis不可用时视为未取得锁，本次任务跳过。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationTaskLock {
+
+    private static final String KEY_PREFIX = "notification:task-lock:";
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 尝试加锁
+     *
+     * @param name 任务名
+     * @param ttl 锁有效期
+     * @return 持有者令牌，未取得锁时为 null
+     */
+    public String tryLock(String name, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + name, token, ttl))
+                    ? token : null;
+        } catch (Exception e) {
+            log.warn("获取任务锁失败，任务: {}", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * 续期，长任务在每个分块之前调用
+     *
+     * @return 是否仍持有锁，false 时调用方应停止执行
+     */
+    public boolean renew(String name, String token, Duration ttl) {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(KEY_PREFIX + name),
+                    token, String.valueOf(ttl.toMillis()));
+            return renewed != null && renewed > 0;
+        } catch (Exception e) {
+            log.warn("续期任务锁失败，任务: {}", name, e);
+            return false;
+        }
+    }
+
+    /**
+     * 释放锁
+     */
+    public void unlock(String name, String token) {
+        if (token == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + name), token);
+        } catch (Exception e) {
+            log.debug("释放任务锁失败，任务: {}", name, e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.drone.delivery.notification.template;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 通知模板，标题和内容各自预编译
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Getter
+@AllArgsConstructor
+public class NotificationTemplate {
+
+    private final String templateId;
+
+    /**
+     * 标题模板，未配置时为 null，沿用调用方传入的标题
+     */
+    private final CompiledTemplate title;
+
+    private final CompiledTemplate content;
+
+    /**
+     * 渲染标题，未配置标题模板时返回 defaultTitle
+     */
+    public String renderTitle(Map<String, ?> params, String defaultTitle) {
+        return title != null ? title.render(params) : defaultTitle;
+    }
+
+    public String renderContent(Map<String, ?> params) {
+        return content.render(params);
+    }
+}
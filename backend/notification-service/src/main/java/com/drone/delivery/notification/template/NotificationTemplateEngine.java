@@ -0,0 +1,76 @@
+package com.drone.delivery.notification.template;
+
+import com.drone.delivery.common.exception.BusinessException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 通知模板引擎
+ * 模板按 notification.templates.&lt;模板ID&gt;.title / content 配置（可放在Nacos中），
+ * 首次使用时编译并按模板ID缓存，超出容量按最近最少使用淘汰；配置刷新时清空缓存，下次使用重新编译。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class NotificationTemplateEngine {
+
+    private static final String PREFIX = "notification.templates.";
+
+    private final Environment environment;
+    private final Cache<String, NotificationTemplate> cache;
+
+    public NotificationTemplateEngine(Environment environment,
+                                      @Value("${notification.template.cache-size:500}") long cacheSize) {
+        this.environment = environment;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * 获取编译后的模板
+     *
+     * @param templateId 模板ID
+     * @return 模板
+     * @throws BusinessException 模板不存在
+     */
+    public NotificationTemplate get(String templateId) {
+        NotificationTemplate template = cache.get(templateId, this::compile);
+        if (template == null) {
+            throw new BusinessException("通知模板不存在: " + templateId);
+        }
+        return template;
+    }
+
+    /**
+     * 配置变更后清空已编译模板
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        boolean templateChanged = event.getKeys().stream().anyMatch(key -> key.startsWith(PREFIX));
+        if (templateChanged) {
+            cache.invalidateAll();
+            log.info("通知模板配置变更，已清空模板缓存");
+        }
+    }
+
+    private NotificationTemplate compile(String templateId) {
+        String content = environment.getProperty(PREFIX + templateId + ".content");
+        if (content == null) {
+            return null;
+        }
+        String title = environment.getProperty(PREFIX + templateId + ".title");
+        log.debug("编译通知模板: {}", templateId);
+        return new NotificationTemplate(templateId,
+                title != null ? CompiledTemplate.compile(title) : null,
+                CompiledTemplate.compile(content));
+    }
+}
@@ -0,0 +1,409 @@
+package com.drone.delivery.notification.unread;
+
+import com.drone.delivery.notification.mapper.NotificationMapper;
+import com.drone.delivery.notification.task.NotificationTaskLock;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 未读计数聚合器
+ * 计数口径为发送成功、未读、未删除的通知：发送成功时加一，已读、删除、清理时仅对发送成功的通知减一，
+ * 与回源统计SQL一致。增量先在进程内按接收人合并（ConcurrentHashMap 按桶加锁，天然分段），
+ * 再由定时任务用一段Lua脚本批量写回，把每条通知一次 INCR+EXPIRE 收敛为每个刷新周期每个接收人一条命令。
+ * Redis中的计数带过期时间，只对已存在的键累加；键不存在或过期时查询回源数据库并以 SET NX 写入，
+ * 因此冷启动无需整体重建。另有低频对账任务逐批比对Redis中现存的计数键，偏差的键比较后删除，由下次查询回源。
+ * 每批写回成功或计数清零后发布 {@link UnreadCountChangedEvent}，供推送流通知在线的接收人。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class UnreadCountAggregator {
+
+    private static final String UNREAD_COUNT_KEY = "notification:unread:count:";
+
+    private static final String RECONCILE_TASK = "unread-reconcile";
+
+    private static final Duration RECONCILE_LOCK_TTL = Duration.ofMinutes(10);
+
+    /**
+     * 只对已存在的计数键累加并续期，不存在的键跳过，由查询回源
+     * KEYS 为计数键，ARGV[1] 为过期毫秒数，ARGV[2..] 依次为各键的增量
+     */
+    private static final DefaultRedisScript<Long> INCR_IF_EXISTS_SCRIPT = new DefaultRedisScript<>(
+            "local n = 0 "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "if redis.call('exists', key) == 1 then "
+                    + "redis.call('incrby', key, ARGV[i + 1]) "
+                    + "redis.call('pexpire', key, ARGV[1]) "
+                    + "n = n + 1 "
+                    + "end "
+                    + "end "
+                    + "return n",
+            Long.class);
+
+    /**
+     * 值仍等于比较值时删除，避免对账时覆盖其他实例刚写回的增量
+     */
+    private static final DefaultRedisScript<Long> DELETE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NotificationMapper notificationMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationTaskLock notificationTaskLock;
+
+    /**
+     * 单次脚本提交的最大键数
+     */
+    private final int flushBatchSize;
+
+    /**
+     * 计数键过期时间
+     */
+    private final Duration countTtl;
+
+    /**
+     * 计数键 -> 尚未写回Redis的增量
+     */
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong absorbed = new AtomicLong();
+    private final AtomicLong flushedKeys = new AtomicLong();
+    private final AtomicLong flushBatches = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong reconciledKeys = new AtomicLong();
+
+    public UnreadCountAggregator(StringRedisTemplate stringRedisTemplate,
+                                 NotificationMapper notificationMapper,
+                                 ApplicationEventPublisher eventPublisher,
+                                 NotificationTaskLock notificationTaskLock,
+                                 @Value("${notification.unread.flush-batch-size:1000}") int flushBatchSize,
+                                 @Value("${notification.unread.count-ttl-hours:72}") long countTtlHours) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.notificationMapper = notificationMapper;
+        this.eventPublisher = eventPublisher;
+        this.notificationTaskLock = notificationTaskLock;
+        this.flushBatchSize = flushBatchSize;
+        this.countTtl = Duration.ofHours(countTtlHours);
+    }
+
+    /**
+     * 累加未读数增量
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @param delta 增量，可为负
+     */
+    public void add(Long receiverId, Integer receiverType, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        pending.merge(key(receiverId, receiverType), delta, Long::sum);
+        absorbed.incrementAndGet();
+    }
+
+    /**
+     * 查询未读数，包含本实例尚未写回的增量
+     * 计数键不存在或已过期时回源数据库统计，以 SET NX 写入，已有其他实例写入时以Redis中的值为准
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     * @return 未读数
+     */
+    public long get(Long receiverId, Integer receiverType) {
+        String key = key(receiverId, receiverType);
+        String value = stringRedisTemplate.opsForValue().get(key);
+        long count;
+        if (value != null) {
+            count = Long.parseLong(value);
+            count += pending.getOrDefault(key, 0L);
+        } else {
+            // 回源结果已包含已提交的变更，缺失期间的增量在写回时被跳过，不再叠加
+            count = notificationMapper.selectUnreadCountByReceiver(receiverId, receiverType);
+            reloads.incrementAndGet();
+            Boolean written = stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count), countTtl);
+            if (!Boolean.TRUE.equals(written)) {
+                String current = stringRedisTemplate.opsForValue().get(key);
+                if (current != null) {
+                    count = Long.parseLong(current);
+                }
+            }
+        }
+        return Math.max(count, 0L);
+    }
+
+    /**
+     * 清零未读数，如全部标记已读时调用
+     * 与写回互斥，避免写回线程已摘取的旧增量在清零之后再叠加上去
+     *
+     * @param receiverId 接收用户ID
+     * @param receiverType 接收用户类型
+     */
+    public synchronized void reset(Long receiverId, Integer receiverType) {
+        String key = key(receiverId, receiverType);
+        pending.remove(key);
+        stringRedisTemplate.opsForValue().set(key, "0", countTtl);
+        publishChanged(Collections.singletonList(key));
+    }
+
+    /**
+     * 使一批接收人的计数失效，由下次查询回源数据库
+     * 用于整块删除数据之后，此时无法再按行扣减；与写回互斥，失效前的旧增量一并丢弃
+     *
+     * @param receiverIds 接收用户ID列表
+     * @param receiverType 接收用户类型
+     */
+    public synchronized void invalidate(List<Long> receiverIds, Integer receiverType) {
+        List<String> keys = new ArrayList<>(receiverIds.size());
+        for (Long receiverId : receiverIds) {
+            String key = key(receiverId, receiverType);
+            pending.remove(key);
+            keys.add(key);
+        }
+        for (int from = 0; from < keys.size(); from += flushBatchSize) {
+            stringRedisTemplate.delete(keys.subList(from, Math.min(from + flushBatchSize, keys.size())));
+        }
+        if (!keys.isEmpty()) {
+            publishChanged(keys);
+        }
+    }
+
+    /**
+     * 定时把合并后的增量写回Redis
+     */
+    @Scheduled(fixedDelayString = "${notification.unread.flush-interval-millis:200}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("未读计数写回Redis异常", e);
+        }
+    }
+
+    /**
+     * 摘取全部增量并按批通过脚本写回，写回失败的增量放回缓冲区等待下一轮
+     *
+     * @return 写回的键数
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Map<String, Long> batch = new HashMap<>();
+        int keys = 0;
+        Iterator<String> iterator = pending.keySet().iterator();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            // remove 原子地取走当前增量，之后到达的增量会建立新条目，不会丢失
+            Long delta = pending.remove(key);
+            if (delta == null || delta == 0) {
+                continue;
+            }
+            batch.put(key, delta);
+            if (batch.size() >= flushBatchSize) {
+                keys += writeBatch(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            keys += writeBatch(batch);
+        }
+        return keys;
+    }
+
+    /**
+     * 定时对账：按批扫描Redis中已有的计数键，逐批按接收人统计比对
+     * 偏差的键在值未被其他实例改动时删除，由下次查询回源，不直接写入绝对值，避免覆盖并发写回的增量。
+     * 通过任务锁保证集群内只有一个实例执行。
+     */
+    @Scheduled(cron = "${notification.unread.reconcile-cron:0 20 * * * ?}")
+    public void scheduledReconcile() {
+        String token = notificationTaskLock.tryLock(RECONCILE_TASK, RECONCILE_LOCK_TTL);
+        if (token == null) {
+            return;
+        }
+        try {
+            int corrected = reconcile();
+            log.info("未读计数对账完成，修正键数: {}", corrected);
+        } catch (Exception e) {
+            log.error("未读计数对账异常", e);
+        } finally {
+            notificationTaskLock.unlock(RECONCILE_TASK, token);
+        }
+    }
+
+    /**
+     * 比对数据库统计结果与Redis中的计数，删除偏差的键
+     * 只有近期查询过的接收人才有计数键（键带过期时间），对账以扫描到的键驱动，
+     * 每批只统计这批键对应的接收人，内存和单条SQL的规模都以批大小为上限，不做全表分组统计
+     *
+     * @return 删除的键数
+     */
+    public int reconcile() {
+        int corrected = 0;
+        List<String> keys = new ArrayList<>(flushBatchSize);
+        ScanOptions options = ScanOptions.scanOptions().match(UNREAD_COUNT_KEY + "*").count(flushBatchSize).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                keys.add(cursor.next());
+                if (keys.size() >= flushBatchSize) {
+                    corrected += reconcileBatch(keys);
+                    keys.clear();
+                }
+            }
+        }
+        if (!keys.isEmpty()) {
+            corrected += reconcileBatch(keys);
+        }
+        reconciledKeys.addAndGet(corrected);
+        return corrected;
+    }
+
+    /**
+     * 停机前写回剩余增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public long getAbsorbed() {
+        return absorbed.get();
+    }
+
+    public long getFlushedKeys() {
+        return flushedKeys.get();
+    }
+
+    public long getFlushBatches() {
+        return flushBatches.get();
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    public long getReloads() {
+        return reloads.get();
+    }
+
+    public long getReconciledKeys() {
+        return reconciledKeys.get();
+    }
+
+    private int reconcileBatch(List<String> keys) {
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return 0;
+        }
+        Map<String, Long> expected = countUnread(keys);
+        int corrected = 0;
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String key = keys.get(i);
+            if (!Objects.equals(Long.parseLong(value), expected.getOrDefault(key, 0L))) {
+                Long deleted = stringRedisTemplate.execute(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(key), value);
+                if (deleted != null && deleted > 0) {
+                    corrected++;
+                    changed.add(key);
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            publishChanged(changed);
+        }
+        return corrected;
+    }
+
+    /**
+     * 按接收人类型分组统计一批计数键对应的未读数，没有未读通知的键不在结果中
+     */
+    private Map<String, Long> countUnread(List<String> keys) {
+        Map<Integer, List<Long>> receiversByType = new HashMap<>();
+        for (String key : keys) {
+            String[] parts = key.substring(UNREAD_COUNT_KEY.length()).split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                receiversByType.computeIfAbsent(Integer.valueOf(parts[0]), k -> new ArrayList<>()).add(Long.valueOf(parts[1]));
+            } catch (NumberFormatException e) {
+                log.warn("忽略格式错误的未读计数键: {}", key);
+            }
+        }
+        Map<String, Long> expected = new HashMap<>(keys.size() * 2);
+        receiversByType.forEach((receiverType, receiverIds) -> {
+            for (Map<String, Object> row : notificationMapper.selectUnreadCountByReceivers(receiverType, receiverIds)) {
+                expected.put(key(((Number) row.get("receiverId")).longValue(), receiverType),
+                        ((Number) row.get("unreadCount")).longValue());
+            }
+        });
+        return expected;
+    }
+
+    private int writeBatch(Map<String, Long> batch) {
+        try {
+            List<String> keys = new ArrayList<>(batch.size());
+            Object[] args = new Object[batch.size() + 1];
+            args[0] = String.valueOf(countTtl.toMillis());
+            int i = 1;
+            for (Map.Entry<String, Long> entry : batch.entrySet()) {
+                keys.add(entry.getKey());
+                args[i++] = String.valueOf(entry.getValue());
+            }
+            stringRedisTemplate.execute(INCR_IF_EXISTS_SCRIPT, keys, args);
+            flushBatches.incrementAndGet();
+            flushedKeys.addAndGet(batch.size());
+            publishChanged(batch.keySet());
+            return batch.size();
+        } catch (Exception e) {
+            // 放回缓冲区，下一轮重试
+            batch.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+            log.warn("未读计数写回Redis失败，键数: {}", batch.size(), e);
+            return 0;
+        }
+    }
+
+    private void publishChanged(Collection<String> keys) {
+        List<String> receivers = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            receivers.add(key.substring(UNREAD_COUNT_KEY.length()));
+        }
+        try {
+            eventPublisher.publishEvent(new UnreadCountChangedEvent(receivers));
+        } catch (Exception e) {
+            log.warn("发布未读计数变更事件失败", e);
+        }
+    }
+
+    private static String key(Long receiverId, Integer receiverType) {
+        return UNREAD_COUNT_KEY + receiverType + ":" + receiverId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.drone.delivery.notification.unread;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * 未读计数已写回Redis事件
+ * 每轮写回发布一次，携带本轮计数发生变化的接收人
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Getter
+@AllArgsConstructor
+public class UnreadCountChangedEvent {
+
+    /**
+     * 接收人，格式为 接收用户类型:接收用户ID
+     */
+    private final Collection<String> receivers;
+}
@@ -0,0 +1,54 @@
+package com.drone.delivery.notification.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 发送渠道执行器统计视图对象
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+@Schema(description = "发送渠道执行器统计视图对象")
+public class ChannelStatsVO {
+
+    @Schema(description = "渠道名称")
+    private String channel;
+
+    @Schema(description = "并发上限")
+    private Integer concurrency;
+
+    @Schema(description = "队列容量")
+    private Integer queueCapacity;
+
+    @Schema(description = "单条发送超时（毫秒）")
+    private Long timeoutMillis;
+
+    @Schema(description = "每秒发送上限，0表示不限速")
+    private Integer ratePerSecond;
+
+    @Schema(description = "正在发送的任务数")
+    private Integer active;
+
+    @Schema(description = "排队中的任务数")
+    private Integer queueDepth;
+
+    @Schema(description = "累计提交数")
+    private Long submitted;
+
+    @Schema(description = "累计成功数")
+    private Long succeeded;
+
+    @Schema(description = "累计失败数，含超时、限流和拒绝")
+    private Long failed;
+
+    @Schema(description = "因队列已满被拒绝的数量")
+    private Long rejected;
+
+    @Schema(description = "限流等待超时的数量")
+    private Long rateLimited;
+
+    @Schema(description = "发送超时的数量")
+    private Long timedOut;
+}
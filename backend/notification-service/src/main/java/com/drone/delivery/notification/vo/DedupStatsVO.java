@@ -0,0 +1,42 @@
+package com.drone.delivery.notification.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 通知去重统计视图对象
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+@Schema(description = "通知去重统计视图对象")
+public class DedupStatsVO {
+
+    @Schema(description = "是否启用去重")
+    private Boolean enabled;
+
+    @Schema(description = "去重窗口（秒）")
+    private Long windowSeconds;
+
+    @Schema(description = "单个轮换周期布隆过滤器位数")
+    private Integer bloomBits;
+
+    @Schema(description = "布隆过滤器哈希函数个数")
+    private Integer bloomHashes;
+
+    @Schema(description = "参与去重检查的通知数")
+    private Long checked;
+
+    @Schema(description = "放行数")
+    private Long passed;
+
+    @Schema(description = "Redis不可用时本地布隆过滤器命中而丢弃的数量")
+    private Long suppressedLocal;
+
+    @Schema(description = "Redis幂等键已存在而丢弃的数量")
+    private Long suppressedRemote;
+
+    @Schema(description = "Redis异常放行的数量")
+    private Long redisErrors;
+}
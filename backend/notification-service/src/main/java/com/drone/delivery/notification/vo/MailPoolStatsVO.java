@@ -0,0 +1,48 @@
+package com.drone.delivery.notification.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * SMTP连接池统计视图对象
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+@Schema(description = "SMTP连接池统计视图对象")
+public class MailPoolStatsVO {
+
+    @Schema(description = "连接数上限")
+    private Integer maxSize;
+
+    @Schema(description = "借出中的连接数")
+    private Integer active;
+
+    @Schema(description = "空闲连接数")
+    private Integer idle;
+
+    @Schema(description = "等待借出连接的线程数")
+    private Integer waiting;
+
+    @Schema(description = "累计建立的连接数")
+    private Long created;
+
+    @Schema(description = "累计关闭的连接数")
+    private Long destroyed;
+
+    @Schema(description = "累计借出次数")
+    private Long borrowed;
+
+    @Schema(description = "借出超时次数")
+    private Long borrowTimeouts;
+
+    @Schema(description = "累计发送成功的邮件数")
+    private Long messagesSent;
+
+    @Schema(description = "累计发送失败的邮件数")
+    private Long messagesFailed;
+
+    @Schema(description = "平均每条连接发送的邮件数")
+    private Double messagesPerConnection;
+}
@@ -99,6 +99,9 @@ public class NotificationVO {
     @Schema(description = "备注")
     private String remark;
 
+    @Schema(description = "是否为广播通知，广播通知需调用广播已读接口标记已读")
+    private Boolean broadcast;
+
     @Schema(description = "创建时间")
     private LocalDateTime createTime;
 
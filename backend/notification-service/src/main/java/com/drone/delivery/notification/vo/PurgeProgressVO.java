@@ -0,0 +1,59 @@
+package com.drone.delivery.notification.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 过期通知清理进度视图对象
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+@Schema(description = "过期通知清理进度视图对象")
+public class PurgeProgressVO {
+
+    @Schema(description = "是否正在运行")
+    private Boolean running;
+
+    @Schema(description = "保留天数")
+    private Integer retentionDays;
+
+    @Schema(description = "清理截止时间，早于该时间的通知被清理")
+    private LocalDateTime expireTime;
+
+    @Schema(description = "已扫描行数")
+    private Long scanned;
+
+    @Schema(description = "已物理删除行数")
+    private Long deleted;
+
+    @Schema(description = "已归档行数")
+    private Long archived;
+
+    @Schema(description = "最近处理的一块的最后一个通知ID")
+    private Long lastId;
+
+    @Schema(description = "已执行的分块数")
+    private Long chunks;
+
+    @Schema(description = "开始时间")
+    private LocalDateTime startTime;
+
+    @Schema(description = "结束时间")
+    private LocalDateTime finishTime;
+
+    @Schema(description = "已耗时（毫秒）")
+    private Long elapsedMillis;
+
+    @Schema(description = "删除吞吐（行/秒）")
+    private Long rowsPerSecond;
+
+    @Schema(description = "归档文件路径")
+    private String archiveFile;
+
+    @Schema(description = "失败原因")
+    private String errorMessage;
+}
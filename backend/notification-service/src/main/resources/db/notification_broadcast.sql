@@ -0,0 +1,23 @@
+-- 广播通知表（drone_delivery_notification 库）
+-- 面向某一类接收用户的系统公告只存一行，已读状态由 BroadcastReadTracker 记录在Redis位图中
+-- （notification:broadcast:read:{id}，按接收人稠密序号 SETBIT），read_count 由位图定时同步，只用于统计展示。
+
+USE drone_delivery_notification;
+
+CREATE TABLE IF NOT EXISTS notification_broadcast (
+    id            BIGINT       NOT NULL COMMENT '广播通知ID',
+    title         VARCHAR(200) NOT NULL COMMENT '通知标题',
+    content       TEXT         NOT NULL COMMENT '通知内容',
+    type          TINYINT      NOT NULL DEFAULT 1 COMMENT '通知类型：1-系统通知，2-订单通知，3-支付通知，4-配送通知，5-营销通知',
+    level         TINYINT      NOT NULL DEFAULT 1 COMMENT '通知级别：1-普通，2-重要，3-紧急',
+    receiver_type TINYINT      NOT NULL COMMENT '接收用户类型：1-普通用户，2-飞手，3-管理员',
+    business_id   VARCHAR(64)           DEFAULT NULL COMMENT '业务ID',
+    business_type VARCHAR(64)           DEFAULT NULL COMMENT '业务类型',
+    read_count    BIGINT       NOT NULL DEFAULT 0 COMMENT '已读人数',
+    remark        VARCHAR(500)          DEFAULT NULL COMMENT '备注',
+    create_time   DATETIME     NOT NULL COMMENT '创建时间',
+    update_time   DATETIME     NOT NULL COMMENT '更新时间',
+    deleted       TINYINT      NOT NULL DEFAULT 0 COMMENT '逻辑删除标志：0-未删除，1-已删除',
+    PRIMARY KEY (id),
+    INDEX idx_receiver_type_time (receiver_type, deleted, create_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '广播通知表';
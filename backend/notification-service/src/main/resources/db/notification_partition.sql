@@ -0,0 +1,24 @@
+-- 通知表按月范围分区迁移脚本（drone_delivery_notification 库）
+-- 分区键必须包含在主键中，主键改为 (id, create_time)。
+-- 代价：只带 id 的查询、更新、删除和 FOR UPDATE 无法裁剪分区，要在每个分区的主键上各探测一次，分区越多越慢。
+-- 服务内按ID的访问由 NotificationIdRange 从雪花ID解析生成时间，附加 create_time BETWEEN 条件，只命中一到两个分区；
+-- 清理按扫描到的实际 create_time 范围删除。运维脚本和临时SQL按ID操作时也应带上 create_time 条件。
+-- 改用雪花ID生成器之前写入的行无法从ID推算时间，仍按全分区查找。
+-- 执行后由 NotificationPartitionManager 每天预建后续月份分区并按保留天数整块删除过期分区。
+-- 对已有大表执行 PARTITION BY 会重建整表，请在低峰期执行。
+
+USE drone_delivery_notification;
+
+ALTER TABLE notification
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, create_time);
+
+-- 未读查询索引：接收人 + 阅读状态 + 发送状态 + 创建时间
+ALTER TABLE notification
+    ADD INDEX idx_receiver_unread (receiver_id, receiver_type, read_status, send_status, create_time);
+
+-- 初始只建一个兜底分区，首次启动时由分区管理器按当前月份拆分
+ALTER TABLE notification
+    PARTITION BY RANGE COLUMNS (create_time) (
+        PARTITION p_max VALUES LESS THAN (MAXVALUE)
+    );
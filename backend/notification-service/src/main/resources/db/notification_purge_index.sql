@@ -0,0 +1,9 @@
+-- 通知表清理扫描索引迁移脚本（drone_delivery_notification 库）
+-- 清理分两轮按键扫描：过期通知按 (create_time, id) 游标推进，已逻辑删除的通知按 (deleted, id) 游标推进，
+-- 每块都是索引上的一段连续范围，不再沿主键扫描整张表逐行判断 OR 条件。
+
+USE drone_delivery_notification;
+
+ALTER TABLE notification
+    ADD INDEX idx_purge_expired (create_time, id),
+    ADD INDEX idx_purge_deleted (deleted, id);
@@ -0,0 +1,7 @@
+-- 通知表补偿重试索引迁移脚本（drone_delivery_notification 库）
+-- 补偿扫描按 send_status = 4 且 next_retry_time 早于截止时间查询，按 next_retry_time 排序取前N条。
+
+USE drone_delivery_notification;
+
+ALTER TABLE notification
+    ADD INDEX idx_retry (send_status, next_retry_time);
@@ -0,0 +1,69 @@
+package com.drone.delivery.order.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.drone.delivery.common.cache.NearCache;
+import com.drone.delivery.common.cache.NearCacheManager;
+import com.drone.delivery.order.entity.Order;
+import com.drone.delivery.order.mapper.OrderMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 订单详情缓存
+ * 按订单ID缓存订单实体；订单号到订单ID的映射创建后不再变化，单独缓存且无需失效。
+ * 所有修改订单的路径必须在更新成功后调用 {@link #evict}。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Component
+public class OrderCache {
+
+    private final OrderMapper orderMapper;
+    private final NearCache<Long, Order> byId;
+    private final NearCache<String, Long> idByOrderNo;
+
+    public OrderCache(OrderMapper orderMapper, NearCacheManager nearCacheManager) {
+        this.orderMapper = orderMapper;
+        this.byId = nearCacheManager.getCache("order", Order.class,
+                Duration.ofSeconds(10), Duration.ofMinutes(5), 10000);
+        this.idByOrderNo = nearCacheManager.getCache("order-no", Long.class,
+                Duration.ofMinutes(30), Duration.ofHours(24), 50000);
+    }
+
+    /**
+     * 按ID读取订单
+     *
+     * @param orderId 订单ID
+     * @return 订单，不存在时为 null
+     */
+    public Order getById(Long orderId) {
+        return byId.get(orderId, orderMapper::selectById);
+    }
+
+    /**
+     * 按订单号读取订单
+     *
+     * @param orderNo 订单号
+     * @return 订单，不存在时为 null
+     */
+    public Order getByOrderNo(String orderNo) {
+        Long orderId = idByOrderNo.get(orderNo, no -> {
+            LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(Order::getId).eq(Order::getOrderNo, no);
+            Order order = orderMapper.selectOne(wrapper);
+            return order != null ? order.getId() : null;
+        });
+        return orderId != null ? getById(orderId) : null;
+    }
+
+    /**
+     * 使订单缓存失效，事务中调用时在提交后生效
+     *
+     * @param orderId 订单ID
+     */
+    public void evict(Long orderId) {
+        byId.evict(orderId);
+    }
+}
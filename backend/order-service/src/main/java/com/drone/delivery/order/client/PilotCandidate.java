@@ -0,0 +1,40 @@
+package com.drone.delivery.order.client;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 候选飞手（飞手服务返回数据中派单所需的字段）
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+public class PilotCandidate {
+
+    /**
+     * 飞手ID
+     */
+    private Long id;
+
+    /**
+     * 当前位置经度
+     */
+    private BigDecimal longitude;
+
+    /**
+     * 当前位置纬度
+     */
+    private BigDecimal latitude;
+
+    /**
+     * 服务范围（km）
+     */
+    private Integer serviceRange;
+
+    /**
+     * 评分
+     */
+    private BigDecimal rating;
+}
@@ -0,0 +1,143 @@
+package com.drone.delivery.order.client;
+
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.vo.Result;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 飞手服务客户端
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PilotClient {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${order.pilot-service-url:http://pilot-service}")
+    private String pilotServiceUrl;
+
+    /**
+     * 用户ID -> 飞手ID，二者一一对应且不会变化，容量和有效期有上限，避免随用户数无限增长
+     */
+    private final Cache<Long, Long> pilotIdByUserId;
+
+    public PilotClient(RestTemplate restTemplate,
+                       @Value("${order.pilot-id-cache.maximum-size:10000}") long maximumSize,
+                       @Value("${order.pilot-id-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.restTemplate = restTemplate;
+        this.pilotIdByUserId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * 查询范围内的空闲飞手
+     *
+     * @param longitude 中心经度
+     * @param latitude 中心纬度
+     * @param radius 搜索半径（km）
+     * @return 候选飞手，调用失败时返回空列表
+     */
+    public List<PilotCandidate> findNearbyPilots(BigDecimal longitude, BigDecimal latitude, int radius) {
+        String url = pilotServiceUrl + "/pilot/nearby?longitude={longitude}&latitude={latitude}&radius={radius}";
+        try {
+            Result<List<PilotCandidate>> result = restTemplate.exchange(url, HttpMethod.GET, null,
+                    new ParameterizedTypeReference<Result<List<PilotCandidate>>>() {},
+                    longitude, latitude, radius).getBody();
+            if (result == null || !result.isSuccess() || result.getData() == null) {
+                log.warn("查询附近飞手失败，响应: {}", result);
+                return Collections.emptyList();
+            }
+            return result.getData();
+        } catch (Exception e) {
+            log.error("调用飞手服务查询附近飞手异常", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 更新飞手工作状态
+     *
+     * @param pilotId 飞手ID
+     * @param workStatus 工作状态：1-空闲，2-忙碌，3-离线
+     * @return 是否成功
+     */
+    public boolean updateWorkStatus(Long pilotId, Integer workStatus) {
+        String url = pilotServiceUrl + "/pilot/{id}/work-status?workStatus={workStatus}";
+        try {
+            Result<Boolean> result = restTemplate.exchange(url, HttpMethod.PUT, null,
+                    new ParameterizedTypeReference<Result<Boolean>>() {},
+                    pilotId, workStatus).getBody();
+            return result != null && result.isSuccess() && Boolean.TRUE.equals(result.getData());
+        } catch (Exception e) {
+            log.error("调用飞手服务更新工作状态异常，飞手ID: {}", pilotId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 条件更新飞手工作状态，仅当前状态等于预期状态时更新
+     *
+     * @param pilotId 飞手ID
+     * @param expectedStatus 预期的当前状态
+     * @param workStatus 目标工作状态
+     * @return 是否更新成功，状态已变化或调用失败时返回 false
+     */
+    public boolean compareAndSetWorkStatus(Long pilotId, Integer expectedStatus, Integer workStatus) {
+        String url = pilotServiceUrl + "/pilot/{id}/work-status?workStatus={workStatus}&expectedStatus={expectedStatus}";
+        try {
+            Result<Boolean> result = restTemplate.exchange(url, HttpMethod.PUT, null,
+                    new ParameterizedTypeReference<Result<Boolean>>() {},
+                    pilotId, workStatus, expectedStatus).getBody();
+            return result != null && result.isSuccess() && Boolean.TRUE.equals(result.getData());
+        } catch (Exception e) {
+            log.error("调用飞手服务条件更新工作状态异常，飞手ID: {}", pilotId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 根据用户ID获取飞手ID
+     *
+     * @param userId 用户ID
+     * @return 飞手ID
+     * @throws BusinessException 当前用户不是飞手或飞手服务不可用
+     */
+    public Long getPilotIdByUserId(Long userId) {
+        Long cached = pilotIdByUserId.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        String url = pilotServiceUrl + "/pilot/user/{userId}";
+        Result<PilotCandidate> result;
+        try {
+            result = restTemplate.exchange(url, HttpMethod.GET, null,
+                    new ParameterizedTypeReference<Result<PilotCandidate>>() {}, userId).getBody();
+        } catch (Exception e) {
+            log.error("调用飞手服务查询飞手异常，用户ID: {}", userId, e);
+            throw new BusinessException("飞手服务暂不可用");
+        }
+        if (result == null || !result.isSuccess() || result.getData() == null || result.getData().getId() == null) {
+            throw new BusinessException(403, "当前用户不是飞手");
+        }
+        Long pilotId = result.getData().getId();
+        pilotIdByUserId.put(userId, pilotId);
+        return pilotId;
+    }
+}
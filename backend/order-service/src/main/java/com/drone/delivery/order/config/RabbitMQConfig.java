@@ -0,0 +1,69 @@
+package com.drone.delivery.order.config;
+
+import com.drone.delivery.common.event.OrderEvent;
+import com.drone.delivery.common.event.PaymentEvent;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ 配置
+ * 订单服务订阅支付服务发布的支付结果事件，并通过发件箱向订单事件交换机发布订单状态事件
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Configuration
+public class RabbitMQConfig {
+
+    // 队列名称
+    public static final String ORDER_PAYMENT_SUCCEEDED_QUEUE = "order.payment.succeeded";
+
+    /**
+     * 支付事件交换机，与支付服务声明一致，先启动的一方创建
+     */
+    @Bean
+    public TopicExchange paymentEventExchange() {
+        return new TopicExchange(PaymentEvent.EXCHANGE, true, false);
+    }
+
+    /**
+     * 订单事件交换机，下游服务各自绑定队列订阅
+     */
+    @Bean
+    public TopicExchange orderEventExchange() {
+        return new TopicExchange(OrderEvent.EXCHANGE, true, false);
+    }
+
+    /**
+     * 订单服务的支付成功事件队列
+     */
+    @Bean
+    public Queue orderPaymentSucceededQueue() {
+        return QueueBuilder.durable(ORDER_PAYMENT_SUCCEEDED_QUEUE).build();
+    }
+
+    /**
+     * 绑定支付成功事件
+     */
+    @Bean
+    public Binding orderPaymentSucceededBinding() {
+        return BindingBuilder.bind(orderPaymentSucceededQueue())
+                .to(paymentEventExchange())
+                .with(PaymentEvent.SUCCEEDED);
+    }
+
+    /**
+     * 消息使用JSON格式，默认监听器容器工厂自动使用
+     */
+    @Bean
+    public MessageConverter messageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
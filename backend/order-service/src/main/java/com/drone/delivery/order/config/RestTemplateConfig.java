@@ -0,0 +1,29 @@
+package com.drone.delivery.order.config;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * 服务间调用配置
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Configuration
+public class RestTemplateConfig {
+
+    /**
+     * 支持服务名负载均衡的 RestTemplate，如 http://pilot-service/pilot/nearby
+     */
+    @Bean
+    @LoadBalanced
+    public RestTemplate restTemplate() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(1000);
+        factory.setReadTimeout(3000);
+        return new RestTemplate(factory);
+    }
+}
@@ -2,6 +2,9 @@ package com.drone.delivery.order.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.drone.delivery.common.result.Result;
+import com.drone.delivery.common.security.AuthHeaders;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.order.client.PilotClient;
 import com.drone.delivery.order.dto.OrderCreateDTO;
 import com.drone.delivery.order.dto.OrderQueryDTO;
 import com.drone.delivery.order.service.OrderService;
@@ -25,17 +28,18 @@ import javax.validation.Valid;
 public class OrderController {
 
     private final OrderService orderService;
+    private final PilotClient pilotClient;
 
     /**
      * 创建订单
      * 
      * @param orderCreateDTO 订单创建DTO
+     * @param userId 当前用户ID，由网关验签后注入
      * @return 订单ID
      */
     @PostMapping("/create")
-    public Result<Long> createOrder(@Valid @RequestBody OrderCreateDTO orderCreateDTO) {
-        // TODO: 从JWT token中获取用户ID
-        Long userId = 1L; // 临时写死，实际应该从token中获取
+    public Result<Long> createOrder(@Valid @RequestBody OrderCreateDTO orderCreateDTO,
+                                    @RequestHeader(AuthHeaders.USER_ID) Long userId) {
         Long orderId = orderService.createOrder(orderCreateDTO, userId);
         return Result.success(orderId);
     }
@@ -52,6 +56,18 @@ public class OrderController {
         return Result.success(page);
     }
 
+    /**
+     * 游标分页查询订单
+     * 
+     * @param queryDTO 查询条件
+     * @return 订单游标分页数据
+     */
+    @PostMapping("/cursor")
+    public Result<CursorPage<OrderVO>> cursorPage(@RequestBody OrderQueryDTO queryDTO) {
+        CursorPage<OrderVO> page = orderService.cursorPage(queryDTO);
+        return Result.success(page);
+    }
+
     /**
      * 根据ID查询订单详情
      * 
@@ -80,12 +96,13 @@ public class OrderController {
      * 接单
      * 
      * @param orderId 订单ID
+     * @param userId 当前用户ID，由网关验签后注入
      * @return 是否成功
      */
     @PostMapping("/{orderId}/accept")
-    public Result<Boolean> acceptOrder(@PathVariable Long orderId) {
-        // TODO: 从JWT token中获取飞手ID
-        Long pilotId = 1L; // 临时写死，实际应该从token中获取
+    public Result<Boolean> acceptOrder(@PathVariable Long orderId,
+                                       @RequestHeader(AuthHeaders.USER_ID) Long userId) {
+        Long pilotId = pilotClient.getPilotIdByUserId(userId);
         Boolean result = orderService.acceptOrder(orderId, pilotId);
         return Result.success(result);
     }
@@ -94,12 +111,13 @@ public class OrderController {
      * 开始配送
      * 
      * @param orderId 订单ID
+     * @param userId 当前用户ID，由网关验签后注入
      * @return 是否成功
      */
     @PostMapping("/{orderId}/start")
-    public Result<Boolean> startDelivery(@PathVariable Long orderId) {
-        // TODO: 从JWT token中获取飞手ID
-        Long pilotId = 1L; // 临时写死，实际应该从token中获取
+    public Result<Boolean> startDelivery(@PathVariable Long orderId,
+                                         @RequestHeader(AuthHeaders.USER_ID) Long userId) {
+        Long pilotId = pilotClient.getPilotIdByUserId(userId);
         Boolean result = orderService.startDelivery(orderId, pilotId);
         return Result.success(result);
     }
@@ -108,12 +126,13 @@ public class OrderController {
      * 完成订单
      * 
      * @param orderId 订单ID
+     * @param userId 当前用户ID，由网关验签后注入
      * @return 是否成功
      */
     @PostMapping("/{orderId}/finish")
-    public Result<Boolean> finishOrder(@PathVariable Long orderId) {
-        // TODO: 从JWT token中获取飞手ID
-        Long pilotId = 1L; // 临时写死，实际应该从token中获取
+    public Result<Boolean> finishOrder(@PathVariable Long orderId,
+                                       @RequestHeader(AuthHeaders.USER_ID) Long userId) {
+        Long pilotId = pilotClient.getPilotIdByUserId(userId);
         Boolean result = orderService.finishOrder(orderId, pilotId);
         return Result.success(result);
     }
@@ -123,12 +142,12 @@ public class OrderController {
      * 
      * @param orderId 订单ID
      * @param cancelReason 取消原因
+     * @param userId 当前用户ID，由网关验签后注入
      * @return 是否成功
      */
     @PostMapping("/{orderId}/cancel")
-    public Result<Boolean> cancelOrder(@PathVariable Long orderId, @RequestParam String cancelReason) {
-        // TODO: 从JWT token中获取用户ID
-        Long userId = 1L; // 临时写死，实际应该从token中获取
+    public Result<Boolean> cancelOrder(@PathVariable Long orderId, @RequestParam String cancelReason,
+                                       @RequestHeader(AuthHeaders.USER_ID) Long userId) {
         Boolean result = orderService.cancelOrder(orderId, userId, cancelReason);
         return Result.success(result);
     }
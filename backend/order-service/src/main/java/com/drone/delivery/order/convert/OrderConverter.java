@@ -0,0 +1,90 @@
+package com.drone.delivery.order.convert;
+
+import com.drone.delivery.order.dto.OrderCreateDTO;
+import com.drone.delivery.order.entity.Order;
+import com.drone.delivery.order.vo.OrderVO;
+
+/**
+ * 订单对象转换器
+ * 以显式的getter/setter完成实体、DTO与VO之间的转换，替代基于反射的属性拷贝，
+ * 新增字段时需同步维护此处的映射。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public final class OrderConverter {
+
+    private OrderConverter() {
+    }
+
+    /**
+     * 创建参数转换为订单实体
+     */
+    public static Order toEntity(OrderCreateDTO createDTO) {
+        if (createDTO == null) {
+            return null;
+        }
+        Order order = new Order();
+        order.setOrderType(createDTO.getOrderType());
+        order.setPickupAddress(createDTO.getPickupAddress());
+        order.setPickupDetailAddress(createDTO.getPickupDetailAddress());
+        order.setPickupLongitude(createDTO.getPickupLongitude());
+        order.setPickupLatitude(createDTO.getPickupLatitude());
+        order.setDeliveryAddress(createDTO.getDeliveryAddress());
+        order.setDeliveryDetailAddress(createDTO.getDeliveryDetailAddress());
+        order.setDeliveryLongitude(createDTO.getDeliveryLongitude());
+        order.setDeliveryLatitude(createDTO.getDeliveryLatitude());
+        order.setReceiverName(createDTO.getReceiverName());
+        order.setReceiverPhone(createDTO.getReceiverPhone());
+        order.setGoodsDescription(createDTO.getGoodsDescription());
+        order.setGoodsWeight(createDTO.getGoodsWeight());
+        order.setAppointmentTime(createDTO.getAppointmentTime());
+        order.setRemark(createDTO.getRemark());
+        return order;
+    }
+
+    /**
+     * 订单实体转换为视图对象（不含描述字段）
+     */
+    public static OrderVO toVO(Order order) {
+        if (order == null) {
+            return null;
+        }
+        OrderVO vo = new OrderVO();
+        vo.setId(order.getId());
+        vo.setOrderNo(order.getOrderNo());
+        vo.setUserId(order.getUserId());
+        vo.setPilotId(order.getPilotId());
+        vo.setOrderType(order.getOrderType());
+        vo.setStatus(order.getStatus());
+        vo.setPickupAddress(order.getPickupAddress());
+        vo.setPickupDetailAddress(order.getPickupDetailAddress());
+        vo.setPickupLongitude(order.getPickupLongitude());
+        vo.setPickupLatitude(order.getPickupLatitude());
+        vo.setDeliveryAddress(order.getDeliveryAddress());
+        vo.setDeliveryDetailAddress(order.getDeliveryDetailAddress());
+        vo.setDeliveryLongitude(order.getDeliveryLongitude());
+        vo.setDeliveryLatitude(order.getDeliveryLatitude());
+        vo.setReceiverName(order.getReceiverName());
+        vo.setReceiverPhone(order.getReceiverPhone());
+        vo.setGoodsDescription(order.getGoodsDescription());
+        vo.setGoodsWeight(order.getGoodsWeight());
+        vo.setDistance(order.getDistance());
+        vo.setEstimatedTime(order.getEstimatedTime());
+        vo.setAmount(order.getAmount());
+        vo.setPayAmount(order.getPayAmount());
+        vo.setPayStatus(order.getPayStatus());
+        vo.setPayType(order.getPayType());
+        vo.setPayTime(order.getPayTime());
+        vo.setAppointmentTime(order.getAppointmentTime());
+        vo.setAcceptTime(order.getAcceptTime());
+        vo.setStartTime(order.getStartTime());
+        vo.setFinishTime(order.getFinishTime());
+        vo.setCancelTime(order.getCancelTime());
+        vo.setCancelReason(order.getCancelReason());
+        vo.setRemark(order.getRemark());
+        vo.setCreateTime(order.getCreateTime());
+        vo.setUpdateTime(order.getUpdateTime());
+        return vo;
+    }
+}
@@ -0,0 +1,328 @@
+package com.drone.delivery.order.dispatch;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.drone.delivery.common.enums.OrderStatus;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.utils.GeoUtils;
+import com.drone.delivery.order.client.PilotCandidate;
+import com.drone.delivery.order.client.PilotClient;
+import com.drone.delivery.order.entity.Order;
+import com.drone.delivery.order.mapper.OrderMapper;
+import com.drone.delivery.order.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量派单引擎
+ * 每个派单窗口收集待接单订单，向飞手服务拉取候选飞手，按距离、评分和服务范围构建代价矩阵，
+ * 用匈牙利算法一次性求出全局最优指派，替代飞手逐单抢单。
+ * 集群中每个窗口只有取得Redis租约的实例执行；指派时先以条件更新抢占空闲飞手，再接单，
+ * 接单失败则释放飞手，即使租约过期导致两个实例同时派单，同一飞手也不会被指派两单。
+ * 待派订单按ID游标轮转读取，匹配不上的订单不会长期占满窗口。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "order.dispatch", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DispatchEngine {
+
+    /**
+     * 不可指派的代价，取有限大值避免算法中出现 NaN
+     */
+    private static final double INFEASIBLE = 1e9;
+
+    private static final String LEASE_KEY = "order:dispatch:lease";
+    private static final String CURSOR_KEY = "order:dispatch:cursor";
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final OrderMapper orderMapper;
+    private final OrderService orderService;
+    private final PilotClient pilotClient;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    /**
+     * 单个窗口最多处理的订单数
+     */
+    @Value("${order.dispatch.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 飞手未设置服务范围时使用的默认范围（km）
+     */
+    @Value("${order.dispatch.default-service-range:10}")
+    private int defaultServiceRange;
+
+    /**
+     * 候选飞手查询的最大半径（km）
+     */
+    @Value("${order.dispatch.max-search-radius:100}")
+    private int maxSearchRadius;
+
+    /**
+     * 评分权重：每低于满分1分折算的公里数
+     */
+    @Value("${order.dispatch.rating-weight:2.0}")
+    private double ratingWeight;
+
+    /**
+     * 候选飞手查询的网格边长（km），同一网格内的订单共用一次查询
+     */
+    @Value("${order.dispatch.cell-km:20}")
+    private double cellKm;
+
+    /**
+     * 派单租约有效期（毫秒），应大于单个窗口的最长耗时
+     */
+    @Value("${order.dispatch.lease-millis:30000}")
+    private long leaseMillis;
+
+    private final AtomicLong windowCount = new AtomicLong();
+    private final AtomicLong matchedCount = new AtomicLong();
+    private final AtomicLong totalPickupMeters = new AtomicLong();
+
+    /**
+     * 派单窗口，默认每2秒执行一次
+     */
+    @Scheduled(fixedDelayString = "${order.dispatch.window-millis:2000}")
+    public void dispatchWindow() {
+        if (!acquireLease()) {
+            return;
+        }
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.error("批量派单异常", e);
+        } finally {
+            releaseLease();
+        }
+    }
+
+    /**
+     * 执行一次批量派单
+     *
+     * @return 成功指派的订单数
+     */
+    public int dispatch() {
+        long start = System.currentTimeMillis();
+        List<Order> orders = loadPendingOrders();
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        List<PilotCandidate> pilots = loadCandidates(orders);
+        if (pilots.isEmpty()) {
+            log.debug("派单窗口无可用飞手，待派订单数: {}", orders.size());
+            return 0;
+        }
+
+        double[][] cost = buildCostMatrix(orders, pilots);
+        int[] assignment = HungarianSolver.solve(cost);
+
+        int matched = 0;
+        double pickupKm = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            int j = assignment[i];
+            if (j < 0 || cost[i][j] >= INFEASIBLE) {
+                continue;
+            }
+            Order order = orders.get(i);
+            PilotCandidate pilot = pilots.get(j);
+            if (assign(order, pilot)) {
+                matched++;
+                pickupKm += distance(order, pilot);
+            }
+        }
+
+        long windows = windowCount.incrementAndGet();
+        long total = matchedCount.addAndGet(matched);
+        totalPickupMeters.addAndGet(Math.round(pickupKm * 1000));
+        log.info("派单窗口完成，待派订单: {}，候选飞手: {}，成功指派: {}，平均取货距离: {}km，耗时: {}ms，累计窗口: {}，累计指派: {}",
+                orders.size(), pilots.size(), matched,
+                matched == 0 ? 0 : String.format("%.2f", pickupKm / matched),
+                System.currentTimeMillis() - start, windows, total);
+        return matched;
+    }
+
+    /**
+     * 累计平均取货距离（km）
+     */
+    public double getAveragePickupKm() {
+        long matched = matchedCount.get();
+        return matched == 0 ? 0 : totalPickupMeters.get() / 1000.0 / matched;
+    }
+
+    /**
+     * 累计成功指派订单数
+     */
+    public long getMatchedCount() {
+        return matchedCount.get();
+    }
+
+    /**
+     * 查询待接单且未指派飞手的订单
+     * 以订单ID为游标按创建顺序轮转读取：本窗口从上次读到的位置继续，读到末尾后回到开头，
+     * 每个待派订单最多等待 待派总数/batchSize 个窗口就会被再次尝试，匹配不上的旧订单不会饿死新订单。
+     */
+    private List<Order> loadPendingOrders() {
+        long cursor = readCursor();
+        List<Order> orders = selectPendingAfter(cursor);
+        if (orders.isEmpty() && cursor > 0) {
+            cursor = 0;
+            orders = selectPendingAfter(cursor);
+        }
+        writeCursor(orders.size() < batchSize ? 0 : orders.get(orders.size() - 1).getId());
+        return orders;
+    }
+
+    private List<Order> selectPendingAfter(long cursor) {
+        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Order::getStatus, OrderStatus.WAITING_ACCEPT.getCode())
+               .isNull(Order::getPilotId)
+               .gt(cursor > 0, Order::getId, cursor)
+               .orderByAsc(Order::getId)
+               .last("LIMIT " + batchSize);
+        return orderMapper.selectList(wrapper);
+    }
+
+    /**
+     * 按取货点所在网格分组，每个网格以组内中心为圆心查询一次候选飞手，合并去重
+     * 相距较远的订单不会因共用一个远离各自位置的中心点而查不到候选
+     */
+    private List<PilotCandidate> loadCandidates(List<Order> orders) {
+        double cellDegrees = GeoUtils.kmToLatDegrees(cellKm);
+        Map<Long, List<Order>> byCell = new LinkedHashMap<>();
+        for (Order order : orders) {
+            long latIndex = (long) Math.floor(order.getPickupLatitude().doubleValue() / cellDegrees);
+            long lonIndex = (long) Math.floor(order.getPickupLongitude().doubleValue() / cellDegrees);
+            byCell.computeIfAbsent((latIndex << 32) | (lonIndex & 0xFFFFFFFFL), k -> new ArrayList<>())
+                  .add(order);
+        }
+
+        Map<Long, PilotCandidate> candidates = new LinkedHashMap<>();
+        for (List<Order> group : byCell.values()) {
+            double centerLon = group.stream().mapToDouble(o -> o.getPickupLongitude().doubleValue()).average().orElse(0);
+            double centerLat = group.stream().mapToDouble(o -> o.getPickupLatitude().doubleValue()).average().orElse(0);
+            double spread = group.stream()
+                    .mapToDouble(o -> GeoUtils.distanceKm(centerLon, centerLat,
+                            o.getPickupLongitude().doubleValue(), o.getPickupLatitude().doubleValue()))
+                    .max().orElse(0);
+            int radius = (int) Math.min(maxSearchRadius, Math.ceil(spread) + defaultServiceRange);
+
+            pilotClient.findNearbyPilots(BigDecimal.valueOf(centerLon), BigDecimal.valueOf(centerLat), radius)
+                    .stream()
+                    .filter(p -> p.getId() != null && p.getLongitude() != null && p.getLatitude() != null)
+                    .forEach(p -> candidates.putIfAbsent(p.getId(), p));
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    /**
+     * 构建代价矩阵：取货距离 + 评分折算距离，超出飞手服务范围的组合不可指派
+     */
+    private double[][] buildCostMatrix(List<Order> orders, List<PilotCandidate> pilots) {
+        double[][] cost = new double[orders.size()][pilots.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            for (int j = 0; j < pilots.size(); j++) {
+                PilotCandidate pilot = pilots.get(j);
+                double distance = distance(order, pilot);
+                int serviceRange = pilot.getServiceRange() != null ? pilot.getServiceRange() : defaultServiceRange;
+                if (distance > serviceRange) {
+                    cost[i][j] = INFEASIBLE;
+                    continue;
+                }
+                double rating = pilot.getRating() != null ? pilot.getRating().doubleValue() : 5.0;
+                cost[i][j] = distance + ratingWeight * Math.max(0, 5.0 - rating);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * 先将飞手由空闲条件更新为忙碌，抢占成功后再接单；飞手已不空闲时跳过，接单失败时把飞手释放回空闲
+     */
+    private boolean assign(Order order, PilotCandidate pilot) {
+        if (!pilotClient.compareAndSetWorkStatus(pilot.getId(), 1, 2)) { // 空闲 -> 忙碌
+            log.debug("飞手已不空闲，跳过指派，订单ID: {}，飞手ID: {}", order.getId(), pilot.getId());
+            return false;
+        }
+        boolean accepted;
+        try {
+            accepted = Boolean.TRUE.equals(orderService.acceptOrder(order.getId(), pilot.getId()));
+        } catch (BusinessException e) {
+            log.debug("订单已被处理，跳过指派，订单ID: {}，原因: {}", order.getId(), e.getMessage());
+            accepted = false;
+        }
+        if (!accepted && !pilotClient.compareAndSetWorkStatus(pilot.getId(), 2, 1)) { // 忙碌 -> 空闲
+            log.warn("接单失败后释放飞手失败，订单ID: {}，飞手ID: {}", order.getId(), pilot.getId());
+        }
+        return accepted;
+    }
+
+    /**
+     * 取得本窗口的派单租约，Redis不可用时本窗口不派单
+     */
+    private boolean acquireLease() {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LEASE_KEY, leaseOwner, Duration.ofMillis(leaseMillis)));
+        } catch (Exception e) {
+            log.warn("获取派单租约失败，跳过本窗口", e);
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY), leaseOwner);
+        } catch (Exception e) {
+            log.debug("释放派单租约失败", e);
+        }
+    }
+
+    private long readCursor() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(CURSOR_KEY);
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (Exception e) {
+            log.debug("读取派单游标失败，从头读取", e);
+            return 0;
+        }
+    }
+
+    private void writeCursor(long cursor) {
+        try {
+            stringRedisTemplate.opsForValue().set(CURSOR_KEY, String.valueOf(cursor));
+        } catch (Exception e) {
+            log.debug("保存派单游标失败", e);
+        }
+    }
+
+    private double distance(Order order, PilotCandidate pilot) {
+        return GeoUtils.distanceKm(order.getPickupLongitude().doubleValue(), order.getPickupLatitude().doubleValue(),
+                pilot.getLongitude().doubleValue(), pilot.getLatitude().doubleValue());
+    }
+}
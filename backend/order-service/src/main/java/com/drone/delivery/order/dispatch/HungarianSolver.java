@@ -0,0 +1,118 @@
+package com.drone.delivery.order.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * 匈牙利算法（Kuhn-Munkres）求解最小代价指派
+ * 支持非方阵，行数多于列数时自动转置求解，时间复杂度 O(n^2 * m)。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public final class HungarianSolver {
+
+    private HungarianSolver() {
+    }
+
+    /**
+     * 求解最小代价指派
+     *
+     * @param cost 代价矩阵，cost[i][j] 表示第 i 行指派给第 j 列的代价
+     * @return 每一行指派到的列下标，未指派为 -1
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int cols = cost[0].length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        if (cols == 0) {
+            return assignment;
+        }
+
+        if (rows <= cols) {
+            int[] rowOfCol = solveRowsNotMoreThanCols(cost, rows, cols);
+            for (int j = 0; j < cols; j++) {
+                if (rowOfCol[j] >= 0) {
+                    assignment[rowOfCol[j]] = j;
+                }
+            }
+        } else {
+            // 转置后列变为行，求解结果即为每个原始行对应的列
+            double[][] transposed = new double[cols][rows];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    transposed[j][i] = cost[i][j];
+                }
+            }
+            int[] colOfRow = solveRowsNotMoreThanCols(transposed, cols, rows);
+            for (int i = 0; i < rows; i++) {
+                assignment[i] = colOfRow[i];
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * 经典势函数实现，要求 n <= m
+     *
+     * @return 每一列匹配到的行下标，未匹配为 -1
+     */
+    private static int[] solveRowsNotMoreThanCols(double[][] cost, int n, int m) {
+        // 下标从1开始，0号列作为虚拟起点
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double cur = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] rowOfCol = new int[m];
+        for (int j = 1; j <= m; j++) {
+            rowOfCol[j - 1] = p[j] - 1;
+        }
+        return rowOfCol;
+    }
+}
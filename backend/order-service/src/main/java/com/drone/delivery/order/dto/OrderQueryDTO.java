@@ -75,4 +75,14 @@ public class OrderQueryDTO {
      */
     @Min(value = 1, message = "每页大小不能小于1")
     private Integer size = 10;
-}
\ No newline at end of file
+
+    /**
+     * 游标分页：上一页返回的游标，为空时查询第一页
+     */
+    private String cursor;
+
+    /**
+     * 游标分页：是否统计总记录数，默认不统计
+     */
+    private Boolean searchCount = false;
+}
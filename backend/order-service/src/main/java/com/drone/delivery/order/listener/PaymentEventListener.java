@@ -0,0 +1,36 @@
+package com.drone.delivery.order.listener;
+
+import com.drone.delivery.common.event.PaymentEvent;
+import com.drone.delivery.order.config.RabbitMQConfig;
+import com.drone.delivery.order.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 支付结果事件监听器
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentEventListener {
+
+    private final OrderService orderService;
+
+    /**
+     * 监听支付成功事件
+     */
+    @RabbitListener(queues = RabbitMQConfig.ORDER_PAYMENT_SUCCEEDED_QUEUE)
+    public void handlePaymentSucceeded(PaymentEvent event) {
+        try {
+            orderService.onPaymentSucceeded(event);
+        } catch (Exception e) {
+            log.error("处理支付成功事件失败，订单ID: {}, 支付流水号: {}", event.getOrderId(), event.getPaymentNo(), e);
+            throw e; // 重新抛出异常，重新投递
+        }
+    }
+}
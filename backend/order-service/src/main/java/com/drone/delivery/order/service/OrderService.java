@@ -1,6 +1,8 @@
 package com.drone.delivery.order.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.drone.delivery.common.event.PaymentEvent;
+import com.drone.delivery.common.vo.CursorPage;
 import com.drone.delivery.order.dto.OrderCreateDTO;
 import com.drone.delivery.order.dto.OrderQueryDTO;
 import com.drone.delivery.order.entity.Order;
@@ -31,6 +33,14 @@ public interface OrderService {
      */
     Page<OrderVO> pageOrders(OrderQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询订单，按创建时间倒序，不统计总数时不执行COUNT
+     * 
+     * @param queryDTO 查询条件，cursor 为上一页返回的游标
+     * @return 游标分页结果
+     */
+    CursorPage<OrderVO> cursorPage(OrderQueryDTO queryDTO);
+
     /**
      * 根据ID查询订单详情
      * 
@@ -93,6 +103,14 @@ public interface OrderService {
      */
     Boolean payOrder(Long orderId, Integer payType);
 
+    /**
+     * 处理支付成功事件，将订单置为已支付
+     * 
+     * @param event 支付结果事件
+     * @return 是否发生变更，重复事件返回 false
+     */
+    Boolean onPaymentSucceeded(PaymentEvent event);
+
     /**
      * 计算订单金额
      * 
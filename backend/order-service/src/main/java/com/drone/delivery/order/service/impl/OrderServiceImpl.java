@@ -1,20 +1,28 @@
 package com.drone.delivery.order.service.impl;
 
-import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.drone.delivery.common.enums.OrderStatus;
+import com.drone.delivery.common.event.OrderEvent;
+import com.drone.delivery.common.event.PaymentEvent;
 import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.outbox.Outbox;
 import com.drone.delivery.common.result.ResultCode;
+import com.drone.delivery.common.utils.SnowflakeIdGenerator;
+import com.drone.delivery.common.utils.CursorPageUtils;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.order.cache.OrderCache;
 import com.drone.delivery.order.dto.OrderCreateDTO;
 import com.drone.delivery.order.dto.OrderQueryDTO;
 import com.drone.delivery.order.entity.Order;
 import com.drone.delivery.order.mapper.OrderMapper;
 import com.drone.delivery.order.service.OrderService;
+import com.drone.delivery.order.state.OrderStateMachine;
 import com.drone.delivery.order.vo.OrderVO;
+import com.drone.delivery.order.convert.OrderConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +44,10 @@ import java.util.stream.Collectors;
 public class OrderServiceImpl implements OrderService {
 
     private final OrderMapper orderMapper;
+    private final OrderStateMachine orderStateMachine;
+    private final OrderCache orderCache;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final Outbox outbox;
 
     /**
      * 创建订单
@@ -58,11 +70,10 @@ public class OrderServiceImpl implements OrderService {
         Integer estimatedTime = calculateEstimatedTime(distance);
 
         // 创建订单对象
-        Order order = new Order();
-        BeanUtils.copyProperties(orderCreateDTO, order);
+        Order order = OrderConverter.toEntity(orderCreateDTO);
         order.setOrderNo(generateOrderNo());
         order.setUserId(userId);
-        order.setStatus(1); // 待接单
+        order.setStatus(OrderStatus.WAITING_ACCEPT.getCode());
         order.setDistance(distance);
         order.setEstimatedTime(estimatedTime);
         order.setAmount(amount);
@@ -83,18 +94,8 @@ public class OrderServiceImpl implements OrderService {
     public Page<OrderVO> pageOrders(OrderQueryDTO queryDTO) {
         Page<Order> page = new Page<>(queryDTO.getCurrent(), queryDTO.getSize());
         
-        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(StrUtil.isNotBlank(queryDTO.getOrderNo()), Order::getOrderNo, queryDTO.getOrderNo())
-                .eq(queryDTO.getUserId() != null, Order::getUserId, queryDTO.getUserId())
-                .eq(queryDTO.getPilotId() != null, Order::getPilotId, queryDTO.getPilotId())
-                .eq(queryDTO.getOrderType() != null, Order::getOrderType, queryDTO.getOrderType())
-                .eq(queryDTO.getStatus() != null, Order::getStatus, queryDTO.getStatus())
-                .eq(queryDTO.getPayStatus() != null, Order::getPayStatus, queryDTO.getPayStatus())
-                .like(StrUtil.isNotBlank(queryDTO.getReceiverName()), Order::getReceiverName, queryDTO.getReceiverName())
-                .like(StrUtil.isNotBlank(queryDTO.getReceiverPhone()), Order::getReceiverPhone, queryDTO.getReceiverPhone())
-                .ge(queryDTO.getStartTime() != null, Order::getCreateTime, queryDTO.getStartTime())
-                .le(queryDTO.getEndTime() != null, Order::getCreateTime, queryDTO.getEndTime())
-                .orderByDesc(Order::getCreateTime);
+        LambdaQueryWrapper<Order> wrapper = buildQueryWrapper(queryDTO);
+        wrapper.orderByDesc(Order::getCreateTime);
 
         Page<Order> orderPage = orderMapper.selectPage(page, wrapper);
         
@@ -108,12 +109,46 @@ public class OrderServiceImpl implements OrderService {
         return result;
     }
 
+    /**
+     * 游标分页查询订单
+     */
+    @Override
+    public CursorPage<OrderVO> cursorPage(OrderQueryDTO queryDTO) {
+        int size = CursorPageUtils.normalizeSize(queryDTO.getSize());
+        LambdaQueryWrapper<Order> wrapper = buildQueryWrapper(queryDTO);
+        CursorPageUtils.seek(wrapper, queryDTO.getCursor(), size, Order::getCreateTime, Order::getId);
+        List<Order> rows = orderMapper.selectList(wrapper);
+
+        Long total = Boolean.TRUE.equals(queryDTO.getSearchCount())
+                ? orderMapper.selectCount(buildQueryWrapper(queryDTO))
+                : null;
+        return CursorPageUtils.build(rows, size, Order::getCreateTime, Order::getId, this::convertToVO, total);
+    }
+
+    /**
+     * 构建列表查询条件（不含排序）
+     */
+    private LambdaQueryWrapper<Order> buildQueryWrapper(OrderQueryDTO queryDTO) {
+        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(StrUtil.isNotBlank(queryDTO.getOrderNo()), Order::getOrderNo, queryDTO.getOrderNo())
+                .eq(queryDTO.getUserId() != null, Order::getUserId, queryDTO.getUserId())
+                .eq(queryDTO.getPilotId() != null, Order::getPilotId, queryDTO.getPilotId())
+                .eq(queryDTO.getOrderType() != null, Order::getOrderType, queryDTO.getOrderType())
+                .eq(queryDTO.getStatus() != null, Order::getStatus, queryDTO.getStatus())
+                .eq(queryDTO.getPayStatus() != null, Order::getPayStatus, queryDTO.getPayStatus())
+                .like(StrUtil.isNotBlank(queryDTO.getReceiverName()), Order::getReceiverName, queryDTO.getReceiverName())
+                .like(StrUtil.isNotBlank(queryDTO.getReceiverPhone()), Order::getReceiverPhone, queryDTO.getReceiverPhone())
+                .ge(queryDTO.getStartTime() != null, Order::getCreateTime, queryDTO.getStartTime())
+                .le(queryDTO.getEndTime() != null, Order::getCreateTime, queryDTO.getEndTime());
+        return wrapper;
+    }
+
     /**
      * 根据ID查询订单详情
      */
     @Override
     public OrderVO getOrderById(Long id) {
-        Order order = orderMapper.selectById(id);
+        Order order = orderCache.getById(id);
         if (order == null) {
             throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
         }
@@ -125,9 +160,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderVO getOrderByOrderNo(String orderNo) {
-        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Order::getOrderNo, orderNo);
-        Order order = orderMapper.selectOne(wrapper);
+        Order order = orderCache.getByOrderNo(orderNo);
         if (order == null) {
             throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
         }
@@ -140,21 +173,12 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean acceptOrder(Long orderId, Long pilotId) {
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
-            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
-        }
-        if (!order.getStatus().equals(1)) {
-            throw new BusinessException(ResultCode.BUSINESS_ERROR, "订单状态不允许接单");
-        }
-
-        order.setPilotId(pilotId);
-        order.setStatus(2); // 已接单
-        order.setAcceptTime(LocalDateTime.now());
-        
-        int result = orderMapper.updateById(order);
+        boolean result = orderStateMachine.accept(orderId, pilotId);
+        OrderEvent event = newEvent(orderId, OrderStatus.WAITING_ACCEPT, OrderStatus.ACCEPTED);
+        event.setPilotId(pilotId);
+        appendEvent(event, OrderEvent.ACCEPTED);
         log.info("飞手接单，订单ID：{}，飞手ID：{}", orderId, pilotId);
-        return result > 0;
+        return result;
     }
 
     /**
@@ -163,74 +187,58 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean startDelivery(Long orderId, Long pilotId) {
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
-            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
-        }
-        if (!order.getStatus().equals(2)) {
-            throw new BusinessException(ResultCode.BUSINESS_ERROR, "订单状态不允许开始配送");
-        }
-        if (!order.getPilotId().equals(pilotId)) {
-            throw new BusinessException(ResultCode.BUSINESS_ERROR, "只有接单飞手才能开始配送");
-        }
-
-        order.setStatus(3); // 配送中
-        order.setStartTime(LocalDateTime.now());
-        
-        int result = orderMapper.updateById(order);
+        boolean result = orderStateMachine.startDelivery(orderId, pilotId);
+        OrderEvent event = newEvent(orderId, OrderStatus.ACCEPTED, OrderStatus.DELIVERING);
+        event.setPilotId(pilotId);
+        appendEvent(event, OrderEvent.DELIVERING);
         log.info("开始配送，订单ID：{}，飞手ID：{}", orderId, pilotId);
-        return result > 0;
+        return result;
     }
 
     /**
      * 完成订单
+     * 飞手服务按完成事件累加收入，金额取自流转前的缓存快照，下单后不再变化
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean finishOrder(Long orderId, Long pilotId) {
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
-            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
-        }
-        if (!order.getStatus().equals(3)) {
-            throw new BusinessException(ResultCode.BUSINESS_ERROR, "订单状态不允许完成");
+        Order snapshot = orderCache.getById(orderId);
+        boolean result = orderStateMachine.finish(orderId, pilotId);
+        OrderEvent event = newEvent(orderId, OrderStatus.DELIVERING, OrderStatus.COMPLETED);
+        event.setPilotId(pilotId);
+        if (snapshot != null) {
+            event.setOrderNo(snapshot.getOrderNo());
+            event.setUserId(snapshot.getUserId());
+            event.setAmount(snapshot.getAmount());
+            event.setPayAmount(snapshot.getPayAmount());
         }
-        if (!order.getPilotId().equals(pilotId)) {
-            throw new BusinessException(ResultCode.BUSINESS_ERROR, "只有配送飞手才能完成订单");
-        }
-
-        order.setStatus(4); // 已完成
-        order.setFinishTime(LocalDateTime.now());
-        
-        int result = orderMapper.updateById(order);
+        appendEvent(event, OrderEvent.COMPLETED);
         log.info("完成订单，订单ID：{}，飞手ID：{}", orderId, pilotId);
-        return result > 0;
+        return result;
     }
 
     /**
      * 取消订单
+     * 接单飞手取自流转前的缓存快照并作为流转条件，事件中的飞手即被取消订单的飞手，由飞手服务释放
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean cancelOrder(Long orderId, Long userId, String cancelReason) {
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
+        Order snapshot = orderCache.getById(orderId);
+        if (snapshot == null) {
             throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
         }
-        if (!order.getUserId().equals(userId)) {
-            throw new BusinessException(ResultCode.BUSINESS_ERROR, "只能取消自己的订单");
-        }
-        if (order.getStatus() >= 3) {
-            throw new BusinessException(ResultCode.BUSINESS_ERROR, "订单已开始配送，无法取消");
-        }
-
-        order.setStatus(5); // 已取消
-        order.setCancelTime(LocalDateTime.now());
-        order.setCancelReason(cancelReason);
-        
-        int result = orderMapper.updateById(order);
+        Long pilotId = snapshot.getPilotId();
+        boolean result = orderStateMachine.cancel(orderId, userId, cancelReason, pilotId);
+        OrderEvent event = newEvent(orderId,
+                pilotId == null ? OrderStatus.WAITING_ACCEPT : OrderStatus.ACCEPTED, OrderStatus.CANCELLED);
+        event.setOrderNo(snapshot.getOrderNo());
+        event.setUserId(userId);
+        event.setPilotId(pilotId);
+        event.setCancelReason(cancelReason);
+        appendEvent(event, OrderEvent.CANCELLED);
         log.info("取消订单，订单ID：{}，用户ID：{}，取消原因：{}", orderId, userId, cancelReason);
-        return result > 0;
+        return result;
     }
 
     /**
@@ -239,21 +247,73 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean payOrder(Long orderId, Integer payType) {
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
-            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
-        }
-        if (!order.getPayStatus().equals(1)) {
+        if (!orderStateMachine.markPaid(orderId, payType, null, LocalDateTime.now())) {
+            // 未更新时回查，给出准确的失败原因
+            Order order = orderMapper.selectById(orderId);
+            if (order == null) {
+                throw new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
+            }
+            if (OrderStatus.CANCELLED.getCode().equals(order.getStatus())) {
+                throw new BusinessException(ResultCode.BUSINESS_ERROR, "订单已取消，无法支付");
+            }
             throw new BusinessException(ResultCode.BUSINESS_ERROR, "订单已支付或已退款");
         }
 
-        order.setPayStatus(2); // 已支付
-        order.setPayType(payType);
-        order.setPayTime(LocalDateTime.now());
-        
-        int result = orderMapper.updateById(order);
+        OrderEvent event = newEvent(orderId, null, null);
+        event.setPayStatus(2);
+        appendEvent(event, OrderEvent.PAID);
         log.info("支付订单，订单ID：{}，支付方式：{}", orderId, payType);
-        return result > 0;
+        return true;
+    }
+
+    /**
+     * 处理支付成功事件
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Boolean onPaymentSucceeded(PaymentEvent event) {
+        boolean result = orderStateMachine.markPaid(event.getOrderId(), event.getPaymentMethod(),
+                event.getAmount(), event.getOccurredTime());
+        if (result) {
+            OrderEvent orderEvent = newEvent(event.getOrderId(), null, null);
+            orderEvent.setOrderNo(event.getOrderNo());
+            orderEvent.setUserId(event.getUserId());
+            orderEvent.setPayStatus(2);
+            orderEvent.setPayAmount(event.getAmount());
+            appendEvent(orderEvent, OrderEvent.PAID);
+            log.info("订单支付到账，订单ID：{}，支付流水号：{}", event.getOrderId(), event.getPaymentNo());
+        } else {
+            Order order = orderMapper.selectById(event.getOrderId());
+            if (order != null && OrderStatus.CANCELLED.getCode().equals(order.getStatus())) {
+                log.warn("订单已取消，支付到账未入账，需退款，订单ID：{}，支付流水号：{}，金额：{}",
+                        event.getOrderId(), event.getPaymentNo(), event.getAmount());
+            } else {
+                log.info("订单已支付，忽略重复的支付事件，订单ID：{}，支付流水号：{}", event.getOrderId(), event.getPaymentNo());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 以调用方已知的数据构建订单事件，不回查订单
+     *
+     * @param previous 流转前状态，未流转时为空
+     * @param status   流转后状态，未流转时为空
+     */
+    private OrderEvent newEvent(Long orderId, OrderStatus previous, OrderStatus status) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(orderId);
+        event.setPreviousStatus(previous != null ? previous.getCode() : null);
+        event.setStatus(status != null ? status.getCode() : null);
+        event.setOccurredTime(LocalDateTime.now());
+        return event;
+    }
+
+    /**
+     * 在状态流转的事务中写入订单事件，由发件箱中继发布给下游服务
+     */
+    private void appendEvent(OrderEvent event, String routingKey) {
+        outbox.append(OrderEvent.AGGREGATE_TYPE, event.getOrderId(), OrderEvent.EXCHANGE, routingKey, event);
     }
 
     /**
@@ -324,15 +384,14 @@ public class OrderServiceImpl implements OrderService {
      * 生成订单号
      */
     private String generateOrderNo() {
-        return "DD" + System.currentTimeMillis() + IdUtil.randomNumbers(4);
+        return snowflakeIdGenerator.nextNo("DD");
     }
 
     /**
      * 转换为VO对象
      */
     private OrderVO convertToVO(Order order) {
-        OrderVO vo = new OrderVO();
-        BeanUtils.copyProperties(order, vo);
+        OrderVO vo = OrderConverter.toVO(order);
         
         // 设置描述字段
         vo.setOrderTypeDesc(getOrderTypeDesc(order.getOrderType()));
@@ -360,14 +419,12 @@ public class OrderServiceImpl implements OrderService {
      */
     private String getStatusDesc(Integer status) {
         if (status == null) return "";
-        switch (status) {
-            case 1: return "待接单";
-            case 2: return "已接单";
-            case 3: return "配送中";
-            case 4: return "已完成";
-            case 5: return "已取消";
-            default: return "未知";
+        for (OrderStatus orderStatus : OrderStatus.values()) {
+            if (orderStatus.getCode().equals(status)) {
+                return orderStatus.getDescription();
+            }
         }
+        return "未知";
     }
 
     /**
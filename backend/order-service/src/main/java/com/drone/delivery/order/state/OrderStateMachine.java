@@ -0,0 +1,176 @@
+package com.drone.delivery.order.state;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.drone.delivery.common.enums.OrderStatus;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.result.ResultCode;
+import com.drone.delivery.order.cache.OrderCache;
+import com.drone.delivery.order.entity.Order;
+import com.drone.delivery.order.mapper.OrderMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 订单状态机
+ * 每次状态流转只发出一条带前置状态条件的UPDATE（WHERE id = ? AND status = ?），
+ * 以影响行数判断流转是否成功，不预先读取订单，也不回写未变化的列。
+ * 只有流转失败时才回查订单，用于给出准确的失败原因。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStateMachine {
+
+    private final OrderMapper orderMapper;
+    private final OrderCache orderCache;
+
+    /**
+     * 接单：待接单 -> 已接单
+     */
+    public boolean accept(Long orderId, Long pilotId) {
+        LocalDateTime now = LocalDateTime.now();
+        return transit(orderId, OrderStatus.ACCEPTED, "订单状态不允许接单",
+                w -> w.set(Order::getPilotId, pilotId).set(Order::getAcceptTime, now),
+                null, null,
+                OrderStatus.WAITING_ACCEPT);
+    }
+
+    /**
+     * 开始配送：已接单 -> 配送中，仅限接单飞手
+     */
+    public boolean startDelivery(Long orderId, Long pilotId) {
+        LocalDateTime now = LocalDateTime.now();
+        return transit(orderId, OrderStatus.DELIVERING, "订单状态不允许开始配送",
+                w -> w.set(Order::getStartTime, now),
+                Order::getPilotId, pilotId,
+                OrderStatus.ACCEPTED);
+    }
+
+    /**
+     * 完成订单：配送中 -> 已完成，仅限配送飞手
+     */
+    public boolean finish(Long orderId, Long pilotId) {
+        LocalDateTime now = LocalDateTime.now();
+        return transit(orderId, OrderStatus.COMPLETED, "订单状态不允许完成",
+                w -> w.set(Order::getFinishTime, now),
+                Order::getPilotId, pilotId,
+                OrderStatus.DELIVERING);
+    }
+
+    /**
+     * 取消订单：待接单/已接单 -> 已取消，仅限下单用户
+     * 以调用方读到的接单飞手为条件，飞手为空时只能从待接单取消，流转成功时被取消订单的飞手即为该飞手
+     */
+    public boolean cancel(Long orderId, Long userId, String cancelReason, Long pilotId) {
+        LocalDateTime now = LocalDateTime.now();
+        return transit(orderId, OrderStatus.CANCELLED, "订单已开始配送，无法取消",
+                w -> w.set(Order::getCancelTime, now).set(Order::getCancelReason, cancelReason)
+                      .eq(pilotId != null, Order::getPilotId, pilotId)
+                      .isNull(pilotId == null, Order::getPilotId),
+                Order::getUserId, userId,
+                OrderStatus.WAITING_ACCEPT, OrderStatus.ACCEPTED);
+    }
+
+    /**
+     * 支付到账：未支付 -> 已支付
+     * 支付结果事件可能重复投递，已支付时不再更新，返回 false；
+     * 订单已取消时同样不更新，迟到的支付回调不会把已取消的订单标记为已支付，由调用方按需退款
+     *
+     * @param payAmount 实付金额，为空时保留下单时的实付金额
+     */
+    public boolean markPaid(Long orderId, Integer payType, BigDecimal payAmount, LocalDateTime payTime) {
+        LambdaUpdateWrapper<Order> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Order::getPayStatus, 2)
+               .set(Order::getPayType, payType)
+               .set(payAmount != null, Order::getPayAmount, payAmount)
+               .set(Order::getPayTime, payTime)
+               .set(Order::getUpdateTime, LocalDateTime.now())
+               .eq(Order::getId, orderId)
+               .eq(Order::getPayStatus, 1)
+               .ne(Order::getStatus, OrderStatus.CANCELLED.getCode());
+        if (orderMapper.update(null, wrapper) > 0) {
+            orderCache.evict(orderId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 执行一次条件状态流转
+     *
+     * @param orderId    订单ID
+     * @param target     目标状态
+     * @param illegalMsg 前置状态不满足时的提示
+     * @param columns    随状态一起更新的列及附加条件
+     * @param owner      归属列（飞手、用户），为空时不校验归属
+     * @param ownerId    归属ID
+     * @param from       允许的前置状态
+     * @return 是否流转成功，条件不满足时抛出业务异常
+     */
+    private boolean transit(Long orderId, OrderStatus target, String illegalMsg,
+                            Consumer<LambdaUpdateWrapper<Order>> columns,
+                            SFunction<Order, Long> owner, Long ownerId,
+                            OrderStatus... from) {
+        List<Integer> fromCodes = Arrays.stream(from)
+                .filter(s -> s.canTransitTo(target))
+                .map(OrderStatus::getCode)
+                .collect(Collectors.toList());
+
+        LambdaUpdateWrapper<Order> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Order::getStatus, target.getCode())
+               .set(Order::getUpdateTime, LocalDateTime.now());
+        columns.accept(wrapper);
+        wrapper.eq(Order::getId, orderId)
+               .in(Order::getStatus, fromCodes)
+               .eq(owner != null, owner, ownerId);
+
+        if (orderMapper.update(null, wrapper) > 0) {
+            orderCache.evict(orderId);
+            return true;
+        }
+        throw explainFailure(orderId, target, illegalMsg, owner, ownerId, fromCodes);
+    }
+
+    /**
+     * 流转失败时回查订单，区分订单不存在、归属不符和状态不允许
+     */
+    private BusinessException explainFailure(Long orderId, OrderStatus target, String illegalMsg,
+                                             SFunction<Order, Long> owner, Long ownerId, List<Integer> fromCodes) {
+        Order order = orderMapper.selectById(orderId);
+        if (order == null) {
+            return new BusinessException(ResultCode.DATA_NOT_FOUND, "订单不存在");
+        }
+        log.debug("订单状态流转被拒绝，订单ID：{}，当前状态：{}，目标状态：{}", orderId, order.getStatus(), target);
+        if (fromCodes.contains(order.getStatus()) && owner != null && !ownerId.equals(owner.apply(order))) {
+            return new BusinessException(ResultCode.BUSINESS_ERROR, ownerMessage(target));
+        }
+        if (fromCodes.contains(order.getStatus())) {
+            // 前置状态和归属都满足，附加条件在读取后被并发修改
+            return new BusinessException(ResultCode.BUSINESS_ERROR, "订单状态已变化，请刷新后重试");
+        }
+        return new BusinessException(ResultCode.BUSINESS_ERROR, illegalMsg);
+    }
+
+    private String ownerMessage(OrderStatus target) {
+        switch (target) {
+            case DELIVERING:
+                return "只有接单飞手才能开始配送";
+            case COMPLETED:
+                return "只有配送飞手才能完成订单";
+            default:
+                return "只能取消自己的订单";
+        }
+    }
+}
@@ -10,7 +10,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  * @author drone-delivery
  * @since 2024-01-01
  */
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = "com.drone.delivery")
 @EnableDiscoveryClient
 public class PaymentServiceApplication {
 
@@ -0,0 +1,133 @@
+package com.drone.delivery.payment.callback;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.payment.config.RabbitMQConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付回调接入
+ * 回调请求只做验签和入队：消息持久化写入回调队列并等到Broker确认后立即应答第三方，
+ * 落库、通知订单服务都由批量消费者异步完成，回调高峰时第三方不会因等待数据库而超时。
+ * 入队失败时返回错误，由第三方按其重试策略再次回调。
+ * 未配置签名密钥时拒绝全部回调，不会在缺少配置时放行伪造的支付结果。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PaymentCallbackGateway {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    /**
+     * 回调签名密钥，为空时拒绝全部回调
+     */
+    private final String secret;
+
+    /**
+     * 等待Broker确认的超时时间（毫秒）
+     */
+    private final long confirmTimeoutMillis;
+
+    public PaymentCallbackGateway(RabbitTemplate rabbitTemplate,
+                                  @Value("${payment.callback.secret:}") String secret,
+                                  @Value("${payment.callback.confirm-timeout-millis:3000}") long confirmTimeoutMillis) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.secret = secret;
+        this.confirmTimeoutMillis = confirmTimeoutMillis;
+        if (StrUtil.isBlank(secret)) {
+            log.error("未配置支付回调签名密钥 payment.callback.secret，所有支付回调都将被拒绝");
+        }
+    }
+
+    /**
+     * 接收支付成功回调
+     *
+     * @param paymentNo 支付流水号
+     * @param thirdPartyTransactionId 第三方交易号
+     * @param signature 回调签名
+     */
+    public void acceptSuccess(String paymentNo, String thirdPartyTransactionId, String signature) {
+        verify(signature, "paymentNo=" + paymentNo + "&thirdPartyTransactionId=" + thirdPartyTransactionId);
+        PaymentCallbackMessage message = new PaymentCallbackMessage();
+        message.setPaymentNo(paymentNo);
+        message.setSuccess(true);
+        message.setThirdPartyTransactionId(thirdPartyTransactionId);
+        enqueue(message);
+    }
+
+    /**
+     * 接收支付失败回调
+     *
+     * @param paymentNo 支付流水号
+     * @param failReason 失败原因
+     * @param signature 回调签名
+     */
+    public void acceptFailed(String paymentNo, String failReason, String signature) {
+        verify(signature, "failReason=" + failReason + "&paymentNo=" + paymentNo);
+        PaymentCallbackMessage message = new PaymentCallbackMessage();
+        message.setPaymentNo(paymentNo);
+        message.setSuccess(false);
+        message.setFailReason(failReason);
+        enqueue(message);
+    }
+
+    /**
+     * 校验 HMAC-SHA256 签名，签名内容为按参数名排序的 key=value 以 & 连接，签名为十六进制
+     * 解码后按字节常量时间比较，比较耗时与签名在第几个字节不同无关
+     */
+    private void verify(String signature, String content) {
+        if (StrUtil.isBlank(secret)) {
+            throw new BusinessException(503, "支付回调签名密钥未配置");
+        }
+        if (StrUtil.isBlank(signature)) {
+            throw new BusinessException(401, "回调签名缺失");
+        }
+        byte[] actual;
+        try {
+            actual = HexUtil.decodeHex(signature);
+        } catch (RuntimeException e) {
+            throw new BusinessException(401, "回调签名错误");
+        }
+        byte[] expected = SecureUtil.hmacSha256(secret).digest(content);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new BusinessException(401, "回调签名错误");
+        }
+    }
+
+    /**
+     * 写入回调队列并同步等待Broker确认，确认后消息已持久化
+     */
+    private void enqueue(PaymentCallbackMessage message) {
+        message.setReceivedTime(LocalDateTime.now());
+        CorrelationData correlation = new CorrelationData(message.getPaymentNo());
+        rabbitTemplate.convertAndSend(RabbitMQConfig.PAYMENT_EXCHANGE, RabbitMQConfig.PAYMENT_CALLBACK_ROUTING_KEY,
+                message, correlation);
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(confirmTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("支付回调入队被中断", e);
+        } catch (Exception e) {
+            log.error("支付回调入队未确认，支付流水号: {}", message.getPaymentNo(), e);
+            throw new BusinessException("支付回调入队失败", e);
+        }
+        if (!confirm.isAck() || correlation.getReturned() != null) {
+            log.error("支付回调入队被拒绝，支付流水号: {}, 原因: {}", message.getPaymentNo(), confirm.getReason());
+            throw new BusinessException("支付回调入队失败");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.drone.delivery.payment.callback;
+
+import com.drone.delivery.payment.config.RabbitMQConfig;
+import com.drone.delivery.payment.service.PaymentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 支付回调消息监听器
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentCallbackListener {
+
+    private final PaymentService paymentService;
+
+    /**
+     * 监听支付回调队列，批量消费
+     */
+    @RabbitListener(queues = RabbitMQConfig.PAYMENT_CALLBACK_QUEUE,
+            containerFactory = RabbitMQConfig.CALLBACK_LISTENER_CONTAINER_FACTORY)
+    public void handleCallbacks(List<PaymentCallbackMessage> messages) {
+        try {
+            paymentService.processCallbacks(messages);
+        } catch (Exception e) {
+            log.error("处理支付回调失败，数量: {}", messages.size(), e);
+            throw e; // 重新抛出异常，整批重新投递
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.drone.delivery.payment.callback;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 支付回调消息
+ * 回调接口验签通过后原样写入回调队列，由批量消费者异步落库
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+public class PaymentCallbackMessage {
+
+    /**
+     * 支付流水号
+     */
+    private String paymentNo;
+
+    /**
+     * 是否支付成功
+     */
+    private Boolean success;
+
+    /**
+     * 第三方交易号（支付成功时）
+     */
+    private String thirdPartyTransactionId;
+
+    /**
+     * 失败原因（支付失败时）
+     */
+    private String failReason;
+
+    /**
+     * 收到回调的时间
+     */
+    private LocalDateTime receivedTime;
+}
@@ -0,0 +1,165 @@
+package com.drone.delivery.payment.config;
+
+import com.drone.delivery.common.event.PaymentEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ 配置
+ * 支付回调先写入持久化的回调队列再应答第三方，由批量消费者落库；支付结果通过支付事件交换机通知下游服务。
+ * 回调入队依赖发布确认，需开启 spring.rabbitmq.publisher-confirm-type=correlated。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Configuration
+public class RabbitMQConfig {
+
+    // 队列名称
+    public static final String PAYMENT_CALLBACK_QUEUE = "payment.callback";
+    public static final String PAYMENT_CALLBACK_DLQ = "payment.callback.dlq";
+
+    // 交换机名称
+    public static final String PAYMENT_EXCHANGE = "payment.exchange";
+
+    // 路由键
+    public static final String PAYMENT_CALLBACK_ROUTING_KEY = "payment.callback";
+    public static final String PAYMENT_CALLBACK_DLQ_ROUTING_KEY = "payment.callback.dlq";
+
+    // 回调批量监听器容器工厂名称
+    public static final String CALLBACK_LISTENER_CONTAINER_FACTORY = "callbackRabbitListenerContainerFactory";
+
+    /**
+     * 回调消费时每批的消息数
+     */
+    @Value("${payment.callback.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 凑批的最长等待时间（毫秒），超时后不足一批也会交给监听器
+     */
+    @Value("${payment.callback.batch-receive-timeout-millis:200}")
+    private long batchReceiveTimeoutMillis;
+
+    /**
+     * 回调消费者数量
+     */
+    @Value("${payment.callback.consumers:2}")
+    private int consumers;
+
+    /**
+     * 一批回调在本地重试的最大次数（含首次），用尽后整批拒绝进入死信队列
+     */
+    @Value("${payment.callback.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 支付交换机
+     */
+    @Bean
+    public DirectExchange paymentExchange() {
+        return new DirectExchange(PAYMENT_EXCHANGE, true, false);
+    }
+
+    /**
+     * 支付事件交换机，下游服务各自绑定队列订阅
+     */
+    @Bean
+    public TopicExchange paymentEventExchange() {
+        return new TopicExchange(PaymentEvent.EXCHANGE, true, false);
+    }
+
+    /**
+     * 支付回调队列
+     */
+    @Bean
+    public Queue paymentCallbackQueue() {
+        return QueueBuilder.durable(PAYMENT_CALLBACK_QUEUE)
+                .withArgument("x-dead-letter-exchange", PAYMENT_EXCHANGE)
+                .withArgument("x-dead-letter-routing-key", PAYMENT_CALLBACK_DLQ_ROUTING_KEY)
+                .build();
+    }
+
+    /**
+     * 支付回调死信队列
+     * 不设消费者，死信保留在队列中；排查原因后把消息转回回调队列重新处理，回调都是带前置状态条件的更新，可重复执行。
+     */
+    @Bean
+    public Queue paymentCallbackDlq() {
+        return QueueBuilder.durable(PAYMENT_CALLBACK_DLQ).build();
+    }
+
+    /**
+     * 绑定支付回调队列到交换机
+     */
+    @Bean
+    public Binding paymentCallbackBinding() {
+        return BindingBuilder.bind(paymentCallbackQueue())
+                .to(paymentExchange())
+                .with(PAYMENT_CALLBACK_ROUTING_KEY);
+    }
+
+    /**
+     * 绑定支付回调死信队列到交换机
+     */
+    @Bean
+    public Binding paymentCallbackDlqBinding() {
+        return BindingBuilder.bind(paymentCallbackDlq())
+                .to(paymentExchange())
+                .with(PAYMENT_CALLBACK_DLQ_ROUTING_KEY);
+    }
+
+    /**
+     * RabbitTemplate 配置
+     */
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+        RabbitTemplate template = new RabbitTemplate(connectionFactory);
+        template.setMessageConverter(new Jackson2JsonMessageConverter());
+        template.setMandatory(true);
+
+        // 消息返回确认
+        template.setReturnsCallback(returned ->
+                log.error("消息被退回，路由键: {}, 原因: {}", returned.getRoutingKey(), returned.getReplyText()));
+
+        return template;
+    }
+
+    /**
+     * 回调批量监听器容器工厂
+     * 消费者一次凑齐 batchSize 条回调交给监听器，监听器正常返回后整批确认；抛出异常时在本地按退避重试，
+     * 重试用尽后整批拒绝且不重新入队，经死信交换机进入回调死信队列，不会无限重新投递阻塞队列。
+     * 状态变更都是带前置状态条件的更新，重试的回调不会重复生效。
+     */
+    @Bean(CALLBACK_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory callbackRabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(new Jackson2JsonMessageConverter());
+        factory.setConcurrentConsumers(consumers);
+        factory.setMaxConcurrentConsumers(consumers);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeoutMillis);
+        factory.setPrefetchCount(batchSize * 2);
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setDefaultRequeueRejected(false);
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(maxAttempts)
+                .backOffOptions(1000, 2.0, 10000)
+                .recoverer(new RejectAndDontRequeueRecoverer())
+                .build());
+        return factory;
+    }
+}
@@ -2,6 +2,8 @@ package com.drone.delivery.payment.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.drone.delivery.common.result.Result;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.payment.callback.PaymentCallbackGateway;
 import com.drone.delivery.payment.dto.PaymentQueryDTO;
 import com.drone.delivery.payment.dto.PaymentRequestDTO;
 import com.drone.delivery.payment.dto.RefundRequestDTO;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 
 /**
  * 支付控制器
@@ -34,12 +37,19 @@ import javax.validation.constraints.NotNull;
 @Tag(name = "支付管理", description = "支付相关接口")
 public class PaymentController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String SIGNATURE_HEADER = "X-Payment-Signature";
+
     private final PaymentService paymentService;
+    private final PaymentCallbackGateway paymentCallbackGateway;
 
     @PostMapping("/create")
-    @Operation(summary = "创建支付订单", description = "发起支付请求，创建支付订单")
-    public Result<PaymentResponseVO> createPayment(@Valid @RequestBody PaymentRequestDTO requestDTO) {
-        PaymentResponseVO response = paymentService.createPayment(requestDTO);
+    @Operation(summary = "创建支付订单", description = "发起支付请求，创建支付订单；重试时携带相同的幂等键返回首次请求的结果")
+    public Result<PaymentResponseVO> createPayment(@Valid @RequestBody PaymentRequestDTO requestDTO,
+                                                   @Parameter(description = "幂等键，每次支付尝试唯一，重试时复用")
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                   @Size(max = 64, message = "幂等键长度不能超过64字符") String idempotencyKey) {
+        PaymentResponseVO response = paymentService.createPayment(requestDTO, idempotencyKey);
         return Result.success(response);
     }
 
@@ -50,6 +60,13 @@ public class PaymentController {
         return Result.success(page);
     }
 
+    @PostMapping("/cursor")
+    @Operation(summary = "游标分页查询支付记录", description = "按创建时间倒序的游标分页，翻页耗时与页码无关")
+    public Result<CursorPage<PaymentVO>> cursorPage(@Valid @RequestBody PaymentQueryDTO queryDTO) {
+        CursorPage<PaymentVO> page = paymentService.cursorPage(queryDTO);
+        return Result.success(page);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "根据ID查询支付详情", description = "根据支付ID查询支付详情")
     public Result<PaymentVO> getById(@Parameter(description = "支付ID") @PathVariable @NotNull Long id) {
@@ -79,21 +96,23 @@ public class PaymentController {
     }
 
     @PostMapping("/callback/success")
-    @Operation(summary = "支付成功回调", description = "第三方支付成功回调接口")
+    @Operation(summary = "支付成功回调", description = "第三方支付成功回调接口，验签入队后立即应答，异步落库")
     public Result<Boolean> paymentSuccess(
             @Parameter(description = "支付流水号") @RequestParam @NotBlank String paymentNo,
-            @Parameter(description = "第三方交易号") @RequestParam @NotBlank String thirdPartyTransactionId) {
-        Boolean result = paymentService.paymentSuccess(paymentNo, thirdPartyTransactionId);
-        return Result.success(result);
+            @Parameter(description = "第三方交易号") @RequestParam @NotBlank String thirdPartyTransactionId,
+            @Parameter(description = "回调签名") @RequestHeader(value = SIGNATURE_HEADER, required = false) String signature) {
+        paymentCallbackGateway.acceptSuccess(paymentNo, thirdPartyTransactionId, signature);
+        return Result.success(true);
     }
 
     @PostMapping("/callback/failed")
-    @Operation(summary = "支付失败回调", description = "第三方支付失败回调接口")
+    @Operation(summary = "支付失败回调", description = "第三方支付失败回调接口，验签入队后立即应答，异步落库")
     public Result<Boolean> paymentFailed(
             @Parameter(description = "支付流水号") @RequestParam @NotBlank String paymentNo,
-            @Parameter(description = "失败原因") @RequestParam @NotBlank String failReason) {
-        Boolean result = paymentService.paymentFailed(paymentNo, failReason);
-        return Result.success(result);
+            @Parameter(description = "失败原因") @RequestParam @NotBlank String failReason,
+            @Parameter(description = "回调签名") @RequestHeader(value = SIGNATURE_HEADER, required = false) String signature) {
+        paymentCallbackGateway.acceptFailed(paymentNo, failReason, signature);
+        return Result.success(true);
     }
 
     @PostMapping("/refund")
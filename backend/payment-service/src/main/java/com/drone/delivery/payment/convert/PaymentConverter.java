@@ -0,0 +1,94 @@
+package com.drone.delivery.payment.convert;
+
+import com.drone.delivery.common.event.PaymentEvent;
+import com.drone.delivery.payment.dto.PaymentRequestDTO;
+import com.drone.delivery.payment.entity.Payment;
+import com.drone.delivery.payment.vo.PaymentVO;
+
+/**
+ * 支付对象转换器
+ * 以显式的getter/setter完成实体、DTO与VO之间的转换，替代基于反射的属性拷贝，
+ * 新增字段时需同步维护此处的映射。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public final class PaymentConverter {
+
+    private PaymentConverter() {
+    }
+
+    /**
+     * 支付请求转换为支付实体
+     */
+    public static Payment toEntity(PaymentRequestDTO requestDTO) {
+        if (requestDTO == null) {
+            return null;
+        }
+        Payment payment = new Payment();
+        payment.setOrderId(requestDTO.getOrderId());
+        payment.setOrderNo(requestDTO.getOrderNo());
+        payment.setUserId(requestDTO.getUserId());
+        payment.setAmount(requestDTO.getAmount());
+        payment.setPaymentMethod(requestDTO.getPaymentMethod());
+        payment.setChannel(requestDTO.getChannel());
+        payment.setClientIp(requestDTO.getClientIp());
+        payment.setRemark(requestDTO.getRemark());
+        return payment;
+    }
+
+    /**
+     * 支付实体转换为视图对象（不含描述字段）
+     */
+    public static PaymentVO toVO(Payment payment) {
+        if (payment == null) {
+            return null;
+        }
+        PaymentVO vo = new PaymentVO();
+        vo.setId(payment.getId());
+        vo.setPaymentNo(payment.getPaymentNo());
+        vo.setOrderId(payment.getOrderId());
+        vo.setOrderNo(payment.getOrderNo());
+        vo.setUserId(payment.getUserId());
+        vo.setAmount(payment.getAmount());
+        vo.setPaymentMethod(payment.getPaymentMethod());
+        vo.setStatus(payment.getStatus());
+        vo.setThirdPartyTransactionId(payment.getThirdPartyTransactionId());
+        vo.setPaymentTime(payment.getPaymentTime());
+        vo.setCompletedTime(payment.getCompletedTime());
+        vo.setRefundAmount(payment.getRefundAmount());
+        vo.setRefundTime(payment.getRefundTime());
+        vo.setRefundReason(payment.getRefundReason());
+        vo.setFailReason(payment.getFailReason());
+        vo.setChannel(payment.getChannel());
+        vo.setClientIp(payment.getClientIp());
+        vo.setNotifyStatus(payment.getNotifyStatus());
+        vo.setNotifyCount(payment.getNotifyCount());
+        vo.setLastNotifyTime(payment.getLastNotifyTime());
+        vo.setRemark(payment.getRemark());
+        vo.setCreateTime(payment.getCreateTime());
+        vo.setUpdateTime(payment.getUpdateTime());
+        return vo;
+    }
+
+    /**
+     * 支付实体转换为支付结果事件
+     */
+    public static PaymentEvent toEvent(Payment payment) {
+        if (payment == null) {
+            return null;
+        }
+        PaymentEvent event = new PaymentEvent();
+        event.setPaymentNo(payment.getPaymentNo());
+        event.setOrderId(payment.getOrderId());
+        event.setOrderNo(payment.getOrderNo());
+        event.setUserId(payment.getUserId());
+        event.setAmount(payment.getAmount());
+        event.setPaymentMethod(payment.getPaymentMethod());
+        event.setStatus(payment.getStatus());
+        event.setThirdPartyTransactionId(payment.getThirdPartyTransactionId());
+        event.setFailReason(payment.getFailReason());
+        event.setOccurredTime(payment.getUpdateTime());
+        return event;
+    }
+}
@@ -41,7 +41,7 @@ public class PaymentQueryDTO {
     private Integer paymentMethod;
 
     /**
-     * 支付状态：1-待支付，2-支付中，3-支付成功，4-支付失败，5-已退款
+     * 支付状态：1-待支付，2-支付中，3-支付成功，4-支付失败，5-已退款，6-到账待退款
      */
     private Integer status;
 
@@ -81,4 +81,14 @@ public class PaymentQueryDTO {
      */
     @Min(value = 1, message = "每页大小不能小于1")
     private Integer size = 10;
-}
\ No newline at end of file
+
+    /**
+     * 游标分页：上一页返回的游标，为空时查询第一页
+     */
+    private String cursor;
+
+    /**
+     * 游标分页：是否统计总记录数，默认不统计
+     */
+    private Boolean searchCount = false;
+}
@@ -55,7 +55,7 @@ public class Payment {
     private Integer paymentMethod;
 
     /**
-     * 支付状态：1-待支付，2-支付中，3-支付成功，4-支付失败，5-已退款
+     * 支付状态：1-待支付，2-支付中，3-支付成功，4-支付失败，5-已退款，6-到账待退款
      */
     private Integer status;
 
@@ -0,0 +1,180 @@
+package com.drone.delivery.payment.idempotent;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.alibaba.fastjson.JSON;
+import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.payment.dto.PaymentRequestDTO;
+import com.drone.delivery.payment.vo.PaymentResponseVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 创建支付幂等管理器
+ * 客户端通过 Idempotency-Key 请求头为每次支付尝试携带唯一键，重试时复用同一个键：
+ * 首次请求用Redis SETNX 占住该键（处理中），事务提交后把支付响应写入该键，
+ * 之后的重试直接返回缓存的响应，不访问数据库；处理中的重复请求直接拒绝，并发双击不会创建两条支付记录。
+ * 同一个键携带不同的请求内容视为误用，直接拒绝。事务回滚时释放该键，失败的请求可以用同一个键重试。
+ * 未携带幂等键时按订单号加处理中锁，只防止并发重复创建，不缓存响应。
+ * Redis不可用时放行，由数据库中的已有支付记录检查和有效订单唯一索引兜底，并发插入冲突时返回已有支付或409。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PaymentIdempotencyManager {
+
+    private static final String IDEMPOTENCY_KEY = "payment:idempotency:";
+
+    private static final String STATE_PROCESSING = "0";
+    private static final String STATE_DONE = "1";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 处理中锁的有效期，进程崩溃时锁到期自动释放
+     */
+    private final Duration lockTtl;
+
+    /**
+     * 响应缓存的有效期，超过后同一个键按新请求处理
+     */
+    private final Duration responseTtl;
+
+    public PaymentIdempotencyManager(StringRedisTemplate stringRedisTemplate,
+                                     @Value("${payment.idempotency.lock-seconds:30}") long lockSeconds,
+                                     @Value("${payment.idempotency.response-ttl-seconds:86400}") long responseTtlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.lockTtl = Duration.ofSeconds(lockSeconds);
+        this.responseTtl = Duration.ofSeconds(responseTtlSeconds);
+    }
+
+    /**
+     * 占用幂等键
+     * 需在创建支付的事务中调用，事务回滚时自动释放
+     *
+     * @param idempotencyKey 客户端幂等键，可为空
+     * @param requestDTO 支付请求参数
+     * @return 幂等令牌，已有缓存响应时 {@link IdempotencyToken#getCachedResponse()} 不为空
+     */
+    public IdempotencyToken acquire(String idempotencyKey, PaymentRequestDTO requestDTO) {
+        boolean replayable = StrUtil.isNotBlank(idempotencyKey);
+        String key = replayable
+                ? IDEMPOTENCY_KEY + requestDTO.getUserId() + ":" + idempotencyKey
+                : IDEMPOTENCY_KEY + "order:" + requestDTO.getOrderNo();
+        IdempotencyToken token = new IdempotencyToken(key, fingerprint(requestDTO), replayable);
+
+        String existing;
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key, STATE_PROCESSING + ":" + token.fingerprint, lockTtl);
+            if (Boolean.TRUE.equals(acquired)) {
+                token.locked = true;
+                onCompletion(token);
+                return token;
+            }
+            existing = stringRedisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("支付幂等键访问Redis失败，放行，键: {}", key, e);
+            return token;
+        }
+        if (existing == null) {
+            // 占用失败后键恰好过期或被释放，交给数据库检查兜底
+            return token;
+        }
+
+        String[] parts = existing.split(":", 3);
+        if (!token.fingerprint.equals(parts[1])) {
+            throw new BusinessException(400, "幂等键已被其他支付请求使用");
+        }
+        if (STATE_PROCESSING.equals(parts[0])) {
+            throw new BusinessException(409, "支付请求正在处理中，请勿重复提交");
+        }
+        token.cachedResponse = JSON.parseObject(parts[2], PaymentResponseVO.class);
+        log.info("重复的创建支付请求，返回缓存响应，支付流水号: {}", token.cachedResponse.getPaymentNo());
+        return token;
+    }
+
+    /**
+     * 记录本次请求的响应，事务提交后写入缓存
+     *
+     * @param token 幂等令牌
+     * @param response 支付响应
+     */
+    public void complete(IdempotencyToken token, PaymentResponseVO response) {
+        token.response = response;
+        if (token.locked && !TransactionSynchronizationManager.isSynchronizationActive()) {
+            finish(token, true);
+        }
+    }
+
+    /**
+     * 请求内容指纹，同一个键的重试必须与首次请求一致
+     */
+    private static String fingerprint(PaymentRequestDTO requestDTO) {
+        return SecureUtil.md5(StrUtil.join("|", requestDTO.getOrderNo(), requestDTO.getUserId(),
+                requestDTO.getAmount().stripTrailingZeros().toPlainString(),
+                requestDTO.getPaymentMethod(), requestDTO.getChannel()));
+    }
+
+    private void onCompletion(IdempotencyToken token) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                finish(token, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    /**
+     * 成功且可重放时把响应写入幂等键，否则释放
+     */
+    private void finish(IdempotencyToken token, boolean committed) {
+        try {
+            if (committed && token.replayable && token.response != null) {
+                stringRedisTemplate.opsForValue().set(token.key,
+                        STATE_DONE + ":" + token.fingerprint + ":" + JSON.toJSONString(token.response), responseTtl);
+            } else {
+                stringRedisTemplate.delete(token.key);
+            }
+        } catch (Exception e) {
+            log.warn("支付幂等键写回失败，键: {}", token.key, e);
+        }
+    }
+
+    /**
+     * 幂等令牌，在占用与写回之间传递本次请求的状态
+     */
+    public static final class IdempotencyToken {
+
+        private final String key;
+        private final String fingerprint;
+        private final boolean replayable;
+        private boolean locked;
+        private PaymentResponseVO cachedResponse;
+        private PaymentResponseVO response;
+
+        private IdempotencyToken(String key, String fingerprint, boolean replayable) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.replayable = replayable;
+        }
+
+        /**
+         * 之前相同请求的响应，为空表示需要正常处理
+         */
+        public PaymentResponseVO getCachedResponse() {
+            return cachedResponse;
+        }
+    }
+}
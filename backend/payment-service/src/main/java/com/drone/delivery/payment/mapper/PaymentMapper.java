@@ -3,6 +3,8 @@ package com.drone.delivery.payment.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.drone.delivery.payment.entity.Payment;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 /**
  * 支付Mapper接口
@@ -13,4 +15,14 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface PaymentMapper extends BaseMapper<Payment> {
 
-}
\ No newline at end of file
+    /**
+     * 以当前读查询订单的有效支付记录（待支付、支付中、支付成功）
+     * 唯一键冲突后调用，加共享锁读取最新已提交的数据，不受本事务快照影响
+     *
+     * @param orderNo 订单号
+     * @return 有效支付记录，不存在时为 null
+     */
+    @Select("SELECT * FROM payment WHERE order_no = #{orderNo} AND status IN (1, 2, 3) AND deleted = 0 "
+            + "LIMIT 1 LOCK IN SHARE MODE")
+    Payment selectActiveByOrderNoForShare(@Param("orderNo") String orderNo);
+}
@@ -1,12 +1,16 @@
 package com.drone.delivery.payment.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.payment.callback.PaymentCallbackMessage;
 import com.drone.delivery.payment.dto.PaymentQueryDTO;
 import com.drone.delivery.payment.dto.PaymentRequestDTO;
 import com.drone.delivery.payment.dto.RefundRequestDTO;
 import com.drone.delivery.payment.vo.PaymentResponseVO;
 import com.drone.delivery.payment.vo.PaymentVO;
 
+import java.util.List;
+
 /**
  * 支付服务接口
  * 
@@ -17,11 +21,13 @@ public interface PaymentService {
 
     /**
      * 创建支付订单
+     * 携带幂等键的重试返回首次请求的响应，不会重复创建支付记录
      * 
      * @param requestDTO 支付请求参数
+     * @param idempotencyKey 客户端幂等键，可为空
      * @return 支付响应信息
      */
-    PaymentResponseVO createPayment(PaymentRequestDTO requestDTO);
+    PaymentResponseVO createPayment(PaymentRequestDTO requestDTO, String idempotencyKey);
 
     /**
      * 分页查询支付记录
@@ -31,6 +37,14 @@ public interface PaymentService {
      */
     IPage<PaymentVO> page(PaymentQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询支付记录，按创建时间倒序，不统计总数时不执行COUNT
+     * 
+     * @param queryDTO 查询条件，cursor 为上一页返回的游标
+     * @return 游标分页结果
+     */
+    CursorPage<PaymentVO> cursorPage(PaymentQueryDTO queryDTO);
+
     /**
      * 根据ID查询支付详情
      * 
@@ -81,6 +95,15 @@ public interface PaymentService {
      */
     Boolean paymentFailed(String paymentNo, String failReason);
 
+    /**
+     * 批量处理支付回调
+     * 状态变更均带前置状态条件，重复的回调不会重复生效；实际发生变更的支付会发布支付结果事件
+     * 
+     * @param messages 支付回调消息
+     * @return 实际发生状态变更的支付数
+     */
+    int processCallbacks(List<PaymentCallbackMessage> messages);
+
     /**
      * 申请退款
      * 
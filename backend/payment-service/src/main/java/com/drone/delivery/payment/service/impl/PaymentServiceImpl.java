@@ -1,28 +1,41 @@
 package com.drone.delivery.payment.service.impl;
 
-import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.drone.delivery.common.event.PaymentEvent;
 import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.outbox.Outbox;
+import com.drone.delivery.common.utils.SnowflakeIdGenerator;
+import com.drone.delivery.common.utils.CursorPageUtils;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.payment.callback.PaymentCallbackMessage;
 import com.drone.delivery.payment.dto.PaymentQueryDTO;
 import com.drone.delivery.payment.dto.PaymentRequestDTO;
 import com.drone.delivery.payment.dto.RefundRequestDTO;
 import com.drone.delivery.payment.entity.Payment;
+import com.drone.delivery.payment.idempotent.PaymentIdempotencyManager;
 import com.drone.delivery.payment.mapper.PaymentMapper;
 import com.drone.delivery.payment.service.PaymentService;
 import com.drone.delivery.payment.vo.PaymentResponseVO;
 import com.drone.delivery.payment.vo.PaymentVO;
+import com.drone.delivery.payment.convert.PaymentConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -37,28 +50,31 @@ import java.util.stream.Collectors;
 public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentMapper paymentMapper;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final PaymentIdempotencyManager paymentIdempotencyManager;
+    private final Outbox outbox;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public PaymentResponseVO createPayment(PaymentRequestDTO requestDTO) {
+    public PaymentResponseVO createPayment(PaymentRequestDTO requestDTO, String idempotencyKey) {
+        // 重试请求直接返回首次请求的响应，并发的重复请求被拒绝
+        PaymentIdempotencyManager.IdempotencyToken token = paymentIdempotencyManager.acquire(idempotencyKey, requestDTO);
+        if (token.getCachedResponse() != null) {
+            return token.getCachedResponse();
+        }
+
         // 检查订单是否已有支付记录
         LambdaQueryWrapper<Payment> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Payment::getOrderNo, requestDTO.getOrderNo())
                .in(Payment::getStatus, 1, 2, 3); // 待支付、支付中、支付成功
         Payment existPayment = paymentMapper.selectOne(wrapper);
         if (existPayment != null) {
-            if (existPayment.getStatus() == 3) {
-                throw new BusinessException("订单已支付成功");
-            }
-            if (existPayment.getStatus() == 1 || existPayment.getStatus() == 2) {
-                // 返回已有的支付信息
-                return buildPaymentResponse(existPayment);
-            }
+            return existingPaymentResponse(existPayment, token);
         }
 
         // 创建支付记录
-        Payment payment = new Payment();
-        BeanUtil.copyProperties(requestDTO, payment);
+        Payment payment = PaymentConverter.toEntity(requestDTO);
         payment.setPaymentNo(generatePaymentNo());
         payment.setStatus(1); // 待支付
         payment.setNotifyStatus(1); // 未通知
@@ -66,7 +82,17 @@ public class PaymentServiceImpl implements PaymentService {
         payment.setCreateTime(LocalDateTime.now());
         payment.setUpdateTime(LocalDateTime.now());
 
-        paymentMapper.insert(payment);
+        try {
+            paymentMapper.insert(payment);
+        } catch (DuplicateKeyException e) {
+            // 幂等键失效（Redis不可用或锁已过期）时由有效订单唯一索引兜底，见 db/payment_active_order.sql
+            Payment concurrent = paymentMapper.selectActiveByOrderNoForShare(requestDTO.getOrderNo());
+            if (concurrent == null) {
+                throw new BusinessException(409, "支付请求正在处理中，请勿重复提交");
+            }
+            log.info("订单已有有效支付记录，返回已有支付，订单号: {}", requestDTO.getOrderNo());
+            return existingPaymentResponse(concurrent, token);
+        }
 
         // 调用第三方支付接口（模拟）
         PaymentResponseVO response = callThirdPartyPayment(payment);
@@ -79,13 +105,46 @@ public class PaymentServiceImpl implements PaymentService {
 
         response.setPaymentId(payment.getId());
         response.setPaymentNo(payment.getPaymentNo());
-        
+        paymentIdempotencyManager.complete(token, response);
+
         log.info("创建支付订单成功，支付流水号: {}", payment.getPaymentNo());
         return response;
     }
 
     @Override
     public IPage<PaymentVO> page(PaymentQueryDTO queryDTO) {
+        LambdaQueryWrapper<Payment> wrapper = buildQueryWrapper(queryDTO);
+        wrapper.orderByDesc(Payment::getCreateTime);
+
+        Page<Payment> page = new Page<>(queryDTO.getCurrent(), queryDTO.getSize());
+        IPage<Payment> paymentPage = paymentMapper.selectPage(page, wrapper);
+
+        // 转换为VO
+        IPage<PaymentVO> voPage = new Page<>(paymentPage.getCurrent(), paymentPage.getSize(), paymentPage.getTotal());
+        voPage.setRecords(paymentPage.getRecords().stream()
+                .map(this::convertToVO)
+                .collect(Collectors.toList()));
+
+        return voPage;
+    }
+
+    @Override
+    public CursorPage<PaymentVO> cursorPage(PaymentQueryDTO queryDTO) {
+        int size = CursorPageUtils.normalizeSize(queryDTO.getSize());
+        LambdaQueryWrapper<Payment> wrapper = buildQueryWrapper(queryDTO);
+        CursorPageUtils.seek(wrapper, queryDTO.getCursor(), size, Payment::getCreateTime, Payment::getId);
+        List<Payment> rows = paymentMapper.selectList(wrapper);
+
+        Long total = Boolean.TRUE.equals(queryDTO.getSearchCount())
+                ? paymentMapper.selectCount(buildQueryWrapper(queryDTO))
+                : null;
+        return CursorPageUtils.build(rows, size, Payment::getCreateTime, Payment::getId, this::convertToVO, total);
+    }
+
+    /**
+     * 构建列表查询条件（不含排序）
+     */
+    private LambdaQueryWrapper<Payment> buildQueryWrapper(PaymentQueryDTO queryDTO) {
         LambdaQueryWrapper<Payment> wrapper = new LambdaQueryWrapper<>();
         
         // 构建查询条件
@@ -99,20 +158,8 @@ public class PaymentServiceImpl implements PaymentService {
                .ge(queryDTO.getMinAmount() != null, Payment::getAmount, queryDTO.getMinAmount())
                .le(queryDTO.getMaxAmount() != null, Payment::getAmount, queryDTO.getMaxAmount())
                .ge(queryDTO.getStartTime() != null, Payment::getCreateTime, queryDTO.getStartTime())
-               .le(queryDTO.getEndTime() != null, Payment::getCreateTime, queryDTO.getEndTime())
-               .orderByDesc(Payment::getCreateTime);
-
-        Page<Payment> page = new Page<>(queryDTO.getCurrent(), queryDTO.getSize());
-        IPage<Payment> paymentPage = paymentMapper.selectPage(page, wrapper);
-
-        // 转换为VO
-        IPage<PaymentVO> voPage = new Page<>();
-        BeanUtil.copyProperties(paymentPage, voPage);
-        voPage.setRecords(paymentPage.getRecords().stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList()));
-
-        return voPage;
+               .le(queryDTO.getEndTime() != null, Payment::getCreateTime, queryDTO.getEndTime());
+        return wrapper;
     }
 
     @Override
@@ -162,52 +209,82 @@ public class PaymentServiceImpl implements PaymentService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean paymentSuccess(String paymentNo, String thirdPartyTransactionId) {
-        LambdaQueryWrapper<Payment> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Payment::getPaymentNo, paymentNo);
-        Payment payment = paymentMapper.selectOne(wrapper);
-        if (payment == null) {
-            throw new BusinessException("支付记录不存在");
+        if (markSucceeded(paymentNo, thirdPartyTransactionId, LocalDateTime.now())) {
+            publishEvents(Collections.singletonList(paymentNo));
+            log.info("支付成功回调处理完成，支付流水号: {}", paymentNo);
+            return true;
         }
 
-        if (payment.getStatus() == 3) {
+        // 未更新时回查，区分支付不存在和已处理
+        if (queryPaymentStatus(paymentNo) == 3) {
             log.warn("支付已成功，无需重复处理，支付流水号: {}", paymentNo);
             return true;
         }
+        return false;
+    }
 
-        payment.setStatus(3); // 支付成功
-        payment.setThirdPartyTransactionId(thirdPartyTransactionId);
-        payment.setCompletedTime(LocalDateTime.now());
-        payment.setUpdateTime(LocalDateTime.now());
-
-        int result = paymentMapper.updateById(payment);
-        if (result > 0) {
-            log.info("支付成功回调处理完成，支付流水号: {}", paymentNo);
-            // TODO: 发送支付成功通知给订单服务
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Boolean paymentFailed(String paymentNo, String failReason) {
+        if (markFailed(paymentNo, failReason, LocalDateTime.now())) {
+            publishEvents(Collections.singletonList(paymentNo));
+            log.info("支付失败回调处理完成，支付流水号: {}, 失败原因: {}", paymentNo, failReason);
             return true;
         }
+
+        Integer status = queryPaymentStatus(paymentNo);
+        log.warn("支付状态不允许置为失败，支付流水号: {}, 当前状态: {}", paymentNo, status);
         return false;
     }
 
+    /**
+     * 批量处理支付回调
+     * 同一批内同一支付的多条回调只处理一条（成功优先），每条回调在独立的新事务中执行带前置状态条件的UPDATE
+     * 并写入支付结果事件，单条回调出错只回滚它自己，不影响同批其他回调。
+     * 有回调出错时其余回调处理完后抛出异常，整批按重试策略重新投递，已生效的回调因前置状态条件不会重复生效。
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public Boolean paymentFailed(String paymentNo, String failReason) {
-        LambdaQueryWrapper<Payment> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Payment::getPaymentNo, paymentNo);
-        Payment payment = paymentMapper.selectOne(wrapper);
-        if (payment == null) {
-            throw new BusinessException("支付记录不存在");
+    public int processCallbacks(List<PaymentCallbackMessage> messages) {
+        Map<String, PaymentCallbackMessage> callbacks = new LinkedHashMap<>();
+        for (PaymentCallbackMessage message : messages) {
+            callbacks.merge(message.getPaymentNo(), message,
+                    (previous, current) -> Boolean.TRUE.equals(previous.getSuccess()) ? previous : current);
         }
 
-        payment.setStatus(4); // 支付失败
-        payment.setFailReason(failReason);
-        payment.setUpdateTime(LocalDateTime.now());
+        TransactionTemplate callbackTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        callbackTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        LocalDateTime now = LocalDateTime.now();
+        int changed = 0;
+        int failed = 0;
+        for (PaymentCallbackMessage callback : callbacks.values()) {
+            try {
+                if (Boolean.TRUE.equals(callbackTransaction.execute(status -> applyCallback(callback, now)))) {
+                    changed++;
+                }
+            } catch (Exception e) {
+                failed++;
+                log.error("处理支付回调失败，支付流水号: {}", callback.getPaymentNo(), e);
+            }
+        }
 
-        int result = paymentMapper.updateById(payment);
-        if (result > 0) {
-            log.info("支付失败回调处理完成，支付流水号: {}, 失败原因: {}", paymentNo, failReason);
-            return true;
+        log.info("支付回调批量处理完成，回调数: {}, 状态变更数: {}, 失败数: {}", messages.size(), changed, failed);
+        if (failed > 0) {
+            throw new BusinessException(500, "部分支付回调处理失败，失败数: " + failed);
         }
-        return false;
+        return changed;
+    }
+
+    /**
+     * 应用一条支付回调，状态发生变更时写入支付结果事件
+     */
+    private boolean applyCallback(PaymentCallbackMessage callback, LocalDateTime now) {
+        boolean updated = Boolean.TRUE.equals(callback.getSuccess())
+                ? markSucceeded(callback.getPaymentNo(), callback.getThirdPartyTransactionId(), now)
+                : markFailed(callback.getPaymentNo(), callback.getFailReason(), now);
+        if (updated) {
+            publishEvents(Collections.singletonList(callback.getPaymentNo()));
+        }
+        return updated;
     }
 
     @Override
@@ -218,7 +295,7 @@ public class PaymentServiceImpl implements PaymentService {
             throw new BusinessException("支付记录不存在");
         }
 
-        if (payment.getStatus() != 3) {
+        if (payment.getStatus() != 3 && payment.getStatus() != 6) {
             throw new BusinessException("只有支付成功的订单才能退款");
         }
 
@@ -282,7 +359,7 @@ public class PaymentServiceImpl implements PaymentService {
             throw new BusinessException("支付记录不存在");
         }
 
-        if (payment.getStatus() == 3) {
+        if (payment.getStatus() == 3 || payment.getStatus() == 6) {
             throw new BusinessException("支付已成功，无法取消");
         }
 
@@ -347,11 +424,86 @@ public class PaymentServiceImpl implements PaymentService {
         return notifyResult;
     }
 
+    /**
+     * 待支付/支付中 -> 支付成功
+     * 支付失败后到达的成功回调表示实际已扣款：订单没有其他有效支付时仍以成功为准；
+     * 订单已重新发起了支付时不能再占用有效订单唯一索引，置为到账待退款，由对账退款处理
+     */
+    private boolean markSucceeded(String paymentNo, String thirdPartyTransactionId, LocalDateTime now) {
+        if (transitSucceeded(paymentNo, thirdPartyTransactionId, now, 3, 1, 2)) {
+            return true;
+        }
+
+        LambdaQueryWrapper<Payment> query = new LambdaQueryWrapper<>();
+        query.eq(Payment::getPaymentNo, paymentNo);
+        Payment payment = paymentMapper.selectOne(query);
+        if (payment == null || payment.getStatus() != 4) {
+            return false;
+        }
+        if (paymentMapper.selectActiveByOrderNoForShare(payment.getOrderNo()) == null) {
+            try {
+                return transitSucceeded(paymentNo, thirdPartyTransactionId, now, 3, 4);
+            } catch (DuplicateKeyException e) {
+                // 查询之后订单插入了新的有效支付，按到账待退款处理
+                log.info("订单已有新的有效支付，支付流水号: {}", paymentNo);
+            }
+        }
+        if (transitSucceeded(paymentNo, thirdPartyTransactionId, now, 6, 4)) {
+            log.warn("支付失败后到账且订单已有其他有效支付，置为到账待退款，支付流水号: {}, 订单号: {}",
+                    paymentNo, payment.getOrderNo());
+        }
+        return false;
+    }
+
+    /**
+     * 以第三方交易号记录到账，前置状态条件保证只从指定状态变更
+     */
+    private boolean transitSucceeded(String paymentNo, String thirdPartyTransactionId, LocalDateTime now,
+                                     int status, Object... fromStatuses) {
+        LambdaUpdateWrapper<Payment> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Payment::getStatus, status)
+               .set(Payment::getThirdPartyTransactionId, thirdPartyTransactionId)
+               .set(Payment::getCompletedTime, now)
+               .set(Payment::getUpdateTime, now)
+               .eq(Payment::getPaymentNo, paymentNo)
+               .in(Payment::getStatus, fromStatuses);
+        return paymentMapper.update(null, wrapper) > 0;
+    }
+
+    /**
+     * 待支付/支付中 -> 支付失败
+     */
+    private boolean markFailed(String paymentNo, String failReason, LocalDateTime now) {
+        LambdaUpdateWrapper<Payment> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Payment::getStatus, 4)
+               .set(Payment::getFailReason, failReason)
+               .set(Payment::getUpdateTime, now)
+               .eq(Payment::getPaymentNo, paymentNo)
+               .in(Payment::getStatus, 1, 2);
+        return paymentMapper.update(null, wrapper) > 0;
+    }
+
+    /**
+     * 在状态变更的事务中写入支付结果事件，由发件箱中继发布给订单服务
+     */
+    private void publishEvents(List<String> paymentNos) {
+        if (paymentNos.isEmpty()) {
+            return;
+        }
+        LambdaQueryWrapper<Payment> wrapper = new LambdaQueryWrapper<>();
+        wrapper.in(Payment::getPaymentNo, paymentNos);
+        for (Payment payment : paymentMapper.selectList(wrapper)) {
+            PaymentEvent event = PaymentConverter.toEvent(payment);
+            outbox.append(PaymentEvent.AGGREGATE_TYPE, event.getPaymentNo(), PaymentEvent.EXCHANGE,
+                    event.getStatus() == 3 ? PaymentEvent.SUCCEEDED : PaymentEvent.FAILED, event);
+        }
+    }
+
     /**
      * 生成支付流水号
      */
     private String generatePaymentNo() {
-        return "PAY" + System.currentTimeMillis() + IdUtil.randomUUID().substring(0, 8).toUpperCase();
+        return snowflakeIdGenerator.nextNo("PAY");
     }
 
     /**
@@ -423,6 +575,18 @@ public class PaymentServiceImpl implements PaymentService {
         return true; // 模拟通知成功
     }
 
+    /**
+     * 订单已有有效支付记录：已支付成功时拒绝，待支付或支付中时返回已有的支付信息
+     */
+    private PaymentResponseVO existingPaymentResponse(Payment existPayment, PaymentIdempotencyManager.IdempotencyToken token) {
+        if (existPayment.getStatus() == 3) {
+            throw new BusinessException("订单已支付成功");
+        }
+        PaymentResponseVO response = buildPaymentResponse(existPayment);
+        paymentIdempotencyManager.complete(token, response);
+        return response;
+    }
+
     /**
      * 构建支付响应
      */
@@ -439,8 +603,7 @@ public class PaymentServiceImpl implements PaymentService {
      * 转换为VO对象
      */
     private PaymentVO convertToVO(Payment payment) {
-        PaymentVO vo = new PaymentVO();
-        BeanUtil.copyProperties(payment, vo);
+        PaymentVO vo = PaymentConverter.toVO(payment);
         
         // 设置描述字段
         vo.setPaymentMethodDesc(getPaymentMethodDesc(payment.getPaymentMethod()));
@@ -476,6 +639,7 @@ public class PaymentServiceImpl implements PaymentService {
             case 3: return "支付成功";
             case 4: return "支付失败";
             case 5: return "已退款";
+            case 6: return "到账待退款";
             default: return "未知";
         }
     }
@@ -22,7 +22,7 @@ public class PaymentResponseVO {
     private String paymentNo;
 
     /**
-     * 支付状态：1-待支付，2-支付中，3-支付成功，4-支付失败，5-已退款
+     * 支付状态：1-待支付，2-支付中，3-支付成功，4-支付失败，5-已退款，6-到账待退款
      */
     private Integer status;
 
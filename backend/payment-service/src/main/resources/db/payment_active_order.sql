@@ -0,0 +1,11 @@
+-- 支付表有效订单唯一约束迁移脚本（drone_delivery 库）
+-- 同一订单同时只能有一条有效支付记录（待支付、支付中、支付成功）。MySQL 不支持部分索引，
+-- 用存储生成列只为有效记录取订单号、其余为 NULL，再对该列建唯一索引；多个 NULL 互不冲突，失败或已退款后可重新支付。
+-- 作为Redis幂等键之外的数据库兜底，插入冲突时由 PaymentServiceImpl 返回已有支付或提示正在处理。
+
+USE drone_delivery;
+
+ALTER TABLE payment
+    ADD COLUMN active_order_no VARCHAR(64)
+        AS (IF(status IN (1, 2, 3) AND deleted = 0, order_no, NULL)) STORED COMMENT '有效支付的订单号（生成列）',
+    ADD UNIQUE INDEX uk_active_order_no (active_order_no);
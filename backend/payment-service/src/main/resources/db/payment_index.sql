@@ -0,0 +1,7 @@
+-- 支付表索引迁移脚本（drone_delivery 库）
+-- 游标分页按 (create_time, id) 倒序定位，二级索引自带主键列，create_time 单列索引即可覆盖定位条件。
+
+USE drone_delivery;
+
+ALTER TABLE payment
+    ADD INDEX idx_create_time (create_time);
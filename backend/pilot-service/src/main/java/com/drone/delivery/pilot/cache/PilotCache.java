@@ -0,0 +1,79 @@
+package com.drone.delivery.pilot.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.drone.delivery.common.cache.NearCache;
+import com.drone.delivery.common.cache.NearCacheManager;
+import com.drone.delivery.pilot.entity.Pilot;
+import com.drone.delivery.pilot.mapper.PilotMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * 飞手详情缓存
+ * 按飞手ID缓存飞手实体；用户ID到飞手ID的映射在注册后不再变化，单独缓存且无需失效。
+ * 所有修改飞手的路径（含位置批量落库）必须在更新成功后调用 {@link #evict} 或 {@link #evictAll}。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Component
+public class PilotCache {
+
+    private final PilotMapper pilotMapper;
+    private final NearCache<Long, Pilot> byId;
+    private final NearCache<Long, Long> idByUserId;
+
+    public PilotCache(PilotMapper pilotMapper, NearCacheManager nearCacheManager) {
+        this.pilotMapper = pilotMapper;
+        this.byId = nearCacheManager.getCache("pilot", Pilot.class,
+                Duration.ofSeconds(10), Duration.ofMinutes(5), 10000);
+        this.idByUserId = nearCacheManager.getCache("pilot-user", Long.class,
+                Duration.ofMinutes(30), Duration.ofHours(24), 50000);
+    }
+
+    /**
+     * 按ID读取飞手
+     *
+     * @param pilotId 飞手ID
+     * @return 飞手，不存在时为 null
+     */
+    public Pilot getById(Long pilotId) {
+        return byId.get(pilotId, pilotMapper::selectById);
+    }
+
+    /**
+     * 按用户ID读取飞手
+     *
+     * @param userId 用户ID
+     * @return 飞手，不存在时为 null
+     */
+    public Pilot getByUserId(Long userId) {
+        Long pilotId = idByUserId.get(userId, id -> {
+            LambdaQueryWrapper<Pilot> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(Pilot::getId).eq(Pilot::getUserId, id);
+            Pilot pilot = pilotMapper.selectOne(wrapper);
+            return pilot != null ? pilot.getId() : null;
+        });
+        return pilotId != null ? getById(pilotId) : null;
+    }
+
+    /**
+     * 使飞手缓存失效，事务中调用时在提交后生效
+     *
+     * @param pilotId 飞手ID
+     */
+    public void evict(Long pilotId) {
+        byId.evict(pilotId);
+    }
+
+    /**
+     * 批量使飞手缓存失效，只发布一条失效消息
+     *
+     * @param pilotIds 飞手ID集合
+     */
+    public void evictAll(Collection<Long> pilotIds) {
+        byId.evictAll(pilotIds);
+    }
+}
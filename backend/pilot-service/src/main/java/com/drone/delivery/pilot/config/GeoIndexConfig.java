@@ -0,0 +1,30 @@
+package com.drone.delivery.pilot.config;
+
+import com.drone.delivery.pilot.geo.PilotGeoIndex;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 飞手位置索引配置
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Configuration
+public class GeoIndexConfig {
+
+    /**
+     * 订阅位置索引同步频道，接收其他实例广播的位置和状态变更
+     */
+    @Bean
+    public RedisMessageListenerContainer geoIndexListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                   PilotGeoIndex pilotGeoIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(pilotGeoIndex, new ChannelTopic(PilotGeoIndex.SYNC_CHANNEL));
+        return container;
+    }
+}
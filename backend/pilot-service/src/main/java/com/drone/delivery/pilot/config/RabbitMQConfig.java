@@ -0,0 +1,104 @@
+package com.drone.delivery.pilot.config;
+
+import com.drone.delivery.common.event.OrderEvent;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ 配置
+ * 飞手服务订阅订单服务发布的订单完成事件，异步累加飞手的完成单数和收入；
+ * 订单完成和取消事件都会把派单时抢占为忙碌的飞手释放回空闲
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Configuration
+public class RabbitMQConfig {
+
+    // 队列名称
+    public static final String PILOT_ORDER_COMPLETED_QUEUE = "pilot.order.completed";
+    public static final String PILOT_ORDER_COMPLETED_DLQ = "pilot.order.completed.dlq";
+    public static final String PILOT_ORDER_CANCELLED_QUEUE = "pilot.order.cancelled";
+    public static final String PILOT_ORDER_CANCELLED_DLQ = "pilot.order.cancelled.dlq";
+
+    /**
+     * 订单事件交换机，与订单服务声明一致，先启动的一方创建
+     */
+    @Bean
+    public TopicExchange orderEventExchange() {
+        return new TopicExchange(OrderEvent.EXCHANGE, true, false);
+    }
+
+    /**
+     * 飞手服务的订单完成事件队列，重试后仍失败的消息经默认交换机转入死信队列
+     */
+    @Bean
+    public Queue pilotOrderCompletedQueue() {
+        return QueueBuilder.durable(PILOT_ORDER_COMPLETED_QUEUE)
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", PILOT_ORDER_COMPLETED_DLQ)
+                .build();
+    }
+
+    /**
+     * 订单完成事件死信队列
+     */
+    @Bean
+    public Queue pilotOrderCompletedDlq() {
+        return QueueBuilder.durable(PILOT_ORDER_COMPLETED_DLQ).build();
+    }
+
+    /**
+     * 绑定订单完成事件
+     */
+    @Bean
+    public Binding pilotOrderCompletedBinding() {
+        return BindingBuilder.bind(pilotOrderCompletedQueue())
+                .to(orderEventExchange())
+                .with(OrderEvent.COMPLETED);
+    }
+
+    /**
+     * 飞手服务的订单取消事件队列，重试后仍失败的消息经默认交换机转入死信队列
+     */
+    @Bean
+    public Queue pilotOrderCancelledQueue() {
+        return QueueBuilder.durable(PILOT_ORDER_CANCELLED_QUEUE)
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", PILOT_ORDER_CANCELLED_DLQ)
+                .build();
+    }
+
+    /**
+     * 订单取消事件死信队列
+     */
+    @Bean
+    public Queue pilotOrderCancelledDlq() {
+        return QueueBuilder.durable(PILOT_ORDER_CANCELLED_DLQ).build();
+    }
+
+    /**
+     * 绑定订单取消事件
+     */
+    @Bean
+    public Binding pilotOrderCancelledBinding() {
+        return BindingBuilder.bind(pilotOrderCancelledQueue())
+                .to(orderEventExchange())
+                .with(OrderEvent.CANCELLED);
+    }
+
+    /**
+     * 消息使用JSON格式，默认监听器容器工厂自动使用
+     */
+    @Bean
+    public MessageConverter messageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
@@ -2,16 +2,20 @@ package com.drone.delivery.pilot.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.drone.delivery.common.result.Result;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.pilot.dto.PilotLocationReportDTO;
 import com.drone.delivery.pilot.dto.PilotQueryDTO;
 import com.drone.delivery.pilot.dto.PilotRegisterDTO;
 import com.drone.delivery.pilot.service.PilotService;
 import com.drone.delivery.pilot.vo.PilotVO;
+import com.drone.delivery.pilot.vo.TelemetryMetricsVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.util.List;
@@ -49,6 +53,15 @@ public class PilotController {
         return Result.success(page);
     }
 
+    /**
+     * 游标分页查询飞手
+     */
+    @PostMapping("/cursor")
+    public Result<CursorPage<PilotVO>> cursorPage(@Valid @RequestBody PilotQueryDTO queryDTO) {
+        CursorPage<PilotVO> page = pilotService.cursorPage(queryDTO);
+        return Result.success(page);
+    }
+
     /**
      * 根据ID查询飞手详情
      */
@@ -78,13 +91,34 @@ public class PilotController {
         return Result.success(success);
     }
 
+    /**
+     * 批量上报飞手位置
+     */
+    @PostMapping("/location/batch")
+    public Result<Integer> reportLocations(@RequestBody @NotEmpty List<@Valid PilotLocationReportDTO> reports) {
+        Integer accepted = pilotService.reportLocations(reports);
+        return Result.success(accepted);
+    }
+
+    /**
+     * 位置上报链路指标
+     */
+    @GetMapping("/location/metrics")
+    public Result<TelemetryMetricsVO> getTelemetryMetrics() {
+        return Result.success(pilotService.getTelemetryMetrics());
+    }
+
     /**
      * 更新工作状态
+     * 传入 expectedStatus 时仅在当前状态等于该值时更新，用于派单抢占空闲飞手
      */
     @PutMapping("/{id}/work-status")
     public Result<Boolean> updateWorkStatus(@PathVariable Long id,
-                                          @RequestParam @NotNull Integer workStatus) {
-        Boolean success = pilotService.updateWorkStatus(id, workStatus);
+                                          @RequestParam @NotNull Integer workStatus,
+                                          @RequestParam(required = false) Integer expectedStatus) {
+        Boolean success = expectedStatus != null
+                ? pilotService.compareAndSetWorkStatus(id, expectedStatus, workStatus)
+                : pilotService.updateWorkStatus(id, workStatus);
         return Result.success(success);
     }
 
@@ -120,6 +154,18 @@ public class PilotController {
         return Result.success(pilots);
     }
 
+    /**
+     * 查找最近的K个空闲飞手
+     */
+    @GetMapping("/nearest")
+    public Result<List<PilotVO>> findNearestPilots(@RequestParam @NotNull BigDecimal longitude,
+                                                  @RequestParam @NotNull BigDecimal latitude,
+                                                  @RequestParam(defaultValue = "5") Integer limit,
+                                                  @RequestParam(defaultValue = "50") Integer radius) {
+        List<PilotVO> pilots = pilotService.findNearestPilots(longitude, latitude, limit, radius);
+        return Result.success(pilots);
+    }
+
     /**
      * 更新飞手评分
      */
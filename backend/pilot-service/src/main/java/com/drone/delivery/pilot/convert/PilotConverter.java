@@ -0,0 +1,89 @@
+package com.drone.delivery.pilot.convert;
+
+import com.drone.delivery.pilot.dto.PilotRegisterDTO;
+import com.drone.delivery.pilot.entity.Pilot;
+import com.drone.delivery.pilot.vo.PilotVO;
+
+/**
+ * 飞手对象转换器
+ * 以显式的getter/setter完成实体、DTO与VO之间的转换，替代基于反射的属性拷贝，
+ * 新增字段时需同步维护此处的映射。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public final class PilotConverter {
+
+    private PilotConverter() {
+    }
+
+    /**
+     * 注册参数转换为飞手实体
+     */
+    public static Pilot toEntity(PilotRegisterDTO registerDTO) {
+        if (registerDTO == null) {
+            return null;
+        }
+        Pilot pilot = new Pilot();
+        pilot.setName(registerDTO.getName());
+        pilot.setIdCard(registerDTO.getIdCard());
+        pilot.setPhone(registerDTO.getPhone());
+        pilot.setEmail(registerDTO.getEmail());
+        pilot.setGender(registerDTO.getGender());
+        pilot.setAge(registerDTO.getAge());
+        pilot.setAddress(registerDTO.getAddress());
+        pilot.setEmergencyContact(registerDTO.getEmergencyContact());
+        pilot.setEmergencyPhone(registerDTO.getEmergencyPhone());
+        pilot.setLicenseNo(registerDTO.getLicenseNo());
+        pilot.setLicenseType(registerDTO.getLicenseType());
+        pilot.setLicenseIssueDate(registerDTO.getLicenseIssueDate());
+        pilot.setLicenseExpireDate(registerDTO.getLicenseExpireDate());
+        pilot.setLicensePhoto(registerDTO.getLicensePhoto());
+        pilot.setFlightHours(registerDTO.getFlightHours());
+        pilot.setServiceRange(registerDTO.getServiceRange());
+        return pilot;
+    }
+
+    /**
+     * 飞手实体转换为视图对象（不含描述字段）
+     */
+    public static PilotVO toVO(Pilot pilot) {
+        if (pilot == null) {
+            return null;
+        }
+        PilotVO vo = new PilotVO();
+        vo.setId(pilot.getId());
+        vo.setUserId(pilot.getUserId());
+        vo.setName(pilot.getName());
+        vo.setIdCard(pilot.getIdCard());
+        vo.setPhone(pilot.getPhone());
+        vo.setEmail(pilot.getEmail());
+        vo.setAvatar(pilot.getAvatar());
+        vo.setGender(pilot.getGender());
+        vo.setAge(pilot.getAge());
+        vo.setAddress(pilot.getAddress());
+        vo.setEmergencyContact(pilot.getEmergencyContact());
+        vo.setEmergencyPhone(pilot.getEmergencyPhone());
+        vo.setLicenseNo(pilot.getLicenseNo());
+        vo.setLicenseType(pilot.getLicenseType());
+        vo.setLicenseIssueDate(pilot.getLicenseIssueDate());
+        vo.setLicenseExpireDate(pilot.getLicenseExpireDate());
+        vo.setLicensePhoto(pilot.getLicensePhoto());
+        vo.setFlightHours(pilot.getFlightHours());
+        vo.setCertificationStatus(pilot.getCertificationStatus());
+        vo.setCertificationTime(pilot.getCertificationTime());
+        vo.setCertificationFailReason(pilot.getCertificationFailReason());
+        vo.setWorkStatus(pilot.getWorkStatus());
+        vo.setLongitude(pilot.getLongitude());
+        vo.setLatitude(pilot.getLatitude());
+        vo.setServiceRange(pilot.getServiceRange());
+        vo.setRating(pilot.getRating());
+        vo.setCompletedOrders(pilot.getCompletedOrders());
+        vo.setTotalIncome(pilot.getTotalIncome());
+        vo.setLastOnlineTime(pilot.getLastOnlineTime());
+        vo.setStatus(pilot.getStatus());
+        vo.setCreateTime(pilot.getCreateTime());
+        vo.setUpdateTime(pilot.getUpdateTime());
+        return vo;
+    }
+}
@@ -0,0 +1,45 @@
+package com.drone.delivery.pilot.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/**
+ * 飞手位置上报DTO
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+public class PilotLocationReportDTO {
+
+    /**
+     * 飞手ID
+     */
+    @NotNull(message = "飞手ID不能为空")
+    private Long pilotId;
+
+    /**
+     * 经度
+     */
+    @NotNull(message = "经度不能为空")
+    @DecimalMin(value = "-180.0", message = "经度值错误")
+    @DecimalMax(value = "180.0", message = "经度值错误")
+    private BigDecimal longitude;
+
+    /**
+     * 纬度
+     */
+    @NotNull(message = "纬度不能为空")
+    @DecimalMin(value = "-90.0", message = "纬度值错误")
+    @DecimalMax(value = "90.0", message = "纬度值错误")
+    private BigDecimal latitude;
+
+    /**
+     * 定位时间（毫秒时间戳），为空时以服务端接收时间为准
+     */
+    private Long reportTime;
+}
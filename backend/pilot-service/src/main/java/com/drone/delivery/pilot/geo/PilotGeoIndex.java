@@ -0,0 +1,539 @@
+package com.drone.delivery.pilot.geo;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.drone.delivery.common.utils.GeoUtils;
+import com.drone.delivery.pilot.entity.Pilot;
+import com.drone.delivery.pilot.mapper.PilotMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 飞手地理位置内存索引
+ * 按固定经纬度步长将可接单飞手划分到网格中，半径查询和K近邻查询只扫描相关网格，不访问数据库。
+ * 只有空闲、已认证、账户正常且有位置的飞手会被收录，状态变化时由服务层调用 {@link #upsert(Pilot)} 维护。
+ * 纬度截断到 [-90, 90]，经度归一化到 [-180, 180)，经度方向的网格在反经线处首尾相接；
+ * 查询半径、返回数量和K近邻扩展圈数都有上限，避免请求参数放大扫描范围。
+ * 索引在每个实例内存中各有一份：位置批量落库后和飞手状态变更提交后经Redis频道广播给其他实例，
+ * 收到位置的实例更新已收录飞手的位置，收到状态变更的实例回查数据库刷新；广播可能丢失，
+ * 各实例再定期从数据库全量对齐一次。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PilotGeoIndex implements MessageListener {
+
+    /**
+     * 索引同步频道
+     */
+    public static final String SYNC_CHANNEL = "pilot:geo:sync";
+
+    private final PilotMapper pilotMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 本实例标识，忽略自己发出的同步消息
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * 网格步长（度），默认0.1度约11公里
+     */
+    private final double cellDegrees;
+
+    /**
+     * 经度方向的网格数
+     */
+    private final int lonCells;
+
+    /**
+     * 查询半径上限（km）
+     */
+    private final double maxRadiusKm;
+
+    /**
+     * 单次查询返回数量上限
+     */
+    private final int maxResults;
+
+    /**
+     * K近邻查询最多扩展的圈数
+     */
+    private final int maxRings;
+
+    /**
+     * 飞手ID -> 索引条目
+     */
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 网格编号 -> 网格内飞手ID
+     */
+    private final ConcurrentHashMap<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    public PilotGeoIndex(PilotMapper pilotMapper,
+                         StringRedisTemplate stringRedisTemplate,
+                         @Value("${pilot.geo.cell-degrees:0.1}") double cellDegrees,
+                         @Value("${pilot.geo.max-radius-km:200}") double maxRadiusKm,
+                         @Value("${pilot.geo.max-results:100}") int maxResults,
+                         @Value("${pilot.geo.max-rings:64}") int maxRings) {
+        // 经度方向的网格需整除一周，反经线两侧的网格才能首尾相接
+        long lonCells = Math.round(360.0 / cellDegrees);
+        if (!(cellDegrees > 0 && cellDegrees <= 90) || Math.abs(lonCells * cellDegrees - 360.0) > 1e-9) {
+            throw new IllegalArgumentException("pilot.geo.cell-degrees 必须大于0、不超过90且能整除360: " + cellDegrees);
+        }
+        this.pilotMapper = pilotMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cellDegrees = cellDegrees;
+        this.lonCells = (int) lonCells;
+        this.maxRadiusKm = maxRadiusKm;
+        this.maxResults = maxResults;
+        this.maxRings = maxRings;
+    }
+
+    /**
+     * 从数据库加载全部可接单飞手，以库中记录为准对齐索引
+     * 启动时执行一次，之后定期执行，补上丢失的同步消息；逐条替换，对齐期间查询不会看到空索引
+     */
+    @PostConstruct
+    public void rebuild() {
+        LambdaQueryWrapper<Pilot> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Pilot::getWorkStatus, 1) // 空闲状态
+               .eq(Pilot::getCertificationStatus, 3) // 已认证
+               .eq(Pilot::getStatus, 1) // 正常状态
+               .isNotNull(Pilot::getLongitude)
+               .isNotNull(Pilot::getLatitude);
+        List<Pilot> pilots = pilotMapper.selectList(wrapper);
+
+        Set<Long> loaded = new HashSet<>(pilots.size());
+        for (Pilot pilot : pilots) {
+            loaded.add(pilot.getId());
+            double lon = normalizeLon(pilot.getLongitude().doubleValue());
+            double lat = clampLat(pilot.getLatitude().doubleValue());
+            Entry entry = new Entry(pilot, lon, lat, cellKey(lon, lat));
+            entries.compute(pilot.getId(), (id, old) -> relocate(id, old, entry));
+        }
+        for (Long pilotId : new ArrayList<>(entries.keySet())) {
+            if (!loaded.contains(pilotId)) {
+                remove(pilotId);
+            }
+        }
+        log.info("飞手位置索引对齐完成，飞手数量: {}", entries.size());
+    }
+
+    /**
+     * 定期从数据库对齐索引，默认每分钟一次
+     */
+    @Scheduled(initialDelayString = "${pilot.geo.resync-interval-millis:60000}",
+            fixedDelayString = "${pilot.geo.resync-interval-millis:60000}")
+    public void scheduledResync() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("飞手位置索引对齐异常", e);
+        }
+    }
+
+    /**
+     * 广播一批已落库的位置，其他实例更新已收录飞手的位置
+     *
+     * @param positions 飞手ID -> {经度, 纬度}
+     */
+    public void broadcastMoves(Map<Long, double[]> positions) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        JSONArray moves = new JSONArray(positions.size());
+        positions.forEach((pilotId, position) -> moves.add(new Object[]{pilotId, position[0], position[1]}));
+        JSONObject message = new JSONObject();
+        message.put("moves", moves);
+        publish(message);
+    }
+
+    /**
+     * 广播飞手记录已变更，其他实例回查数据库刷新
+     *
+     * @param pilotIds 飞手ID
+     */
+    public void broadcastRefresh(Collection<Long> pilotIds) {
+        if (pilotIds.isEmpty()) {
+            return;
+        }
+        JSONObject message = new JSONObject();
+        message.put("refresh", pilotIds);
+        publish(message);
+    }
+
+    private void publish(JSONObject message) {
+        message.put("origin", instanceId);
+        try {
+            stringRedisTemplate.convertAndSend(SYNC_CHANNEL, message.toJSONString());
+        } catch (Exception e) {
+            log.warn("发布飞手位置索引同步消息失败，等待定期对齐", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            JSONObject body = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8));
+            if (instanceId.equals(body.getString("origin"))) {
+                return;
+            }
+            JSONArray moves = body.getJSONArray("moves");
+            if (moves != null) {
+                for (int i = 0; i < moves.size(); i++) {
+                    JSONArray move = moves.getJSONArray(i);
+                    moveTo(move.getLong(0), move.getDoubleValue(1), move.getDoubleValue(2));
+                }
+            }
+            List<Long> refresh = body.getList("refresh", Long.class);
+            if (refresh != null && !refresh.isEmpty()) {
+                Set<Long> missing = new HashSet<>(refresh);
+                for (Pilot pilot : pilotMapper.selectBatchIds(refresh)) {
+                    missing.remove(pilot.getId());
+                    upsert(pilot);
+                }
+                missing.forEach(this::remove);
+            }
+        } catch (Exception e) {
+            log.warn("处理飞手位置索引同步消息失败", e);
+        }
+    }
+
+    /**
+     * 写入或刷新飞手快照，不满足接单条件的飞手会被移出索引
+     * 已收录的飞手保留索引中的位置：位置由上报链路经 {@link #moveTo} 实时维护，可能比库中尚未落库的位置更新
+     *
+     * @param pilot 最新的飞手记录
+     */
+    public void upsert(Pilot pilot) {
+        if (pilot == null || pilot.getId() == null) {
+            return;
+        }
+        if (!isDispatchable(pilot)) {
+            remove(pilot.getId());
+            return;
+        }
+        double lon = normalizeLon(pilot.getLongitude().doubleValue());
+        double lat = clampLat(pilot.getLatitude().doubleValue());
+        entries.compute(pilot.getId(), (id, old) -> old != null
+                ? relocate(id, old, new Entry(pilot, old.getLongitude(), old.getLatitude(), old.getCellKey()))
+                : relocate(id, null, new Entry(pilot, lon, lat, cellKey(lon, lat))));
+    }
+
+    /**
+     * 仅更新已收录飞手的位置，未收录（离线、忙碌等）的飞手忽略
+     *
+     * @param pilotId 飞手ID
+     * @param longitude 经度
+     * @param latitude 纬度
+     */
+    public void moveTo(Long pilotId, double longitude, double latitude) {
+        double lon = normalizeLon(longitude);
+        double lat = clampLat(latitude);
+        long cellKey = cellKey(lon, lat);
+        entries.computeIfPresent(pilotId, (id, old) -> relocate(id, old, new Entry(old.getPilot(), lon, lat, cellKey)));
+    }
+
+    /**
+     * 移出索引
+     *
+     * @param pilotId 飞手ID
+     */
+    public void remove(Long pilotId) {
+        entries.computeIfPresent(pilotId, (id, old) -> {
+            leaveCell(old.getCellKey(), id);
+            return null;
+        });
+    }
+
+    /**
+     * 查询半径范围内的飞手，按距离由近到远排序，最多返回 maxResults 个
+     *
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param radiusKm 半径（km）
+     * @return 命中结果
+     */
+    public List<Hit> withinRadius(double longitude, double latitude, double radiusKm) {
+        double lon = normalizeLon(longitude);
+        double lat = clampLat(latitude);
+        double radius = clampRadius(radiusKm);
+        List<Hit> hits = new ArrayList<>();
+        double latSpan = GeoUtils.kmToLatDegrees(radius);
+        // 经度跨度按范围内离赤道最远的纬度计算，靠近极点时覆盖整圈经度
+        double farLat = Math.min(90.0, Math.abs(lat) + latSpan);
+        double lonSpan = GeoUtils.kmToLonDegrees(radius, farLat);
+        int minLat = index(Math.max(-90.0, lat - latSpan));
+        int maxLat = index(Math.min(90.0, lat + latSpan));
+        int minLon = index(lon - lonSpan);
+        int maxLon = index(lon + lonSpan);
+        if (maxLon - minLon + 1 >= lonCells) {
+            minLon = 0;
+            maxLon = lonCells - 1;
+        }
+
+        for (int i = minLat; i <= maxLat; i++) {
+            for (int j = minLon; j <= maxLon; j++) {
+                collect(cellKey(i, wrapLon(j)), lon, lat, radius, hits);
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getDistance));
+        return hits.size() > maxResults ? new ArrayList<>(hits.subList(0, maxResults)) : hits;
+    }
+
+    /**
+     * 查询最近的K个飞手
+     * 从所在网格开始逐圈向外扩展，每圈只访问外圈一周的网格，当下一圈的最近可能距离超过当前第K名距离、
+     * 超过搜索半径、经度方向已绕满一周或达到最大圈数时停止。
+     *
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param k 数量
+     * @param maxRadiusKm 最大搜索半径（km）
+     * @return 命中结果，按距离由近到远排序
+     */
+    public List<Hit> nearest(double longitude, double latitude, int k, double maxRadiusKm) {
+        int limit = Math.min(k, maxResults);
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        double lon = normalizeLon(longitude);
+        double lat = clampLat(latitude);
+        double radius = clampRadius(maxRadiusKm);
+        // 大顶堆，堆顶为当前第K近的飞手
+        PriorityQueue<Hit> heap = new PriorityQueue<>(limit, Comparator.comparingDouble(Hit::getDistance).reversed());
+        int centerLat = index(lat);
+        int centerLon = index(lon);
+        int ringLimit = Math.min(maxRings, lonCells / 2);
+        List<Hit> ringHits = new ArrayList<>();
+
+        for (int ring = 0; ring <= ringLimit; ring++) {
+            // 第ring圈内的点与中心的距离不小于 (ring-1) 个网格宽度，经线收敛后经度方向更窄，按圈内最高纬度取保守下界
+            double edgeLat = Math.min(89.0, Math.abs(lat) + (ring + 1) * cellDegrees);
+            double cellKm = cellDegrees * GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(edgeLat));
+            double ringMinKm = Math.max(0, ring - 1) * cellKm;
+            if (ringMinKm > radius) {
+                break;
+            }
+            if (heap.size() == limit && heap.peek().getDistance() < ringMinKm) {
+                break;
+            }
+            ringHits.clear();
+            collectRing(centerLat, centerLon, ring, lon, lat, radius, ringHits);
+            for (Hit hit : ringHits) {
+                if (heap.size() < limit) {
+                    heap.offer(hit);
+                } else if (hit.getDistance() < heap.peek().getDistance()) {
+                    heap.poll();
+                    heap.offer(hit);
+                }
+            }
+        }
+
+        List<Hit> result = new ArrayList<>(heap);
+        result.sort(Comparator.comparingDouble(Hit::getDistance));
+        return result;
+    }
+
+    /**
+     * 当前收录的飞手数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 判断飞手是否满足接单条件
+     */
+    private boolean isDispatchable(Pilot pilot) {
+        return Integer.valueOf(1).equals(pilot.getWorkStatus()) // 空闲状态
+                && Integer.valueOf(3).equals(pilot.getCertificationStatus()) // 已认证
+                && Integer.valueOf(1).equals(pilot.getStatus()) // 正常状态
+                && pilot.getLongitude() != null
+                && pilot.getLatitude() != null;
+    }
+
+    /**
+     * 在条目锁内完成网格迁移，保证同一飞手只出现在一个网格中
+     */
+    private Entry relocate(Long pilotId, Entry old, Entry entry) {
+        if (old != null && old.getCellKey() == entry.getCellKey()) {
+            return entry;
+        }
+        if (old != null) {
+            leaveCell(old.getCellKey(), pilotId);
+        }
+        cells.compute(entry.getCellKey(), (key, ids) -> {
+            Set<Long> members = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            members.add(pilotId);
+            return members;
+        });
+        return entry;
+    }
+
+    private void leaveCell(long cellKey, Long pilotId) {
+        cells.computeIfPresent(cellKey, (key, ids) -> {
+            ids.remove(pilotId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * 收集第ring圈外周一圈网格：上下两行整行，左右两列去掉角点，超出纬度范围的行跳过
+     * 圈宽达到经度方向网格总数时列会在反经线处回绕重合，每列只访问一次
+     */
+    private void collectRing(int centerLat, int centerLon, int ring,
+                             double longitude, double latitude, double radiusKm, List<Hit> hits) {
+        if (ring == 0) {
+            collect(cellKey(centerLat, wrapLon(centerLon)), longitude, latitude, radiusKm, hits);
+            return;
+        }
+        int minLatIndex = index(-90.0);
+        int maxLatIndex = index(90.0);
+        for (int i : new int[]{centerLat - ring, centerLat + ring}) {
+            if (i < minLatIndex || i > maxLatIndex) {
+                continue;
+            }
+            int width = Math.min(2 * ring + 1, lonCells);
+            for (int j = centerLon - ring; j < centerLon - ring + width; j++) {
+                collect(cellKey(i, wrapLon(j)), longitude, latitude, radiusKm, hits);
+            }
+        }
+        int left = wrapLon(centerLon - ring);
+        int right = wrapLon(centerLon + ring);
+        for (int i = Math.max(centerLat - ring + 1, minLatIndex); i <= Math.min(centerLat + ring - 1, maxLatIndex); i++) {
+            collect(cellKey(i, left), longitude, latitude, radiusKm, hits);
+            if (right != left) {
+                collect(cellKey(i, right), longitude, latitude, radiusKm, hits);
+            }
+        }
+    }
+
+    private void collect(long cellKey, double longitude, double latitude, double radiusKm, List<Hit> hits) {
+        Set<Long> ids = cells.get(cellKey);
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            double distance = GeoUtils.distanceKm(longitude, latitude, entry.getLongitude(), entry.getLatitude());
+            if (distance <= radiusKm) {
+                hits.add(new Hit(entry.getPilot(), entry.getLongitude(), entry.getLatitude(), distance));
+            }
+        }
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    /**
+     * 经度网格编号在反经线处回绕，保持与 index(normalizeLon(x)) 一致
+     */
+    private int wrapLon(int lonIndex) {
+        int min = index(-180.0);
+        return Math.floorMod(lonIndex - min, lonCells) + min;
+    }
+
+    private double clampRadius(double radiusKm) {
+        if (Double.isNaN(radiusKm) || radiusKm < 0) {
+            return 0;
+        }
+        return Math.min(radiusKm, maxRadiusKm);
+    }
+
+    private static double clampLat(double latitude) {
+        return Math.max(-90.0, Math.min(90.0, latitude));
+    }
+
+    private static double normalizeLon(double longitude) {
+        return ((longitude + 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+    }
+
+    private long cellKey(double longitude, double latitude) {
+        return cellKey(index(latitude), index(longitude));
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 索引条目，创建后不可变，位置变化时整体替换
+     */
+    @Getter
+    private static final class Entry {
+        private final Pilot pilot;
+        private final double longitude;
+        private final double latitude;
+        private final long cellKey;
+
+        private Entry(Pilot pilot, double longitude, double latitude, long cellKey) {
+            this.pilot = pilot;
+            this.longitude = longitude;
+            this.latitude = latitude;
+            this.cellKey = cellKey;
+        }
+    }
+
+    /**
+     * 查询命中结果
+     */
+    @Getter
+    public static final class Hit {
+        /**
+         * 飞手快照
+         */
+        private final Pilot pilot;
+
+        /**
+         * 索引中的最新经度
+         */
+        private final double longitude;
+
+        /**
+         * 索引中的最新纬度
+         */
+        private final double latitude;
+
+        /**
+         * 与查询点的距离（km）
+         */
+        private final double distance;
+
+        private Hit(Pilot pilot, double longitude, double latitude, double distance) {
+            this.pilot = pilot;
+            this.longitude = longitude;
+            this.latitude = latitude;
+            this.distance = distance;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.drone.delivery.pilot.listener;
+
+import com.drone.delivery.common.event.OrderEvent;
+import com.drone.delivery.pilot.config.RabbitMQConfig;
+import com.drone.delivery.pilot.service.PilotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单事件监听器
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderEventListener {
+
+    private final PilotService pilotService;
+
+    /**
+     * 监听订单完成事件，消息ID为订单服务发件箱中的事件ID
+     */
+    @RabbitListener(queues = RabbitMQConfig.PILOT_ORDER_COMPLETED_QUEUE)
+    public void handleOrderCompleted(OrderEvent event, @Header(AmqpHeaders.MESSAGE_ID) String messageId) {
+        try {
+            if (!pilotService.onOrderCompleted(Long.valueOf(messageId), event)) {
+                log.info("订单完成事件已处理，忽略重复投递，事件ID: {}, 订单ID: {}", messageId, event.getOrderId());
+            }
+        } catch (Exception e) {
+            log.error("处理订单完成事件失败，事件ID: {}, 订单ID: {}", messageId, event.getOrderId(), e);
+            throw e; // 重新抛出异常，重试后转入死信队列
+        }
+    }
+
+    /**
+     * 监听订单取消事件，释放接单飞手
+     */
+    @RabbitListener(queues = RabbitMQConfig.PILOT_ORDER_CANCELLED_QUEUE)
+    public void handleOrderCancelled(OrderEvent event, @Header(AmqpHeaders.MESSAGE_ID) String messageId) {
+        try {
+            if (!pilotService.onOrderCancelled(Long.valueOf(messageId), event)) {
+                log.info("订单取消事件已处理，忽略重复投递，事件ID: {}, 订单ID: {}", messageId, event.getOrderId());
+            }
+        } catch (Exception e) {
+            log.error("处理订单取消事件失败，事件ID: {}, 订单ID: {}", messageId, event.getOrderId(), e);
+            throw e; // 重新抛出异常，重试后转入死信队列
+        }
+    }
+}
@@ -3,6 +3,10 @@ package com.drone.delivery.pilot.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.drone.delivery.pilot.entity.Pilot;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
 
 /**
  * 飞手Mapper接口
@@ -13,4 +17,35 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface PilotMapper extends BaseMapper<Pilot> {
 
-}
\ No newline at end of file
+    /**
+     * 原子累加完成订单数和收入
+     *
+     * @param id 飞手ID
+     * @param income 本单收入
+     * @return 更新行数
+     */
+    @Update("UPDATE pilot SET completed_orders = completed_orders + 1, total_income = total_income + #{income}, "
+            + "update_time = NOW() WHERE id = #{id} AND is_deleted = 0")
+    int addCompletedOrder(@Param("id") Long id, @Param("income") BigDecimal income);
+
+    /**
+     * 原子累加收入
+     *
+     * @param id 飞手ID
+     * @param amount 收入金额
+     * @return 更新行数
+     */
+    @Update("UPDATE pilot SET total_income = total_income + #{amount}, update_time = NOW() "
+            + "WHERE id = #{id} AND is_deleted = 0")
+    int addIncome(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * 释放派单时抢占的飞手：忙碌 -> 空闲，飞手已离线或已被释放时不更新
+     *
+     * @param id 飞手ID
+     * @return 更新行数
+     */
+    @Update("UPDATE pilot SET work_status = 1, last_online_time = NOW(), update_time = NOW() "
+            + "WHERE id = #{id} AND work_status = 2 AND is_deleted = 0")
+    int releaseWorkStatus(@Param("id") Long id);
+}
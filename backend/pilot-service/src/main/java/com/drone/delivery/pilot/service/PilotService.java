@@ -1,9 +1,13 @@
 package com.drone.delivery.pilot.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.drone.delivery.common.event.OrderEvent;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.pilot.dto.PilotLocationReportDTO;
 import com.drone.delivery.pilot.dto.PilotQueryDTO;
 import com.drone.delivery.pilot.dto.PilotRegisterDTO;
 import com.drone.delivery.pilot.vo.PilotVO;
+import com.drone.delivery.pilot.vo.TelemetryMetricsVO;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -32,6 +36,14 @@ public interface PilotService {
      */
     IPage<PilotVO> page(PilotQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询飞手，按创建时间倒序，不统计总数时不执行COUNT
+     * 
+     * @param queryDTO 查询条件，cursor 为上一页返回的游标
+     * @return 游标分页结果
+     */
+    CursorPage<PilotVO> cursorPage(PilotQueryDTO queryDTO);
+
     /**
      * 根据ID查询飞手详情
      * 
@@ -49,15 +61,30 @@ public interface PilotService {
     PilotVO getByUserId(Long userId);
 
     /**
-     * 更新飞手位置
+     * 更新飞手位置，定位先进入缓冲区，由后台批量落库
      * 
      * @param id 飞手ID
      * @param longitude 经度
      * @param latitude 纬度
-     * @return 是否成功
+     * @return 是否被接收
      */
     Boolean updateLocation(Long id, BigDecimal longitude, BigDecimal latitude);
 
+    /**
+     * 批量上报飞手位置
+     * 
+     * @param reports 定位点列表
+     * @return 被接收的定位点数
+     */
+    Integer reportLocations(List<PilotLocationReportDTO> reports);
+
+    /**
+     * 获取位置上报链路指标
+     * 
+     * @return 链路指标
+     */
+    TelemetryMetricsVO getTelemetryMetrics();
+
     /**
      * 更新工作状态
      * 
@@ -67,6 +94,16 @@ public interface PilotService {
      */
     Boolean updateWorkStatus(Long id, Integer workStatus);
 
+    /**
+     * 条件更新工作状态，仅当前状态等于预期状态时更新
+     *
+     * @param id 飞手ID
+     * @param expectedStatus 预期的当前状态
+     * @param workStatus 目标工作状态
+     * @return 是否更新，false 表示状态已被其他请求改变
+     */
+    Boolean compareAndSetWorkStatus(Long id, Integer expectedStatus, Integer workStatus);
+
     /**
      * 认证飞手
      * 
@@ -96,6 +133,17 @@ public interface PilotService {
      */
     List<PilotVO> findNearbyPilots(BigDecimal longitude, BigDecimal latitude, Integer radius);
 
+    /**
+     * 根据位置查找最近的K个空闲飞手
+     * 
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param limit 返回数量
+     * @param radius 最大搜索半径（km）
+     * @return 飞手列表，按距离由近到远排序
+     */
+    List<PilotVO> findNearestPilots(BigDecimal longitude, BigDecimal latitude, Integer limit, Integer radius);
+
     /**
      * 更新飞手评分
      * 
@@ -121,4 +169,22 @@ public interface PilotService {
      * @return 是否成功
      */
     Boolean addIncome(Long id, BigDecimal amount);
+
+    /**
+     * 处理订单完成事件，累加飞手的完成订单数和收入，并把飞手由忙碌释放回空闲
+     *
+     * @param messageId 事件ID，用于去重
+     * @param event 订单事件
+     * @return 是否首次处理，false 表示重复投递
+     */
+    boolean onOrderCompleted(Long messageId, OrderEvent event);
+
+    /**
+     * 处理订单取消事件，已接单的订单被取消时把飞手由忙碌释放回空闲
+     *
+     * @param messageId 事件ID，用于去重
+     * @param event 订单事件
+     * @return 是否首次处理，false 表示重复投递
+     */
+    boolean onOrderCancelled(Long messageId, OrderEvent event);
 }
\ No newline at end of file
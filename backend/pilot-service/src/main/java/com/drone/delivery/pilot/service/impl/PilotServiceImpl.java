@@ -1,24 +1,37 @@
 package com.drone.delivery.pilot.service.impl;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.drone.delivery.common.event.OrderEvent;
 import com.drone.delivery.common.exception.BusinessException;
+import com.drone.delivery.common.outbox.Outbox;
+import com.drone.delivery.common.utils.CursorPageUtils;
+import com.drone.delivery.common.vo.CursorPage;
+import com.drone.delivery.pilot.cache.PilotCache;
+import com.drone.delivery.pilot.dto.PilotLocationReportDTO;
 import com.drone.delivery.pilot.dto.PilotQueryDTO;
 import com.drone.delivery.pilot.dto.PilotRegisterDTO;
 import com.drone.delivery.pilot.entity.Pilot;
+import com.drone.delivery.pilot.geo.PilotGeoIndex;
 import com.drone.delivery.pilot.mapper.PilotMapper;
 import com.drone.delivery.pilot.service.PilotService;
+import com.drone.delivery.pilot.telemetry.PilotTelemetryBuffer;
 import com.drone.delivery.pilot.vo.PilotVO;
+import com.drone.delivery.pilot.vo.TelemetryMetricsVO;
+import com.drone.delivery.pilot.convert.PilotConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,7 +46,21 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PilotServiceImpl implements PilotService {
 
+    /**
+     * 订单完成事件的消费者名称
+     */
+    private static final String ORDER_COMPLETED_CONSUMER = "pilot-service.order-completed";
+
+    /**
+     * 订单取消事件的消费者名称
+     */
+    private static final String ORDER_CANCELLED_CONSUMER = "pilot-service.order-cancelled";
+
     private final PilotMapper pilotMapper;
+    private final PilotGeoIndex pilotGeoIndex;
+    private final PilotTelemetryBuffer pilotTelemetryBuffer;
+    private final PilotCache pilotCache;
+    private final Outbox outbox;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -69,8 +96,7 @@ public class PilotServiceImpl implements PilotService {
         }
 
         // 创建飞手
-        Pilot pilot = new Pilot();
-        BeanUtil.copyProperties(registerDTO, pilot);
+        Pilot pilot = PilotConverter.toEntity(registerDTO);
         pilot.setCertificationStatus(1); // 待认证
         pilot.setWorkStatus(3); // 离线
         pilot.setRating(BigDecimal.valueOf(5.0)); // 默认评分
@@ -87,6 +113,38 @@ public class PilotServiceImpl implements PilotService {
 
     @Override
     public IPage<PilotVO> page(PilotQueryDTO queryDTO) {
+        LambdaQueryWrapper<Pilot> wrapper = buildQueryWrapper(queryDTO);
+        wrapper.orderByDesc(Pilot::getCreateTime);
+
+        Page<Pilot> page = new Page<>(queryDTO.getCurrent(), queryDTO.getSize());
+        IPage<Pilot> pilotPage = pilotMapper.selectPage(page, wrapper);
+
+        // 转换为VO
+        IPage<PilotVO> voPage = new Page<>(pilotPage.getCurrent(), pilotPage.getSize(), pilotPage.getTotal());
+        voPage.setRecords(pilotPage.getRecords().stream()
+                .map(this::convertToVO)
+                .collect(Collectors.toList()));
+
+        return voPage;
+    }
+
+    @Override
+    public CursorPage<PilotVO> cursorPage(PilotQueryDTO queryDTO) {
+        int size = CursorPageUtils.normalizeSize(queryDTO.getSize());
+        LambdaQueryWrapper<Pilot> wrapper = buildQueryWrapper(queryDTO);
+        CursorPageUtils.seek(wrapper, queryDTO.getCursor(), size, Pilot::getCreateTime, Pilot::getId);
+        List<Pilot> rows = pilotMapper.selectList(wrapper);
+
+        Long total = Boolean.TRUE.equals(queryDTO.getSearchCount())
+                ? pilotMapper.selectCount(buildQueryWrapper(queryDTO))
+                : null;
+        return CursorPageUtils.build(rows, size, Pilot::getCreateTime, Pilot::getId, this::convertToVO, total);
+    }
+
+    /**
+     * 构建列表查询条件（不含排序）
+     */
+    private LambdaQueryWrapper<Pilot> buildQueryWrapper(PilotQueryDTO queryDTO) {
         LambdaQueryWrapper<Pilot> wrapper = new LambdaQueryWrapper<>();
         
         // 构建查询条件
@@ -99,25 +157,13 @@ public class PilotServiceImpl implements PilotService {
                .eq(queryDTO.getWorkStatus() != null, Pilot::getWorkStatus, queryDTO.getWorkStatus())
                .eq(queryDTO.getStatus() != null, Pilot::getStatus, queryDTO.getStatus())
                .ge(queryDTO.getStartTime() != null, Pilot::getCreateTime, queryDTO.getStartTime())
-               .le(queryDTO.getEndTime() != null, Pilot::getCreateTime, queryDTO.getEndTime())
-               .orderByDesc(Pilot::getCreateTime);
-
-        Page<Pilot> page = new Page<>(queryDTO.getCurrent(), queryDTO.getSize());
-        IPage<Pilot> pilotPage = pilotMapper.selectPage(page, wrapper);
-
-        // 转换为VO
-        IPage<PilotVO> voPage = new Page<>();
-        BeanUtil.copyProperties(pilotPage, voPage);
-        voPage.setRecords(pilotPage.getRecords().stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList()));
-
-        return voPage;
+               .le(queryDTO.getEndTime() != null, Pilot::getCreateTime, queryDTO.getEndTime());
+        return wrapper;
     }
 
     @Override
     public PilotVO getById(Long id) {
-        Pilot pilot = pilotMapper.selectById(id);
+        Pilot pilot = pilotCache.getById(id);
         if (pilot == null) {
             throw new BusinessException("飞手不存在");
         }
@@ -126,9 +172,7 @@ public class PilotServiceImpl implements PilotService {
 
     @Override
     public PilotVO getByUserId(Long userId) {
-        LambdaQueryWrapper<Pilot> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Pilot::getUserId, userId);
-        Pilot pilot = pilotMapper.selectOne(wrapper);
+        Pilot pilot = pilotCache.getByUserId(userId);
         if (pilot == null) {
             throw new BusinessException("飞手不存在");
         }
@@ -136,90 +180,92 @@ public class PilotServiceImpl implements PilotService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Boolean updateLocation(Long id, BigDecimal longitude, BigDecimal latitude) {
-        Pilot pilot = pilotMapper.selectById(id);
-        if (pilot == null) {
-            throw new BusinessException("飞手不存在");
-        }
+        PilotLocationReportDTO report = new PilotLocationReportDTO();
+        report.setPilotId(id);
+        report.setLongitude(longitude);
+        report.setLatitude(latitude);
+        report.setReportTime(System.currentTimeMillis());
+        return pilotTelemetryBuffer.offer(report);
+    }
 
-        pilot.setLongitude(longitude);
-        pilot.setLatitude(latitude);
-        pilot.setLastOnlineTime(LocalDateTime.now());
-        pilot.setUpdateTime(LocalDateTime.now());
+    @Override
+    public Integer reportLocations(List<PilotLocationReportDTO> reports) {
+        return pilotTelemetryBuffer.offerAll(reports);
+    }
 
-        return pilotMapper.updateById(pilot) > 0;
+    @Override
+    public TelemetryMetricsVO getTelemetryMetrics() {
+        return pilotTelemetryBuffer.metrics();
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean updateWorkStatus(Long id, Integer workStatus) {
-        Pilot pilot = pilotMapper.selectById(id);
-        if (pilot == null) {
-            throw new BusinessException("飞手不存在");
-        }
+        LocalDateTime now = LocalDateTime.now();
+        LambdaUpdateWrapper<Pilot> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Pilot::getWorkStatus, workStatus)
+               .set(workStatus != 3, Pilot::getLastOnlineTime, now) // 非离线状态更新在线时间
+               .set(Pilot::getUpdateTime, now);
+        return updateColumns(id, wrapper);
+    }
 
-        pilot.setWorkStatus(workStatus);
-        if (workStatus != 3) { // 非离线状态更新在线时间
-            pilot.setLastOnlineTime(LocalDateTime.now());
+    /**
+     * 单条带前置状态条件的UPDATE，并发抢占同一飞手时只有一个请求成功
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Boolean compareAndSetWorkStatus(Long id, Integer expectedStatus, Integer workStatus) {
+        LocalDateTime now = LocalDateTime.now();
+        LambdaUpdateWrapper<Pilot> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Pilot::getWorkStatus, workStatus)
+               .set(workStatus != 3, Pilot::getLastOnlineTime, now) // 非离线状态更新在线时间
+               .set(Pilot::getUpdateTime, now)
+               .eq(Pilot::getId, id)
+               .eq(Pilot::getWorkStatus, expectedStatus);
+        if (pilotMapper.update(null, wrapper) == 0) {
+            return false;
         }
-        pilot.setUpdateTime(LocalDateTime.now());
-
-        return pilotMapper.updateById(pilot) > 0;
+        refreshGeoIndex(id);
+        return true;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean certify(Long id, Integer status, String reason) {
-        Pilot pilot = pilotMapper.selectById(id);
-        if (pilot == null) {
-            throw new BusinessException("飞手不存在");
-        }
-
         if (status != 3 && status != 4) {
             throw new BusinessException("认证状态参数错误");
         }
 
-        pilot.setCertificationStatus(status);
-        pilot.setCertificationTime(LocalDateTime.now());
-        if (status == 4 && StrUtil.isNotBlank(reason)) {
-            pilot.setCertificationFailReason(reason);
-        }
-        pilot.setUpdateTime(LocalDateTime.now());
-
-        return pilotMapper.updateById(pilot) > 0;
+        LocalDateTime now = LocalDateTime.now();
+        LambdaUpdateWrapper<Pilot> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Pilot::getCertificationStatus, status)
+               .set(Pilot::getCertificationTime, now)
+               .set(status == 4 && StrUtil.isNotBlank(reason), Pilot::getCertificationFailReason, reason)
+               .set(Pilot::getUpdateTime, now);
+        return updateColumns(id, wrapper);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean updateStatus(Long id, Integer status) {
-        Pilot pilot = pilotMapper.selectById(id);
-        if (pilot == null) {
-            throw new BusinessException("飞手不存在");
-        }
-
-        pilot.setStatus(status);
-        pilot.setUpdateTime(LocalDateTime.now());
-
-        return pilotMapper.updateById(pilot) > 0;
+        LambdaUpdateWrapper<Pilot> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Pilot::getStatus, status)
+               .set(Pilot::getUpdateTime, LocalDateTime.now());
+        return updateColumns(id, wrapper);
     }
 
     @Override
     public List<PilotVO> findNearbyPilots(BigDecimal longitude, BigDecimal latitude, Integer radius) {
-        // 简化实现，实际应该使用地理位置计算
-        LambdaQueryWrapper<Pilot> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Pilot::getWorkStatus, 1) // 空闲状态
-               .eq(Pilot::getCertificationStatus, 3) // 已认证
-               .eq(Pilot::getStatus, 1) // 正常状态
-               .isNotNull(Pilot::getLongitude)
-               .isNotNull(Pilot::getLatitude);
+        // 走内存网格索引，不访问数据库
+        return pilotGeoIndex.withinRadius(longitude.doubleValue(), latitude.doubleValue(), radius).stream()
+                .map(this::convertToVO)
+                .collect(Collectors.toList());
+    }
 
-        List<Pilot> pilots = pilotMapper.selectList(wrapper);
-        
-        // 过滤距离范围内的飞手（简化计算）
-        return pilots.stream()
-                .filter(pilot -> calculateDistance(longitude, latitude, 
-                        pilot.getLongitude(), pilot.getLatitude()) <= radius)
+    @Override
+    public List<PilotVO> findNearestPilots(BigDecimal longitude, BigDecimal latitude, Integer limit, Integer radius) {
+        return pilotGeoIndex.nearest(longitude.doubleValue(), latitude.doubleValue(), limit, radius).stream()
                 .map(this::convertToVO)
                 .collect(Collectors.toList());
     }
@@ -227,51 +273,84 @@ public class PilotServiceImpl implements PilotService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean updateRating(Long id, BigDecimal rating) {
-        Pilot pilot = pilotMapper.selectById(id);
-        if (pilot == null) {
-            throw new BusinessException("飞手不存在");
-        }
-
-        pilot.setRating(rating);
-        pilot.setUpdateTime(LocalDateTime.now());
-
-        return pilotMapper.updateById(pilot) > 0;
+        LambdaUpdateWrapper<Pilot> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Pilot::getRating, rating)
+               .set(Pilot::getUpdateTime, LocalDateTime.now());
+        return updateColumns(id, wrapper);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean incrementCompletedOrders(Long id) {
-        Pilot pilot = pilotMapper.selectById(id);
-        if (pilot == null) {
-            throw new BusinessException("飞手不存在");
-        }
-
-        pilot.setCompletedOrders(pilot.getCompletedOrders() + 1);
-        pilot.setUpdateTime(LocalDateTime.now());
-
-        return pilotMapper.updateById(pilot) > 0;
+        LambdaUpdateWrapper<Pilot> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.setSql("completed_orders = completed_orders + 1")
+               .set(Pilot::getUpdateTime, LocalDateTime.now());
+        return updateColumns(id, wrapper);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean addIncome(Long id, BigDecimal amount) {
-        Pilot pilot = pilotMapper.selectById(id);
-        if (pilot == null) {
+        if (pilotMapper.addIncome(id, amount) == 0) {
             throw new BusinessException("飞手不存在");
         }
+        refreshGeoIndex(id);
+        return true;
+    }
 
-        pilot.setTotalIncome(pilot.getTotalIncome().add(amount));
-        pilot.setUpdateTime(LocalDateTime.now());
+    /**
+     * 处理订单完成事件
+     * 消费登记与计数累加在同一事务中，重复投递的事件不会重复累加；
+     * 计数以单条原子UPDATE累加，不与接口调用或并发事件相互覆盖；派单抢占的飞手以条件更新释放回空闲。
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean onOrderCompleted(Long messageId, OrderEvent event) {
+        if (!outbox.tryConsume(ORDER_COMPLETED_CONSUMER, messageId)) {
+            return false;
+        }
+        if (event.getPilotId() == null) {
+            log.warn("订单完成事件缺少飞手ID，订单ID: {}", event.getOrderId());
+            return true;
+        }
 
-        return pilotMapper.updateById(pilot) > 0;
+        BigDecimal income = event.getPayAmount() != null ? event.getPayAmount() : event.getAmount();
+        if (pilotMapper.addCompletedOrder(event.getPilotId(), income != null ? income : BigDecimal.ZERO) == 0) {
+            log.warn("订单完成事件对应的飞手不存在，飞手ID: {}, 订单ID: {}", event.getPilotId(), event.getOrderId());
+            return true;
+        }
+        pilotMapper.releaseWorkStatus(event.getPilotId());
+        refreshGeoIndex(event.getPilotId());
+        log.info("订单完成事件处理成功，飞手ID: {}, 订单ID: {}", event.getPilotId(), event.getOrderId());
+        return true;
+    }
+
+    /**
+     * 处理订单取消事件
+     * 待接单的订单没有飞手，无需处理；已接单的订单被取消时以条件更新把飞手由忙碌释放回空闲，
+     * 飞手已离线或已被释放时不更新。
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean onOrderCancelled(Long messageId, OrderEvent event) {
+        if (!outbox.tryConsume(ORDER_CANCELLED_CONSUMER, messageId)) {
+            return false;
+        }
+        if (event.getPilotId() == null) {
+            return true;
+        }
+        if (pilotMapper.releaseWorkStatus(event.getPilotId()) > 0) {
+            refreshGeoIndex(event.getPilotId());
+            log.info("订单取消，飞手已释放，飞手ID: {}, 订单ID: {}", event.getPilotId(), event.getOrderId());
+        }
+        return true;
     }
 
     /**
      * 转换为VO对象
      */
     private PilotVO convertToVO(Pilot pilot) {
-        PilotVO vo = new PilotVO();
-        BeanUtil.copyProperties(pilot, vo);
+        PilotVO vo = PilotConverter.toVO(pilot);
         
         // 身份证号脱敏
         if (StrUtil.isNotBlank(pilot.getIdCard())) {
@@ -353,12 +432,54 @@ public class PilotServiceImpl implements PilotService {
     }
 
     /**
-     * 计算两点间距离（简化实现，实际应使用更精确的地理计算）
+     * 索引命中结果转换为VO对象，位置以索引中的最新位置为准
      */
-    private double calculateDistance(BigDecimal lon1, BigDecimal lat1, BigDecimal lon2, BigDecimal lat2) {
-        double deltaLon = Math.abs(lon1.doubleValue() - lon2.doubleValue());
-        double deltaLat = Math.abs(lat1.doubleValue() - lat2.doubleValue());
-        // 简化计算，1度约等于111km
-        return Math.sqrt(deltaLon * deltaLon + deltaLat * deltaLat) * 111;
+    private PilotVO convertToVO(PilotGeoIndex.Hit hit) {
+        PilotVO vo = convertToVO(hit.getPilot());
+        vo.setLongitude(BigDecimal.valueOf(hit.getLongitude()));
+        vo.setLatitude(BigDecimal.valueOf(hit.getLatitude()));
+        return vo;
+    }
+
+    /**
+     * 按列更新飞手，只写入本次修改的列，不覆盖位置批量落库等并发写入的其他列
+     *
+     * @return 是否成功，飞手不存在时抛出业务异常
+     */
+    private boolean updateColumns(Long id, LambdaUpdateWrapper<Pilot> wrapper) {
+        wrapper.eq(Pilot::getId, id);
+        if (pilotMapper.update(null, wrapper) == 0) {
+            throw new BusinessException("飞手不存在");
+        }
+        refreshGeoIndex(id);
+        return true;
+    }
+
+    /**
+     * 使详情缓存失效，并在事务提交后回查飞手刷新位置索引，避免回滚后索引、缓存与数据库不一致；
+     * 索引以提交后的最新记录为准，不使用更新前读到的快照
+     */
+    private void refreshGeoIndex(Long pilotId) {
+        pilotCache.evict(pilotId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindex(pilotId);
+                }
+            });
+        } else {
+            reindex(pilotId);
+        }
+    }
+
+    private void reindex(Long pilotId) {
+        Pilot pilot = pilotMapper.selectById(pilotId);
+        if (pilot != null) {
+            pilotGeoIndex.upsert(pilot);
+        } else {
+            pilotGeoIndex.remove(pilotId);
+        }
+        pilotGeoIndex.broadcastRefresh(Collections.singletonList(pilotId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.drone.delivery.pilot.telemetry;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 待落库的飞手定位
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Getter
+@AllArgsConstructor
+public class LocationFix {
+
+    /**
+     * 经度
+     */
+    private final double longitude;
+
+    /**
+     * 纬度
+     */
+    private final double latitude;
+
+    /**
+     * 定位时间（毫秒时间戳）
+     */
+    private final long reportTime;
+
+    /**
+     * 本轮合并中第一条定位的接收时间，用于统计落库滞留
+     */
+    private final long firstReceivedAt;
+}
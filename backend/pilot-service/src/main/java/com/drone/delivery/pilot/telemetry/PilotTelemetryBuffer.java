@@ -0,0 +1,289 @@
+package com.drone.delivery.pilot.telemetry;
+
+import com.drone.delivery.pilot.cache.PilotCache;
+import com.drone.delivery.pilot.dto.PilotLocationReportDTO;
+import com.drone.delivery.pilot.geo.PilotGeoIndex;
+import com.drone.delivery.pilot.vo.TelemetryMetricsVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 飞手位置上报缓冲区
+ * 定位点先按飞手合并，只保留时间最新的一条，再由定时任务按JDBC批量写回飞手表，
+ * 把每次上报的"查询+整行更新+行锁"收敛为周期性的单条件批量更新。
+ * 只接收飞手表中存在的飞手，定位时间不晚于服务端当前时间，避免伪造的未来时间永久胜出。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PilotTelemetryBuffer {
+
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM pilot WHERE id = ? AND is_deleted = 0";
+
+    private static final String UPDATE_SQL = "UPDATE pilot SET longitude = ?, latitude = ?, last_online_time = ?, update_time = ? "
+            + "WHERE id = ? AND is_deleted = 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PilotGeoIndex pilotGeoIndex;
+    private final PilotCache pilotCache;
+
+    /**
+     * 单批写入的最大行数
+     */
+    private final int batchSize;
+
+    /**
+     * 最多缓存的飞手数，超出后新飞手的定位被丢弃
+     */
+    private final int maxPending;
+
+    /**
+     * 飞手ID -> 待落库的最新定位
+     */
+    private final ConcurrentHashMap<Long, LocationFix> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 飞手ID -> 是否存在，缓存存在性校验结果，不存在的ID同样缓存，避免伪造ID反复查库
+     */
+    private final Cache<Long, Boolean> knownPilots;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushBatches = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+
+    public PilotTelemetryBuffer(JdbcTemplate jdbcTemplate,
+                                PilotGeoIndex pilotGeoIndex,
+                                PilotCache pilotCache,
+                                @Value("${pilot.telemetry.batch-size:500}") int batchSize,
+                                @Value("${pilot.telemetry.max-pending:100000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pilotGeoIndex = pilotGeoIndex;
+        this.pilotCache = pilotCache;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.knownPilots = Caffeine.newBuilder()
+                .maximumSize(maxPending)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * 接收一批定位点
+     *
+     * @param reports 定位点
+     * @return 被接收的定位点数
+     */
+    public int offerAll(List<PilotLocationReportDTO> reports) {
+        int accepted = 0;
+        for (PilotLocationReportDTO report : reports) {
+            if (offer(report)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 接收单个定位点，同一飞手只保留定位时间最新的一条
+     *
+     * @param report 定位点
+     * @return 是否被接收
+     */
+    public boolean offer(PilotLocationReportDTO report) {
+        received.incrementAndGet();
+        if (!isValid(report)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (!isKnownPilot(report.getPilotId())) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        // 客户端时间超前于服务端时按服务端时间处理
+        long reportTime = report.getReportTime() != null ? Math.min(report.getReportTime(), now) : now;
+        double lon = report.getLongitude().doubleValue();
+        double lat = report.getLatitude().doubleValue();
+
+        if (!pending.containsKey(report.getPilotId()) && pending.size() >= maxPending) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        boolean[] accepted = {true};
+        pending.merge(report.getPilotId(), new LocationFix(lon, lat, reportTime, now), (old, fix) -> {
+            if (fix.getReportTime() < old.getReportTime()) {
+                // 乱序到达的旧定位
+                accepted[0] = false;
+                return old;
+            }
+            coalesced.incrementAndGet();
+            return new LocationFix(fix.getLongitude(), fix.getLatitude(), fix.getReportTime(), old.getFirstReceivedAt());
+        });
+        if (!accepted[0]) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        pilotGeoIndex.moveTo(report.getPilotId(), lon, lat);
+        return true;
+    }
+
+    /**
+     * 定时将缓冲区写回数据库
+     */
+    @Scheduled(fixedDelayString = "${pilot.telemetry.flush-interval-millis:1000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("飞手位置批量落库异常", e);
+        }
+    }
+
+    /**
+     * 摘取当前缓冲区中的全部定位并分批写回
+     *
+     * @return 写回的行数
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        long oldest = Long.MAX_VALUE;
+        int rows = 0;
+
+        Iterator<Map.Entry<Long, LocationFix>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, LocationFix> entry = iterator.next();
+            LocationFix fix = entry.getValue();
+            // 仅当值未被并发覆盖时才移除，被覆盖的新值留到下一轮
+            if (!pending.remove(entry.getKey(), fix)) {
+                continue;
+            }
+            oldest = Math.min(oldest, fix.getFirstReceivedAt());
+            Timestamp fixTime = new Timestamp(fix.getReportTime());
+            batch.add(new Object[]{fix.getLongitude(), fix.getLatitude(), fixTime, new Timestamp(start), entry.getKey()});
+            if (batch.size() >= batchSize) {
+                rows += writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            rows += writeBatch(batch);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        lastFlushMillis.set(elapsed);
+        if (oldest != Long.MAX_VALUE) {
+            long lag = start - oldest;
+            lastLagMillis.set(lag);
+            maxLagMillis.accumulateAndGet(lag, Math::max);
+        }
+        log.debug("飞手位置批量落库完成，行数: {}，耗时: {}ms，滞留: {}ms", rows, elapsed, lastLagMillis.get());
+        return rows;
+    }
+
+    /**
+     * 停机前把剩余定位写回
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 获取链路指标
+     */
+    public TelemetryMetricsVO metrics() {
+        TelemetryMetricsVO vo = new TelemetryMetricsVO();
+        vo.setReceived(received.get());
+        vo.setCoalesced(coalesced.get());
+        vo.setDropped(dropped.get());
+        vo.setFlushedRows(flushedRows.get());
+        vo.setFlushBatches(flushBatches.get());
+        vo.setPending(pending.size());
+        vo.setLastLagMillis(lastLagMillis.get());
+        vo.setMaxLagMillis(maxLagMillis.get());
+        vo.setLastFlushMillis(lastFlushMillis.get());
+        return vo;
+    }
+
+    private int writeBatch(List<Object[]> batch) {
+        try {
+            int[] results = jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            int rows = 0;
+            for (int result : results) {
+                // 驱动开启批量重写时可能只返回 SUCCESS_NO_INFO
+                if (result > 0 || result == Statement.SUCCESS_NO_INFO) {
+                    rows++;
+                }
+            }
+            flushBatches.incrementAndGet();
+            flushedRows.addAndGet(rows);
+            // 整批只发一次缓存失效和一次位置广播
+            List<Long> pilotIds = new ArrayList<>(batch.size());
+            Map<Long, double[]> positions = new HashMap<>(batch.size() * 2);
+            for (Object[] row : batch) {
+                pilotIds.add((Long) row[4]);
+                positions.put((Long) row[4], new double[]{(Double) row[0], (Double) row[1]});
+            }
+            pilotCache.evictAll(pilotIds);
+            pilotGeoIndex.broadcastMoves(positions);
+            return rows;
+        } catch (Exception e) {
+            // 写库失败的定位直接丢弃，飞手会在下一个上报周期带来新位置
+            dropped.addAndGet(batch.size());
+            log.error("飞手位置批量写入失败，丢弃定位数: {}", batch.size(), e);
+            return 0;
+        }
+    }
+
+    private boolean isKnownPilot(Long pilotId) {
+        Boolean known = knownPilots.get(pilotId, id -> {
+            try {
+                Long count = jdbcTemplate.queryForObject(EXISTS_SQL, Long.class, id);
+                return count != null && count > 0;
+            } catch (Exception e) {
+                log.warn("校验飞手是否存在失败，飞手ID: {}", id, e);
+                return null;
+            }
+        });
+        return Boolean.TRUE.equals(known);
+    }
+
+    private boolean isValid(PilotLocationReportDTO report) {
+        if (report == null || report.getPilotId() == null
+                || report.getLongitude() == null || report.getLatitude() == null) {
+            return false;
+        }
+        double lon = report.getLongitude().doubleValue();
+        double lat = report.getLatitude().doubleValue();
+        return lon >= -180 && lon <= 180 && lat >= -90 && lat <= 90;
+    }
+}
@@ -0,0 +1,58 @@
+package com.drone.delivery.pilot.vo;
+
+import lombok.Data;
+
+/**
+ * 位置上报链路指标视图对象
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+@Data
+public class TelemetryMetricsVO {
+
+    /**
+     * 累计接收的定位点数
+     */
+    private Long received;
+
+    /**
+     * 被同一飞手更新的定位覆盖、未落库的定位点数
+     */
+    private Long coalesced;
+
+    /**
+     * 丢弃的定位点数（过期、坐标非法、缓冲区已满）
+     */
+    private Long dropped;
+
+    /**
+     * 累计落库行数
+     */
+    private Long flushedRows;
+
+    /**
+     * 累计落库批次数
+     */
+    private Long flushBatches;
+
+    /**
+     * 当前待落库的飞手数
+     */
+    private Integer pending;
+
+    /**
+     * 最近一次落库时最早定位点的滞留时间（毫秒）
+     */
+    private Long lastLagMillis;
+
+    /**
+     * 历史最大滞留时间（毫秒）
+     */
+    private Long maxLagMillis;
+
+    /**
+     * 最近一次落库耗时（毫秒）
+     */
+    private Long lastFlushMillis;
+}
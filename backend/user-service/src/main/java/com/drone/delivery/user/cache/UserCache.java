@@ -0,0 +1,48 @@
+package com.drone.delivery.user.cache;
+
+import com.drone.delivery.common.cache.NearCache;
+import com.drone.delivery.common.cache.NearCacheManager;
+import com.drone.delivery.user.vo.UserVO;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 用户详情缓存
+ * 缓存的是脱敏后的 {@link UserVO} 而不是实体，避免密码摘要进入Redis。
+ * 修改、禁用、删除用户后必须调用 {@link #evict}。
+ *
+ * @author drone-delivery
+ * @since 1.0.0
+ */
+@Component
+public class UserCache {
+
+    private final NearCache<Long, UserVO> byId;
+
+    public UserCache(NearCacheManager nearCacheManager) {
+        this.byId = nearCacheManager.getCache("user", UserVO.class,
+                Duration.ofSeconds(30), Duration.ofMinutes(10), 10000);
+    }
+
+    /**
+     * 按ID读取用户详情
+     *
+     * @param userId 用户ID
+     * @param loader 未命中时的回源加载器
+     * @return 用户详情，不存在时为 null
+     */
+    public UserVO getById(Long userId, Function<Long, UserVO> loader) {
+        return byId.get(userId, loader);
+    }
+
+    /**
+     * 使用户缓存失效
+     *
+     * @param userId 用户ID
+     */
+    public void evict(Long userId) {
+        byId.evict(userId);
+    }
+}
@@ -0,0 +1,75 @@
+package com.drone.delivery.user.convert;
+
+import com.drone.delivery.user.dto.UserRegisterDTO;
+import com.drone.delivery.user.dto.UserUpdateDTO;
+import com.drone.delivery.user.entity.User;
+import com.drone.delivery.user.vo.UserVO;
+
+/**
+ * 用户对象转换器
+ * 以显式的getter/setter完成实体、DTO与VO之间的转换，替代基于反射的属性拷贝，
+ * 新增字段时需同步维护此处的映射。
+ *
+ * @author drone-delivery
+ * @since 2024-01-01
+ */
+public final class UserConverter {
+
+    private UserConverter() {
+    }
+
+    /**
+     * 注册参数转换为用户实体，密码需另行加密
+     */
+    public static User toEntity(UserRegisterDTO registerDTO) {
+        if (registerDTO == null) {
+            return null;
+        }
+        User user = new User();
+        user.setUsername(registerDTO.getUsername());
+        user.setPassword(registerDTO.getPassword());
+        user.setNickname(registerDTO.getNickname());
+        user.setPhone(registerDTO.getPhone());
+        user.setEmail(registerDTO.getEmail());
+        return user;
+    }
+
+    /**
+     * 更新参数转换为用户实体，仅包含可修改字段
+     */
+    public static User toEntity(UserUpdateDTO updateDTO) {
+        if (updateDTO == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(updateDTO.getId());
+        user.setNickname(updateDTO.getNickname());
+        user.setAvatar(updateDTO.getAvatar());
+        user.setPhone(updateDTO.getPhone());
+        user.setEmail(updateDTO.getEmail());
+        user.setStatus(updateDTO.getStatus());
+        return user;
+    }
+
+    /**
+     * 用户实体转换为视图对象（不含描述字段）
+     */
+    public static UserVO toVO(User user) {
+        if (user == null) {
+            return null;
+        }
+        UserVO vo = new UserVO();
+        vo.setId(user.getId());
+        vo.setUsername(user.getUsername());
+        vo.setNickname(user.getNickname());
+        vo.setAvatar(user.getAvatar());
+        vo.setPhone(user.getPhone());
+        vo.setEmail(user.getEmail());
+        vo.setUserType(user.getUserType());
+        vo.setStatus(user.getStatus());
+        vo.setCreateTime(user.getCreateTime());
+        vo.setUpdateTime(user.getUpdateTime());
+        vo.setLastLoginTime(user.getLastLoginTime());
+        return vo;
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.drone.delivery.common.exception.BusinessException;
 import com.drone.delivery.common.utils.JwtUtils;
+import com.drone.delivery.user.cache.UserCache;
 import com.drone.delivery.user.dto.UserLoginDTO;
 import com.drone.delivery.user.dto.UserQueryDTO;
 import com.drone.delivery.user.dto.UserRegisterDTO;
@@ -13,9 +14,9 @@ import com.drone.delivery.user.entity.User;
 import com.drone.delivery.user.mapper.UserMapper;
 import com.drone.delivery.user.service.UserService;
 import com.drone.delivery.user.vo.UserVO;
+import com.drone.delivery.user.convert.UserConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -36,6 +37,7 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserMapper userMapper;
+    private final UserCache userCache;
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     /**
@@ -103,8 +105,7 @@ public class UserServiceImpl implements UserService {
         }
         
         // 创建用户对象
-        User user = new User();
-        BeanUtils.copyProperties(registerDTO, user);
+        User user = UserConverter.toEntity(registerDTO);
         user.setPassword(passwordEncoder.encode(registerDTO.getPassword()));
         user.setStatus(1); // 默认启用
         user.setCreateTime(LocalDateTime.now());
@@ -162,8 +163,7 @@ public class UserServiceImpl implements UserService {
         Page<User> userPage = userMapper.selectPage(page, queryWrapper);
         
         // 转换为VO
-        Page<UserVO> voPage = new Page<>();
-        BeanUtils.copyProperties(userPage, voPage);
+        Page<UserVO> voPage = new Page<>(userPage.getCurrent(), userPage.getSize(), userPage.getTotal());
         List<UserVO> voList = userPage.getRecords().stream()
                 .map(this::convertToVO)
                 .collect(Collectors.toList());
@@ -182,12 +182,15 @@ public class UserServiceImpl implements UserService {
     public UserVO getUserDetail(Long id) {
         log.info("查询用户详情，用户ID：{}", id);
         
-        User user = getById(id);
-        if (user == null) {
+        UserVO userVO = userCache.getById(id, userId -> {
+            User user = getById(userId);
+            return user != null ? convertToVO(user) : null;
+        });
+        if (userVO == null) {
             throw new BusinessException(404, "用户不存在");
         }
         
-        return convertToVO(user);
+        return userVO;
     }
 
     /**
@@ -220,11 +223,11 @@ public class UserServiceImpl implements UserService {
         }
         
         // 更新用户信息
-        User user = new User();
-        BeanUtils.copyProperties(updateDTO, user);
+        User user = UserConverter.toEntity(updateDTO);
         user.setUpdateTime(LocalDateTime.now());
         
         int result = userMapper.updateById(user);
+        userCache.evict(updateDTO.getId());
         log.info("用户信息更新成功，用户ID：{}", updateDTO.getId());
         
         return result > 0;
@@ -252,6 +255,7 @@ public class UserServiceImpl implements UserService {
                     .set(User::getUpdateTime, LocalDateTime.now());
         
         int result = userMapper.update(null, updateWrapper);
+        userCache.evict(id);
         log.info("用户状态更新成功，用户ID：{}，状态：{}", id, status);
         
         return result > 0;
@@ -279,6 +283,7 @@ public class UserServiceImpl implements UserService {
                     .set(User::getUpdateTime, LocalDateTime.now());
         
         int result = userMapper.update(null, updateWrapper);
+        userCache.evict(id);
         log.info("用户删除成功，用户ID：{}", id);
         
         return result > 0;
@@ -361,8 +366,7 @@ public class UserServiceImpl implements UserService {
      * @return 用户VO
      */
     private UserVO convertToVO(User user) {
-        UserVO userVO = new UserVO();
-        BeanUtils.copyProperties(user, userVO);
+        UserVO userVO = UserConverter.toVO(user);
         
         // 设置用户类型描述
         switch (user.getUserType()) {
@@ -47,7 +47,7 @@ CREATE TABLE `order_info` (
   `goods_description` varchar(500) DEFAULT NULL COMMENT '货物描述',
   `total_amount` decimal(10,2) NOT NULL COMMENT '订单总金额',
   `delivery_fee` decimal(10,2) NOT NULL COMMENT '配送费',
-  `status` tinyint NOT NULL DEFAULT '1' COMMENT '订单状态：1-待支付，2-已支付，3-已接单，4-取货中，5-配送中，6-已送达，7-已取消，8-配送失败，9-已退款',
+  `status` tinyint NOT NULL DEFAULT '1' COMMENT '订单状态：1-待接单，2-已接单，3-配送中，4-已完成，5-已取消',
   `estimated_time` int DEFAULT NULL COMMENT '预计配送时间(分钟)',
   `actual_time` int DEFAULT NULL COMMENT '实际配送时间(分钟)',
   `pickup_time` datetime DEFAULT NULL COMMENT '取货时间',